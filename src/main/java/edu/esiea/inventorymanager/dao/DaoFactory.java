@@ -1,61 +1,184 @@
 package edu.esiea.inventorymanager.dao;
 
-import edu.esiea.inventorymanager.dao.bddimp.ArticlesDaoBdd;
-import edu.esiea.inventorymanager.dao.bddimp.CategoriesDaoBdd;
-import edu.esiea.inventorymanager.dao.bddimp.CommandsDaoBdd;
-import edu.esiea.inventorymanager.dao.bddimp.StocksDaoBdd;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+import java.util.ServiceLoader;
+
+import javax.persistence.PersistenceException;
+
+import org.apache.log4j.Logger;
+
+import edu.esiea.inventorymanager.dao.bddimp.DaoBddBackend;
 import edu.esiea.inventorymanager.dao.interfaces.IArticlesDao;
 import edu.esiea.inventorymanager.dao.interfaces.ICategoriesDao;
 import edu.esiea.inventorymanager.dao.interfaces.ICommandsDao;
+import edu.esiea.inventorymanager.dao.interfaces.IDaoBackend;
 import edu.esiea.inventorymanager.dao.interfaces.IStocksDao;
 import edu.esiea.inventorymanager.exception.DaoException;
 
 public class DaoFactory {
-	private static DaoFactory instance;
-	private IArticlesDao articlesDao;
-	private ICategoriesDao categoriesDao;
-	private ICommandsDao commandsDao;
-	private IStocksDao stocksDao;
+	/**
+	 * Name of the setting choosing the {@link IDaoBackend} that builds the DAOs,
+	 * {@value DaoBddBackend#NAME} (JPA) by default. Read from the system
+	 * properties, then from dao.properties.
+	 */
+	public static final String PROPERTY_BACKEND = "dao.backend";
+
+	private static final Logger logger = Logger.getLogger(DaoFactory.class);
+
+	private final IDaoBackend backend;
+	private volatile Daos daos;
+
+	/**
+	 * The DAOs built together on a given context of the backend. Replaced as a
+	 * whole, so that a thread never sees some DAOs of a former context along with
+	 * new ones.
+	 */
+	private record Daos(Object context, IArticlesDao articles, ICategoriesDao categories, ICommandsDao commands,
+			IStocksDao stocks) {
+	}
+
+	/**
+	 * The single instance, built on first use by the class loader, which
+	 * publishes it safely to every thread.
+	 */
+	private static final class Holder {
+		private static final DaoFactory INSTANCE = new DaoFactory();
+	}
 
 	public static DaoFactory getInstance() {
-		if (instance == null) {
-			instance = new DaoFactory();
-		}
-		return instance;
+		return Holder.INSTANCE;
 	}
 
 	private DaoFactory() {
+		this.backend = findBackend(readBackendName());
+		logger.info("Implémentation des DAO utilisée : " + this.backend.getName());
 	}
 
-	public IArticlesDao getArticlesDao() throws DaoException {
-		if (this.articlesDao == null) {
-			this.articlesDao = new ArticlesDaoBdd();
+	private static String readBackendName() {
+		return getSetting(PROPERTY_BACKEND, DaoBddBackend.NAME);
+	}
+
+	/**
+	 * Reads a setting of the DAOs from the system properties, then from
+	 * dao.properties.
+	 *
+	 * @param name         name of the setting
+	 * @param defaultValue value returned if it is set nowhere
+	 * @return the value of the setting, trimmed.
+	 */
+	public static String getSetting(final String name, final String defaultValue) {
+		final String value = System.getProperty(name);
+		if (value != null) {
+			return value.trim();
+		}
+		final Properties properties = new Properties();
+		try (InputStream in = DaoFactory.class.getResourceAsStream("/dao.properties")) {
+			if (in != null) {
+				properties.load(in);
+			}
+		} catch (final IOException e) {
+			logger.warn("Impossible de lire dao.properties, la valeur par défaut de " + name + " est utilisée : "
+					+ e.getMessage());
 		}
-		return this.articlesDao;
+		return properties.getProperty(name, defaultValue).trim();
+	}
 
+	private static IDaoBackend findBackend(final String name) {
+		for (final IDaoBackend candidate : ServiceLoader.load(IDaoBackend.class, DaoFactory.class.getClassLoader())) {
+			if (candidate.getName().equals(name)) {
+				return candidate;
+			}
+		}
+		throw new IllegalStateException("Aucune implémentation des DAO nommée \"" + name + "\".");
 	}
 
-	public ICategoriesDao getCategoriesDao() throws DaoException {
-		if (this.categoriesDao == null) {
-			this.categoriesDao = new CategoriesDaoBdd();
+	/**
+	 * @return the DAOs built on the current context of the backend. They are
+	 *         built again when it is replaced, by a forceTestInstance() of its
+	 *         helper : the former ones would keep on working with the former
+	 *         store, outside of the transactions of
+	 *         {@link #inTransaction(UnitOfWork)}.
+	 */
+	private Daos daos() throws DaoException {
+		final Object current = this.backend.getContext();
+		Daos built = this.daos;
+		if (built == null || built.context() != current) {
+			synchronized (this) {
+				built = this.daos;
+				if (built == null || built.context() != current) {
+					built = new Daos(current, this.backend.createArticlesDao(), this.backend.createCategoriesDao(),
+							this.backend.createCommandsDao(), this.backend.createStocksDao());
+					this.daos = built;
+				}
+			}
 		}
-		return this.categoriesDao;
+		return built;
+	}
 
+	/**
+	 * Builds the persistence unit and the DAOs, and opens a first connection, so
+	 * that the first request does not pay for it. Called when the application is
+	 * deployed.
+	 *
+	 * @throws DaoException if the persistence unit can't be built.
+	 */
+	public void warmUp() throws DaoException {
+		this.daos();
+		// the connection has been opened by the unit of work of this thread, which
+		// is not the one of a request
+		this.backend.closeUnitOfWork();
 	}
 
-	public ICommandsDao getCommandsDao() throws DaoException {
-		if (this.commandsDao == null) {
-			this.commandsDao = new CommandsDaoBdd();
-		}
-		return this.commandsDao;
+	/**
+	 * Ends the unit of work of the current thread, closing its Entity Manager
+	 * with the JPA backend.
+	 *
+	 * @throws DaoException in case of error.
+	 */
+	public void closeUnitOfWork() throws DaoException {
+		this.backend.closeUnitOfWork();
+	}
 
+	public IArticlesDao getArticlesDao() throws DaoException {
+		return this.daos().articles();
+	}
+
+	public ICategoriesDao getCategoriesDao() throws DaoException {
+		return this.daos().categories();
+	}
+
+	public ICommandsDao getCommandsDao() throws DaoException {
+		return this.daos().commands();
 	}
 
 	public IStocksDao getStocksDao() throws DaoException {
-		if (this.stocksDao == null) {
-			this.stocksDao = new StocksDaoBdd();
-		}
-		return this.stocksDao;
+		return this.daos().stocks();
+	}
 
+	/**
+	 * Runs the given operations in a single transaction : the DAOs they call
+	 * join it instead of committing on their own, and everything is committed
+	 * at once at the end, or rolled back if one of them fails.
+	 *
+	 * @param work the operations to run
+	 * @return the result of the operations
+	 * @throws DaoException in case of error, nothing has been stored then.
+	 */
+	public <T> T inTransaction(final UnitOfWork<T> work) throws DaoException {
+		this.daos();
+		this.backend.beginTransaction();
+		try {
+			final T result = work.execute(this);
+			this.backend.commitTransaction();
+			return result;
+		} catch (final PersistenceException e) {
+			this.backend.rollBackTransaction();
+			throw new DaoException("Impossible de valider la transaction.", e);
+		} catch (final DaoException | RuntimeException e) {
+			this.backend.rollBackTransaction();
+			throw e;
+		}
 	}
-}
\ No newline at end of file
+}
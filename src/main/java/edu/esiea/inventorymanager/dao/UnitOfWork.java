@@ -0,0 +1,23 @@
+package edu.esiea.inventorymanager.dao;
+
+import edu.esiea.inventorymanager.exception.DaoException;
+
+/**
+ * Several DAO operations to be run in a single transaction by
+ * {@link DaoFactory#inTransaction(UnitOfWork)}.
+ *
+ * @param <T> type of the result of the operations
+ */
+@FunctionalInterface
+public interface UnitOfWork<T> {
+
+	/**
+	 * Runs the operations.
+	 *
+	 * @param daos the factory giving the DAOs to use
+	 * @return the result of the operations, can be <code>null</code>.
+	 * @throws DaoException in case of error, the whole transaction is then rolled
+	 *                      back.
+	 */
+	T execute(DaoFactory daos) throws DaoException;
+}
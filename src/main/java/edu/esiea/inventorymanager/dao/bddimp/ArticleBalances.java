@@ -0,0 +1,34 @@
+package edu.esiea.inventorymanager.dao.bddimp;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityNotFoundException;
+
+import edu.esiea.inventorymanager.model.ArticleBalance;
+
+/**
+ * Maintenance of the {@link ArticleBalance} rows, shared by the JPA and JDBC
+ * DAOs that write Stock movements. Must be called inside their transaction.
+ */
+public final class ArticleBalances {
+
+	private ArticleBalances() {
+	}
+
+	/**
+	 * Applies a quantity change to the on-hand balance of an Article with an atomic
+	 * update. Every Article has a balance : it is created with the Article, or by
+	 * the migration V2 for the Articles stored before the balances existed.
+	 *
+	 * @throws EntityNotFoundException if the Article has no balance.
+	 */
+	public static void add(final EntityManager em, final int articleId, final int delta) {
+		if (delta == 0) {
+			return;
+		}
+		final int updated = em.createNamedQuery("ArticleBalance.addQuantity").setParameter("delta", delta)
+				.setParameter("id", articleId).executeUpdate();
+		if (updated == 0) {
+			throw new EntityNotFoundException("Le stock de l'article " + articleId + " n'existe pas.");
+		}
+	}
+}
@@ -1,13 +1,21 @@
 package edu.esiea.inventorymanager.dao.bddimp;
 
+import java.util.Collection;
 import java.util.List;
 
+import javax.persistence.Cache;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityNotFoundException;
+import javax.persistence.OptimisticLockException;
 import javax.persistence.PersistenceException;
 import javax.persistence.TypedQuery;
 
 import edu.esiea.inventorymanager.dao.interfaces.IArticlesDao;
 import edu.esiea.inventorymanager.exception.DaoException;
+import edu.esiea.inventorymanager.exception.StaleDataException;
 import edu.esiea.inventorymanager.model.Article;
+import edu.esiea.inventorymanager.model.ArticleBalance;
+import edu.esiea.inventorymanager.model.ArticleSummary;
 
 public class ArticlesDaoBdd implements IArticlesDao {
 
@@ -21,7 +29,10 @@ public class ArticlesDaoBdd implements IArticlesDao {
 	public Article createArticle(final Article a) throws DaoException {
 		try {
 			this.bdd.beginTransaction();
-			this.bdd.getEntityManager().persist(a);
+			final EntityManager em = this.bdd.getEntityManager();
+			em.persist(a);
+			em.flush();
+			em.persist(new ArticleBalance(a.getId(), 0));
 			this.bdd.commitTransaction();
 			return a;
 		} catch (final PersistenceException e) {
@@ -32,20 +43,57 @@ public class ArticlesDaoBdd implements IArticlesDao {
 
 	@Override
 	public List<Article> getAllArticles() throws DaoException {
+		return this.getAllArticles(false);
+	}
+
+	@Override
+	public List<Article> getAllArticles(final boolean withStocks) throws DaoException {
 		final TypedQuery<Article> query = this.bdd.getEntityManager().createNamedQuery("Article.findAll",
 				Article.class);
-		return query.getResultList();
+		return this.getResultList(query, withStocks);
 	}
 
 	@Override
-	public Article getArticleById(final int id) throws DaoException {
-		final TypedQuery<Article> query = this.bdd.getEntityManager().createNamedQuery("Article.findById",
+	public List<Article> getArticlesPage(final int afterId, final int limit) throws DaoException {
+		return this.getArticlesPage(afterId, limit, false);
+	}
+
+	@Override
+	public List<Article> getArticlesPage(final int afterId, final int limit, final boolean withStocks)
+			throws DaoException {
+		final TypedQuery<Article> query = this.bdd.getEntityManager().createNamedQuery("Article.findPage",
 				Article.class);
-		query.setParameter("id", id);
-		if (query.getResultList().size() > 0) {
-			return query.getSingleResult();
+		query.setParameter("id", afterId);
+		query.setMaxResults(limit);
+		return this.getResultList(query, withStocks);
+	}
+
+	@Override
+	public Article getArticleById(final int id) throws DaoException {
+		return this.getArticleById(id, false);
+	}
+
+	@Override
+	public Article getArticleById(final int id, final boolean withStocks) throws DaoException {
+		final Article article = this.bdd.getEntityManager().find(Article.class, id);
+		if (article != null && withStocks) {
+			article.getStock().size();
+		}
+		return article;
+	}
+
+	@Override
+	public List<Article> getArticlesByIds(final Collection<Integer> ids) throws DaoException {
+		return this.bdd.getResultListByIds("Article.findByIds", Article.class, ids);
+	}
+
+	@Override
+	public Article getArticleReference(final int id) throws DaoException {
+		try {
+			return this.bdd.getEntityManager().getReference(Article.class, id);
+		} catch (final EntityNotFoundException e) {
+			return null;
 		}
-		return null;
 	}
 
 	@Override
@@ -53,26 +101,74 @@ public class ArticlesDaoBdd implements IArticlesDao {
 		final TypedQuery<Article> query = this.bdd.getEntityManager().createNamedQuery("Article.findByStockId",
 				Article.class);
 		query.setParameter("id", id);
-		if (query.getResultList().size() > 0) {
-			return query.getResultList().getFirst();
-		}
-		return null;
+		final List<Article> result = query.getResultList();
+		return result.isEmpty() ? null : result.getFirst();
 	}
 
 	@Override
 	public List<Article> getAllArticlesByCategoryId(final int categoryId) throws DaoException {
-		final TypedQuery<Article> query = this.bdd.getEntityManager().createNamedQuery("Article.findByCategoryId",
+		final TypedQuery<Article> query = this.bdd.getEntityManager().createNamedQuery("Article.findAllByCategoryId",
 				Article.class);
 		query.setParameter("id", categoryId);
 		return query.getResultList();
 	}
 
+	@Override
+	public List<Article> getArticlesPageByCategoryId(final int categoryId, final int afterId, final int limit)
+			throws DaoException {
+		final TypedQuery<Article> query = this.bdd.getEntityManager().createNamedQuery("Article.findPageByCategoryId",
+				Article.class);
+		query.setParameter("categoryId", categoryId);
+		query.setParameter("id", afterId);
+		query.setMaxResults(limit);
+		return query.getResultList();
+	}
+
+	@Override
+	public long countArticlesByCategoryId(final int categoryId) throws DaoException {
+		final TypedQuery<Long> query = this.bdd.getEntityManager().createNamedQuery("Article.countByCategoryId",
+				Long.class);
+		query.setParameter("id", categoryId);
+		return query.getSingleResult();
+	}
+
+	@Override
+	public ArticleBalance getArticleBalance(final int articleId) throws DaoException {
+		return this.bdd.getEntityManager().find(ArticleBalance.class, articleId);
+	}
+
+	@Override
+	public List<ArticleBalance> getArticleBalances(final Collection<Integer> articleIds) throws DaoException {
+		return this.bdd.getResultListByIds("ArticleBalance.findByArticleIds", ArticleBalance.class, articleIds);
+	}
+
+	@Override
+	public List<ArticleSummary> getAllArticleSummaries() throws DaoException {
+		final TypedQuery<ArticleSummary> query = this.bdd.getEntityManager()
+				.createNamedQuery("Article.findAllSummaries", ArticleSummary.class);
+		return query.getResultList();
+	}
+
+	@Override
+	public List<ArticleSummary> getArticleSummariesPage(final int afterId, final int limit) throws DaoException {
+		final TypedQuery<ArticleSummary> query = this.bdd.getEntityManager()
+				.createNamedQuery("Article.findSummaryPage", ArticleSummary.class);
+		query.setParameter("id", afterId);
+		query.setMaxResults(limit);
+		return query.getResultList();
+	}
+
 	@Override
 	public void updateArticle(final Article a) throws DaoException {
 		try {
 			this.bdd.beginTransaction();
-			this.bdd.getEntityManager().merge(a);
+			final EntityManager em = this.bdd.getEntityManager();
+			em.merge(a);
+			em.flush();
 			this.bdd.commitTransaction();
+		} catch (final OptimisticLockException e) {
+			this.bdd.rollBackTransaction();
+			throw new StaleDataException("L'article a été modifié entre-temps.", e);
 		} catch (final PersistenceException e) {
 			this.bdd.rollBackTransaction();
 			throw new DaoException("Impossible de modifier l'article.", e);
@@ -81,13 +177,41 @@ public class ArticlesDaoBdd implements IArticlesDao {
 
 	@Override
 	public void deleteArticle(final Article a) throws DaoException {
+		this.deleteArticleById(a.getId());
+	}
+
+	@Override
+	public boolean deleteArticleById(final int id) throws DaoException {
+		final EntityManager em = this.bdd.getEntityManager();
+		final int deleted;
 		try {
 			this.bdd.beginTransaction();
-			this.bdd.getEntityManager().remove(a);
+			em.createNamedQuery("Stock.deleteByArticleId").setParameter("id", id).executeUpdate();
+			em.createNamedQuery("ArticleBalance.deleteByArticleId").setParameter("id", id).executeUpdate();
+			deleted = em.createNamedQuery("Article.deleteById").setParameter("id", id).executeUpdate();
+			// the bulk deletes are not seen by the shared cache nor by the persistence
+			// context : the Article is dropped from both, the Stocks of the Commands
+			// are not held by the shared cache
+			final Cache cache = em.getEntityManagerFactory().getCache();
+			this.bdd.afterCommit(() -> {
+				cache.evict(Article.class, id);
+				em.clear();
+			});
 			this.bdd.commitTransaction();
 		} catch (final PersistenceException e) {
 			this.bdd.rollBackTransaction();
 			throw new DaoException("Impossible de supprimer l'article", e);
 		}
+		return deleted > 0;
+	}
+
+	private List<Article> getResultList(final TypedQuery<Article> query, final boolean withStocks) {
+		if (!withStocks) {
+			return query.getResultList();
+		}
+		final List<Article> result = this.bdd.withEntityGraph(query, "Article.stocks", "art.stocks").getResultList();
+		// the first access loads the Stocks of every Article of the result at once
+		result.forEach(art -> art.getStock().size());
+		return result;
 	}
 }
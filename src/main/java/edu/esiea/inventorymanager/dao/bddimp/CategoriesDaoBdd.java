@@ -2,11 +2,14 @@ package edu.esiea.inventorymanager.dao.bddimp;
 
 import java.util.List;
 
+import javax.persistence.EntityManager;
+import javax.persistence.OptimisticLockException;
 import javax.persistence.PersistenceException;
 import javax.persistence.TypedQuery;
 
 import edu.esiea.inventorymanager.dao.interfaces.ICategoriesDao;
 import edu.esiea.inventorymanager.exception.DaoException;
+import edu.esiea.inventorymanager.exception.StaleDataException;
 import edu.esiea.inventorymanager.model.Category;
 
 public class CategoriesDaoBdd implements ICategoriesDao {
@@ -38,22 +41,30 @@ public class CategoriesDaoBdd implements ICategoriesDao {
 	}
 
 	@Override
-	public Category getCategoryById(final int id) throws DaoException {
-		final TypedQuery<Category> query = this.bdd.getEntityManager().createNamedQuery("Category.findById",
+	public List<Category> getCategoriesPage(final int afterId, final int limit) throws DaoException {
+		final TypedQuery<Category> query = this.bdd.getEntityManager().createNamedQuery("Category.findPage",
 				Category.class);
-		query.setParameter("id", id);
-		if (query.getResultList().size() > 0) {
-			return query.getResultList().getFirst();
-		}
-		return null;
+		query.setParameter("id", afterId);
+		query.setMaxResults(limit);
+		return query.getResultList();
+	}
+
+	@Override
+	public Category getCategoryById(final int id) throws DaoException {
+		return this.bdd.getEntityManager().find(Category.class, id);
 	}
 
 	@Override
 	public void updateCategory(final Category cat) throws DaoException {
 		try {
 			this.bdd.beginTransaction();
-			this.bdd.getEntityManager().merge(cat);
+			final EntityManager em = this.bdd.getEntityManager();
+			em.merge(cat);
+			em.flush();
 			this.bdd.commitTransaction();
+		} catch (final OptimisticLockException e) {
+			this.bdd.rollBackTransaction();
+			throw new StaleDataException("La catégorie a été modifiée entre-temps.", e);
 		} catch (final PersistenceException e) {
 			this.bdd.rollBackTransaction();
 			throw new DaoException("Impossible de modifier la catégorie.", e);
@@ -64,7 +75,8 @@ public class CategoriesDaoBdd implements ICategoriesDao {
 	public void deleteCategory(final Category cat) throws DaoException {
 		try {
 			this.bdd.beginTransaction();
-			this.bdd.getEntityManager().remove(cat);
+			final EntityManager em = this.bdd.getEntityManager();
+			em.remove(em.contains(cat) ? cat : em.merge(cat));
 			this.bdd.commitTransaction();
 		} catch (final PersistenceException e) {
 			this.bdd.rollBackTransaction();
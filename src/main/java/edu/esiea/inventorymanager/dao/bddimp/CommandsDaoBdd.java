@@ -1,13 +1,27 @@
 package edu.esiea.inventorymanager.dao.bddimp;
 
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import javax.persistence.Cache;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityNotFoundException;
+import javax.persistence.FlushModeType;
+import javax.persistence.OptimisticLockException;
+import javax.persistence.Persistence;
 import javax.persistence.PersistenceException;
 import javax.persistence.TypedQuery;
 
 import edu.esiea.inventorymanager.dao.interfaces.ICommandsDao;
 import edu.esiea.inventorymanager.exception.DaoException;
+import edu.esiea.inventorymanager.exception.StaleDataException;
 import edu.esiea.inventorymanager.model.Command;
+import edu.esiea.inventorymanager.model.CommandSummary;
+import edu.esiea.inventorymanager.model.InOut;
+import edu.esiea.inventorymanager.model.Stock;
 
 public class CommandsDaoBdd implements ICommandsDao {
 
@@ -21,7 +35,15 @@ public class CommandsDaoBdd implements ICommandsDao {
 	public Command createCommand(final Command com) throws DaoException {
 		try {
 			this.bdd.beginTransaction();
-			this.bdd.getEntityManager().persist(com);
+			final EntityManager em = this.bdd.getEntityManager();
+			// only the Stocks persisted along with the Command move the balances, the
+			// ones already stored have been counted when they were created
+			final Map<Integer, Integer> deltas = new HashMap<>();
+			this.addNewStocks(deltas, com);
+			link(com);
+			em.persist(com);
+			em.flush();
+			applyDeltas(em, deltas);
 			this.bdd.commitTransaction();
 			return com;
 		} catch (final PersistenceException e) {
@@ -32,17 +54,52 @@ public class CommandsDaoBdd implements ICommandsDao {
 
 	@Override
 	public List<Command> getAllCommands() throws DaoException {
+		return this.getAllCommands(false);
+	}
+
+	@Override
+	public List<Command> getAllCommands(final boolean withStocks) throws DaoException {
 		final TypedQuery<Command> query = this.bdd.getEntityManager().createNamedQuery("Command.findAll",
 				Command.class);
-		return query.getResultList();
+		return this.getResultList(query, withStocks);
 	}
 
 	@Override
-	public Command getCommandById(final int id) throws DaoException {
-		final TypedQuery<Command> query = this.bdd.getEntityManager().createNamedQuery("Command.findById",
+	public List<Command> getCommandsPage(final int afterId, final int limit) throws DaoException {
+		return this.getCommandsPage(afterId, limit, false);
+	}
+
+	@Override
+	public List<Command> getCommandsPage(final int afterId, final int limit, final boolean withStocks)
+			throws DaoException {
+		final TypedQuery<Command> query = this.bdd.getEntityManager().createNamedQuery("Command.findPage",
 				Command.class);
-		query.setParameter("id", id);
-		return query.getResultList().isEmpty() ? null : query.getResultList().getFirst();
+		query.setParameter("id", afterId);
+		query.setMaxResults(limit);
+		return this.getResultList(query, withStocks);
+	}
+
+	@Override
+	public Command getCommandById(final int id) throws DaoException {
+		return this.getCommandById(id, false);
+	}
+
+	@Override
+	public Command getCommandById(final int id, final boolean withStocks) throws DaoException {
+		final Command command = this.bdd.getEntityManager().find(Command.class, id);
+		if (command != null && withStocks) {
+			command.getStocks().size();
+		}
+		return command;
+	}
+
+	@Override
+	public Command getCommandReference(final int id) throws DaoException {
+		try {
+			return this.bdd.getEntityManager().getReference(Command.class, id);
+		} catch (final EntityNotFoundException e) {
+			return null;
+		}
 	}
 
 	@Override
@@ -50,15 +107,45 @@ public class CommandsDaoBdd implements ICommandsDao {
 		final TypedQuery<Command> query = this.bdd.getEntityManager().createNamedQuery("Command.findByStockId",
 				Command.class);
 		query.setParameter("id", id);
-		return query.getResultList().isEmpty() ? null : query.getResultList().getFirst();
+		final List<Command> result = query.getResultList();
+		return result.isEmpty() ? null : result.getFirst();
+	}
+
+	@Override
+	public List<CommandSummary> getAllCommandSummaries() throws DaoException {
+		final TypedQuery<CommandSummary> query = this.bdd.getEntityManager()
+				.createNamedQuery("Command.findAllSummaries", CommandSummary.class);
+		return query.getResultList();
+	}
+
+	@Override
+	public List<CommandSummary> getCommandSummariesPage(final int afterId, final int limit) throws DaoException {
+		final TypedQuery<CommandSummary> query = this.bdd.getEntityManager()
+				.createNamedQuery("Command.findSummaryPage", CommandSummary.class);
+		query.setParameter("id", afterId);
+		query.setMaxResults(limit);
+		return query.getResultList();
 	}
 
 	@Override
 	public void updateCommand(final Command com) throws DaoException {
 		try {
 			this.bdd.beginTransaction();
-			this.bdd.getEntityManager().merge(com);
+			final EntityManager em = this.bdd.getEntityManager();
+			final Map<Integer, Integer> deltas = new HashMap<>();
+			if (com.getStocks() != null && Persistence.getPersistenceUtil().isLoaded(com, "stocks")) {
+				// the Stocks no longer listed are deleted as orphans by the merge
+				this.removeDroppedStocks(em, deltas, com);
+				this.addNewStocks(deltas, com);
+				link(com);
+			}
+			em.merge(com);
+			em.flush();
+			applyDeltas(em, deltas);
 			this.bdd.commitTransaction();
+		} catch (final OptimisticLockException e) {
+			this.bdd.rollBackTransaction();
+			throw new StaleDataException("La commande a été modifiée entre-temps.", e);
 		} catch (final PersistenceException e) {
 			this.bdd.rollBackTransaction();
 			throw new DaoException("Impossible de modifier la commande.", e);
@@ -67,13 +154,115 @@ public class CommandsDaoBdd implements ICommandsDao {
 
 	@Override
 	public void deleteCommand(final Command com) throws DaoException {
+		this.deleteCommandById(com.getId());
+	}
+
+	@Override
+	public boolean deleteCommandById(final int id) throws DaoException {
+		final EntityManager em = this.bdd.getEntityManager();
+		final int deleted;
 		try {
 			this.bdd.beginTransaction();
-			this.bdd.getEntityManager().remove(com);
+			final List<Object[]> sums = this.sumSignedQuantities(em, id);
+			em.createNamedQuery("Stock.deleteByCommandId").setParameter(1, id).executeUpdate();
+			for (final Object[] sum : sums) {
+				ArticleBalances.add(em, (Integer) sum[0], -((Number) sum[1]).intValue());
+			}
+			deleted = em.createNamedQuery("Command.deleteById").setParameter("id", id).executeUpdate();
+			// the bulk deletes are not seen by the shared cache nor by the persistence
+			// context : the Command is dropped from both, the Stocks of the Articles
+			// are not held by the shared cache
+			final Cache cache = em.getEntityManagerFactory().getCache();
+			this.bdd.afterCommit(() -> {
+				cache.evict(Command.class, id);
+				em.clear();
+			});
 			this.bdd.commitTransaction();
 		} catch (final PersistenceException e) {
 			this.bdd.rollBackTransaction();
 			throw new DaoException("Impossible de supprimer la commande.", e);
 		}
+		return deleted > 0;
+	}
+
+	/**
+	 * Adds the movements of the Stocks of the Command that are not stored yet.
+	 */
+	private void addNewStocks(final Map<Integer, Integer> deltas, final Command com) {
+		if (com.getStocks() == null) {
+			return;
+		}
+		for (final Stock sto : com.getStocks()) {
+			if (sto.getId() == 0 && sto.getArticle() != null) {
+				deltas.merge(sto.getArticle().getId(), signedQuantity(sto.getTransferType(), sto.getQuantity()),
+						Integer::sum);
+			}
+		}
+	}
+
+	/**
+	 * Removes the movements of the stored Stocks of the Command that it no longer
+	 * lists. The stored state is read without flushing the pending changes.
+	 */
+	private void removeDroppedStocks(final EntityManager em, final Map<Integer, Integer> deltas,
+			final Command com) {
+		final Set<Integer> kept = new HashSet<>();
+		for (final Stock sto : com.getStocks()) {
+			kept.add(sto.getId());
+		}
+		final TypedQuery<Object[]> query = em.createNamedQuery("Stock.findMovementsByCommandId", Object[].class);
+		query.setParameter("id", com.getId());
+		query.setFlushMode(FlushModeType.COMMIT);
+		for (final Object[] movement : query.getResultList()) {
+			if (!kept.contains(movement[0]) && movement[3] != null) {
+				deltas.merge((Integer) movement[3], -signedQuantity((InOut) movement[2], (Integer) movement[1]),
+						Integer::sum);
+			}
+		}
+	}
+
+	/**
+	 * Links the listed Stocks to the Command : the Stock side owns the relation,
+	 * the list of the Command is not written.
+	 */
+	private static void link(final Command com) {
+		if (com.getStocks() == null) {
+			return;
+		}
+		for (final Stock sto : com.getStocks()) {
+			sto.setCommand(com);
+		}
+	}
+
+	private static void applyDeltas(final EntityManager em, final Map<Integer, Integer> deltas) {
+		for (final Map.Entry<Integer, Integer> delta : deltas.entrySet()) {
+			ArticleBalances.add(em, delta.getKey(), delta.getValue());
+		}
+	}
+
+	private static int signedQuantity(final InOut transferType, final int quantity) {
+		return transferType == InOut.OUT ? -quantity : quantity;
+	}
+
+	/**
+	 * @return for each Article moved by the Command, its id and the signed sum of
+	 *         the quantities of the Command's Stock lines.
+	 */
+	private List<Object[]> sumSignedQuantities(final EntityManager em, final int id) {
+		final TypedQuery<Object[]> query = em.createNamedQuery("Command.sumSignedQuantityGroupByArticle",
+				Object[].class);
+		query.setParameter("id", id);
+		query.setParameter("in", InOut.IN);
+		return query.getResultList();
+	}
+
+	private List<Command> getResultList(final TypedQuery<Command> query, final boolean withStocks) {
+		if (!withStocks) {
+			return query.getResultList();
+		}
+		final List<Command> result = this.bdd.withEntityGraph(query, "Command.stocks", "com.stocks").getResultList();
+		// the first access loads the Stocks of every Command of the result at once
+		result.forEach(com -> com.getStocks().size());
+		return result;
 	}
-}
\ No newline at end of file
+}
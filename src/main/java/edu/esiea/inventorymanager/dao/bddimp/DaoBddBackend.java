@@ -0,0 +1,70 @@
+package edu.esiea.inventorymanager.dao.bddimp;
+
+import edu.esiea.inventorymanager.dao.interfaces.IArticlesDao;
+import edu.esiea.inventorymanager.dao.interfaces.ICategoriesDao;
+import edu.esiea.inventorymanager.dao.interfaces.ICommandsDao;
+import edu.esiea.inventorymanager.dao.interfaces.IDaoBackend;
+import edu.esiea.inventorymanager.dao.interfaces.IStocksDao;
+import edu.esiea.inventorymanager.exception.DaoException;
+
+/**
+ * JPA backend, the default one : every DAO works with the Entity Managers of
+ * {@link DaoBddHelper}.
+ */
+public class DaoBddBackend implements IDaoBackend {
+
+	public static final String NAME = "bdd";
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	public IArticlesDao createArticlesDao() throws DaoException {
+		return new ArticlesDaoBdd();
+	}
+
+	@Override
+	public ICategoriesDao createCategoriesDao() throws DaoException {
+		return new CategoriesDaoBdd();
+	}
+
+	@Override
+	public ICommandsDao createCommandsDao() throws DaoException {
+		return new CommandsDaoBdd();
+	}
+
+	@Override
+	public IStocksDao createStocksDao() throws DaoException {
+		return new StocksDaoBdd();
+	}
+
+	@Override
+	public Object getContext() throws DaoException {
+		return DaoBddHelper.getInstance();
+	}
+
+	@Override
+	public void beginTransaction() throws DaoException {
+		DaoBddHelper.getInstance().beginTransaction();
+	}
+
+	@Override
+	public void commitTransaction() throws DaoException {
+		DaoBddHelper.getInstance().commitTransaction();
+	}
+
+	@Override
+	public void rollBackTransaction() throws DaoException {
+		DaoBddHelper.getInstance().rollBackTransaction();
+	}
+
+	/**
+	 * Closes the Entity Manager bound to the current thread.
+	 */
+	@Override
+	public void closeUnitOfWork() throws DaoException {
+		DaoBddHelper.getInstance().closeEntityManager();
+	}
+}
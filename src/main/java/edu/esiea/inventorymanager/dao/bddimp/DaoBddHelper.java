@@ -1,64 +1,251 @@
 package edu.esiea.inventorymanager.dao.bddimp;
 
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import javax.persistence.Cache;
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.EntityTransaction;
 import javax.persistence.Persistence;
+import javax.persistence.TypedQuery;
+
+import org.eclipse.persistence.annotations.BatchFetchType;
+import org.eclipse.persistence.config.QueryHints;
 
 import edu.esiea.inventorymanager.exception.DaoException;
 
 public class DaoBddHelper {
-	private static DaoBddHelper instance;
-	private final EntityManager entityManager;
+	/**
+	 * Maximum number of ids bound to a single IN clause, to stay well below the
+	 * limits of the drivers on the number of parameters of a statement.
+	 */
+	static final int IN_CHUNK_SIZE = 500;
 
+	private static volatile DaoBddHelper instance;
+	private final EntityManagerFactory entityManagerFactory;
+	private final ThreadLocal<EntityManager> entityManager = new ThreadLocal<>();
+	private final ThreadLocal<Integer> transactionDepth = ThreadLocal.withInitial(() -> 0);
+	private final ThreadLocal<List<Runnable>> afterCommit = ThreadLocal.withInitial(ArrayList::new);
+
+	/**
+	 * Returns the helper, built on first use. Once built, it is read without
+	 * locking.
+	 */
 	public static DaoBddHelper getInstance() throws DaoException {
-		if (instance == null) {
-			instance = new DaoBddHelper("evalbdds4");
+		DaoBddHelper current = instance;
+		if (current == null) {
+			synchronized (DaoBddHelper.class) {
+				current = instance;
+				if (current == null) {
+					current = new DaoBddHelper("evalbdds4");
+					instance = current;
+				}
+			}
 		}
-		return instance;
+		return current;
 	}
 
 	/**
 	 * This method allow to set the persistance target as the test one
-	 * 
+	 *
 	 * @return the instance of this class initialized with test persistance unit
 	 * @throws DaoException in case of error
 	 */
 
-	public static DaoBddHelper forceTestInstance() throws DaoException {
+	public static synchronized DaoBddHelper forceTestInstance() throws DaoException {
 		instance = new DaoBddHelper("evalbdds4Test");
 		return instance;
 	}
 
+	/**
+	 * Returns the Entity Manager bound to the current unit of work (one per
+	 * thread). A new one is opened from the shared factory if none is bound yet or
+	 * if the previous one has been closed by {@link #closeEntityManager()}.
+	 *
+	 * @return the Entity Manager of the current unit of work
+	 */
 	public EntityManager getEntityManager() {
-		return this.entityManager;
+		EntityManager em = this.entityManager.get();
+		if (em == null || !em.isOpen()) {
+			em = this.entityManagerFactory.createEntityManager();
+			this.entityManager.set(em);
+		}
+		return em;
+	}
+
+	/**
+	 * Ends the current unit of work : rolls back any transaction left open and
+	 * closes the Entity Manager bound to the current thread.
+	 */
+	public void closeEntityManager() {
+		final EntityManager em = this.entityManager.get();
+		this.entityManager.remove();
+		this.transactionDepth.remove();
+		this.afterCommit.remove();
+		if (em != null && em.isOpen()) {
+			if (em.getTransaction().isActive()) {
+				em.getTransaction().rollback();
+			}
+			em.close();
+		}
 	}
 
 	private DaoBddHelper(final String persistanceUnitName) throws DaoException {
 		try {
-			final EntityManagerFactory emf = Persistence.createEntityManagerFactory(persistanceUnitName);
-			this.entityManager = emf.createEntityManager();
-			final org.eclipse.persistence.sessions.Session session = this.entityManager
+			this.entityManagerFactory = Persistence.createEntityManagerFactory(persistanceUnitName);
+			final org.eclipse.persistence.sessions.Session session = this.getEntityManager()
 					.unwrap(org.eclipse.persistence.sessions.Session.class);
 			System.out.println("Entity manager créé : " + session.getDatasourcePlatform().toString());
 		} catch (final Exception e) {
 			throw new DaoException("Impossible de créer l'Entity Manager", e);
 		}
+		this.migrateSchema();
 	}
 
+	/**
+	 * Applies the pending {@link SchemaMigrations} in a transaction. The
+	 * statements that the database commits implicitly, such as the creation of
+	 * an index on MySQL, are not rolled back if a migration fails.
+	 */
+	private void migrateSchema() throws DaoException {
+		final EntityTransaction trans = this.getEntityManager().getTransaction();
+		try {
+			trans.begin();
+			SchemaMigrations.migrate(this.getEntityManager().unwrap(Connection.class));
+			trans.commit();
+		} catch (final SQLException | IOException | RuntimeException e) {
+			if (trans.isActive()) {
+				trans.rollback();
+			}
+			throw new DaoException("Impossible de migrer le schéma de la base", e);
+		}
+	}
+
+	/**
+	 * Makes the given query load the attributes of the named entity graph along
+	 * with its results. Each attribute is fetched for all results at once with an
+	 * extra IN query, as soon as it is accessed on one of them, rather than with
+	 * one query per result.
+	 *
+	 * @param query           the query to complete
+	 * @param graphName       name of the entity graph declared on the entity
+	 * @param batchAttributes the graph attributes, prefixed by the query alias
+	 * @return the given query
+	 */
+	public <T> TypedQuery<T> withEntityGraph(final TypedQuery<T> query, final String graphName,
+			final String... batchAttributes) {
+		query.setHint(QueryHints.JPA_LOAD_GRAPH, this.getEntityManager().getEntityGraph(graphName));
+		for (final String attribute : batchAttributes) {
+			query.setHint(QueryHints.BATCH, attribute);
+		}
+		query.setHint(QueryHints.BATCH_TYPE, BatchFetchType.IN);
+		return query;
+	}
+
+	/**
+	 * Runs the given named query, which takes an <code>ids</code> collection
+	 * parameter, for all the given ids at once. Long lists are split into chunks
+	 * of {@link #IN_CHUNK_SIZE} ids, giving one query per chunk.
+	 *
+	 * @param queryName   name of the query, ordered by id
+	 * @param resultClass type of the results
+	 * @param ids         ids to look for, duplicates are ignored
+	 * @return the results of all the chunks, ordered by id if the query is.
+	 */
+	public <T> List<T> getResultListByIds(final String queryName, final Class<T> resultClass,
+			final Collection<Integer> ids) {
+		final List<Integer> sortedIds = ids.stream().distinct().sorted().toList();
+		final List<T> results = new ArrayList<>(sortedIds.size());
+		for (int from = 0; from < sortedIds.size(); from += IN_CHUNK_SIZE) {
+			final TypedQuery<T> query = this.getEntityManager().createNamedQuery(queryName, resultClass);
+			query.setParameter("ids", sortedIds.subList(from, Math.min(from + IN_CHUNK_SIZE, sortedIds.size())));
+			results.addAll(query.getResultList());
+		}
+		return results;
+	}
+
+	/**
+	 * Begins a transaction, or joins the one already running on the current
+	 * thread : the operations of several DAOs then share a single commit.
+	 */
 	public void beginTransaction() {
-		this.entityManager.getTransaction().begin();
+		final EntityTransaction trans = this.getEntityManager().getTransaction();
+		if (!trans.isActive()) {
+			trans.begin();
+			this.transactionDepth.set(0);
+		}
+		this.transactionDepth.set(this.transactionDepth.get() + 1);
 	}
 
+	/**
+	 * Commits the current transaction, unless it has been joined : it is then
+	 * left to the outermost caller.
+	 */
 	public void commitTransaction() {
-		final EntityTransaction trans = this.entityManager.getTransaction();
+		final int depth = this.transactionDepth.get();
+		if (depth > 1) {
+			this.transactionDepth.set(depth - 1);
+			return;
+		}
+		this.transactionDepth.remove();
+		final List<Runnable> actions = this.afterCommit.get();
+		this.afterCommit.remove();
+		final EntityTransaction trans = this.getEntityManager().getTransaction();
 		if (trans.isActive()) {
 			trans.commit();
 		}
+		actions.forEach(Runnable::run);
 	}
 
+	/**
+	 * Runs the given action once the transaction of the current thread is
+	 * committed by its outermost caller, or at once if no transaction is running.
+	 * The action is dropped if the transaction is rolled back. This is where the
+	 * shared cache and the persistence context are told about changes they
+	 * <u><b>can't</b></u> see, such as bulk updates : doing it earlier would
+	 * detach the pending changes of a joined transaction, or let another thread
+	 * cache the rows again before they are committed.
+	 */
+	public void afterCommit(final Runnable action) {
+		if (this.getEntityManager().getTransaction().isActive()) {
+			this.afterCommit.get().add(action);
+		} else {
+			action.run();
+		}
+	}
+
+	/**
+	 * Drops the given entity from the shared cache once the transaction of the
+	 * current thread is committed.
+	 *
+	 * @see #afterCommit(Runnable)
+	 */
+	public void evictAfterCommit(final Class<?> entityClass, final Object id) {
+		final Cache cache = this.entityManagerFactory.getCache();
+		this.afterCommit(() -> cache.evict(entityClass, id));
+	}
+
+	/**
+	 * Rolls back the current transaction. A joined transaction is only marked so
+	 * that the outermost caller can't commit it.
+	 */
 	public void rollBackTransaction() {
-		final EntityTransaction trans = this.entityManager.getTransaction();
+		final int depth = this.transactionDepth.get();
+		final EntityTransaction trans = this.getEntityManager().getTransaction();
+		if (depth > 1) {
+			this.transactionDepth.set(depth - 1);
+			if (trans.isActive()) {
+				trans.setRollbackOnly();
+			}
+			return;
+		}
+		this.transactionDepth.remove();
+		this.afterCommit.remove();
 		if (trans.isActive()) {
 			trans.rollback();
 		}
@@ -0,0 +1,209 @@
+package edu.esiea.inventorymanager.dao.bddimp;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Versioned changes of the database schema, applied in order at startup on top
+ * of the tables mapped by the entities. Migration <i>n</i> is the script
+ * {@value #LOCATION} of the classpath, whose first line is a comment describing
+ * it. The versions applied are recorded in the SchemaVersion table, so each
+ * script runs once per database : a released script must not be changed, a new
+ * version is added instead.
+ * <p>
+ * Some databases, such as MySQL, commit each DDL statement on its own : a
+ * migration that fails halfway is not rolled back and runs again from its start
+ * next time. Each statement must then be written so that it can run again ; the
+ * indexes already in the catalog are not created again.
+ */
+final class SchemaMigrations {
+
+	static final String LOCATION = "/db/migration/V%d.sql";
+
+	private static final Logger logger = Logger.getLogger(SchemaMigrations.class);
+
+	private static final Pattern CREATE_INDEX = Pattern.compile(
+			"CREATE\\s+(UNIQUE\\s+)?INDEX\\s+(\\w+)\\s+ON\\s+(\\w+)\\s*\\(([^)]*)\\)",
+			Pattern.CASE_INSENSITIVE);
+
+	/**
+	 * Statements and description of a migration script.
+	 */
+	record Script(int version, String description, List<String> statements) {
+	}
+
+	private SchemaMigrations() {
+	}
+
+	/**
+	 * Applies the migrations that have not been applied yet to the database of
+	 * the given connection, each one followed by its SchemaVersion row. The
+	 * caller commits, which only covers the statements the database does not
+	 * commit implicitly.
+	 *
+	 * @return the number of migrations applied.
+	 */
+	static int migrate(final Connection connection) throws SQLException, IOException {
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("CREATE TABLE IF NOT EXISTS SchemaVersion (Version INT NOT NULL PRIMARY KEY, "
+					+ "Description VARCHAR(200) NOT NULL, AppliedOn TIMESTAMP NOT NULL)");
+		}
+		int applied = 0;
+		Script script;
+		while ((script = read(currentVersion(connection) + 1)) != null) {
+			for (final String sql : script.statements()) {
+				apply(connection, sql);
+			}
+			try (PreparedStatement ps = connection
+					.prepareStatement("INSERT INTO SchemaVersion (Version, Description, AppliedOn) VALUES (?, ?, ?)")) {
+				ps.setInt(1, script.version());
+				ps.setString(2, script.description());
+				ps.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
+				ps.executeUpdate();
+			}
+			logger.info("Migration " + script.version() + " du schéma appliquée : " + script.description());
+			applied++;
+		}
+		return applied;
+	}
+
+	/**
+	 * Runs a statement of a migration. An index that is already in the catalog is
+	 * not created again ; before a unique index is created, the rows are checked
+	 * for duplicates, so that the migration fails with the values to fix.
+	 */
+	static void apply(final Connection connection, final String sql) throws SQLException {
+		final Matcher index = CREATE_INDEX.matcher(sql.strip());
+		if (index.matches()) {
+			if (indexExists(connection, index.group(3), index.group(2))) {
+				logger.info("Index " + index.group(2) + " déjà présent, création ignorée.");
+				return;
+			}
+			if (index.group(1) != null) {
+				checkUnique(connection, index.group(3), index.group(4));
+			}
+		}
+		try (Statement statement = connection.createStatement()) {
+			statement.execute(sql);
+		}
+	}
+
+	private static boolean indexExists(final Connection connection, final String table, final String name)
+			throws SQLException {
+		final DatabaseMetaData meta = connection.getMetaData();
+		try (ResultSet rs = meta.getIndexInfo(connection.getCatalog(), connection.getSchema(),
+				identifier(meta, table), false, false)) {
+			while (rs.next()) {
+				if (name.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @throws SQLException if several rows of the table share the same values of
+	 *                      the given columns.
+	 */
+	private static void checkUnique(final Connection connection, final String table, final String columns)
+			throws SQLException {
+		final List<String> duplicates = new ArrayList<>();
+		try (Statement statement = connection.createStatement();
+				ResultSet rs = statement.executeQuery("SELECT " + columns + " FROM " + table + " GROUP BY "
+						+ columns + " HAVING COUNT(*) > 1")) {
+			while (rs.next() && duplicates.size() < 10) {
+				final List<String> values = new ArrayList<>();
+				for (int i = 1; i <= rs.getMetaData().getColumnCount(); i++) {
+					values.add(rs.getString(i));
+				}
+				duplicates.add(String.join(", ", values));
+			}
+		}
+		if (!duplicates.isEmpty()) {
+			throw new SQLException("Valeurs en double dans " + table + " (" + columns
+					+ "), à corriger avant de créer l'index unique : " + String.join(" ; ", duplicates));
+		}
+	}
+
+	/**
+	 * @return the given unquoted identifier, in the case the catalog stores it.
+	 */
+	private static String identifier(final DatabaseMetaData meta, final String name) throws SQLException {
+		if (meta.storesUpperCaseIdentifiers()) {
+			return name.toUpperCase(Locale.ROOT);
+		}
+		if (meta.storesLowerCaseIdentifiers()) {
+			return name.toLowerCase(Locale.ROOT);
+		}
+		return name;
+	}
+
+	/**
+	 * @return the last version applied, 0 if none.
+	 */
+	static int currentVersion(final Connection connection) throws SQLException {
+		try (Statement statement = connection.createStatement();
+				ResultSet rs = statement.executeQuery("SELECT MAX(Version) FROM SchemaVersion")) {
+			return rs.next() ? rs.getInt(1) : 0;
+		}
+	}
+
+	/**
+	 * Reads the script of the given version. Statements end with a semicolon at
+	 * the end of a line ; lines starting with <code>--</code> are comments.
+	 *
+	 * @return the script, <code>null</code> if there is no such version.
+	 */
+	static Script read(final int version) throws IOException {
+		final InputStream in = SchemaMigrations.class.getResourceAsStream(String.format(LOCATION, version));
+		if (in == null) {
+			return null;
+		}
+		String description = null;
+		final List<String> statements = new ArrayList<>();
+		final StringBuilder current = new StringBuilder();
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				line = line.strip();
+				if (line.startsWith("--")) {
+					if (description == null) {
+						description = line.substring(2).strip();
+					}
+					continue;
+				}
+				if (!line.isEmpty()) {
+					current.append(current.isEmpty() ? "" : " ").append(line);
+				}
+				if (line.endsWith(";")) {
+					current.setLength(current.length() - 1);
+					statements.add(current.toString());
+					current.setLength(0);
+				}
+			}
+		}
+		if (!current.isEmpty()) {
+			throw new IOException("Instruction non terminée dans la migration " + version + " : " + current);
+		}
+		return new Script(version, description == null ? "V" + version : description, statements);
+	}
+}
@@ -1,17 +1,56 @@
 package edu.esiea.inventorymanager.dao.bddimp;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 
+import javax.persistence.EntityManager;
+import javax.persistence.FlushModeType;
+import javax.persistence.OptimisticLockException;
+import javax.persistence.Persistence;
 import javax.persistence.PersistenceException;
+import javax.persistence.Query;
 import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import org.eclipse.persistence.config.HintValues;
+import org.eclipse.persistence.config.QueryHints;
+import org.eclipse.persistence.config.ResultSetType;
+import org.eclipse.persistence.queries.ScrollableCursor;
 
 import edu.esiea.inventorymanager.dao.interfaces.IStocksDao;
 import edu.esiea.inventorymanager.exception.DaoException;
+import edu.esiea.inventorymanager.exception.StaleDataException;
+import edu.esiea.inventorymanager.model.Article;
+import edu.esiea.inventorymanager.model.Command;
 import edu.esiea.inventorymanager.model.InOut;
 import edu.esiea.inventorymanager.model.Stock;
 
 public class StocksDaoBdd implements IStocksDao {
 
+	/**
+	 * Number of Stocks persisted before the persistence context is flushed during a
+	 * batch insert. Matches eclipselink.jdbc.batch-writing.size in persistence.xml.
+	 */
+	private static final int BATCH_SIZE = 100;
+
+	/**
+	 * Number of rows fetched per round trip when walking through the Stocks with a
+	 * cursor. The persistence context is cleared after each of these pages.
+	 */
+	private static final int CURSOR_PAGE_SIZE = 500;
+
 	private final DaoBddHelper bdd;
 
 	public StocksDaoBdd() throws DaoException {
@@ -22,26 +61,102 @@ public class StocksDaoBdd implements IStocksDao {
 	public Stock createStock(final Stock sto) throws DaoException {
 		try {
 			this.bdd.beginTransaction();
-			this.bdd.getEntityManager().persist(sto);
+			final EntityManager em = this.bdd.getEntityManager();
+			em.persist(sto);
+			em.flush();
+			this.attach(em, sto);
+			this.addToBalance(em, sto.getArticle(), signedQuantity(sto.getTransferType(), sto.getQuantity()));
 			this.bdd.commitTransaction();
 			return sto;
-		} catch (final PersistenceException e) {
+		} catch (final PersistenceException | IllegalStateException e) {
 			this.bdd.rollBackTransaction();
 			throw new DaoException("Impossible de créer le stock.", e);
 		}
 	}
 
+	@Override
+	public List<Stock> createStocks(final List<Stock> stocks) throws DaoException {
+		try {
+			this.bdd.beginTransaction();
+			final EntityManager em = this.bdd.getEntityManager();
+			final Map<Integer, Integer> deltas = new HashMap<>();
+			int count = 0;
+			for (final Stock sto : stocks) {
+				em.persist(sto);
+				this.attach(em, sto);
+				if (sto.getArticle() != null) {
+					deltas.merge(sto.getArticle().getId(), signedQuantity(sto.getTransferType(), sto.getQuantity()),
+							Integer::sum);
+				}
+				if (++count % BATCH_SIZE == 0) {
+					em.flush();
+				}
+			}
+			em.flush();
+			for (final Map.Entry<Integer, Integer> delta : deltas.entrySet()) {
+				ArticleBalances.add(em, delta.getKey(), delta.getValue());
+			}
+			this.bdd.commitTransaction();
+			return stocks;
+		} catch (final PersistenceException | IllegalStateException e) {
+			// a Stock referencing an Article that is not stored is only detected
+			// when flushed, as an IllegalStateException
+			this.bdd.rollBackTransaction();
+			throw new DaoException("Impossible de créer les stocks.", e);
+		}
+	}
+
 	@Override
 	public List<Stock> getAllStocks() throws DaoException {
 		final TypedQuery<Stock> query = this.bdd.getEntityManager().createNamedQuery("Stock.findAll", Stock.class);
 		return query.getResultList();
 	}
 
+	@Override
+	public List<Stock> getStocksPage(final int afterId, final int limit) throws DaoException {
+		final TypedQuery<Stock> query = this.bdd.getEntityManager().createNamedQuery("Stock.findPage", Stock.class);
+		query.setParameter("id", afterId);
+		query.setMaxResults(limit);
+		return query.getResultList();
+	}
+
+	@Override
+	public void forEachStock(final Consumer<Stock> consumer) throws DaoException {
+		final EntityManager em = this.bdd.getEntityManager();
+		final Query query = em.createNamedQuery("Stock.findAllOrdered");
+		query.setHint(QueryHints.CURSOR, HintValues.TRUE);
+		query.setHint(QueryHints.CURSOR_PAGE_SIZE, CURSOR_PAGE_SIZE);
+		query.setHint(QueryHints.JDBC_FETCH_SIZE, CURSOR_PAGE_SIZE);
+		query.setHint(QueryHints.RESULT_SET_TYPE, ResultSetType.ForwardOnly);
+		query.setHint(QueryHints.MAINTAIN_CACHE, HintValues.FALSE);
+		try {
+			// the forward-only result set type makes the cursor a scrollable one
+			final ScrollableCursor cursor = (ScrollableCursor) query.getSingleResult();
+			try {
+				int count = 0;
+				while (cursor.hasNext()) {
+					consumer.accept((Stock) cursor.next());
+					if (++count % CURSOR_PAGE_SIZE == 0) {
+						cursor.clear();
+						em.clear();
+					}
+				}
+			} finally {
+				cursor.close();
+			}
+		} catch (final PersistenceException e) {
+			throw new DaoException("Impossible de parcourir les stocks.", e);
+		}
+	}
+
 	@Override
 	public Stock getStockById(final int id) throws DaoException {
-		final TypedQuery<Stock> query = this.bdd.getEntityManager().createNamedQuery("Stock.findById", Stock.class);
-		query.setParameter("id", id);
-		return query.getResultList().isEmpty() ? null : query.getResultList().getFirst();
+		return this.bdd.getEntityManager().find(Stock.class, id);
+	}
+
+	@Override
+	public List<Stock> getStocksByIds(final Collection<Integer> ids) throws DaoException {
+		return this.bdd.getResultListByIds("Stock.findByIds", Stock.class, ids);
 	}
 
 	@Override
@@ -57,7 +172,28 @@ public class StocksDaoBdd implements IStocksDao {
 		final TypedQuery<Stock> query = this.bdd.getEntityManager().createNamedQuery("Stock.findByCommandId",
 				Stock.class);
 		query.setParameter("id", id);
-		return query.getResultList();
+		return withCategories(query).getResultList();
+	}
+
+	@Override
+	public List<Stock> getStocksPageByCommandId(final int commandId, final int afterId, final int limit)
+			throws DaoException {
+		final TypedQuery<Stock> query = this.bdd.getEntityManager().createNamedQuery("Stock.findPageByCommandId",
+				Stock.class);
+		query.setParameter("commandId", commandId);
+		query.setParameter("id", afterId);
+		query.setMaxResults(limit);
+		return withCategories(query).getResultList();
+	}
+
+	/**
+	 * Joins the Category of the Articles joined to the Stocks of a Command. The
+	 * batch fetching of Article.category only applies to the Articles read by a
+	 * query of their own : each Category would otherwise be read by its own query.
+	 */
+	private static TypedQuery<Stock> withCategories(final TypedQuery<Stock> query) {
+		query.setHint(QueryHints.LEFT_FETCH, "sto.article.category");
+		return query;
 	}
 
 	@Override
@@ -68,12 +204,95 @@ public class StocksDaoBdd implements IStocksDao {
 		return query.getResultList();
 	}
 
+	/**
+	 * Only the given filters end up in the WHERE clause, so that the database can
+	 * pick the index on (Article, Date) or on (TransferType, Date) matching them.
+	 */
+	@Override
+	public List<Stock> searchStocks(final Integer articleId, final InOut transferType, final LocalDate from,
+			final LocalDate to, final int limit) throws DaoException {
+		final EntityManager em = this.bdd.getEntityManager();
+		final CriteriaBuilder cb = em.getCriteriaBuilder();
+		final CriteriaQuery<Stock> criteria = cb.createQuery(Stock.class);
+		final Root<Stock> sto = criteria.from(Stock.class);
+		final List<Predicate> filters = new ArrayList<>();
+		if (articleId != null) {
+			filters.add(cb.equal(sto.get("article").get("id"), articleId));
+		}
+		if (transferType != null) {
+			filters.add(cb.equal(sto.get("transferType"), transferType));
+		}
+		if (from != null) {
+			filters.add(cb.greaterThanOrEqualTo(sto.<LocalDate>get("date"), from));
+		}
+		if (to != null) {
+			filters.add(cb.lessThanOrEqualTo(sto.<LocalDate>get("date"), to));
+		}
+		criteria.select(sto).where(filters.toArray(new Predicate[0])).orderBy(cb.desc(sto.get("date")),
+				cb.desc(sto.get("id")));
+		return em.createQuery(criteria).setMaxResults(limit).getResultList();
+	}
+
+	@Override
+	public Map<Integer, Long> sumQuantityByArticle() throws DaoException {
+		final TypedQuery<Object[]> query = this.bdd.getEntityManager()
+				.createNamedQuery("Stock.sumSignedQuantityGroupByArticle", Object[].class);
+		query.setParameter("in", InOut.IN);
+		final Map<Integer, Long> sums = new HashMap<>();
+		for (final Object[] row : query.getResultList()) {
+			sums.put((Integer) row[0], ((Number) row[1]).longValue());
+		}
+		return sums;
+	}
+
+	@Override
+	public Map<Integer, Map<InOut, Long>> sumByArticleAndTransferType(final LocalDate from, final LocalDate to)
+			throws DaoException {
+		final TypedQuery<Object[]> query = this.bdd.getEntityManager()
+				.createNamedQuery("Stock.sumQuantityGroupByArticleAndTransferType", Object[].class);
+		query.setParameter("from", from);
+		query.setParameter("to", to);
+		final Map<Integer, Map<InOut, Long>> sums = new HashMap<>();
+		for (final Object[] row : query.getResultList()) {
+			sums.computeIfAbsent((Integer) row[0], id -> new EnumMap<>(InOut.class)).put((InOut) row[1],
+					((Number) row[2]).longValue());
+		}
+		return sums;
+	}
+
+	@Override
+	public SortedMap<LocalDate, Map<InOut, Long>> dailyTotals(final int articleId, final LocalDate from,
+			final LocalDate to) throws DaoException {
+		final TypedQuery<Object[]> query = this.bdd.getEntityManager()
+				.createNamedQuery("Stock.sumQuantityByArticleIdGroupByDateAndTransferType", Object[].class);
+		query.setParameter("id", articleId);
+		query.setParameter("from", from);
+		query.setParameter("to", to);
+		final SortedMap<LocalDate, Map<InOut, Long>> sums = new TreeMap<>();
+		for (final Object[] row : query.getResultList()) {
+			sums.computeIfAbsent((LocalDate) row[0], day -> new EnumMap<>(InOut.class)).put((InOut) row[1],
+					((Number) row[2]).longValue());
+		}
+		return sums;
+	}
+
 	@Override
 	public void updateStock(final Stock sto) throws DaoException {
 		try {
+			final Object[] previous = this.findMovement(sto.getId());
 			this.bdd.beginTransaction();
-			this.bdd.getEntityManager().merge(sto);
+			final EntityManager em = this.bdd.getEntityManager();
+			if (sto.getCommand() == null && previous != null && previous[3] != null) {
+				// the link to the Command is not sent by the clients : it is kept
+				sto.setCommand(em.getReference(Command.class, previous[3]));
+			}
+			em.merge(sto);
+			em.flush();
+			this.moveBalance(em, previous, sto);
 			this.bdd.commitTransaction();
+		} catch (final OptimisticLockException e) {
+			this.bdd.rollBackTransaction();
+			throw new StaleDataException("Le stock a été modifié entre-temps.", e);
 		} catch (final PersistenceException e) {
 			this.bdd.rollBackTransaction();
 			throw new DaoException("Impossible de modifier le stock.", e);
@@ -83,12 +302,121 @@ public class StocksDaoBdd implements IStocksDao {
 	@Override
 	public void deleteStock(final Stock sto) throws DaoException {
 		try {
+			final Object[] previous = this.findMovement(sto.getId());
 			this.bdd.beginTransaction();
-			this.bdd.getEntityManager().remove(sto);
+			final EntityManager em = this.bdd.getEntityManager();
+			final Stock managed = em.contains(sto) ? sto : em.merge(sto);
+			em.remove(managed);
+			em.flush();
+			this.detach(em, previous, managed);
+			this.removeFromBalance(em, previous);
 			this.bdd.commitTransaction();
 		} catch (final PersistenceException e) {
 			this.bdd.rollBackTransaction();
 			throw new DaoException("Impossible de supprimer le stock.", e);
 		}
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Adds the new Stock to the movements of its Article, and to the Stocks of its
+	 * Command, if the persistence context holds them already ; they are never
+	 * loaded for that. The shared cache does not hold them : other persistence
+	 * contexts read them from the database.
+	 */
+	private void attach(final EntityManager em, final Stock sto) {
+		final Article art = sto.getArticle();
+		if (art != null && em.contains(art) && Persistence.getPersistenceUtil().isLoaded(art, "stocks")
+				&& art.getStock() != null) {
+			art.getStock().add(sto);
+		}
+		final Command com = sto.getCommand();
+		if (com != null && em.contains(com) && Persistence.getPersistenceUtil().isLoaded(com, "stocks")
+				&& com.getStocks() != null && !com.getStocks().contains(sto)) {
+			com.getStocks().add(sto);
+		}
+	}
+
+	/**
+	 * Removes the deleted Stock from the movements of the Article and from the
+	 * Stocks of the Command it was stored with, under the same conditions as
+	 * {@link #attach(EntityManager, Stock)}.
+	 *
+	 * @param previous stored state of the Stock, as read by
+	 *                 {@link #findMovement(int)}
+	 */
+	private void detach(final EntityManager em, final Object[] previous, final Stock sto) {
+		final Article art = sto.getArticle();
+		if (previous != null && art != null && Objects.equals(previous[2], art.getId()) && em.contains(art)
+				&& Persistence.getPersistenceUtil().isLoaded(art, "stocks") && art.getStock() != null) {
+			art.getStock().remove(sto);
+		}
+		final Command com = sto.getCommand();
+		if (previous != null && com != null && Objects.equals(previous[3], com.getId()) && em.contains(com)
+				&& Persistence.getPersistenceUtil().isLoaded(com, "stocks") && com.getStocks() != null) {
+			com.getStocks().remove(sto);
+		}
+	}
+
+	/**
+	 * Reads the stored state of a movement, without flushing the persistence
+	 * context first : the changes of the running transaction that are not written
+	 * yet are ignored.
+	 *
+	 * @return quantity, transfer type, article id and command id of the stored
+	 *         Stock, <code>null</code> if it is not stored.
+	 */
+	private Object[] findMovement(final int id) {
+		final TypedQuery<Object[]> query = this.bdd.getEntityManager().createNamedQuery("Stock.findMovementById",
+				Object[].class);
+		query.setParameter("id", id);
+		query.setFlushMode(FlushModeType.COMMIT);
+		final List<Object[]> rows = query.getResultList();
+		if (rows.isEmpty()) {
+			return null;
+		}
+		final Object[] movement = rows.getFirst();
+		// the primitive id mapping reads a missing Command as 0, ids start at 1
+		if (Integer.valueOf(0).equals(movement[3])) {
+			movement[3] = null;
+		}
+		return movement;
+	}
+
+	private void removeFromBalance(final EntityManager em, final Object[] movement) {
+		if (movement != null && movement[2] != null) {
+			ArticleBalances.add(em, (Integer) movement[2], -signedQuantity((InOut) movement[1], (Integer) movement[0]));
+		}
+	}
+
+	/**
+	 * Applies the change of a movement to the balances, with one net delta per
+	 * Article : a Stock that stays on the same Article updates its balance once.
+	 *
+	 * @param previous stored state of the Stock before the change, as read by
+	 *                 {@link #findMovement(int)}
+	 */
+	private void moveBalance(final EntityManager em, final Object[] previous, final Stock sto) {
+		final Map<Integer, Integer> deltas = new HashMap<>();
+		if (previous != null && previous[2] != null) {
+			deltas.merge((Integer) previous[2], -signedQuantity((InOut) previous[1], (Integer) previous[0]),
+					Integer::sum);
+		}
+		if (sto.getArticle() != null) {
+			deltas.merge(sto.getArticle().getId(), signedQuantity(sto.getTransferType(), sto.getQuantity()),
+					Integer::sum);
+		}
+		for (final Map.Entry<Integer, Integer> delta : deltas.entrySet()) {
+			ArticleBalances.add(em, delta.getKey(), delta.getValue());
+		}
+	}
+
+	private void addToBalance(final EntityManager em, final Article article, final int delta) {
+		if (article != null) {
+			ArticleBalances.add(em, article.getId(), delta);
+		}
+	}
+
+	private static int signedQuantity(final InOut transferType, final int quantity) {
+		return transferType == InOut.OUT ? -quantity : quantity;
+	}
+}
@@ -1,9 +1,13 @@
 package edu.esiea.inventorymanager.dao.interfaces;
 
+import java.util.Collection;
 import java.util.List;
 
 import edu.esiea.inventorymanager.exception.DaoException;
+import edu.esiea.inventorymanager.exception.StaleDataException;
 import edu.esiea.inventorymanager.model.Article;
+import edu.esiea.inventorymanager.model.ArticleBalance;
+import edu.esiea.inventorymanager.model.ArticleSummary;
 import edu.esiea.inventorymanager.model.Stock;
 
 public interface IArticlesDao {
@@ -26,6 +30,46 @@ public interface IArticlesDao {
 	 */
 	List<Article> getAllArticles() throws DaoException;
 
+	/**
+	 * Reads all Article in the persitency Layer and returns them, with or without
+	 * their {@link Stock} movements.
+	 *
+	 * @param withStocks <code>true</code> to load the Stocks of the Articles along
+	 *                   with them, <code>false</code> to leave them unfetched.
+	 * @return All stored Article in a {@link List}. This List can be empty but it
+	 *         <u><b>can't</b></u> be <code>null</code>.
+	 * @throws DaoException in case of error.
+	 */
+	List<Article> getAllArticles(boolean withStocks) throws DaoException;
+
+	/**
+	 * Reads one page of Articles ordered by id, starting right after the given id.
+	 *
+	 * @param afterId id of the last Article of the previous page, 0 for the first
+	 *                page.
+	 * @param limit   maximum number of Articles to return.
+	 * @return Stored Articles whose id is greater than <code>afterId</code>, in a
+	 *         {@link List} of at most <code>limit</code> elements. This List can be
+	 *         empty but it <u><b>can't</b></u> be <code>null</code>.
+	 * @throws DaoException in case of error.
+	 */
+	List<Article> getArticlesPage(int afterId, int limit) throws DaoException;
+
+	/**
+	 * Reads one page of Articles ordered by id, with or without their
+	 * {@link Stock} movements.
+	 *
+	 * @param afterId    id of the last Article of the previous page, 0 for the
+	 *                   first page.
+	 * @param limit      maximum number of Articles to return.
+	 * @param withStocks <code>true</code> to load the Stocks of the Articles along
+	 *                   with them, <code>false</code> to leave them unfetched.
+	 * @return Stored Articles whose id is greater than <code>afterId</code>. This
+	 *         List can be empty but it <u><b>can't</b></u> be <code>null</code>.
+	 * @throws DaoException in case of error.
+	 */
+	List<Article> getArticlesPage(int afterId, int limit, boolean withStocks) throws DaoException;
+
 	/**
 	 * Return stored system which id correspond to the one given.
 	 *
@@ -36,6 +80,43 @@ public interface IArticlesDao {
 	 */
 	Article getArticleById(int id) throws DaoException;
 
+	/**
+	 * Return stored Article which id correspond to the one given, with or without
+	 * its {@link Stock} movements.
+	 *
+	 * @param id         Id of Article to get
+	 * @param withStocks <code>true</code> to load the Stocks of the Article along
+	 *                   with it, <code>false</code> to leave them unfetched.
+	 * @return Stored Article which id correspond to the one given if found.
+	 *         <code>null</code> if no Article has been found with given Id.
+	 * @throws DaoException in case of error.
+	 */
+	Article getArticleById(int id, boolean withStocks) throws DaoException;
+
+	/**
+	 * Return stored Articles which ids correspond to the ones given, read with as
+	 * few queries as possible.
+	 *
+	 * @param ids Ids of Articles to get
+	 * @return Stored Articles ordered by id. Unknown ids are skipped. This List can
+	 *         be empty but it <u><b>can't</b></u> be <code>null</code>.
+	 * @throws DaoException in case of error.
+	 */
+	List<Article> getArticlesByIds(Collection<Integer> ids) throws DaoException;
+
+	/**
+	 * Returns a reference to the stored Article which id correspond to the one
+	 * given, to link it to another entity. Its state is not read if it is already
+	 * known, so it <u><b>can't</b></u> be relied upon for anything else than its
+	 * identity.
+	 *
+	 * @param id Id of Article to reference
+	 * @return Reference to the stored Article if found. <code>null</code> if no
+	 *         Article has been found with given Id.
+	 * @throws DaoException in case of error.
+	 */
+	Article getArticleReference(int id) throws DaoException;
+
 	/**
 	 * Reads all Articles in the persistence layer that belong to the given
 	 * {@link Category}.
@@ -47,6 +128,32 @@ public interface IArticlesDao {
 	 */
 	List<Article> getAllArticlesByCategoryId(int id) throws DaoException;
 
+	/**
+	 * Reads one page of the Articles of the given {@link Category}, ordered by
+	 * id, starting right after the given id. Their Stocks are not read.
+	 *
+	 * @param categoryId Id of the {@link Category} whose Articles are to be
+	 *                   retrieved.
+	 * @param afterId    id of the last Article of the previous page, 0 for the
+	 *                   first page.
+	 * @param limit      maximum number of Articles to return.
+	 * @return Articles of the Category whose id is greater than
+	 *         <code>afterId</code>, in a {@link List} of at most
+	 *         <code>limit</code> elements. This List can be empty but it
+	 *         <u><b>can't</b></u> be <code>null</code>.
+	 * @throws DaoException in case of error.
+	 */
+	List<Article> getArticlesPageByCategoryId(int categoryId, int afterId, int limit) throws DaoException;
+
+	/**
+	 * Counts the Articles of the given {@link Category} without reading them.
+	 *
+	 * @param categoryId Id of the {@link Category}.
+	 * @return the number of stored Articles that belong to the Category.
+	 * @throws DaoException in case of error.
+	 */
+	long countArticlesByCategoryId(int categoryId) throws DaoException;
+
 	/**
 	 * Return stored Article that contains the {@link Stock} which id correspond to
 	 * the one given.
@@ -60,9 +167,58 @@ public interface IArticlesDao {
 	Article getArticleByStockId(int id) throws DaoException;
 
 	/**
-	 * Updates given Article in the persitency Layer.
+	 * Returns the on-hand quantity of the Article which id correspond to the one
+	 * given, maintained along with its {@link Stock} movements.
+	 *
+	 * @param articleId Id of the Article
+	 * @return the stored balance of the Article, <code>null</code> if no balance
+	 *         has been stored for the given Id.
+	 * @throws DaoException in case of error.
+	 */
+	ArticleBalance getArticleBalance(int articleId) throws DaoException;
+
+	/**
+	 * Returns the on-hand quantities of the Articles which ids correspond to the
+	 * ones given.
+	 *
+	 * @param articleIds Ids of the Articles
+	 * @return the stored balances of the given Articles, in no particular order.
+	 *         Ids with no stored balance are skipped. This List can be empty but it
+	 *         <u><b>can't</b></u> be <code>null</code>.
+	 * @throws DaoException in case of error.
+	 */
+	List<ArticleBalance> getArticleBalances(Collection<Integer> articleIds) throws DaoException;
+
+	/**
+	 * Reads a summary of all Articles, ordered by id. Only the columns of the list
+	 * view are read : no Article entity is loaded.
+	 *
+	 * @return All stored Articles summaries in a {@link List}. This List can be
+	 *         empty but it <u><b>can't</b></u> be <code>null</code>.
+	 * @throws DaoException in case of error.
+	 */
+	List<ArticleSummary> getAllArticleSummaries() throws DaoException;
+
+	/**
+	 * Reads one page of Articles summaries ordered by id.
+	 *
+	 * @param afterId id of the last Article of the previous page, 0 for the first
+	 *                page.
+	 * @param limit   maximum number of summaries to return.
+	 * @return Summaries of the stored Articles whose id is greater than
+	 *         <code>afterId</code>. This List can be empty but it
+	 *         <u><b>can't</b></u> be <code>null</code>.
+	 * @throws DaoException in case of error.
+	 */
+	List<ArticleSummary> getArticleSummariesPage(int afterId, int limit) throws DaoException;
+
+	/**
+	 * Updates given Article in the persitency Layer. Only the columns that
+	 * changed are written.
 	 *
 	 * @param a the Article to be updated
+	 * @throws StaleDataException if the Article has been modified since its version
+	 *                             was read.
 	 * @throws DaoException in case of error.
 	 */
 	void updateArticle(Article a) throws DaoException;
@@ -75,4 +231,16 @@ public interface IArticlesDao {
 	 */
 	void deleteArticle(Article a) throws DaoException;
 
+	/**
+	 * Delete stored Article which id correspond to the one given, along with its
+	 * {@link Stock} movements and its balance. The movements are removed with one
+	 * statement, without being loaded.
+	 *
+	 * @param id Id of the Article to delete
+	 * @return <code>true</code> if the Article has been deleted,
+	 *         <code>false</code> if no Article has been found with given Id.
+	 * @throws DaoException in case of error.
+	 */
+	boolean deleteArticleById(int id) throws DaoException;
+
 }
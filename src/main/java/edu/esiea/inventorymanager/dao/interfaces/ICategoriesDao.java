@@ -3,6 +3,7 @@ package edu.esiea.inventorymanager.dao.interfaces;
 import java.util.List;
 
 import edu.esiea.inventorymanager.exception.DaoException;
+import edu.esiea.inventorymanager.exception.StaleDataException;
 import edu.esiea.inventorymanager.model.Category;
 
 public interface ICategoriesDao {
@@ -26,6 +27,20 @@ public interface ICategoriesDao {
 	 */
 	List<Category> getAllCategories() throws DaoException;
 
+	/**
+	 * Reads one page of Categories ordered by id, starting right after the given
+	 * id.
+	 *
+	 * @param afterId id of the last Category of the previous page, 0 for the first
+	 *                page.
+	 * @param limit   maximum number of Categories to return.
+	 * @return Stored Categories whose id is greater than <code>afterId</code>, in a
+	 *         {@link List} of at most <code>limit</code> elements. This List can be
+	 *         empty but it <u><b>can't</b></u> be <code>null</code>.
+	 * @throws DaoException in case of error.
+	 */
+	List<Category> getCategoriesPage(int afterId, int limit) throws DaoException;
+
 	/**
 	 * Return stored category which id corresponds to the given one.
 	 *
@@ -37,9 +52,12 @@ public interface ICategoriesDao {
 	Category getCategoryById(int id) throws DaoException;
 
 	/**
-	 * Updates the given Category in the persistence layer.
+	 * Updates the given Category in the persistence layer. Only the columns
+	 * that changed are written.
 	 *
 	 * @param cat the Category to be updated
+	 * @throws StaleDataException if the Category has been modified since its version
+	 *                             was read.
 	 * @throws DaoException in case of error.
 	 */
 	void updateCategory(Category cat) throws DaoException;
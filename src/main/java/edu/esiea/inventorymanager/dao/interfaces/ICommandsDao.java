@@ -3,7 +3,9 @@ package edu.esiea.inventorymanager.dao.interfaces;
 import java.util.List;
 
 import edu.esiea.inventorymanager.exception.DaoException;
+import edu.esiea.inventorymanager.exception.StaleDataException;
 import edu.esiea.inventorymanager.model.Command;
+import edu.esiea.inventorymanager.model.CommandSummary;
 import edu.esiea.inventorymanager.model.Stock;
 
 public interface ICommandsDao {
@@ -26,6 +28,46 @@ public interface ICommandsDao {
 	 */
 	List<Command> getAllCommands() throws DaoException;
 
+	/**
+	 * Reads all Commands in the persistence layer and returns them, with or
+	 * without their {@link Stock} lines.
+	 *
+	 * @param withStocks <code>true</code> to load the Stocks of the Commands along
+	 *                   with them, <code>false</code> to leave them unfetched.
+	 * @return All stored Commands in a {@link List}. This List can be empty but it
+	 *         <u><b>can't</b></u> be <code>null</code>.
+	 * @throws DaoException in case of error.
+	 */
+	List<Command> getAllCommands(boolean withStocks) throws DaoException;
+
+	/**
+	 * Reads one page of Commands ordered by id, starting right after the given id.
+	 *
+	 * @param afterId id of the last Command of the previous page, 0 for the first
+	 *                page.
+	 * @param limit   maximum number of Commands to return.
+	 * @return Stored Commands whose id is greater than <code>afterId</code>, in a
+	 *         {@link List} of at most <code>limit</code> elements. This List can be
+	 *         empty but it <u><b>can't</b></u> be <code>null</code>.
+	 * @throws DaoException in case of error.
+	 */
+	List<Command> getCommandsPage(int afterId, int limit) throws DaoException;
+
+	/**
+	 * Reads one page of Commands ordered by id, with or without their
+	 * {@link Stock} lines.
+	 *
+	 * @param afterId    id of the last Command of the previous page, 0 for the
+	 *                   first page.
+	 * @param limit      maximum number of Commands to return.
+	 * @param withStocks <code>true</code> to load the Stocks of the Commands along
+	 *                   with them, <code>false</code> to leave them unfetched.
+	 * @return Stored Commands whose id is greater than <code>afterId</code>. This
+	 *         List can be empty but it <u><b>can't</b></u> be <code>null</code>.
+	 * @throws DaoException in case of error.
+	 */
+	List<Command> getCommandsPage(int afterId, int limit, boolean withStocks) throws DaoException;
+
 	/**
 	 * Returns stored command whose id corresponds to the given one.
 	 *
@@ -36,6 +78,32 @@ public interface ICommandsDao {
 	 */
 	Command getCommandById(int id) throws DaoException;
 
+	/**
+	 * Returns stored command whose id corresponds to the given one, with or
+	 * without its {@link Stock} lines.
+	 *
+	 * @param id         Id of the Command to get.
+	 * @param withStocks <code>true</code> to load the Stocks of the Command along
+	 *                   with it, <code>false</code> to leave them unfetched.
+	 * @return Stored Command if found, <code>null</code> if no Command matches the
+	 *         given Id.
+	 * @throws DaoException in case of error.
+	 */
+	Command getCommandById(int id, boolean withStocks) throws DaoException;
+
+	/**
+	 * Returns a reference to the stored Command whose id corresponds to the given
+	 * one, to link other entities to it. Its state is not read if it is already
+	 * known, so it <u><b>can't</b></u> be relied upon for anything else than its
+	 * identity.
+	 *
+	 * @param id Id of the Command to reference.
+	 * @return Reference to the stored Command if found, <code>null</code> if no
+	 *         Command matches the given Id.
+	 * @throws DaoException in case of error.
+	 */
+	Command getCommandReference(int id) throws DaoException;
+
 	/**
 	 * Returns stored Commands that contain a {@link Stock} whose id corresponds to
 	 * the given one.
@@ -48,9 +116,35 @@ public interface ICommandsDao {
 	Command getCommandByStockId(int id) throws DaoException;
 
 	/**
-	 * Updates the given Command in the persistence layer.
+	 * Reads a summary of all Commands, ordered by id. Only the columns of the list
+	 * view are read : no Command entity is loaded.
+	 *
+	 * @return All stored Commands summaries in a {@link List}. This List can be
+	 *         empty but it <u><b>can't</b></u> be <code>null</code>.
+	 * @throws DaoException in case of error.
+	 */
+	List<CommandSummary> getAllCommandSummaries() throws DaoException;
+
+	/**
+	 * Reads one page of Commands summaries ordered by id.
+	 *
+	 * @param afterId id of the last Command of the previous page, 0 for the first
+	 *                page.
+	 * @param limit   maximum number of summaries to return.
+	 * @return Summaries of the stored Commands whose id is greater than
+	 *         <code>afterId</code>. This List can be empty but it
+	 *         <u><b>can't</b></u> be <code>null</code>.
+	 * @throws DaoException in case of error.
+	 */
+	List<CommandSummary> getCommandSummariesPage(int afterId, int limit) throws DaoException;
+
+	/**
+	 * Updates the given Command in the persistence layer. Only the columns that
+	 * changed are written.
 	 *
 	 * @param com the Command to be updated.
+	 * @throws StaleDataException if the Command has been modified since its version
+	 *                             was read.
 	 * @throws DaoException in case of error.
 	 */
 	void updateCommand(Command com) throws DaoException;
@@ -62,4 +156,16 @@ public interface ICommandsDao {
 	 * @throws DaoException in case of error.
 	 */
 	void deleteCommand(Command com) throws DaoException;
+
+	/**
+	 * Deletes the stored Command whose id corresponds to the given one, along with
+	 * its {@link Stock} lines. The lines are removed with one statement, without
+	 * being loaded, and the balances of their Articles are adjusted accordingly.
+	 *
+	 * @param id Id of the Command to delete.
+	 * @return <code>true</code> if the Command has been deleted,
+	 *         <code>false</code> if no Command matches the given Id.
+	 * @throws DaoException in case of error.
+	 */
+	boolean deleteCommandById(int id) throws DaoException;
 }
\ No newline at end of file
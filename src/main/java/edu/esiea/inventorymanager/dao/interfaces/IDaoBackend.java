@@ -0,0 +1,60 @@
+package edu.esiea.inventorymanager.dao.interfaces;
+
+import edu.esiea.inventorymanager.dao.DaoFactory;
+import edu.esiea.inventorymanager.exception.DaoException;
+
+/**
+ * A persistence backend : builds the DAOs handed out by {@link DaoFactory}.
+ * Implementations are found with {@link java.util.ServiceLoader}, from
+ * META-INF/services, and the one used is chosen by its name with the
+ * {@value DaoFactory#PROPERTY_BACKEND} setting.
+ */
+public interface IDaoBackend {
+
+	/**
+	 * @return the name of the backend, as given in the
+	 *         {@value DaoFactory#PROPERTY_BACKEND} setting.
+	 */
+	String getName();
+
+	IArticlesDao createArticlesDao() throws DaoException;
+
+	ICategoriesDao createCategoriesDao() throws DaoException;
+
+	ICommandsDao createCommandsDao() throws DaoException;
+
+	IStocksDao createStocksDao() throws DaoException;
+
+	/**
+	 * @return the object the DAOs work with, such as the helper holding the
+	 *         persistence unit. The DAOs are built again when it is replaced,
+	 *         by a test for instance.
+	 * @throws DaoException if it can't be built.
+	 */
+	Object getContext() throws DaoException;
+
+	/**
+	 * Begins a transaction, or joins the one already running on the current
+	 * thread.
+	 */
+	void beginTransaction() throws DaoException;
+
+	/**
+	 * Commits the current transaction, unless it has been joined : it is then
+	 * left to the outermost caller.
+	 */
+	void commitTransaction() throws DaoException;
+
+	/**
+	 * Rolls back the current transaction, or marks it so that the outermost
+	 * caller can't commit it.
+	 */
+	void rollBackTransaction() throws DaoException;
+
+	/**
+	 * Releases what the current thread holds once its unit of work is over, at
+	 * the end of a request for instance.
+	 */
+	void closeUnitOfWork() throws DaoException;
+
+}
@@ -1,8 +1,14 @@
 package edu.esiea.inventorymanager.dao.interfaces;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.function.Consumer;
 
 import edu.esiea.inventorymanager.exception.DaoException;
+import edu.esiea.inventorymanager.exception.StaleDataException;
 import edu.esiea.inventorymanager.model.Article;
 import edu.esiea.inventorymanager.model.InOut;
 import edu.esiea.inventorymanager.model.Stock;
@@ -18,6 +24,16 @@ public interface IStocksDao {
 	 */
 	Stock createStock(Stock sto) throws DaoException;
 
+	/**
+	 * Stores all given Stocks in the persistence layer within a single
+	 * transaction and returns them with their id set.
+	 *
+	 * @param stocks the stocks to be stored
+	 * @return stored stocks with their Id set, in the same order as given.
+	 * @throws DaoException in case of error. No Stock is stored in that case.
+	 */
+	List<Stock> createStocks(List<Stock> stocks) throws DaoException;
+
 	/**
 	 * Reads all Stocks in the persistence layer and returns them.
 	 *
@@ -27,6 +43,29 @@ public interface IStocksDao {
 	 */
 	List<Stock> getAllStocks() throws DaoException;
 
+	/**
+	 * Reads one page of Stocks ordered by id, starting right after the given id.
+	 *
+	 * @param afterId id of the last Stock of the previous page, 0 for the first
+	 *                page.
+	 * @param limit   maximum number of Stocks to return.
+	 * @return Stored Stocks whose id is greater than <code>afterId</code>, in a
+	 *         {@link List} of at most <code>limit</code> elements. This List can be
+	 *         empty but it <u><b>can't</b></u> be <code>null</code>.
+	 * @throws DaoException in case of error.
+	 */
+	List<Stock> getStocksPage(int afterId, int limit) throws DaoException;
+
+	/**
+	 * Reads all Stocks in the persistence layer one at a time, ordered by id,
+	 * without keeping them in memory. Each Stock is handed to the given consumer
+	 * and may not be reachable anymore once it returns.
+	 *
+	 * @param consumer called once for each stored Stock.
+	 * @throws DaoException in case of error.
+	 */
+	void forEachStock(Consumer<Stock> consumer) throws DaoException;
+
 	/**
 	 * Returns stored stock whose id corresponds to the given one.
 	 *
@@ -37,6 +76,17 @@ public interface IStocksDao {
 	 */
 	Stock getStockById(int id) throws DaoException;
 
+	/**
+	 * Returns stored stocks whose ids correspond to the given ones, read with as
+	 * few queries as possible.
+	 *
+	 * @param ids Ids of the Stocks to get.
+	 * @return Stored Stocks ordered by id. Unknown ids are skipped. This List can
+	 *         be empty but it <u><b>can't</b></u> be <code>null</code>.
+	 * @throws DaoException in case of error.
+	 */
+	List<Stock> getStocksByIds(Collection<Integer> ids) throws DaoException;
+
 	/**
 	 * Returns stored Stocks that are linked to an {@link Article} whose id
 	 * corresponds to the given one.
@@ -57,9 +107,29 @@ public interface IStocksDao {
 	List<Stock> getStocksByTransferType(InOut transferType) throws DaoException;
 
 	/**
-	 * Updates the given Stock in the persistence layer.
+	 * Returns the Stocks matching all the given filters, the most recent first.
+	 * A <code>null</code> filter is not applied.
+	 *
+	 * @param articleId    Id of the {@link Article} of the Stocks.
+	 * @param transferType The type of transfer of the Stocks.
+	 * @param from         First day of the movements, included.
+	 * @param to           Last day of the movements, included.
+	 * @param limit        maximum number of Stocks to return.
+	 * @return Stocks ordered by date then by id, both descending, in a
+	 *         {@link List} of at most <code>limit</code> elements. This List can
+	 *         be empty but it <u><b>can't</b></u> be <code>null</code>.
+	 * @throws DaoException in case of error.
+	 */
+	List<Stock> searchStocks(Integer articleId, InOut transferType, LocalDate from, LocalDate to, int limit)
+			throws DaoException;
+
+	/**
+	 * Updates the given Stock in the persistence layer. Only the columns that
+	 * changed are written.
 	 *
 	 * @param sto the Stock to be updated.
+	 * @throws StaleDataException if the Stock has been modified since its version
+	 *                             was read.
 	 * @throws DaoException in case of error.
 	 */
 	void updateStock(Stock sto) throws DaoException;
@@ -77,8 +147,65 @@ public interface IStocksDao {
 	 * corresponds to the given one.
 	 *
 	 * @param id Id of the {@link Command} associated with the Stock to get.
-	 * @return List of Stocks linked to the given Command.
+	 * @return List of Stocks linked to the given Command, ordered by id, with
+	 *         their Article.
 	 * @throws DaoException in case of error.
 	 */
 	List<Stock> getStocksByCommandId(int id) throws DaoException;
-}
\ No newline at end of file
+
+	/**
+	 * Reads one page of the Stocks of the given {@link Command}, ordered by id,
+	 * starting right after the given id. Their Articles are read along with
+	 * them, not one by one.
+	 *
+	 * @param commandId Id of the {@link Command} whose Stocks are to be
+	 *                  retrieved.
+	 * @param afterId   id of the last Stock of the previous page, 0 for the first
+	 *                  page.
+	 * @param limit     maximum number of Stocks to return.
+	 * @return Stocks of the Command whose id is greater than <code>afterId</code>,
+	 *         in a {@link List} of at most <code>limit</code> elements. This List
+	 *         can be empty but it <u><b>can't</b></u> be <code>null</code>.
+	 * @throws DaoException in case of error.
+	 */
+	List<Stock> getStocksPageByCommandId(int commandId, int afterId, int limit) throws DaoException;
+
+	/**
+	 * Sums the quantities of the Stocks of each {@link Article}, the OUT ones
+	 * being subtracted, in a single grouped query.
+	 *
+	 * @return the on-hand quantity of each Article that has Stocks, by Article
+	 *         id. This Map can be empty but it <u><b>can't</b></u> be
+	 *         <code>null</code>.
+	 * @throws DaoException in case of error.
+	 */
+	Map<Integer, Long> sumQuantityByArticle() throws DaoException;
+
+	/**
+	 * Sums the quantities of the Stocks dated within the given period, by
+	 * {@link Article} and by transfer type, in a single grouped query.
+	 *
+	 * @param from first day of the period.
+	 * @param to   last day of the period, included.
+	 * @return for each Article moved in the period, by id, the sum of the
+	 *         quantities of each transfer type it has Stocks of. This Map can be
+	 *         empty but it <u><b>can't</b></u> be <code>null</code>.
+	 * @throws DaoException in case of error.
+	 */
+	Map<Integer, Map<InOut, Long>> sumByArticleAndTransferType(LocalDate from, LocalDate to) throws DaoException;
+
+	/**
+	 * Sums the quantities of the Stocks of an {@link Article} dated within the
+	 * given period, by day and by transfer type, in a single grouped query.
+	 *
+	 * @param articleId Id of the Article.
+	 * @param from      first day of the period.
+	 * @param to        last day of the period, included.
+	 * @return for each day the Article has Stocks on, in date order, the sum of
+	 *         the quantities of each transfer type. This Map can be empty but it
+	 *         <u><b>can't</b></u> be <code>null</code>.
+	 * @throws DaoException in case of error.
+	 */
+	SortedMap<LocalDate, Map<InOut, Long>> dailyTotals(int articleId, LocalDate from, LocalDate to)
+			throws DaoException;
+}
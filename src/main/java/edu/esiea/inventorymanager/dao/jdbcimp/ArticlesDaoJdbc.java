@@ -0,0 +1,297 @@
+package edu.esiea.inventorymanager.dao.jdbcimp;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import edu.esiea.inventorymanager.dao.interfaces.IArticlesDao;
+import edu.esiea.inventorymanager.exception.DaoException;
+import edu.esiea.inventorymanager.exception.StaleDataException;
+import edu.esiea.inventorymanager.model.Article;
+import edu.esiea.inventorymanager.model.ArticleBalance;
+import edu.esiea.inventorymanager.model.ArticleSummary;
+
+/**
+ * Articles DAO written with plain JDBC statements. Updates write every column
+ * at once, guarded by the version read.
+ */
+public class ArticlesDaoJdbc implements IArticlesDao {
+
+	private static final String SELECT = "SELECT " + EntityRows.ARTICLE_COLUMNS + " FROM Article art";
+	private static final String SELECT_SUMMARY = "SELECT art.Id, art.Name, art.EAN13, art.Brand, art.Price, cat.Name, "
+			+ "COALESCE(bal.Quantity, 0) FROM Article art LEFT JOIN Category cat ON cat.Id = art.Category "
+			+ "LEFT JOIN ArticleBalance bal ON bal.ArticleId = art.Id";
+
+	private final DaoJdbcHelper jdbc;
+	private final EntityRows rows;
+
+	public ArticlesDaoJdbc() throws DaoException {
+		this.jdbc = DaoJdbcHelper.getInstance();
+		this.rows = new EntityRows(this.jdbc);
+	}
+
+	@Override
+	public Article createArticle(final Article a) throws DaoException {
+		return this.jdbc.execute("Impossible de créer l'article.", () -> {
+			final int id = this.jdbc.nextId(Article.class);
+			final PreparedStatement ps = this.jdbc.prepare("INSERT INTO Article (Id, Version, Name, EAN13, Brand, "
+					+ "Picture_URL, Price, Description, Category) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)");
+			ps.setInt(1, id);
+			ps.setInt(2, 1);
+			this.bindColumns(ps, 3, a);
+			ps.executeUpdate();
+			final PreparedStatement balance = this.jdbc
+					.prepare("INSERT INTO ArticleBalance (ArticleId, Quantity) VALUES (?, 0)");
+			balance.setInt(1, id);
+			balance.executeUpdate();
+			a.setId(id);
+			a.setVersion(1);
+			if (a.getStock() == null) {
+				a.setStock(new ArrayList<>());
+			}
+			this.jdbc.articles().put(id, a);
+			return a;
+		});
+	}
+
+	@Override
+	public List<Article> getAllArticles() throws DaoException {
+		return this.getAllArticles(false);
+	}
+
+	@Override
+	public List<Article> getAllArticles(final boolean withStocks) throws DaoException {
+		return this.jdbc.execute("Impossible de lire les articles.",
+				() -> this.getResultList(this.jdbc.prepare(SELECT), withStocks));
+	}
+
+	@Override
+	public List<Article> getArticlesPage(final int afterId, final int limit) throws DaoException {
+		return this.getArticlesPage(afterId, limit, false);
+	}
+
+	@Override
+	public List<Article> getArticlesPage(final int afterId, final int limit, final boolean withStocks)
+			throws DaoException {
+		return this.jdbc.execute("Impossible de lire les articles.", () -> {
+			final PreparedStatement ps = this.jdbc.prepare(SELECT + " WHERE art.Id > ? ORDER BY art.Id");
+			ps.setInt(1, afterId);
+			ps.setMaxRows(limit);
+			return this.getResultList(ps, withStocks);
+		});
+	}
+
+	@Override
+	public Article getArticleById(final int id) throws DaoException {
+		return this.getArticleById(id, false);
+	}
+
+	@Override
+	public Article getArticleById(final int id, final boolean withStocks) throws DaoException {
+		return this.jdbc.execute("Impossible de lire l'article.", () -> {
+			final PreparedStatement ps = this.jdbc.prepare(SELECT + " WHERE art.Id = ?");
+			ps.setInt(1, id);
+			final Article article = this.getSingleResult(ps, withStocks);
+			if (article == null) {
+				// deleted since it was read in this unit of work
+				this.jdbc.articles().remove(id);
+			}
+			return article;
+		});
+	}
+
+	@Override
+	public List<Article> getArticlesByIds(final Collection<Integer> ids) throws DaoException {
+		return this.jdbc.execute("Impossible de lire les articles.", () -> this.rows.readArticlesByIds(ids));
+	}
+
+	@Override
+	public Article getArticleReference(final int id) throws DaoException {
+		final Article known = this.jdbc.articles().get(id);
+		return known != null ? known : this.getArticleById(id);
+	}
+
+	@Override
+	public List<Article> getAllArticlesByCategoryId(final int id) throws DaoException {
+		return this.jdbc.execute("Impossible de lire les articles.", () -> {
+			final PreparedStatement ps = this.jdbc.prepare(SELECT + " WHERE art.Category = ?");
+			ps.setInt(1, id);
+			return this.getResultList(ps, false);
+		});
+	}
+
+	@Override
+	public List<Article> getArticlesPageByCategoryId(final int categoryId, final int afterId, final int limit)
+			throws DaoException {
+		return this.jdbc.execute("Impossible de lire les articles.", () -> {
+			final PreparedStatement ps = this.jdbc
+					.prepare(SELECT + " WHERE art.Category = ? AND art.Id > ? ORDER BY art.Id");
+			ps.setInt(1, categoryId);
+			ps.setInt(2, afterId);
+			ps.setMaxRows(limit);
+			return this.getResultList(ps, false);
+		});
+	}
+
+	@Override
+	public long countArticlesByCategoryId(final int categoryId) throws DaoException {
+		return this.jdbc.execute("Impossible de compter les articles.", () -> {
+			final PreparedStatement ps = this.jdbc.prepare("SELECT COUNT(*) FROM Article WHERE Category = ?");
+			ps.setInt(1, categoryId);
+			try (ResultSet rs = ps.executeQuery()) {
+				return rs.next() ? rs.getLong(1) : 0L;
+			}
+		});
+	}
+
+	@Override
+	public Article getArticleByStockId(final int id) throws DaoException {
+		return this.jdbc.execute("Impossible de lire l'article.", () -> {
+			final PreparedStatement ps = this.jdbc
+					.prepare(SELECT + " JOIN Stock sto ON sto.Article = art.Id WHERE sto.Id = ?");
+			ps.setInt(1, id);
+			return this.getSingleResult(ps, false);
+		});
+	}
+
+	@Override
+	public ArticleBalance getArticleBalance(final int articleId) throws DaoException {
+		return this.jdbc.execute("Impossible de lire le stock de l'article.", () -> {
+			final PreparedStatement ps = this.jdbc
+					.prepare("SELECT ArticleId, Quantity FROM ArticleBalance WHERE ArticleId = ?");
+			ps.setInt(1, articleId);
+			final List<ArticleBalance> balances = readBalances(ps.executeQuery());
+			return balances.isEmpty() ? null : balances.getFirst();
+		});
+	}
+
+	@Override
+	public List<ArticleBalance> getArticleBalances(final Collection<Integer> articleIds) throws DaoException {
+		return this.jdbc.execute("Impossible de lire le stock des articles.", () -> {
+			final List<ArticleBalance> balances = new ArrayList<>(articleIds.size());
+			for (final List<Integer> chunk : DaoJdbcHelper.chunks(articleIds)) {
+				final PreparedStatement ps = this.jdbc.prepare("SELECT ArticleId, Quantity FROM ArticleBalance "
+						+ "WHERE ArticleId IN " + DaoJdbcHelper.inClause(chunk.size()));
+				DaoJdbcHelper.bindIds(ps, 1, chunk);
+				balances.addAll(readBalances(ps.executeQuery()));
+			}
+			return balances;
+		});
+	}
+
+	@Override
+	public List<ArticleSummary> getAllArticleSummaries() throws DaoException {
+		return this.jdbc.execute("Impossible de lire les articles.",
+				() -> readSummaries(this.jdbc.prepare(SELECT_SUMMARY + " ORDER BY art.Id").executeQuery()));
+	}
+
+	@Override
+	public List<ArticleSummary> getArticleSummariesPage(final int afterId, final int limit) throws DaoException {
+		return this.jdbc.execute("Impossible de lire les articles.", () -> {
+			final PreparedStatement ps = this.jdbc.prepare(SELECT_SUMMARY + " WHERE art.Id > ? ORDER BY art.Id");
+			ps.setInt(1, afterId);
+			ps.setMaxRows(limit);
+			return readSummaries(ps.executeQuery());
+		});
+	}
+
+	@Override
+	public void updateArticle(final Article a) throws DaoException {
+		this.jdbc.execute("Impossible de modifier l'article.", () -> {
+			final PreparedStatement ps = this.jdbc.prepare("UPDATE Article SET Name = ?, EAN13 = ?, Brand = ?, "
+					+ "Picture_URL = ?, Price = ?, Description = ?, Category = ?, Version = ? "
+					+ "WHERE Id = ? AND Version = ?");
+			this.bindColumns(ps, 1, a);
+			ps.setInt(8, a.getVersion() + 1);
+			ps.setInt(9, a.getId());
+			ps.setInt(10, a.getVersion());
+			if (ps.executeUpdate() == 0) {
+				throw new StaleDataException("L'article a été modifié entre-temps.");
+			}
+			a.setVersion(a.getVersion() + 1);
+			return null;
+		});
+		this.jdbc.evict(Article.class, a.getId());
+	}
+
+	@Override
+	public void deleteArticle(final Article a) throws DaoException {
+		this.deleteArticleById(a.getId());
+	}
+
+	@Override
+	public boolean deleteArticleById(final int id) throws DaoException {
+		final int deleted = this.jdbc.execute("Impossible de supprimer l'article", () -> {
+			for (final String sql : new String[] { "DELETE FROM Stock WHERE Article = ?",
+					"DELETE FROM ArticleBalance WHERE ArticleId = ?" }) {
+				final PreparedStatement ps = this.jdbc.prepare(sql);
+				ps.setInt(1, id);
+				ps.executeUpdate();
+			}
+			final PreparedStatement ps = this.jdbc.prepare("DELETE FROM Article WHERE Id = ?");
+			ps.setInt(1, id);
+			return ps.executeUpdate();
+		});
+		this.jdbc.articles().remove(id);
+		this.jdbc.stocks().values().removeIf(sto -> sto.getArticle() != null && sto.getArticle().getId() == id);
+		// as with the JPA DAO, the Article is dropped from the shared cache
+		this.jdbc.evict(Article.class, id);
+		return deleted > 0;
+	}
+
+	/**
+	 * Binds the columns of the Article, from Name to Category, from the given
+	 * parameter index onwards.
+	 */
+	private void bindColumns(final PreparedStatement ps, final int firstIndex, final Article a) throws SQLException {
+		ps.setString(firstIndex, a.getName());
+		ps.setString(firstIndex + 1, a.getEAN13());
+		ps.setString(firstIndex + 2, a.getBrand());
+		ps.setString(firstIndex + 3, a.getPicture_URL());
+		ps.setFloat(firstIndex + 4, a.getPrice());
+		ps.setString(firstIndex + 5, a.getDescription());
+		if (a.getCategory() == null) {
+			ps.setNull(firstIndex + 6, Types.INTEGER);
+		} else {
+			ps.setInt(firstIndex + 6, a.getCategory().getId());
+		}
+	}
+
+	private List<Article> getResultList(final PreparedStatement ps, final boolean withStocks) throws SQLException {
+		final List<Article> result = this.rows.readArticles(ps.executeQuery());
+		if (withStocks) {
+			this.rows.loadStocks(result);
+		}
+		return result;
+	}
+
+	private Article getSingleResult(final PreparedStatement ps, final boolean withStocks) throws SQLException {
+		final List<Article> result = this.getResultList(ps, withStocks);
+		return result.isEmpty() ? null : result.getFirst();
+	}
+
+	private static List<ArticleBalance> readBalances(final ResultSet rs) throws SQLException {
+		final List<ArticleBalance> balances = new ArrayList<>();
+		try (rs) {
+			while (rs.next()) {
+				balances.add(new ArticleBalance(rs.getInt(1), rs.getInt(2)));
+			}
+		}
+		return balances;
+	}
+
+	private static List<ArticleSummary> readSummaries(final ResultSet rs) throws SQLException {
+		final List<ArticleSummary> summaries = new ArrayList<>();
+		try (rs) {
+			while (rs.next()) {
+				summaries.add(new ArticleSummary(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getString(4),
+						rs.getFloat(5), rs.getString(6), rs.getInt(7)));
+			}
+		}
+		return summaries;
+	}
+}
@@ -0,0 +1,31 @@
+package edu.esiea.inventorymanager.dao.jdbcimp;
+
+import edu.esiea.inventorymanager.dao.bddimp.DaoBddBackend;
+import edu.esiea.inventorymanager.dao.interfaces.IArticlesDao;
+import edu.esiea.inventorymanager.dao.interfaces.IStocksDao;
+import edu.esiea.inventorymanager.exception.DaoException;
+
+/**
+ * JDBC backend : the Articles and Stocks, on the hot path, are read and written
+ * with plain JDBC statements. Categories and Commands keep their JPA DAOs, in
+ * the same transactions, which are the ones of the JPA backend.
+ */
+public class DaoJdbcBackend extends DaoBddBackend {
+
+	public static final String NAME = "jdbc";
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	public IArticlesDao createArticlesDao() throws DaoException {
+		return new ArticlesDaoJdbc();
+	}
+
+	@Override
+	public IStocksDao createStocksDao() throws DaoException {
+		return new StocksDaoJdbc();
+	}
+}
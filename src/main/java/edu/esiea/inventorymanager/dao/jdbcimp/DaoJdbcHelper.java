@@ -0,0 +1,216 @@
+package edu.esiea.inventorymanager.dao.jdbcimp;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+
+import org.eclipse.persistence.sessions.Session;
+
+import edu.esiea.inventorymanager.dao.DaoFactory;
+import edu.esiea.inventorymanager.dao.UnitOfWork;
+import edu.esiea.inventorymanager.dao.bddimp.DaoBddHelper;
+import edu.esiea.inventorymanager.exception.DaoException;
+import edu.esiea.inventorymanager.model.Article;
+import edu.esiea.inventorymanager.model.Stock;
+
+/**
+ * Plumbing shared by the JDBC DAOs. Their statements run on the connection of
+ * the current JPA transaction of {@link DaoBddHelper} : they join the units of
+ * work of {@link DaoFactory#inTransaction(UnitOfWork)} like the JPA DAOs, and
+ * a request never holds locks from two connections at once.
+ */
+final class DaoJdbcHelper {
+	/**
+	 * Maximum number of ids bound to a single IN clause. Shorter chunks are
+	 * padded up to the next power of two, so that only a few statement shapes
+	 * are prepared.
+	 */
+	static final int IN_CHUNK_SIZE = 512;
+
+	private static DaoJdbcHelper instance;
+
+	private final DaoBddHelper bdd;
+	private final Map<Connection, Map<String, PreparedStatement>> statements = new ConcurrentHashMap<>();
+	private final ThreadLocal<Context> context = new ThreadLocal<>();
+
+	/**
+	 * Work run by {@link DaoJdbcHelper#execute(String, JdbcWork)} inside a
+	 * transaction.
+	 */
+	@FunctionalInterface
+	interface JdbcWork<T> {
+		T execute() throws SQLException, DaoException;
+	}
+
+	/**
+	 * Objects read in the current unit of work, bound to its Entity Manager : a
+	 * row read twice gives the same object, as with the persistence context of
+	 * the JPA DAOs.
+	 */
+	private static final class Context {
+		private final EntityManager em;
+		private final Map<Integer, Article> articles = new HashMap<>();
+		private final Map<Integer, Stock> stocks = new HashMap<>();
+
+		private Context(final EntityManager em) {
+			this.em = em;
+		}
+	}
+
+	static synchronized DaoJdbcHelper getInstance() throws DaoException {
+		final DaoBddHelper current = DaoBddHelper.getInstance();
+		if (instance == null || instance.bdd != current) {
+			instance = new DaoJdbcHelper(current);
+		}
+		return instance;
+	}
+
+	private DaoJdbcHelper(final DaoBddHelper bdd) {
+		this.bdd = bdd;
+	}
+
+	/**
+	 * Runs the given statements in a transaction, or in the one already running
+	 * on the current thread.
+	 *
+	 * @param errorMessage message of the {@link DaoException} thrown if a
+	 *                     statement fails
+	 * @param work         the statements to run
+	 * @return the result of the statements
+	 * @throws DaoException in case of error, the transaction is rolled back then.
+	 */
+	<T> T execute(final String errorMessage, final JdbcWork<T> work) throws DaoException {
+		try {
+			this.bdd.beginTransaction();
+			final T result = work.execute();
+			this.bdd.commitTransaction();
+			return result;
+		} catch (final SQLException | PersistenceException e) {
+			this.bdd.rollBackTransaction();
+			throw new DaoException(errorMessage, e);
+		} catch (final DaoException | RuntimeException e) {
+			this.bdd.rollBackTransaction();
+			throw e;
+		}
+	}
+
+	/**
+	 * Returns the statement of the given SQL on the connection of the current
+	 * transaction. It is prepared once per connection and then reused : it
+	 * <u><b>can't</b></u> be executed again while one of its result sets is still
+	 * read.
+	 */
+	PreparedStatement prepare(final String sql) throws SQLException {
+		final Connection connection = this.bdd.getEntityManager().unwrap(Connection.class);
+		if (connection == null) {
+			throw new SQLException("Aucune transaction en cours.");
+		}
+		Map<String, PreparedStatement> cache = this.statements.get(connection);
+		if (cache == null) {
+			// the pool may have replaced some of its connections since
+			this.statements.keySet().removeIf(DaoJdbcHelper::isClosed);
+			cache = new HashMap<>();
+			this.statements.put(connection, cache);
+		}
+		PreparedStatement statement = cache.get(sql);
+		if (statement == null || statement.isClosed()) {
+			statement = connection.prepareStatement(sql);
+			cache.put(sql, statement);
+		}
+		return statement;
+	}
+
+	/**
+	 * Allocates an id to a new entity from the same pooled blocks as the JPA
+	 * DAOs, see META-INF/orm.xml.
+	 */
+	int nextId(final Class<?> entityClass) {
+		final Session session = this.bdd.getEntityManager().unwrap(Session.class);
+		return session.getNextSequenceNumberValue(entityClass).intValue();
+	}
+
+	Map<Integer, Article> articles() {
+		return this.context().articles;
+	}
+
+	Map<Integer, Stock> stocks() {
+		return this.context().stocks;
+	}
+
+	EntityManager getEntityManager() {
+		return this.bdd.getEntityManager();
+	}
+
+	/**
+	 * Drops an entity written with JDBC from the shared cache of the JPA DAOs,
+	 * once the transaction of the current thread is committed.
+	 */
+	void evict(final Class<?> entityClass, final Object id) {
+		this.bdd.evictAfterCommit(entityClass, id);
+	}
+
+	/**
+	 * Sorts the given ids, removes the duplicates and splits them into chunks of
+	 * at most {@link #IN_CHUNK_SIZE} ids, padded by repeating their last id.
+	 */
+	static List<List<Integer>> chunks(final Collection<Integer> ids) {
+		final List<Integer> sortedIds = ids.stream().distinct().sorted().toList();
+		final List<List<Integer>> chunks = new ArrayList<>();
+		for (int from = 0; from < sortedIds.size(); from += IN_CHUNK_SIZE) {
+			final List<Integer> chunk = new ArrayList<>(
+					sortedIds.subList(from, Math.min(from + IN_CHUNK_SIZE, sortedIds.size())));
+			final int size = Integer.highestOneBit(chunk.size()) == chunk.size() ? chunk.size()
+					: Integer.highestOneBit(chunk.size()) << 1;
+			while (chunk.size() < size) {
+				chunk.add(chunk.getLast());
+			}
+			chunks.add(chunk);
+		}
+		return chunks;
+	}
+
+	/**
+	 * @return the placeholders of an IN clause of the given size, parentheses
+	 *         included.
+	 */
+	static String inClause(final int size) {
+		return "(?" + ", ?".repeat(size - 1) + ")";
+	}
+
+	/**
+	 * Binds the given ids from the given parameter index onwards.
+	 */
+	static void bindIds(final PreparedStatement statement, final int firstIndex, final List<Integer> ids)
+			throws SQLException {
+		for (int i = 0; i < ids.size(); i++) {
+			statement.setInt(firstIndex + i, ids.get(i));
+		}
+	}
+
+	private Context context() {
+		final EntityManager em = this.bdd.getEntityManager();
+		Context current = this.context.get();
+		if (current == null || current.em != em) {
+			current = new Context(em);
+			this.context.set(current);
+		}
+		return current;
+	}
+
+	private static boolean isClosed(final Connection connection) {
+		try {
+			return connection.isClosed();
+		} catch (final SQLException e) {
+			return true;
+		}
+	}
+}
@@ -0,0 +1,204 @@
+package edu.esiea.inventorymanager.dao.jdbcimp;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManager;
+
+import edu.esiea.inventorymanager.model.Article;
+import edu.esiea.inventorymanager.model.Category;
+import edu.esiea.inventorymanager.model.InOut;
+import edu.esiea.inventorymanager.model.Stock;
+
+/**
+ * Reading of the Article and Stock rows, shared by the JDBC DAOs. The columns
+ * are read by position, in the order of {@link #ARTICLE_COLUMNS} and
+ * {@link #STOCK_COLUMNS}. Must be called inside their transaction.
+ */
+final class EntityRows {
+
+	static final String ARTICLE_COLUMNS = "art.Id, art.Version, art.Name, art.EAN13, art.Brand, art.Picture_URL, "
+			+ "art.Price, art.Description, art.Category";
+	static final String STOCK_COLUMNS = "sto.Id, sto.Version, sto.Date, sto.Quantity, sto.TransferType, "
+			+ "sto.Comment, sto.Article";
+
+	private final DaoJdbcHelper jdbc;
+
+	EntityRows(final DaoJdbcHelper jdbc) {
+		this.jdbc = jdbc;
+	}
+
+	/**
+	 * Reads all the Articles of the result set. An Article already read in the
+	 * current unit of work is updated and returned instead of a new one.
+	 */
+	List<Article> readArticles(final ResultSet rs) throws SQLException {
+		final List<Article> articles = new ArrayList<>();
+		final List<Integer> categoryIds = new ArrayList<>();
+		try (rs) {
+			while (rs.next()) {
+				final int id = rs.getInt(1);
+				final Article article = this.jdbc.articles().computeIfAbsent(id, k -> new Article());
+				article.setId(id);
+				article.setVersion(rs.getInt(2));
+				article.setName(rs.getString(3));
+				article.setEAN13(rs.getString(4));
+				article.setBrand(rs.getString(5));
+				article.setPicture_URL(rs.getString(6));
+				article.setPrice(rs.getFloat(7));
+				article.setDescription(rs.getString(8));
+				final int categoryId = rs.getInt(9);
+				categoryIds.add(rs.wasNull() ? null : categoryId);
+				articles.add(article);
+			}
+		}
+		// the Categories are resolved once the result set is closed
+		final Map<Integer, Category> categories = this.getCategories(categoryIds);
+		for (int i = 0; i < articles.size(); i++) {
+			final Integer categoryId = categoryIds.get(i);
+			articles.get(i).setCategory(categoryId == null ? null : categories.get(categoryId));
+		}
+		return articles;
+	}
+
+	/**
+	 * Returns the Categories which ids correspond to the ones given. Those of the
+	 * shared cache are taken from it, the others are read together, in one query
+	 * per chunk of ids.
+	 *
+	 * @param ids Ids of the Categories, <code>null</code> elements are skipped
+	 * @return the Categories found by id
+	 */
+	private Map<Integer, Category> getCategories(final Collection<Integer> ids) {
+		final EntityManager em = this.jdbc.getEntityManager();
+		final Cache cache = em.getEntityManagerFactory().getCache();
+		final Map<Integer, Category> categories = new HashMap<>();
+		final Set<Integer> missing = new HashSet<>();
+		for (final Integer id : ids) {
+			if (id == null || categories.containsKey(id)) {
+				continue;
+			}
+			if (cache.contains(Category.class, id)) {
+				categories.put(id, em.find(Category.class, id));
+			} else {
+				missing.add(id);
+			}
+		}
+		for (final List<Integer> chunk : DaoJdbcHelper.chunks(missing)) {
+			for (final Category category : em.createNamedQuery("Category.findByIds", Category.class)
+					.setParameter("ids", chunk).getResultList()) {
+				categories.put(category.getId(), category);
+			}
+		}
+		return categories;
+	}
+
+	/**
+	 * Reads all the Stocks of the result set, with their Articles. An Article
+	 * not read yet in the current unit of work is read with the others, in one
+	 * query per chunk of ids.
+	 *
+	 * @param register <code>true</code> to keep the Stocks in the current unit of
+	 *                 work, <code>false</code> to return new objects that are not
+	 *                 kept once handed out.
+	 */
+	List<Stock> readStocks(final ResultSet rs, final boolean register) throws SQLException {
+		final List<Stock> stocks = new ArrayList<>();
+		final List<Integer> articleIds = new ArrayList<>();
+		try (rs) {
+			while (rs.next()) {
+				final int id = rs.getInt(1);
+				final Stock stock = register ? this.jdbc.stocks().computeIfAbsent(id, k -> new Stock()) : new Stock();
+				stock.setId(id);
+				stock.setVersion(rs.getInt(2));
+				stock.setDate(rs.getObject(3, LocalDate.class));
+				stock.setQuantity(rs.getInt(4));
+				stock.setTransferType(InOut.valueOf(rs.getString(5)));
+				stock.setComment(rs.getString(6));
+				final int articleId = rs.getInt(7);
+				articleIds.add(rs.wasNull() ? null : articleId);
+				stocks.add(stock);
+			}
+		}
+		final Map<Integer, Article> articles = this.getArticles(articleIds);
+		for (int i = 0; i < stocks.size(); i++) {
+			final Integer articleId = articleIds.get(i);
+			stocks.get(i).setArticle(articleId == null ? null : articles.get(articleId));
+		}
+		return stocks;
+	}
+
+	/**
+	 * Returns the Articles which ids correspond to the ones given, reading only
+	 * those that have not been read yet in the current unit of work.
+	 *
+	 * @param ids Ids of the Articles, <code>null</code> elements are skipped
+	 * @return the Articles found by id
+	 */
+	Map<Integer, Article> getArticles(final Collection<Integer> ids) throws SQLException {
+		final Map<Integer, Article> known = this.jdbc.articles();
+		final Map<Integer, Article> articles = new HashMap<>();
+		final List<Integer> missing = new ArrayList<>();
+		for (final Integer id : ids) {
+			if (id == null) {
+				continue;
+			}
+			final Article article = known.get(id);
+			if (article != null) {
+				articles.put(id, article);
+			} else {
+				missing.add(id);
+			}
+		}
+		for (final Article article : this.readArticlesByIds(missing)) {
+			articles.put(article.getId(), article);
+		}
+		return articles;
+	}
+
+	/**
+	 * Reads the Articles which ids correspond to the ones given, ordered by id.
+	 */
+	List<Article> readArticlesByIds(final Collection<Integer> ids) throws SQLException {
+		final List<Article> articles = new ArrayList<>(ids.size());
+		for (final List<Integer> chunk : DaoJdbcHelper.chunks(ids)) {
+			final PreparedStatement ps = this.jdbc.prepare("SELECT " + ARTICLE_COLUMNS
+					+ " FROM Article art WHERE art.Id IN " + DaoJdbcHelper.inClause(chunk.size()) + " ORDER BY art.Id");
+			DaoJdbcHelper.bindIds(ps, 1, chunk);
+			articles.addAll(this.readArticles(ps.executeQuery()));
+		}
+		return articles;
+	}
+
+	/**
+	 * Reads the Stocks of the given Articles, in one query per chunk of
+	 * Articles, and sets them as their movements.
+	 */
+	void loadStocks(final List<Article> articles) throws SQLException {
+		final Map<Integer, List<Stock>> stocksByArticle = new HashMap<>();
+		for (final Article article : articles) {
+			stocksByArticle.computeIfAbsent(article.getId(), k -> new ArrayList<>());
+		}
+		for (final List<Integer> chunk : DaoJdbcHelper.chunks(stocksByArticle.keySet())) {
+			final PreparedStatement ps = this.jdbc.prepare("SELECT " + STOCK_COLUMNS + " FROM Stock sto "
+					+ "WHERE sto.Article IN " + DaoJdbcHelper.inClause(chunk.size()) + " ORDER BY sto.Id");
+			DaoJdbcHelper.bindIds(ps, 1, chunk);
+			for (final Stock stock : this.readStocks(ps.executeQuery(), true)) {
+				stocksByArticle.get(stock.getArticle().getId()).add(stock);
+			}
+		}
+		for (final Article article : articles) {
+			article.setStock(stocksByArticle.get(article.getId()));
+		}
+	}
+}
@@ -0,0 +1,457 @@
+package edu.esiea.inventorymanager.dao.jdbcimp;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import edu.esiea.inventorymanager.dao.bddimp.ArticleBalances;
+import edu.esiea.inventorymanager.dao.interfaces.IStocksDao;
+import edu.esiea.inventorymanager.exception.DaoException;
+import edu.esiea.inventorymanager.exception.StaleDataException;
+import edu.esiea.inventorymanager.model.Article;
+import edu.esiea.inventorymanager.model.InOut;
+import edu.esiea.inventorymanager.model.Stock;
+
+/**
+ * Stocks DAO written with plain JDBC statements. Updates write every column at
+ * once, guarded by the version read. The Articles whose movements change are
+ * dropped from the shared cache of the JPA DAOs.
+ */
+public class StocksDaoJdbc implements IStocksDao {
+
+	/**
+	 * Number of Stocks inserted per JDBC batch, as the JPA DAO does with
+	 * eclipselink.jdbc.batch-writing.size.
+	 */
+	private static final int BATCH_SIZE = 100;
+
+	/**
+	 * Number of rows fetched per round trip when walking through the Stocks, and
+	 * handed to the consumer once their Articles have been read.
+	 */
+	private static final int CURSOR_PAGE_SIZE = 500;
+
+	private static final String SELECT = "SELECT " + EntityRows.STOCK_COLUMNS + " FROM Stock sto";
+	private static final String INSERT = "INSERT INTO Stock (Id, Version, Date, Quantity, TransferType, Comment, "
+			+ "Article, Command) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+	private final DaoJdbcHelper jdbc;
+	private final EntityRows rows;
+
+	public StocksDaoJdbc() throws DaoException {
+		this.jdbc = DaoJdbcHelper.getInstance();
+		this.rows = new EntityRows(this.jdbc);
+	}
+
+	@Override
+	public Stock createStock(final Stock sto) throws DaoException {
+		this.jdbc.execute("Impossible de créer le stock.", () -> {
+			final PreparedStatement ps = this.jdbc.prepare(INSERT);
+			this.bindInsert(ps, sto);
+			ps.executeUpdate();
+			this.created(sto);
+			this.addToBalance(sto.getArticle(), signedQuantity(sto.getTransferType(), sto.getQuantity()));
+			return null;
+		});
+		return sto;
+	}
+
+	@Override
+	public List<Stock> createStocks(final List<Stock> stocks) throws DaoException {
+		this.jdbc.execute("Impossible de créer les stocks.", () -> {
+			final PreparedStatement ps = this.jdbc.prepare(INSERT);
+			final Map<Integer, Integer> deltas = new HashMap<>();
+			int count = 0;
+			for (final Stock sto : stocks) {
+				this.bindInsert(ps, sto);
+				ps.addBatch();
+				if (sto.getArticle() != null) {
+					deltas.merge(sto.getArticle().getId(), signedQuantity(sto.getTransferType(), sto.getQuantity()),
+							Integer::sum);
+				}
+				if (++count % BATCH_SIZE == 0) {
+					ps.executeBatch();
+				}
+			}
+			// some drivers refuse to execute an empty batch
+			if (count % BATCH_SIZE != 0) {
+				ps.executeBatch();
+			}
+			for (final Stock sto : stocks) {
+				this.created(sto);
+			}
+			for (final Map.Entry<Integer, Integer> delta : deltas.entrySet()) {
+				ArticleBalances.add(this.jdbc.getEntityManager(), delta.getKey(), delta.getValue());
+			}
+			return null;
+		});
+		return stocks;
+	}
+
+	@Override
+	public List<Stock> getAllStocks() throws DaoException {
+		return this.jdbc.execute("Impossible de lire les stocks.",
+				() -> this.rows.readStocks(this.jdbc.prepare(SELECT).executeQuery(), true));
+	}
+
+	@Override
+	public List<Stock> getStocksPage(final int afterId, final int limit) throws DaoException {
+		return this.jdbc.execute("Impossible de lire les stocks.", () -> {
+			final PreparedStatement ps = this.jdbc.prepare(SELECT + " WHERE sto.Id > ? ORDER BY sto.Id");
+			ps.setInt(1, afterId);
+			ps.setMaxRows(limit);
+			return this.rows.readStocks(ps.executeQuery(), true);
+		});
+	}
+
+	@Override
+	public void forEachStock(final Consumer<Stock> consumer) throws DaoException {
+		// read by pages of ids rather than with one open cursor, so that the
+		// Articles of each page can be read on the same connection
+		this.jdbc.execute("Impossible de parcourir les stocks.", () -> {
+			final PreparedStatement ps = this.jdbc.prepare(SELECT + " WHERE sto.Id > ? ORDER BY sto.Id");
+			int afterId = 0;
+			List<Stock> page;
+			do {
+				ps.setInt(1, afterId);
+				ps.setMaxRows(CURSOR_PAGE_SIZE);
+				ps.setFetchSize(CURSOR_PAGE_SIZE);
+				page = this.rows.readStocks(ps.executeQuery(), false);
+				page.forEach(consumer);
+				if (!page.isEmpty()) {
+					afterId = page.getLast().getId();
+				}
+			} while (page.size() == CURSOR_PAGE_SIZE);
+			return null;
+		});
+	}
+
+	@Override
+	public Stock getStockById(final int id) throws DaoException {
+		return this.jdbc.execute("Impossible de lire le stock.", () -> {
+			final PreparedStatement ps = this.jdbc.prepare(SELECT + " WHERE sto.Id = ?");
+			ps.setInt(1, id);
+			final List<Stock> result = this.rows.readStocks(ps.executeQuery(), true);
+			if (result.isEmpty()) {
+				// deleted since it was read in this unit of work
+				this.jdbc.stocks().remove(id);
+				return null;
+			}
+			return result.getFirst();
+		});
+	}
+
+	@Override
+	public List<Stock> getStocksByIds(final Collection<Integer> ids) throws DaoException {
+		return this.jdbc.execute("Impossible de lire les stocks.", () -> {
+			final List<Stock> stocks = new ArrayList<>(ids.size());
+			for (final List<Integer> chunk : DaoJdbcHelper.chunks(ids)) {
+				final PreparedStatement ps = this.jdbc.prepare(
+						SELECT + " WHERE sto.Id IN " + DaoJdbcHelper.inClause(chunk.size()) + " ORDER BY sto.Id");
+				DaoJdbcHelper.bindIds(ps, 1, chunk);
+				stocks.addAll(this.rows.readStocks(ps.executeQuery(), true));
+			}
+			return stocks;
+		});
+	}
+
+	@Override
+	public List<Stock> getStocksByArticleId(final int id) throws DaoException {
+		return this.getStocksBy(SELECT + " WHERE sto.Article = ?", id);
+	}
+
+	@Override
+	public List<Stock> getStocksByCommandId(final int id) throws DaoException {
+		return this.getStocksBy(SELECT + " WHERE sto.Command = ? ORDER BY sto.Id", id);
+	}
+
+	@Override
+	public List<Stock> getStocksPageByCommandId(final int commandId, final int afterId, final int limit)
+			throws DaoException {
+		return this.jdbc.execute("Impossible de lire les stocks.", () -> {
+			final PreparedStatement ps = this.jdbc
+					.prepare(SELECT + " WHERE sto.Command = ? AND sto.Id > ? ORDER BY sto.Id");
+			ps.setInt(1, commandId);
+			ps.setInt(2, afterId);
+			ps.setMaxRows(limit);
+			return this.rows.readStocks(ps.executeQuery(), true);
+		});
+	}
+
+	@Override
+	public List<Stock> getStocksByTransferType(final InOut transferType) throws DaoException {
+		return this.jdbc.execute("Impossible de lire les stocks.", () -> {
+			final PreparedStatement ps = this.jdbc.prepare(SELECT + " WHERE sto.TransferType = ?");
+			ps.setString(1, transferType.name());
+			return this.rows.readStocks(ps.executeQuery(), true);
+		});
+	}
+
+	@Override
+	public List<Stock> searchStocks(final Integer articleId, final InOut transferType, final LocalDate from,
+			final LocalDate to, final int limit) throws DaoException {
+		final List<String> filters = new ArrayList<>();
+		final List<Object> values = new ArrayList<>();
+		if (articleId != null) {
+			filters.add("sto.Article = ?");
+			values.add(articleId);
+		}
+		if (transferType != null) {
+			filters.add("sto.TransferType = ?");
+			values.add(transferType.name());
+		}
+		if (from != null) {
+			filters.add("sto.Date >= ?");
+			values.add(from);
+		}
+		if (to != null) {
+			filters.add("sto.Date <= ?");
+			values.add(to);
+		}
+		final String where = filters.isEmpty() ? "" : " WHERE " + String.join(" AND ", filters);
+		return this.jdbc.execute("Impossible de rechercher les stocks.", () -> {
+			final PreparedStatement ps = this.jdbc.prepare(SELECT + where + " ORDER BY sto.Date DESC, sto.Id DESC");
+			for (int i = 0; i < values.size(); i++) {
+				ps.setObject(i + 1, values.get(i));
+			}
+			ps.setMaxRows(limit);
+			return this.rows.readStocks(ps.executeQuery(), true);
+		});
+	}
+
+	@Override
+	public Map<Integer, Long> sumQuantityByArticle() throws DaoException {
+		return this.jdbc.execute("Impossible de calculer le stock des articles.", () -> {
+			final PreparedStatement ps = this.jdbc.prepare("SELECT Article, SUM(CASE WHEN TransferType = 'IN' "
+					+ "THEN Quantity ELSE 0 - Quantity END) FROM Stock WHERE Article IS NOT NULL GROUP BY Article");
+			final Map<Integer, Long> sums = new HashMap<>();
+			try (ResultSet rs = ps.executeQuery()) {
+				while (rs.next()) {
+					sums.put(rs.getInt(1), rs.getLong(2));
+				}
+			}
+			return sums;
+		});
+	}
+
+	@Override
+	public Map<Integer, Map<InOut, Long>> sumByArticleAndTransferType(final LocalDate from, final LocalDate to)
+			throws DaoException {
+		return this.jdbc.execute("Impossible de calculer les mouvements des articles.", () -> {
+			final PreparedStatement ps = this.jdbc.prepare("SELECT Article, TransferType, SUM(Quantity) FROM Stock "
+					+ "WHERE Article IS NOT NULL AND Date BETWEEN ? AND ? GROUP BY Article, TransferType");
+			ps.setObject(1, from);
+			ps.setObject(2, to);
+			final Map<Integer, Map<InOut, Long>> sums = new HashMap<>();
+			try (ResultSet rs = ps.executeQuery()) {
+				while (rs.next()) {
+					sums.computeIfAbsent(rs.getInt(1), id -> new EnumMap<>(InOut.class))
+							.put(InOut.valueOf(rs.getString(2)), rs.getLong(3));
+				}
+			}
+			return sums;
+		});
+	}
+
+	@Override
+	public SortedMap<LocalDate, Map<InOut, Long>> dailyTotals(final int articleId, final LocalDate from,
+			final LocalDate to) throws DaoException {
+		return this.jdbc.execute("Impossible de calculer les mouvements de l'article.", () -> {
+			final PreparedStatement ps = this.jdbc.prepare("SELECT Date, TransferType, SUM(Quantity) FROM Stock "
+					+ "WHERE Article = ? AND Date BETWEEN ? AND ? GROUP BY Date, TransferType");
+			ps.setInt(1, articleId);
+			ps.setObject(2, from);
+			ps.setObject(3, to);
+			final SortedMap<LocalDate, Map<InOut, Long>> sums = new TreeMap<>();
+			try (ResultSet rs = ps.executeQuery()) {
+				while (rs.next()) {
+					sums.computeIfAbsent(rs.getObject(1, LocalDate.class), day -> new EnumMap<>(InOut.class))
+							.put(InOut.valueOf(rs.getString(2)), rs.getLong(3));
+				}
+			}
+			return sums;
+		});
+	}
+
+	@Override
+	public void updateStock(final Stock sto) throws DaoException {
+		final Movement previous = this.jdbc.execute("Impossible de modifier le stock.", () -> {
+			final Movement movement = this.findMovement(sto.getId());
+			final PreparedStatement ps = this.jdbc.prepare("UPDATE Stock SET Date = ?, Quantity = ?, "
+					+ "TransferType = ?, Comment = ?, Article = ?, Version = ? WHERE Id = ? AND Version = ?");
+			this.bindColumns(ps, 1, sto);
+			ps.setInt(6, sto.getVersion() + 1);
+			ps.setInt(7, sto.getId());
+			ps.setInt(8, sto.getVersion());
+			if (ps.executeUpdate() == 0) {
+				throw new StaleDataException("Le stock a été modifié entre-temps.");
+			}
+			sto.setVersion(sto.getVersion() + 1);
+			this.moveBalance(movement, sto);
+			return movement;
+		});
+		if (previous.articleId() != null && (sto.getArticle() == null
+				|| previous.articleId() != sto.getArticle().getId())) {
+			this.detach(previous.articleId(), sto);
+			this.attach(sto);
+		}
+	}
+
+	@Override
+	public void deleteStock(final Stock sto) throws DaoException {
+		final Movement previous = this.jdbc.execute("Impossible de supprimer le stock.", () -> {
+			final Movement movement = this.findMovement(sto.getId());
+			final PreparedStatement ps = this.jdbc.prepare("DELETE FROM Stock WHERE Id = ?");
+			ps.setInt(1, sto.getId());
+			ps.executeUpdate();
+			this.removeFromBalance(movement);
+			return movement;
+		});
+		this.jdbc.stocks().remove(sto.getId());
+		if (previous.articleId() != null) {
+			this.detach(previous.articleId(), sto);
+		}
+	}
+
+	/**
+	 * Stored state of a movement : what its balance change has to be reverted
+	 * from.
+	 */
+	private record Movement(int quantity, InOut transferType, Integer articleId) {
+	}
+
+	/**
+	 * Reads the stored state of a movement.
+	 *
+	 * @return the stored movement, with no Article and no quantity if the Stock
+	 *         is not stored.
+	 */
+	private Movement findMovement(final int id) throws SQLException {
+		final PreparedStatement ps = this.jdbc
+				.prepare("SELECT Quantity, TransferType, Article FROM Stock WHERE Id = ?");
+		ps.setInt(1, id);
+		try (ResultSet rs = ps.executeQuery()) {
+			if (!rs.next()) {
+				return new Movement(0, InOut.IN, null);
+			}
+			final int quantity = rs.getInt(1);
+			final InOut transferType = InOut.valueOf(rs.getString(2));
+			final int articleId = rs.getInt(3);
+			return new Movement(quantity, transferType, rs.wasNull() ? null : articleId);
+		}
+	}
+
+	private List<Stock> getStocksBy(final String sql, final int id) throws DaoException {
+		return this.jdbc.execute("Impossible de lire les stocks.", () -> {
+			final PreparedStatement ps = this.jdbc.prepare(sql);
+			ps.setInt(1, id);
+			return this.rows.readStocks(ps.executeQuery(), true);
+		});
+	}
+
+	/**
+	 * Allocates an id to the new Stock and binds all its columns, its Command
+	 * included : the link is only written when the Stock is created.
+	 */
+	private void bindInsert(final PreparedStatement ps, final Stock sto) throws SQLException {
+		sto.setId(this.jdbc.nextId(Stock.class));
+		sto.setVersion(1);
+		ps.setInt(1, sto.getId());
+		ps.setInt(2, sto.getVersion());
+		this.bindColumns(ps, 3, sto);
+		if (sto.getCommand() == null) {
+			ps.setNull(8, Types.INTEGER);
+		} else {
+			ps.setInt(8, sto.getCommand().getId());
+		}
+	}
+
+	/**
+	 * Binds the columns of the Stock, from Date to Article, from the given
+	 * parameter index onwards.
+	 */
+	private void bindColumns(final PreparedStatement ps, final int firstIndex, final Stock sto) throws SQLException {
+		ps.setObject(firstIndex, sto.getDate());
+		ps.setInt(firstIndex + 1, sto.getQuantity());
+		ps.setString(firstIndex + 2, sto.getTransferType().name());
+		ps.setString(firstIndex + 3, sto.getComment());
+		if (sto.getArticle() == null) {
+			ps.setNull(firstIndex + 4, Types.INTEGER);
+		} else {
+			ps.setInt(firstIndex + 4, sto.getArticle().getId());
+		}
+	}
+
+	/**
+	 * Keeps the new Stock in the current unit of work and adds it to the
+	 * movements of its Article, if they have been read.
+	 */
+	private void created(final Stock sto) {
+		this.jdbc.stocks().put(sto.getId(), sto);
+		this.attach(sto);
+	}
+
+	private void attach(final Stock sto) {
+		if (sto.getArticle() == null) {
+			return;
+		}
+		final Article art = this.jdbc.articles().get(sto.getArticle().getId());
+		if (art != null && art.getStock() != null && !art.getStock().contains(sto)) {
+			art.getStock().add(sto);
+		}
+	}
+
+	private void detach(final int articleId, final Stock sto) {
+		final Article art = this.jdbc.articles().get(articleId);
+		if (art != null && art.getStock() != null) {
+			art.getStock().removeIf(s -> s.getId() == sto.getId());
+		}
+	}
+
+	private void removeFromBalance(final Movement movement) throws SQLException {
+		if (movement.articleId() != null) {
+			ArticleBalances.add(this.jdbc.getEntityManager(), movement.articleId(),
+					-signedQuantity(movement.transferType(), movement.quantity()));
+		}
+	}
+
+	/**
+	 * Applies the change of a movement to the balances, with one net delta per
+	 * Article : a Stock that stays on the same Article updates its balance once.
+	 */
+	private void moveBalance(final Movement previous, final Stock sto) throws SQLException {
+		final Map<Integer, Integer> deltas = new HashMap<>();
+		if (previous.articleId() != null) {
+			deltas.merge(previous.articleId(), -signedQuantity(previous.transferType(), previous.quantity()),
+					Integer::sum);
+		}
+		if (sto.getArticle() != null) {
+			deltas.merge(sto.getArticle().getId(), signedQuantity(sto.getTransferType(), sto.getQuantity()),
+					Integer::sum);
+		}
+		for (final Map.Entry<Integer, Integer> delta : deltas.entrySet()) {
+			ArticleBalances.add(this.jdbc.getEntityManager(), delta.getKey(), delta.getValue());
+		}
+	}
+
+	private void addToBalance(final Article article, final int delta) throws SQLException {
+		if (article != null) {
+			ArticleBalances.add(this.jdbc.getEntityManager(), article.getId(), delta);
+		}
+	}
+
+	private static int signedQuantity(final InOut transferType, final int quantity) {
+		return transferType == InOut.OUT ? -quantity : quantity;
+	}
+}
@@ -0,0 +1,114 @@
+package edu.esiea.inventorymanager.dao.ledger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Index of the ledger records by Article : the file lists, for each record in
+ * the order they were written, the id of its Article and its number. It is
+ * read in memory at startup ; the records written after the last entry, by a
+ * crash between both writes, are indexed again by {@link StockLedger}.
+ */
+final class ArticleIndex implements Closeable {
+
+	private static final int ENTRY_SIZE = Integer.BYTES + Long.BYTES;
+
+	/**
+	 * Numbers of the records of one Article, in increasing order.
+	 */
+	static final class Positions {
+		private long[] values = new long[4];
+		private int size;
+
+		private void add(final long position) {
+			if (this.size == this.values.length) {
+				this.values = Arrays.copyOf(this.values, this.size * 2);
+			}
+			this.values[this.size++] = position;
+		}
+
+		/**
+		 * @return the array holding the numbers, the first {@link #size()} ones
+		 *         being set. It is replaced, not changed, when it grows.
+		 */
+		long[] values() {
+			return this.values;
+		}
+
+		int size() {
+			return this.size;
+		}
+	}
+
+	private static final Positions NONE = new Positions();
+
+	private final FileChannel channel;
+	private final Map<Integer, Positions> positions = new HashMap<>();
+	private final ByteBuffer entry = ByteBuffer.allocate(ENTRY_SIZE);
+	private long entries;
+
+	ArticleIndex(final Path file) throws IOException {
+		this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		this.entries = this.channel.size() / ENTRY_SIZE;
+		this.channel.truncate(this.entries * ENTRY_SIZE);
+		final long end = this.entries * ENTRY_SIZE;
+		final ByteBuffer buffer = ByteBuffer.allocate(ENTRY_SIZE * 4096);
+		for (long position = 0; position < end;) {
+			buffer.clear().limit((int) Math.min(buffer.capacity(), end - position));
+			while (buffer.hasRemaining()) {
+				position += this.channel.read(buffer, position);
+			}
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				this.put(buffer.getInt(), buffer.getLong());
+			}
+		}
+		this.channel.position(this.entries * ENTRY_SIZE);
+	}
+
+	/**
+	 * @return the number of records indexed.
+	 */
+	long entries() {
+		return this.entries;
+	}
+
+	Positions of(final int articleId) {
+		final Positions found = this.positions.get(articleId);
+		return found == null ? NONE : found;
+	}
+
+	/**
+	 * Adds the record with the given number, the next one to be indexed.
+	 */
+	void add(final int articleId, final long position) throws IOException {
+		this.entry.clear();
+		this.entry.putInt(articleId).putLong(position).flip();
+		while (this.entry.hasRemaining()) {
+			this.channel.write(this.entry);
+		}
+		this.put(articleId, position);
+		this.entries++;
+	}
+
+	void force() throws IOException {
+		this.channel.force(false);
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.channel.close();
+	}
+
+	private void put(final int articleId, final long position) {
+		this.positions.computeIfAbsent(articleId, id -> new Positions()).add(position);
+	}
+}
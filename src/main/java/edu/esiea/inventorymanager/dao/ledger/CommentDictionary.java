@@ -0,0 +1,117 @@
+package edu.esiea.inventorymanager.dao.ledger;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Comments of the ledger, each stored once : the records only hold their id.
+ * The file lists them in the order of their ids, the first one being 1 ; 0
+ * stands for no comment. Comments are added by a single writer at a time,
+ * and can be read meanwhile.
+ */
+final class CommentDictionary implements Closeable {
+
+	private final FileChannel channel;
+	private final Map<String, Integer> ids = new HashMap<>();
+	// replaced, not changed, when it grows, so that readers never see it half
+	// copied
+	private volatile String[] comments = new String[64];
+
+	CommentDictionary(final Path file) throws IOException {
+		long valid = 0;
+		if (Files.exists(file)) {
+			try (InputStream stream = new BufferedInputStream(Files.newInputStream(file));
+					DataInputStream in = new DataInputStream(stream)) {
+				while (true) {
+					final String comment;
+					try {
+						comment = in.readUTF();
+					} catch (final EOFException e) {
+						break;
+					}
+					this.add(comment);
+					valid += 2 + utfLength(comment);
+				}
+			}
+		}
+		this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		// a comment torn by a crash has no record referencing it
+		this.channel.truncate(valid);
+		this.channel.position(valid);
+	}
+
+	/**
+	 * @return the comment with the given id, <code>null</code> for 0.
+	 */
+	String get(final int id) {
+		return id == 0 ? null : this.comments[id - 1];
+	}
+
+	/**
+	 * @return the id of the comment, stored first if it is new.
+	 */
+	int intern(final String comment) throws IOException {
+		if (comment == null) {
+			return 0;
+		}
+		final Integer known = this.ids.get(comment);
+		if (known != null) {
+			return known;
+		}
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		new DataOutputStream(bytes).writeUTF(comment);
+		final ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+		while (buffer.hasRemaining()) {
+			this.channel.write(buffer);
+		}
+		return this.add(comment);
+	}
+
+	void force() throws IOException {
+		this.channel.force(false);
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.channel.close();
+	}
+
+	private int add(final String comment) {
+		final int id = this.ids.size() + 1;
+		String[] current = this.comments;
+		if (id > current.length) {
+			current = Arrays.copyOf(current, current.length * 2);
+		}
+		current[id - 1] = comment;
+		this.comments = current;
+		this.ids.put(comment, id);
+		return id;
+	}
+
+	/**
+	 * @return the length of the comment in modified UTF-8, as written by
+	 *         {@link DataOutputStream#writeUTF(String)}.
+	 */
+	private static int utfLength(final String comment) {
+		int length = 0;
+		for (int i = 0; i < comment.length(); i++) {
+			final char c = comment.charAt(i);
+			length += c >= 0x0001 && c <= 0x007F ? 1 : c <= 0x07FF ? 2 : 3;
+		}
+		return length;
+	}
+}
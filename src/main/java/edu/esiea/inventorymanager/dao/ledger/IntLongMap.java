@@ -0,0 +1,87 @@
+package edu.esiea.inventorymanager.dao.ledger;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sums of longs by primitive int key, in open addressing with linear probing :
+ * no boxing and no entry objects while adding, and a size bound to the number
+ * of distinct keys, whatever their values. Keys must not be 0, which marks the
+ * free slots. Not thread-safe.
+ */
+final class IntLongMap {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private int[] keys = new int[INITIAL_CAPACITY];
+	private long[] values = new long[INITIAL_CAPACITY];
+	private int size;
+
+	/**
+	 * Adds the value to the sum of the key, which starts at 0.
+	 */
+	void add(final int key, final long value) {
+		if (key == 0) {
+			throw new IllegalArgumentException("La clé 0 est réservée.");
+		}
+		int mask = this.keys.length - 1;
+		int i = mix(key) & mask;
+		while (this.keys[i] != 0) {
+			if (this.keys[i] == key) {
+				this.values[i] += value;
+				return;
+			}
+			i = (i + 1) & mask;
+		}
+		if ((this.size + 1) * 4 > this.keys.length * 3) {
+			this.resize(this.keys.length * 2);
+			mask = this.keys.length - 1;
+			i = mix(key) & mask;
+			while (this.keys[i] != 0) {
+				i = (i + 1) & mask;
+			}
+		}
+		this.keys[i] = key;
+		this.values[i] = value;
+		this.size++;
+	}
+
+	/**
+	 * @return the sums by key, boxed once per key.
+	 */
+	Map<Integer, Long> toMap() {
+		final Map<Integer, Long> result = HashMap.newHashMap(this.size);
+		for (int i = 0; i < this.keys.length; i++) {
+			if (this.keys[i] != 0) {
+				result.put(this.keys[i], this.values[i]);
+			}
+		}
+		return result;
+	}
+
+	private void resize(final int capacity) {
+		final int[] oldKeys = this.keys;
+		final long[] oldValues = this.values;
+		this.keys = new int[capacity];
+		this.values = new long[capacity];
+		final int mask = capacity - 1;
+		for (int j = 0; j < oldKeys.length; j++) {
+			if (oldKeys[j] != 0) {
+				int i = mix(oldKeys[j]) & mask;
+				while (this.keys[i] != 0) {
+					i = (i + 1) & mask;
+				}
+				this.keys[i] = oldKeys[j];
+				this.values[i] = oldValues[j];
+			}
+		}
+	}
+
+	/**
+	 * Spreads the sequential ids over the table.
+	 */
+	private static int mix(final int key) {
+		final int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
@@ -0,0 +1,111 @@
+package edu.esiea.inventorymanager.dao.ledger;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+
+import edu.esiea.inventorymanager.model.Article;
+import edu.esiea.inventorymanager.model.InOut;
+import edu.esiea.inventorymanager.model.Stock;
+
+/**
+ * View of one movement of the {@link StockLedger}, read in place from the
+ * mapped file : a scan moves the same view from record to record instead of
+ * building a {@link Stock} for each of them, so it must not be kept once the
+ * consumer returns.
+ * <p>
+ * Each record takes {@value #SIZE} bytes : the ids of the Stock and of its
+ * Article (0 if it has none), the date as a number of days since the epoch,
+ * the quantity, the id of the comment in the dictionary (0 if it has none) and
+ * the transfer type.
+ */
+public final class LedgerRecord {
+
+	static final int SIZE = 24;
+
+	private static final int STOCK_ID = 0;
+	private static final int ARTICLE_ID = 4;
+	private static final int EPOCH_DAY = 8;
+	private static final int QUANTITY = 12;
+	private static final int COMMENT_ID = 16;
+	private static final int TRANSFER_TYPE = 20;
+
+	private static final InOut[] TRANSFER_TYPES = InOut.values();
+
+	private final CommentDictionary comments;
+	private ByteBuffer buffer;
+	private int offset;
+
+	LedgerRecord(final CommentDictionary comments) {
+		this.comments = comments;
+	}
+
+	LedgerRecord at(final ByteBuffer buffer, final int offset) {
+		this.buffer = buffer;
+		this.offset = offset;
+		return this;
+	}
+
+	static void write(final ByteBuffer buffer, final int offset, final Stock sto, final int commentId) {
+		buffer.putInt(offset + STOCK_ID, sto.getId());
+		buffer.putInt(offset + ARTICLE_ID, sto.getArticle() == null ? 0 : sto.getArticle().getId());
+		buffer.putInt(offset + EPOCH_DAY, (int) sto.getDate().toEpochDay());
+		buffer.putInt(offset + QUANTITY, sto.getQuantity());
+		buffer.putInt(offset + COMMENT_ID, commentId);
+		buffer.put(offset + TRANSFER_TYPE, (byte) sto.getTransferType().ordinal());
+	}
+
+	static int articleId(final ByteBuffer buffer, final int offset) {
+		return buffer.getInt(offset + ARTICLE_ID);
+	}
+
+	public int getStockId() {
+		return this.buffer.getInt(this.offset + STOCK_ID);
+	}
+
+	public int getArticleId() {
+		return articleId(this.buffer, this.offset);
+	}
+
+	public LocalDate getDate() {
+		return LocalDate.ofEpochDay(this.buffer.getInt(this.offset + EPOCH_DAY));
+	}
+
+	public int getQuantity() {
+		return this.buffer.getInt(this.offset + QUANTITY);
+	}
+
+	public InOut getTransferType() {
+		return TRANSFER_TYPES[this.buffer.get(this.offset + TRANSFER_TYPE)];
+	}
+
+	/**
+	 * @return the comment, shared by every record that has the same one.
+	 */
+	public String getComment() {
+		return this.comments.get(this.buffer.getInt(this.offset + COMMENT_ID));
+	}
+
+	/**
+	 * @return the quantity, negative for an OUT movement.
+	 */
+	public int getSignedQuantity() {
+		final int quantity = this.getQuantity();
+		return this.buffer.get(this.offset + TRANSFER_TYPE) == InOut.OUT.ordinal() ? -quantity : quantity;
+	}
+
+	/**
+	 * @return a Stock built from this record, which can be kept. Its Article
+	 *         only has its id set.
+	 */
+	public Stock toStock() {
+		Article art = null;
+		if (this.getArticleId() != 0) {
+			art = new Article();
+			art.setId(this.getArticleId());
+		}
+		final Stock sto = new Stock(this.getDate(), art, this.getQuantity(), this.getTransferType(),
+				this.getComment());
+		sto.setId(this.getStockId());
+		return sto;
+	}
+}
@@ -0,0 +1,91 @@
+package edu.esiea.inventorymanager.dao.ledger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * One file of the ledger, mapped in memory at its full size : a header, then
+ * room for a fixed number of records. The header holds the number of records
+ * written, updated after each of them, so that a record torn by a crash is
+ * not counted.
+ */
+final class LedgerSegment implements Closeable {
+
+	/** "SLG1" */
+	private static final int MAGIC = 0x534C4731;
+	private static final int COUNT_OFFSET = 8;
+	static final int HEADER_SIZE = 16;
+
+	private final FileChannel channel;
+	private final MappedByteBuffer buffer;
+	private final int capacity;
+	private volatile int count;
+
+	/**
+	 * Opens the segment, creating it if needed.
+	 *
+	 * @param capacity number of records the segment can hold
+	 */
+	LedgerSegment(final Path file, final int capacity) throws IOException {
+		this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		final boolean created = this.channel.size() == 0;
+		this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0,
+				HEADER_SIZE + (long) capacity * LedgerRecord.SIZE);
+		this.capacity = capacity;
+		if (created) {
+			this.buffer.putInt(0, MAGIC);
+			this.buffer.putInt(4, LedgerRecord.SIZE);
+			this.buffer.putInt(COUNT_OFFSET, 0);
+		} else if (this.buffer.getInt(0) != MAGIC || this.buffer.getInt(4) != LedgerRecord.SIZE) {
+			this.channel.close();
+			throw new IOException("Le fichier " + file + " n'est pas un segment du registre des stocks.");
+		}
+		this.count = Math.min(this.buffer.getInt(COUNT_OFFSET), capacity);
+	}
+
+	int count() {
+		return this.count;
+	}
+
+	boolean isFull() {
+		return this.count == this.capacity;
+	}
+
+	MappedByteBuffer buffer() {
+		return this.buffer;
+	}
+
+	/**
+	 * @return the position of the given record in the buffer.
+	 */
+	static int offset(final int index) {
+		return HEADER_SIZE + index * LedgerRecord.SIZE;
+	}
+
+	/**
+	 * @return the position in the buffer of the next record, to be written
+	 *         before it is counted with {@link #commit()}.
+	 */
+	int nextOffset() {
+		return offset(this.count);
+	}
+
+	void commit() {
+		this.buffer.putInt(COUNT_OFFSET, this.count + 1);
+		this.count++;
+	}
+
+	void force() {
+		this.buffer.force();
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.channel.close();
+	}
+}
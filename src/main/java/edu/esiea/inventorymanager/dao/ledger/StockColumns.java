@@ -0,0 +1,140 @@
+package edu.esiea.inventorymanager.dao.ledger;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.time.LocalDate;
+import java.util.Map;
+
+import edu.esiea.inventorymanager.model.InOut;
+
+/**
+ * Columnar snapshot of the {@link StockLedger}, for the reports over the stock
+ * history : one column per field the reports filter or sum on, held off the
+ * heap in direct buffers, so that millions of movements cost a few objects to
+ * the garbage collector. The comments and Stock ids are left out.
+ * <p>
+ * The aggregations are plain loops over the columns, with no branch nor object
+ * per movement, which the JIT compiler can unroll and vectorize.
+ */
+public final class StockColumns {
+
+	/** Maximum number of movements, the capacity of a direct buffer of ints. */
+	public static final int MAX_MOVEMENTS = Integer.MAX_VALUE / Integer.BYTES;
+
+	private final int size;
+	private final IntBuffer articleIds;
+	private final IntBuffer epochDays;
+	private final IntBuffer quantities;
+	/** One bit per movement, set for the OUT ones. */
+	private final LongBuffer outBits;
+
+	/**
+	 * Loads the movements written to the ledger so far.
+	 *
+	 * @throws IllegalArgumentException if there are more than
+	 *                                  {@value #MAX_MOVEMENTS} of them.
+	 */
+	public static StockColumns load(final StockLedger ledger) {
+		final long count = ledger.size();
+		if (count > MAX_MOVEMENTS) {
+			throw new IllegalArgumentException("Trop de mouvements pour un instantané : " + count + ".");
+		}
+		final StockColumns columns = new StockColumns((int) count);
+		final int[] row = { 0 };
+		ledger.forEach(rec -> {
+			final int i = row[0]++;
+			// appended after the count was read
+			if (i >= columns.size) {
+				return;
+			}
+			columns.articleIds.put(i, rec.getArticleId());
+			columns.epochDays.put(i, (int) rec.getDate().toEpochDay());
+			columns.quantities.put(i, rec.getQuantity());
+			if (rec.getTransferType() == InOut.OUT) {
+				columns.outBits.put(i >>> 6, columns.outBits.get(i >>> 6) | 1L << i);
+			}
+		});
+		return columns;
+	}
+
+	private StockColumns(final int size) {
+		this.size = size;
+		this.articleIds = allocate(size * Integer.BYTES).asIntBuffer();
+		this.epochDays = allocate(size * Integer.BYTES).asIntBuffer();
+		this.quantities = allocate(size * Integer.BYTES).asIntBuffer();
+		this.outBits = allocate(((size + 63) >>> 6) * Long.BYTES).asLongBuffer();
+	}
+
+	/**
+	 * @return the number of movements.
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * @return the totals of all the movements.
+	 */
+	public StockTotals totals() {
+		return this.sum(true, 0, Integer.MIN_VALUE, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @return the totals of the movements dated from the first day to the last
+	 *         one, both included.
+	 */
+	public StockTotals totals(final LocalDate from, final LocalDate to) {
+		return this.sum(true, 0, (int) from.toEpochDay(), (int) to.toEpochDay());
+	}
+
+	/**
+	 * @return the totals of the movements of the Article dated from the first day
+	 *         to the last one, both included.
+	 */
+	public StockTotals totalsOfArticle(final int articleId, final LocalDate from, final LocalDate to) {
+		return this.sum(false, articleId, (int) from.toEpochDay(), (int) to.toEpochDay());
+	}
+
+	/**
+	 * @return the on-hand quantity of each Article, by id, as
+	 *         {@link StockLedger#balances()} : every Article moved at least once,
+	 *         even if its quantity is back to 0.
+	 */
+	public Map<Integer, Long> balances() {
+		final IntLongMap balances = new IntLongMap();
+		for (int i = 0; i < this.size; i++) {
+			final int articleId = this.articleIds.get(i);
+			// movements without Article are not counted
+			if (articleId != 0) {
+				final long out = this.outBits.get(i >>> 6) >>> i & 1;
+				// + quantity for IN, - quantity for OUT
+				balances.add(articleId, (this.quantities.get(i) ^ -out) + out);
+			}
+		}
+		return balances.toMap();
+	}
+
+	private StockTotals sum(final boolean anyArticle, final int articleId, final int fromDay, final int toDay) {
+		long in = 0;
+		long out = 0;
+		long movements = 0;
+		for (int i = 0; i < this.size; i++) {
+			final int day = this.epochDays.get(i);
+			final long selected = (anyArticle | this.articleIds.get(i) == articleId) & day >= fromDay & day <= toDay
+					? 1
+					: 0;
+			final long isOut = this.outBits.get(i >>> 6) >>> i & 1;
+			final long quantity = this.quantities.get(i);
+			in += quantity * (selected & ~isOut);
+			out += quantity * (selected & isOut);
+			movements += selected;
+		}
+		return new StockTotals(in, out, movements);
+	}
+
+	private static ByteBuffer allocate(final int bytes) {
+		return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+	}
+}
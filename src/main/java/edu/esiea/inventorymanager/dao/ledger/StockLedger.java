@@ -0,0 +1,240 @@
+package edu.esiea.inventorymanager.dao.ledger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.apache.log4j.Logger;
+
+import edu.esiea.inventorymanager.dao.interfaces.IStocksDao;
+import edu.esiea.inventorymanager.exception.DaoException;
+import edu.esiea.inventorymanager.model.Stock;
+
+/**
+ * Append-only ledger of the {@link Stock} movements, for the history scans :
+ * fixed-width binary records, see {@link LedgerRecord}, written to segment
+ * files mapped in memory. The comments are stored once in a dictionary, and an
+ * index gives the records of each Article.
+ * <p>
+ * Scans read the records in place, with no copy and no object per record, so
+ * they run at the speed of the disk, or of the memory once the files are in
+ * the page cache. Appends are serialized ; scans can run along with them and
+ * see the records written before they started.
+ */
+public final class StockLedger implements Closeable {
+
+	/** Number of records per segment file, 24 MB each. */
+	public static final int DEFAULT_SEGMENT_CAPACITY = 1 << 20;
+
+	private static final Logger logger = Logger.getLogger(StockLedger.class);
+
+	private final Path directory;
+	private final int segmentCapacity;
+	private final List<LedgerSegment> segments = new CopyOnWriteArrayList<>();
+	private final CommentDictionary comments;
+	private final ArticleIndex index;
+	private volatile long size;
+
+	/**
+	 * Carries the failure of an append out of the consumer of
+	 * {@link IStocksDao#forEachStock(Consumer)}.
+	 */
+	private static final class AppendFailure extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		private AppendFailure(final DaoException cause) {
+			super(cause);
+		}
+	}
+
+	/**
+	 * Opens the ledger stored in the given directory, creating it if needed.
+	 *
+	 * @throws DaoException if its files can't be read.
+	 */
+	public static StockLedger open(final Path directory) throws DaoException {
+		return open(directory, DEFAULT_SEGMENT_CAPACITY);
+	}
+
+	/**
+	 * @param segmentCapacity number of records per segment, only used when the
+	 *                        ledger is created : an existing one keeps its own.
+	 */
+	public static StockLedger open(final Path directory, final int segmentCapacity) throws DaoException {
+		try {
+			return new StockLedger(directory, segmentCapacity);
+		} catch (final IOException e) {
+			throw new DaoException("Impossible d'ouvrir le registre des stocks " + directory + ".", e);
+		}
+	}
+
+	private StockLedger(final Path directory, final int segmentCapacity) throws IOException {
+		Files.createDirectories(directory);
+		this.directory = directory;
+		final Path first = this.segmentFile(0);
+		this.segmentCapacity = Files.exists(first)
+				? (int) ((Files.size(first) - LedgerSegment.HEADER_SIZE) / LedgerRecord.SIZE)
+				: segmentCapacity;
+		for (int i = 0; i == 0 || Files.exists(this.segmentFile(i)); i++) {
+			final LedgerSegment segment = new LedgerSegment(this.segmentFile(i), this.segmentCapacity);
+			this.segments.add(segment);
+			this.size += segment.count();
+		}
+		this.comments = new CommentDictionary(directory.resolve("comments.dict"));
+		this.index = new ArticleIndex(directory.resolve("articles.idx"));
+		// records written by a crash before their index entry
+		for (long position = this.index.entries(); position < this.size; position++) {
+			final LedgerSegment segment = this.segment(position);
+			this.index.add(LedgerRecord.articleId(segment.buffer(), this.offset(position)), position);
+		}
+		logger.info("Registre des stocks " + directory + " ouvert : " + this.size + " mouvements.");
+	}
+
+	/**
+	 * @return the number of records.
+	 */
+	public long size() {
+		return this.size;
+	}
+
+	/**
+	 * Appends a movement to the ledger.
+	 *
+	 * @return the number of its record.
+	 * @throws DaoException if it has no date or no transfer type, or if it can't
+	 *                      be written.
+	 */
+	public synchronized long append(final Stock sto) throws DaoException {
+		if (sto.getDate() == null || sto.getTransferType() == null) {
+			throw new DaoException("Le stock " + sto.getId() + " n'a pas de date ou de type de transfert.");
+		}
+		try {
+			return this.write(sto);
+		} catch (final IOException e) {
+			throw new DaoException("Impossible d'inscrire le stock " + sto.getId() + " au registre.", e);
+		}
+	}
+
+	/**
+	 * Appends all the movements read by the given DAO, in the order of their ids.
+	 *
+	 * @return the number of movements appended.
+	 */
+	public synchronized long appendAll(final IStocksDao dao) throws DaoException {
+		final long before = this.size;
+		try {
+			dao.forEachStock(sto -> {
+				try {
+					this.append(sto);
+				} catch (final DaoException e) {
+					throw new AppendFailure(e);
+				}
+			});
+		} catch (final AppendFailure e) {
+			throw (DaoException) e.getCause();
+		}
+		return this.size - before;
+	}
+
+	/**
+	 * Forces the records appended so far to the disk.
+	 */
+	public synchronized void force() throws DaoException {
+		try {
+			this.comments.force();
+			this.segments.getLast().force();
+			this.index.force();
+		} catch (final IOException e) {
+			throw new DaoException("Impossible d'écrire le registre des stocks sur le disque.", e);
+		}
+	}
+
+	/**
+	 * Hands every record to the consumer, in the order they were written.
+	 */
+	public void forEach(final Consumer<LedgerRecord> consumer) {
+		final long end = this.size;
+		final LedgerRecord view = new LedgerRecord(this.comments);
+		for (long position = 0; position < end; position++) {
+			consumer.accept(view.at(this.segment(position).buffer(), this.offset(position)));
+		}
+	}
+
+	/**
+	 * Hands the records of the given Article to the consumer, in the order they
+	 * were written, reading only them through the index.
+	 */
+	public void forEachOfArticle(final int articleId, final Consumer<LedgerRecord> consumer) {
+		final long[] positions;
+		final int count;
+		synchronized (this) {
+			final ArticleIndex.Positions found = this.index.of(articleId);
+			positions = found.values();
+			count = found.size();
+		}
+		final LedgerRecord view = new LedgerRecord(this.comments);
+		for (int i = 0; i < count; i++) {
+			consumer.accept(view.at(this.segment(positions[i]).buffer(), this.offset(positions[i])));
+		}
+	}
+
+	/**
+	 * Replays the movements.
+	 *
+	 * @return the on-hand quantity of each Article, by id.
+	 */
+	public Map<Integer, Integer> balances() {
+		final Map<Integer, Integer> balances = new HashMap<>();
+		this.forEach(rec -> {
+			if (rec.getArticleId() != 0) {
+				balances.merge(rec.getArticleId(), rec.getSignedQuantity(), Integer::sum);
+			}
+		});
+		return balances;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		for (final LedgerSegment segment : this.segments) {
+			segment.close();
+		}
+		this.comments.close();
+		this.index.close();
+	}
+
+	private long write(final Stock sto) throws IOException {
+		final int commentId = this.comments.intern(sto.getComment());
+		LedgerSegment segment = this.segments.getLast();
+		if (segment.isFull()) {
+			segment.force();
+			segment = new LedgerSegment(this.segmentFile(this.segments.size()), this.segmentCapacity);
+			this.segments.add(segment);
+		}
+		final ByteBuffer buffer = segment.buffer();
+		LedgerRecord.write(buffer, segment.nextOffset(), sto, commentId);
+		segment.commit();
+		final long position = this.size;
+		this.index.add(sto.getArticle() == null ? 0 : sto.getArticle().getId(), position);
+		this.size = position + 1;
+		return position;
+	}
+
+	private LedgerSegment segment(final long position) {
+		return this.segments.get((int) (position / this.segmentCapacity));
+	}
+
+	private int offset(final long position) {
+		return LedgerSegment.offset((int) (position % this.segmentCapacity));
+	}
+
+	private Path segmentFile(final int number) {
+		return this.directory.resolve(String.format("stocks-%05d.ledger", number));
+	}
+}
@@ -0,0 +1,18 @@
+package edu.esiea.inventorymanager.dao.ledger;
+
+/**
+ * Sums of the movements selected by a query of {@link StockColumns}.
+ *
+ * @param quantityIn  sum of the quantities of the IN movements
+ * @param quantityOut sum of the quantities of the OUT movements
+ * @param movements   number of movements
+ */
+public record StockTotals(long quantityIn, long quantityOut, long movements) {
+
+	/**
+	 * @return the quantities in minus the quantities out.
+	 */
+	public long balance() {
+		return this.quantityIn - this.quantityOut;
+	}
+}
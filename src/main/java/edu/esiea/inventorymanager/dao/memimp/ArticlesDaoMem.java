@@ -0,0 +1,204 @@
+package edu.esiea.inventorymanager.dao.memimp;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import edu.esiea.inventorymanager.dao.interfaces.IArticlesDao;
+import edu.esiea.inventorymanager.dao.memimp.MemStore.ArticleRow;
+import edu.esiea.inventorymanager.exception.DaoException;
+import edu.esiea.inventorymanager.exception.StaleDataException;
+import edu.esiea.inventorymanager.model.Article;
+import edu.esiea.inventorymanager.model.ArticleBalance;
+import edu.esiea.inventorymanager.model.ArticleSummary;
+
+/**
+ * Articles DAO of the in-memory backend. The balances are kept by the store
+ * itself, so they are read without summing anything.
+ */
+public class ArticlesDaoMem implements IArticlesDao {
+
+	private final DaoMemHelper mem;
+
+	public ArticlesDaoMem() throws DaoException {
+		this.mem = DaoMemHelper.getInstance();
+	}
+
+	@Override
+	public Article createArticle(final Article a) throws DaoException {
+		return this.mem.write("Impossible de créer l'article.", store -> {
+			final int categoryId = MemRows.categoryId(store, a);
+			a.setId(this.mem.nextArticleId());
+			a.setVersion(1);
+			this.mem.put(MemRows.row(a, a.getVersion(), categoryId));
+			if (a.getStock() == null) {
+				a.setStock(new ArrayList<>());
+			}
+			return a;
+		});
+	}
+
+	@Override
+	public List<Article> getAllArticles() throws DaoException {
+		return this.getAllArticles(false);
+	}
+
+	@Override
+	public List<Article> getAllArticles(final boolean withStocks) throws DaoException {
+		return this.getArticlesPage(0, Integer.MAX_VALUE, withStocks);
+	}
+
+	@Override
+	public List<Article> getArticlesPage(final int afterId, final int limit) throws DaoException {
+		return this.getArticlesPage(afterId, limit, false);
+	}
+
+	@Override
+	public List<Article> getArticlesPage(final int afterId, final int limit, final boolean withStocks)
+			throws DaoException {
+		return this.mem.read(store -> {
+			final SortedIntList ids = store.articleIds();
+			final int from = ids.indexAfter(afterId);
+			return MemRows.articles(store, ids, from, MemRows.pageEnd(ids, from, limit), withStocks);
+		});
+	}
+
+	@Override
+	public Article getArticleById(final int id) throws DaoException {
+		return this.getArticleById(id, false);
+	}
+
+	@Override
+	public Article getArticleById(final int id, final boolean withStocks) throws DaoException {
+		return this.mem.read(store -> {
+			final ArticleRow row = store.article(id);
+			return row == null ? null : MemRows.article(store, row, withStocks);
+		});
+	}
+
+	@Override
+	public List<Article> getArticlesByIds(final Collection<Integer> ids) throws DaoException {
+		return this.mem.read(store -> {
+			final SortedIntList sorted = new SortedIntList();
+			for (final Integer id : ids) {
+				if (id != null && store.article(id) != null) {
+					sorted.add(id);
+				}
+			}
+			return MemRows.articles(store, sorted, 0, sorted.size(), false);
+		});
+	}
+
+	@Override
+	public Article getArticleReference(final int id) throws DaoException {
+		return this.getArticleById(id);
+	}
+
+	@Override
+	public List<Article> getAllArticlesByCategoryId(final int id) throws DaoException {
+		return this.mem.read(store -> {
+			final SortedIntList ids = store.articlesOfCategory(id);
+			return MemRows.articles(store, ids, 0, ids.size(), false);
+		});
+	}
+
+	@Override
+	public List<Article> getArticlesPageByCategoryId(final int categoryId, final int afterId, final int limit)
+			throws DaoException {
+		return this.mem.read(store -> {
+			final SortedIntList ids = store.articlesOfCategory(categoryId);
+			final int from = ids.indexAfter(afterId);
+			return MemRows.articles(store, ids, from, MemRows.pageEnd(ids, from, limit), false);
+		});
+	}
+
+	@Override
+	public long countArticlesByCategoryId(final int categoryId) throws DaoException {
+		return this.mem.read(store -> (long) store.articlesOfCategory(categoryId).size());
+	}
+
+	@Override
+	public Article getArticleByStockId(final int id) throws DaoException {
+		return this.mem.read(store -> {
+			final MemStore.StockRow stock = store.stock(id);
+			if (stock == null || stock.articleId() == 0) {
+				return null;
+			}
+			return MemRows.article(store, store.article(stock.articleId()), false);
+		});
+	}
+
+	@Override
+	public ArticleBalance getArticleBalance(final int articleId) throws DaoException {
+		return this.mem.read(store -> {
+			final Integer quantity = store.balance(articleId);
+			return quantity == null ? null : new ArticleBalance(articleId, quantity);
+		});
+	}
+
+	@Override
+	public List<ArticleBalance> getArticleBalances(final Collection<Integer> articleIds) throws DaoException {
+		return this.mem.read(store -> {
+			final List<ArticleBalance> balances = new ArrayList<>(articleIds.size());
+			for (final Integer id : articleIds) {
+				final Integer quantity = id == null ? null : store.balance(id);
+				if (quantity != null) {
+					balances.add(new ArticleBalance(id, quantity));
+				}
+			}
+			return balances;
+		});
+	}
+
+	@Override
+	public List<ArticleSummary> getAllArticleSummaries() throws DaoException {
+		return this.getArticleSummariesPage(0, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public List<ArticleSummary> getArticleSummariesPage(final int afterId, final int limit) throws DaoException {
+		return this.mem.read(store -> {
+			final SortedIntList ids = store.articleIds();
+			final int from = ids.indexAfter(afterId);
+			final int to = MemRows.pageEnd(ids, from, limit);
+			final List<ArticleSummary> summaries = new ArrayList<>(to - from);
+			for (int i = from; i < to; i++) {
+				final ArticleRow row = store.article(ids.get(i));
+				final String categoryName = row.categoryId() == 0 ? null : store.category(row.categoryId()).name();
+				summaries.add(new ArticleSummary(row.id(), row.name(), row.ean13(), row.brand(), row.price(),
+						categoryName, store.balance(row.id())));
+			}
+			return summaries;
+		});
+	}
+
+	@Override
+	public void updateArticle(final Article a) throws DaoException {
+		this.mem.write("Impossible de modifier l'article.", store -> {
+			final ArticleRow stored = store.article(a.getId());
+			if (stored == null || stored.version() != a.getVersion()) {
+				throw new StaleDataException("L'article a été modifié entre-temps.");
+			}
+			this.mem.put(MemRows.row(a, a.getVersion() + 1, MemRows.categoryId(store, a)));
+			a.setVersion(a.getVersion() + 1);
+			return null;
+		});
+	}
+
+	@Override
+	public void deleteArticle(final Article a) throws DaoException {
+		this.deleteArticleById(a.getId());
+	}
+
+	@Override
+	public boolean deleteArticleById(final int id) throws DaoException {
+		return this.mem.write("Impossible de supprimer l'article", store -> {
+			for (final int stockId : store.stocksOfArticle(id).toArray()) {
+				this.mem.removeStock(stockId);
+			}
+			final boolean deleted = store.article(id) != null;
+			this.mem.removeArticle(id);
+			return deleted;
+		});
+	}
+}
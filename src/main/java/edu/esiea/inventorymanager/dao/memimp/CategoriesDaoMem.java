@@ -0,0 +1,83 @@
+package edu.esiea.inventorymanager.dao.memimp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.esiea.inventorymanager.dao.interfaces.ICategoriesDao;
+import edu.esiea.inventorymanager.dao.memimp.MemStore.CategoryRow;
+import edu.esiea.inventorymanager.exception.DaoException;
+import edu.esiea.inventorymanager.exception.StaleDataException;
+import edu.esiea.inventorymanager.model.Category;
+
+/**
+ * Categories DAO of the in-memory backend.
+ */
+public class CategoriesDaoMem implements ICategoriesDao {
+
+	private final DaoMemHelper mem;
+
+	public CategoriesDaoMem() throws DaoException {
+		this.mem = DaoMemHelper.getInstance();
+	}
+
+	@Override
+	public Category createCategory(final Category cat) throws DaoException {
+		return this.mem.write("Impossible de créer la catégorie.", store -> {
+			cat.setId(this.mem.nextCategoryId());
+			cat.setVersion(1);
+			this.mem.put(MemRows.row(cat, cat.getVersion()));
+			return cat;
+		});
+	}
+
+	@Override
+	public List<Category> getAllCategories() throws DaoException {
+		return this.getCategoriesPage(0, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public List<Category> getCategoriesPage(final int afterId, final int limit) throws DaoException {
+		return this.mem.read(store -> {
+			final SortedIntList ids = store.categoryIds();
+			final int from = ids.indexAfter(afterId);
+			final int to = MemRows.pageEnd(ids, from, limit);
+			final List<Category> result = new ArrayList<>(to - from);
+			for (int i = from; i < to; i++) {
+				result.add(MemRows.category(store.category(ids.get(i))));
+			}
+			return result;
+		});
+	}
+
+	@Override
+	public Category getCategoryById(final int id) throws DaoException {
+		return this.mem.read(store -> {
+			final CategoryRow row = store.category(id);
+			return row == null ? null : MemRows.category(row);
+		});
+	}
+
+	@Override
+	public void updateCategory(final Category cat) throws DaoException {
+		this.mem.write("Impossible de modifier la catégorie.", store -> {
+			final CategoryRow stored = store.category(cat.getId());
+			if (stored == null || stored.version() != cat.getVersion()) {
+				throw new StaleDataException("La catégorie a été modifiée entre-temps.");
+			}
+			this.mem.put(MemRows.row(cat, cat.getVersion() + 1));
+			cat.setVersion(cat.getVersion() + 1);
+			return null;
+		});
+	}
+
+	@Override
+	public void deleteCategory(final Category cat) throws DaoException {
+		this.mem.write("Impossible de supprimer la catégorie", store -> {
+			if (store.articlesOfCategory(cat.getId()).size() > 0) {
+				throw new DaoException("Impossible de supprimer la catégorie, des articles y sont rattachés.");
+			}
+			this.mem.removeCategory(cat.getId());
+			return null;
+		});
+	}
+}
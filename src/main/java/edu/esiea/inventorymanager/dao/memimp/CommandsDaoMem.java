@@ -0,0 +1,189 @@
+package edu.esiea.inventorymanager.dao.memimp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.esiea.inventorymanager.dao.interfaces.ICommandsDao;
+import edu.esiea.inventorymanager.dao.memimp.MemStore.CommandRow;
+import edu.esiea.inventorymanager.dao.memimp.MemStore.StockRow;
+import edu.esiea.inventorymanager.exception.DaoException;
+import edu.esiea.inventorymanager.exception.StaleDataException;
+import edu.esiea.inventorymanager.model.Command;
+import edu.esiea.inventorymanager.model.CommandSummary;
+import edu.esiea.inventorymanager.model.Stock;
+
+/**
+ * Commands DAO of the in-memory backend. As with the JPA mapping, the Stocks
+ * of a Command are saved along with it and the ones it no longer lists are
+ * deleted ; a Command read without its Stocks leaves them unchanged.
+ */
+public class CommandsDaoMem implements ICommandsDao {
+
+	private final DaoMemHelper mem;
+
+	public CommandsDaoMem() throws DaoException {
+		this.mem = DaoMemHelper.getInstance();
+	}
+
+	@Override
+	public Command createCommand(final Command com) throws DaoException {
+		return this.mem.write("Impossible de créer la commande.", store -> {
+			com.setId(this.mem.nextCommandId());
+			com.setVersion(1);
+			this.mem.put(MemRows.row(com, com.getVersion()));
+			this.saveStocks(store, com);
+			return com;
+		});
+	}
+
+	@Override
+	public List<Command> getAllCommands() throws DaoException {
+		return this.getAllCommands(false);
+	}
+
+	@Override
+	public List<Command> getAllCommands(final boolean withStocks) throws DaoException {
+		return this.getCommandsPage(0, Integer.MAX_VALUE, withStocks);
+	}
+
+	@Override
+	public List<Command> getCommandsPage(final int afterId, final int limit) throws DaoException {
+		return this.getCommandsPage(afterId, limit, false);
+	}
+
+	@Override
+	public List<Command> getCommandsPage(final int afterId, final int limit, final boolean withStocks)
+			throws DaoException {
+		return this.mem.read(store -> {
+			final SortedIntList ids = store.commandIds();
+			final int from = ids.indexAfter(afterId);
+			return MemRows.commands(store, ids, from, MemRows.pageEnd(ids, from, limit), withStocks);
+		});
+	}
+
+	@Override
+	public Command getCommandById(final int id) throws DaoException {
+		return this.getCommandById(id, false);
+	}
+
+	@Override
+	public Command getCommandById(final int id, final boolean withStocks) throws DaoException {
+		return this.mem.read(store -> {
+			final CommandRow row = store.command(id);
+			return row == null ? null : MemRows.command(store, row, withStocks, new IntMap<>());
+		});
+	}
+
+	/**
+	 * Returns the Command without its Stocks : new ones are linked to it through
+	 * {@link Stock#setCommand(Command)}.
+	 */
+	@Override
+	public Command getCommandReference(final int id) throws DaoException {
+		return this.getCommandById(id, false);
+	}
+
+	@Override
+	public Command getCommandByStockId(final int id) throws DaoException {
+		return this.mem.read(store -> {
+			final StockRow stock = store.stock(id);
+			if (stock == null || stock.commandId() == 0) {
+				return null;
+			}
+			return MemRows.command(store, store.command(stock.commandId()), false, new IntMap<>());
+		});
+	}
+
+	@Override
+	public List<CommandSummary> getAllCommandSummaries() throws DaoException {
+		return this.getCommandSummariesPage(0, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public List<CommandSummary> getCommandSummariesPage(final int afterId, final int limit) throws DaoException {
+		return this.mem.read(store -> {
+			final SortedIntList ids = store.commandIds();
+			final int from = ids.indexAfter(afterId);
+			final int to = MemRows.pageEnd(ids, from, limit);
+			final List<CommandSummary> summaries = new ArrayList<>(to - from);
+			for (int i = from; i < to; i++) {
+				final CommandRow row = store.command(ids.get(i));
+				summaries.add(new CommandSummary(row.id(), row.date(), row.comment(),
+						store.stocksOfCommand(row.id()).size()));
+			}
+			return summaries;
+		});
+	}
+
+	@Override
+	public void updateCommand(final Command com) throws DaoException {
+		this.mem.write("Impossible de modifier la commande.", store -> {
+			final CommandRow stored = store.command(com.getId());
+			if (stored == null || stored.version() != com.getVersion()) {
+				throw new StaleDataException("La commande a été modifiée entre-temps.");
+			}
+			this.mem.put(MemRows.row(com, com.getVersion() + 1));
+			this.saveStocks(store, com);
+			com.setVersion(com.getVersion() + 1);
+			return null;
+		});
+	}
+
+	@Override
+	public void deleteCommand(final Command com) throws DaoException {
+		this.deleteCommandById(com.getId());
+	}
+
+	@Override
+	public boolean deleteCommandById(final int id) throws DaoException {
+		return this.mem.write("Impossible de supprimer la commande.", store -> {
+			for (final int stockId : store.stocksOfCommand(id).toArray()) {
+				this.mem.removeStock(stockId);
+			}
+			final boolean deleted = store.command(id) != null;
+			this.mem.removeCommand(id);
+			return deleted;
+		});
+	}
+
+	/**
+	 * Saves the Stocks listed by the Command : the new ones are created, the
+	 * stored ones are linked to it and updated if they have changed, and the
+	 * ones it no longer lists are deleted. Does nothing if its Stocks have not
+	 * been read.
+	 */
+	private void saveStocks(final MemStore store, final Command com) throws DaoException {
+		if (com.getStocks() == null) {
+			return;
+		}
+		final SortedIntList listed = new SortedIntList();
+		for (final Stock sto : com.getStocks()) {
+			final int articleId = MemRows.articleId(store, sto);
+			final StockRow stored = sto.getId() == 0 ? null : store.stock(sto.getId());
+			if (stored == null) {
+				sto.setId(this.mem.nextStockId());
+				sto.setVersion(1);
+				this.mem.put(MemRows.row(sto, sto.getVersion(), articleId, com.getId()));
+			} else {
+				// the link to the Command is not part of the version of the Stock
+				final boolean changed = !MemRows.row(sto, stored.version(), articleId, stored.commandId())
+						.equals(stored);
+				if (changed) {
+					if (stored.version() != sto.getVersion()) {
+						throw new StaleDataException("Le stock a été modifié entre-temps.");
+					}
+					sto.setVersion(sto.getVersion() + 1);
+				}
+				if (changed || stored.commandId() != com.getId()) {
+					this.mem.put(MemRows.row(sto, sto.getVersion(), articleId, com.getId()));
+				}
+			}
+			listed.add(sto.getId());
+		}
+		for (final int stockId : store.stocksOfCommand(com.getId()).toArray()) {
+			if (!listed.contains(stockId)) {
+				this.mem.removeStock(stockId);
+			}
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package edu.esiea.inventorymanager.dao.memimp;
+
+import edu.esiea.inventorymanager.dao.interfaces.IArticlesDao;
+import edu.esiea.inventorymanager.dao.interfaces.ICategoriesDao;
+import edu.esiea.inventorymanager.dao.interfaces.ICommandsDao;
+import edu.esiea.inventorymanager.dao.interfaces.IDaoBackend;
+import edu.esiea.inventorymanager.dao.interfaces.IStocksDao;
+import edu.esiea.inventorymanager.exception.DaoException;
+
+/**
+ * In-memory backend : every DAO works with the tables of {@link DaoMemHelper},
+ * without any SQL nor ORM, and the changes are kept in its journal.
+ */
+public class DaoMemBackend implements IDaoBackend {
+
+	public static final String NAME = "mem";
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	public IArticlesDao createArticlesDao() throws DaoException {
+		return new ArticlesDaoMem();
+	}
+
+	@Override
+	public ICategoriesDao createCategoriesDao() throws DaoException {
+		return new CategoriesDaoMem();
+	}
+
+	@Override
+	public ICommandsDao createCommandsDao() throws DaoException {
+		return new CommandsDaoMem();
+	}
+
+	@Override
+	public IStocksDao createStocksDao() throws DaoException {
+		return new StocksDaoMem();
+	}
+
+	@Override
+	public Object getContext() throws DaoException {
+		return DaoMemHelper.getInstance();
+	}
+
+	@Override
+	public void beginTransaction() throws DaoException {
+		DaoMemHelper.getInstance().beginTransaction();
+	}
+
+	@Override
+	public void commitTransaction() throws DaoException {
+		DaoMemHelper.getInstance().commitTransaction();
+	}
+
+	@Override
+	public void rollBackTransaction() throws DaoException {
+		DaoMemHelper.getInstance().rollBackTransaction();
+	}
+
+	/**
+	 * Rolls back any transaction left open by the current thread.
+	 */
+	@Override
+	public void closeUnitOfWork() throws DaoException {
+		DaoMemHelper.getInstance().closeUnitOfWork();
+	}
+}
@@ -0,0 +1,395 @@
+package edu.esiea.inventorymanager.dao.memimp;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+import org.apache.log4j.Logger;
+
+import edu.esiea.inventorymanager.dao.DaoFactory;
+import edu.esiea.inventorymanager.dao.memimp.MemStore.ArticleRow;
+import edu.esiea.inventorymanager.dao.memimp.MemStore.CategoryRow;
+import edu.esiea.inventorymanager.dao.memimp.MemStore.CommandRow;
+import edu.esiea.inventorymanager.dao.memimp.MemStore.StockRow;
+import edu.esiea.inventorymanager.dao.memimp.MemStore.Table;
+import edu.esiea.inventorymanager.exception.DaoException;
+
+/**
+ * Holds the store of the in-memory backend and its journal. Reads share a read
+ * lock ; a transaction holds the write lock from its beginning to its end, so
+ * that transactions run one at a time and readers never see them half done.
+ * Its changes are applied to the store at once, and undone if it is rolled
+ * back.
+ */
+public final class DaoMemHelper {
+	/** Path of the journal file. */
+	public static final String PROPERTY_JOURNAL = "dao.mem.journal";
+	/** <code>false</code> not to force each commit to the disk. */
+	public static final String PROPERTY_JOURNAL_SYNC = "dao.mem.journal.sync";
+
+	private static final Logger logger = Logger.getLogger(DaoMemHelper.class);
+
+	private static volatile DaoMemHelper instance;
+
+	private final MemStore store = new MemStore();
+	private final Journal journal;
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	private final ThreadLocal<Transaction> transaction = new ThreadLocal<>();
+
+	/**
+	 * Transaction running on the current thread.
+	 */
+	private static final class Transaction {
+		private int depth;
+		private boolean rollbackOnly;
+		private final Journal.Frame frame = new Journal.Frame();
+		private final List<Runnable> undo = new ArrayList<>();
+	}
+
+	/**
+	 * Work run by {@link DaoMemHelper#write(String, MemWork)} inside a
+	 * transaction.
+	 */
+	@FunctionalInterface
+	interface MemWork<T> {
+		T execute(MemStore store) throws DaoException;
+	}
+
+	/**
+	 * Returns the helper, built on first use from the journal set in
+	 * {@value #PROPERTY_JOURNAL}. Once built, it is read without locking.
+	 */
+	public static DaoMemHelper getInstance() throws DaoException {
+		DaoMemHelper current = instance;
+		if (current == null) {
+			synchronized (DaoMemHelper.class) {
+				current = instance;
+				if (current == null) {
+					current = open(Path.of(DaoFactory.getSetting(PROPERTY_JOURNAL, "inventory.journal")),
+							Boolean.parseBoolean(DaoFactory.getSetting(PROPERTY_JOURNAL_SYNC, "true")));
+					instance = current;
+				}
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * This method allow to start from an empty store, journaled in a temporary
+	 * file.
+	 *
+	 * @return the instance of this class initialized with an empty store
+	 * @throws DaoException in case of error
+	 */
+	public static synchronized DaoMemHelper forceTestInstance() throws DaoException {
+		try {
+			final Path file = Files.createTempFile("inventory", ".journal");
+			file.toFile().deleteOnExit();
+			return replaceInstance(open(file, false));
+		} catch (final IOException e) {
+			throw new DaoException("Impossible de créer le journal de test.", e);
+		}
+	}
+
+	/**
+	 * Replaces the current helper by the given one, closing the journal of the
+	 * former one.
+	 */
+	static synchronized DaoMemHelper replaceInstance(final DaoMemHelper helper) {
+		final DaoMemHelper former = instance;
+		instance = helper;
+		if (former != null) {
+			former.close();
+		}
+		return helper;
+	}
+
+	/**
+	 * Builds a helper on the given journal, replaying it.
+	 */
+	static DaoMemHelper open(final Path file, final boolean sync) throws DaoException {
+		try {
+			return new DaoMemHelper(file, sync);
+		} catch (final IOException e) {
+			throw new DaoException("Impossible d'ouvrir le journal " + file + ".", e);
+		}
+	}
+
+	private DaoMemHelper(final Path file, final boolean sync) throws IOException {
+		this.journal = Journal.open(file, sync, this.store);
+		// a journal written before the allocations were recorded only has its rows
+		this.store.allocated(Table.CATEGORY, last(this.store.categoryIds()));
+		this.store.allocated(Table.ARTICLE, last(this.store.articleIds()));
+		this.store.allocated(Table.COMMAND, last(this.store.commandIds()));
+		this.store.allocated(Table.STOCK, last(this.store.stockIds()));
+		logger.info("Stock en mémoire chargé : " + this.store.articleIds().size() + " articles, "
+				+ this.store.stockIds().size() + " stocks.");
+	}
+
+	/**
+	 * Reads the store under the read lock, or within the transaction running on
+	 * the current thread.
+	 */
+	<T> T read(final Function<MemStore, T> reader) {
+		this.lock.readLock().lock();
+		try {
+			return reader.apply(this.store);
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Runs the given changes in a transaction, or in the one already running on
+	 * the current thread.
+	 *
+	 * @param errorMessage message of the {@link DaoException} thrown if they
+	 *                     can't be journaled
+	 * @param work         the changes, made with the put and remove methods
+	 * @return the result of the changes
+	 * @throws DaoException in case of error, nothing has been changed then.
+	 */
+	<T> T write(final String errorMessage, final MemWork<T> work) throws DaoException {
+		this.beginTransaction();
+		final T result;
+		try {
+			result = work.execute(this.store);
+		} catch (final DaoException | RuntimeException e) {
+			this.rollBackTransaction();
+			throw e;
+		}
+		try {
+			this.commitTransaction();
+		} catch (final DaoException e) {
+			throw new DaoException(errorMessage, e);
+		}
+		return result;
+	}
+
+	/**
+	 * Begins a transaction, or joins the one already running on the current
+	 * thread : the operations of several DAOs then share a single commit.
+	 */
+	public void beginTransaction() {
+		Transaction current = this.transaction.get();
+		if (current == null) {
+			this.lock.writeLock().lock();
+			current = new Transaction();
+			this.transaction.set(current);
+		}
+		current.depth++;
+	}
+
+	/**
+	 * Commits the current transaction, unless it has been joined : it is then
+	 * left to the outermost caller. Its changes are appended to the journal.
+	 *
+	 * @throws DaoException if the transaction has been marked for rollback or
+	 *                      can't be journaled : it is rolled back then.
+	 */
+	public void commitTransaction() throws DaoException {
+		final Transaction current = this.transaction.get();
+		if (current == null) {
+			return;
+		}
+		if (--current.depth > 0) {
+			return;
+		}
+		if (current.rollbackOnly) {
+			this.undo(current);
+			throw new DaoException("La transaction a été annulée.");
+		}
+		try {
+			if (!current.frame.isEmpty()) {
+				this.journal.append(current.frame);
+			}
+		} catch (final IOException e) {
+			this.undo(current);
+			throw new DaoException("Impossible d'écrire le journal.", e);
+		}
+		this.end();
+	}
+
+	/**
+	 * Rolls back the current transaction. A joined transaction is only marked so
+	 * that the outermost caller can't commit it.
+	 */
+	public void rollBackTransaction() {
+		final Transaction current = this.transaction.get();
+		if (current == null) {
+			return;
+		}
+		if (--current.depth > 0) {
+			current.rollbackOnly = true;
+			return;
+		}
+		this.undo(current);
+	}
+
+	/**
+	 * Rolls back any transaction left open on the current thread.
+	 */
+	public void closeUnitOfWork() {
+		final Transaction current = this.transaction.get();
+		if (current != null) {
+			this.undo(current);
+		}
+	}
+
+	int nextCategoryId() {
+		return this.allocate(Table.CATEGORY);
+	}
+
+	int nextArticleId() {
+		return this.allocate(Table.ARTICLE);
+	}
+
+	int nextCommandId() {
+		return this.allocate(Table.COMMAND);
+	}
+
+	int nextStockId() {
+		return this.allocate(Table.STOCK);
+	}
+
+	/**
+	 * Allocates the next id of the table within the current transaction. The
+	 * allocation is journaled along with its changes, so that the id is not
+	 * allocated again after a restart once its row has been removed. It is not
+	 * undone by a rollback.
+	 */
+	private int allocate(final Table table) {
+		final Transaction current = this.current();
+		final int id = this.store.lastId(table) + 1;
+		this.store.allocated(table, id);
+		current.frame.allocate(table, id);
+		return id;
+	}
+
+	void put(final CategoryRow row) {
+		final Transaction current = this.current();
+		final CategoryRow previous = this.store.put(row);
+		current.undo.add(() -> {
+			if (previous == null) {
+				this.store.removeCategory(row.id());
+			} else {
+				this.store.put(previous);
+			}
+		});
+		current.frame.put(row);
+	}
+
+	void put(final ArticleRow row) {
+		final Transaction current = this.current();
+		final ArticleRow previous = this.store.put(row);
+		current.undo.add(() -> {
+			if (previous == null) {
+				this.store.removeArticle(row.id());
+			} else {
+				this.store.put(previous);
+			}
+		});
+		current.frame.put(row);
+	}
+
+	void put(final CommandRow row) {
+		final Transaction current = this.current();
+		final CommandRow previous = this.store.put(row);
+		current.undo.add(() -> {
+			if (previous == null) {
+				this.store.removeCommand(row.id());
+			} else {
+				this.store.put(previous);
+			}
+		});
+		current.frame.put(row);
+	}
+
+	void put(final StockRow row) {
+		final Transaction current = this.current();
+		final StockRow previous = this.store.put(row);
+		current.undo.add(() -> {
+			if (previous == null) {
+				this.store.removeStock(row.id());
+			} else {
+				this.store.put(previous);
+			}
+		});
+		current.frame.put(row);
+	}
+
+	void removeCategory(final int id) {
+		final Transaction current = this.current();
+		final CategoryRow previous = this.store.removeCategory(id);
+		if (previous != null) {
+			current.undo.add(() -> this.store.put(previous));
+			current.frame.removeCategory(id);
+		}
+	}
+
+	void removeArticle(final int id) {
+		final Transaction current = this.current();
+		final ArticleRow previous = this.store.removeArticle(id);
+		if (previous != null) {
+			current.undo.add(() -> this.store.put(previous));
+			current.frame.removeArticle(id);
+		}
+	}
+
+	void removeCommand(final int id) {
+		final Transaction current = this.current();
+		final CommandRow previous = this.store.removeCommand(id);
+		if (previous != null) {
+			current.undo.add(() -> this.store.put(previous));
+			current.frame.removeCommand(id);
+		}
+	}
+
+	void removeStock(final int id) {
+		final Transaction current = this.current();
+		final StockRow previous = this.store.removeStock(id);
+		if (previous != null) {
+			current.undo.add(() -> this.store.put(previous));
+			current.frame.removeStock(id);
+		}
+	}
+
+	private Transaction current() {
+		final Transaction current = this.transaction.get();
+		if (current == null) {
+			throw new IllegalStateException("Aucune transaction en cours.");
+		}
+		return current;
+	}
+
+	private void undo(final Transaction current) {
+		try {
+			for (int i = current.undo.size() - 1; i >= 0; i--) {
+				current.undo.get(i).run();
+			}
+		} finally {
+			this.end();
+		}
+	}
+
+	private void end() {
+		this.transaction.remove();
+		this.lock.writeLock().unlock();
+	}
+
+	private void close() {
+		try {
+			this.journal.close();
+		} catch (final IOException e) {
+			logger.error("Impossible de fermer le journal : " + e.getMessage());
+		}
+	}
+
+	private static int last(final SortedIntList ids) {
+		return ids.size() == 0 ? 0 : ids.get(ids.size() - 1);
+	}
+}
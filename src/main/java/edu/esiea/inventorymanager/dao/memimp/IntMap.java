@@ -0,0 +1,115 @@
+package edu.esiea.inventorymanager.dao.memimp;
+
+/**
+ * Hash map with primitive int keys, in open addressing with linear probing :
+ * no boxing and no entry objects on lookups. Keys must not be 0, which marks
+ * the free slots. Not thread-safe.
+ */
+final class IntMap<V> {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private int[] keys = new int[INITIAL_CAPACITY];
+	private Object[] values = new Object[INITIAL_CAPACITY];
+	private int size;
+
+	@SuppressWarnings("unchecked")
+	V get(final int key) {
+		final int mask = this.keys.length - 1;
+		for (int i = mix(key) & mask;; i = (i + 1) & mask) {
+			final int k = this.keys[i];
+			if (k == key) {
+				return (V) this.values[i];
+			}
+			if (k == 0) {
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * @return the value formerly mapped to the key, <code>null</code> if there
+	 *         was none.
+	 */
+	@SuppressWarnings("unchecked")
+	V put(final int key, final V value) {
+		if (key == 0) {
+			throw new IllegalArgumentException("La clé 0 est réservée.");
+		}
+		if ((this.size + 1) * 4 > this.keys.length * 3) {
+			this.resize(this.keys.length * 2);
+		}
+		final int mask = this.keys.length - 1;
+		int i = mix(key) & mask;
+		while (this.keys[i] != 0) {
+			if (this.keys[i] == key) {
+				final V previous = (V) this.values[i];
+				this.values[i] = value;
+				return previous;
+			}
+			i = (i + 1) & mask;
+		}
+		this.keys[i] = key;
+		this.values[i] = value;
+		this.size++;
+		return null;
+	}
+
+	/**
+	 * @return the value formerly mapped to the key, <code>null</code> if there
+	 *         was none.
+	 */
+	@SuppressWarnings("unchecked")
+	V remove(final int key) {
+		final int mask = this.keys.length - 1;
+		int i = mix(key) & mask;
+		while (this.keys[i] != key) {
+			if (this.keys[i] == 0) {
+				return null;
+			}
+			i = (i + 1) & mask;
+		}
+		final V previous = (V) this.values[i];
+		// shifts back the following entries of the probe sequence into the freed
+		// slot, so that no tombstone is needed
+		int free = i;
+		for (int j = (i + 1) & mask; this.keys[j] != 0; j = (j + 1) & mask) {
+			final int home = mix(this.keys[j]) & mask;
+			if (((j - home) & mask) >= ((j - free) & mask)) {
+				this.keys[free] = this.keys[j];
+				this.values[free] = this.values[j];
+				free = j;
+			}
+		}
+		this.keys[free] = 0;
+		this.values[free] = null;
+		this.size--;
+		return previous;
+	}
+
+	private void resize(final int capacity) {
+		final int[] oldKeys = this.keys;
+		final Object[] oldValues = this.values;
+		this.keys = new int[capacity];
+		this.values = new Object[capacity];
+		final int mask = capacity - 1;
+		for (int j = 0; j < oldKeys.length; j++) {
+			if (oldKeys[j] != 0) {
+				int i = mix(oldKeys[j]) & mask;
+				while (this.keys[i] != 0) {
+					i = (i + 1) & mask;
+				}
+				this.keys[i] = oldKeys[j];
+				this.values[i] = oldValues[j];
+			}
+		}
+	}
+
+	/**
+	 * Spreads the sequential ids over the table.
+	 */
+	private static int mix(final int key) {
+		final int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
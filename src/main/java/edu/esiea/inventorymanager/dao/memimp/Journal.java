@@ -0,0 +1,311 @@
+package edu.esiea.inventorymanager.dao.memimp;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.zip.CRC32;
+
+import org.apache.log4j.Logger;
+
+import edu.esiea.inventorymanager.dao.memimp.MemStore.ArticleRow;
+import edu.esiea.inventorymanager.dao.memimp.MemStore.CategoryRow;
+import edu.esiea.inventorymanager.dao.memimp.MemStore.CommandRow;
+import edu.esiea.inventorymanager.dao.memimp.MemStore.StockRow;
+import edu.esiea.inventorymanager.dao.memimp.MemStore.Table;
+import edu.esiea.inventorymanager.model.InOut;
+
+/**
+ * Append-only journal of the in-memory backend. Each committed transaction is
+ * appended as one frame : its length, the rows it has put or removed, and a
+ * CRC32 of them. The store is rebuilt at startup by replaying the frames ; a
+ * frame torn by a crash is dropped along with everything after it.
+ */
+final class Journal implements Closeable {
+
+	private static final byte PUT_CATEGORY = 1;
+	private static final byte REMOVE_CATEGORY = 2;
+	private static final byte PUT_ARTICLE = 3;
+	private static final byte REMOVE_ARTICLE = 4;
+	private static final byte PUT_COMMAND = 5;
+	private static final byte REMOVE_COMMAND = 6;
+	private static final byte PUT_STOCK = 7;
+	private static final byte REMOVE_STOCK = 8;
+	private static final byte ALLOCATE_ID = 9;
+
+	private static final Logger logger = Logger.getLogger(Journal.class);
+
+	private final FileChannel channel;
+	private final boolean sync;
+
+	/**
+	 * Changes of one transaction, encoded as they are made and written at once
+	 * when it commits.
+	 */
+	static final class Frame {
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		private final DataOutputStream out = new DataOutputStream(this.bytes);
+
+		boolean isEmpty() {
+			return this.bytes.size() == 0;
+		}
+
+		void put(final CategoryRow row) {
+			this.write(out -> {
+				out.writeByte(PUT_CATEGORY);
+				out.writeInt(row.id());
+				out.writeInt(row.version());
+				writeString(out, row.name());
+				writeString(out, row.description());
+			});
+		}
+
+		void put(final ArticleRow row) {
+			this.write(out -> {
+				out.writeByte(PUT_ARTICLE);
+				out.writeInt(row.id());
+				out.writeInt(row.version());
+				writeString(out, row.name());
+				writeString(out, row.ean13());
+				writeString(out, row.brand());
+				writeString(out, row.pictureUrl());
+				out.writeFloat(row.price());
+				writeString(out, row.description());
+				out.writeInt(row.categoryId());
+			});
+		}
+
+		void put(final CommandRow row) {
+			this.write(out -> {
+				out.writeByte(PUT_COMMAND);
+				out.writeInt(row.id());
+				out.writeInt(row.version());
+				writeDate(out, row.date());
+				writeString(out, row.comment());
+			});
+		}
+
+		void put(final StockRow row) {
+			this.write(out -> {
+				out.writeByte(PUT_STOCK);
+				out.writeInt(row.id());
+				out.writeInt(row.version());
+				writeDate(out, row.date());
+				out.writeInt(row.articleId());
+				out.writeInt(row.commandId());
+				out.writeInt(row.quantity());
+				out.writeByte(row.transferType().ordinal());
+				writeString(out, row.comment());
+			});
+		}
+
+		void removeCategory(final int id) {
+			this.writeRemove(REMOVE_CATEGORY, id);
+		}
+
+		void removeArticle(final int id) {
+			this.writeRemove(REMOVE_ARTICLE, id);
+		}
+
+		void removeCommand(final int id) {
+			this.writeRemove(REMOVE_COMMAND, id);
+		}
+
+		void removeStock(final int id) {
+			this.writeRemove(REMOVE_STOCK, id);
+		}
+
+		/**
+		 * Records an allocated id, so that it is not allocated again once replayed
+		 * even if its row has been removed since.
+		 */
+		void allocate(final Table table, final int id) {
+			this.write(out -> {
+				out.writeByte(ALLOCATE_ID);
+				out.writeByte(table.ordinal());
+				out.writeInt(id);
+			});
+		}
+
+		private void writeRemove(final byte operation, final int id) {
+			this.write(out -> {
+				out.writeByte(operation);
+				out.writeInt(id);
+			});
+		}
+
+		private void write(final Encoder encoder) {
+			try {
+				encoder.encode(this.out);
+			} catch (final IOException e) {
+				// written to memory only
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	@FunctionalInterface
+	private interface Encoder {
+		void encode(DataOutputStream out) throws IOException;
+	}
+
+	/**
+	 * Opens the journal, creating it if needed, and replays it into the given
+	 * store.
+	 *
+	 * @param sync <code>true</code> to force each frame to the disk before the
+	 *             commit returns, <code>false</code> to leave it to the system.
+	 */
+	static Journal open(final Path file, final boolean sync, final MemStore store) throws IOException {
+		if (file.getParent() != null) {
+			Files.createDirectories(file.getParent());
+		}
+		return open(file, FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE), sync, store);
+	}
+
+	/**
+	 * Opens the journal on the given channel of its file, and replays it into the
+	 * given store.
+	 */
+	static Journal open(final Path file, final FileChannel channel, final boolean sync, final MemStore store)
+			throws IOException {
+		final long valid = replay(file, store);
+		if (valid < channel.size()) {
+			logger.warn("Fin du journal " + file + " incomplète, " + (channel.size() - valid)
+					+ " octets ignorés.");
+			channel.truncate(valid);
+		}
+		channel.position(valid);
+		return new Journal(channel, sync);
+	}
+
+	private Journal(final FileChannel channel, final boolean sync) {
+		this.channel = channel;
+		this.sync = sync;
+	}
+
+	/**
+	 * Appends the changes of a committed transaction. If the frame
+	 * <u><b>can't</b></u> be written entirely, the journal is cut back to its
+	 * previous end : the next frames are not appended after a torn one, which the
+	 * replay would stop at.
+	 */
+	void append(final Frame frame) throws IOException {
+		final byte[] payload = frame.bytes.toByteArray();
+		final CRC32 crc = new CRC32();
+		crc.update(payload);
+		final ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + payload.length + Long.BYTES);
+		buffer.putInt(payload.length).put(payload).putLong(crc.getValue()).flip();
+		final long end = this.channel.position();
+		try {
+			while (buffer.hasRemaining()) {
+				this.channel.write(buffer);
+			}
+			if (this.sync) {
+				this.channel.force(false);
+			}
+		} catch (final IOException e) {
+			try {
+				this.channel.truncate(end);
+				this.channel.position(end);
+			} catch (final IOException suppressed) {
+				e.addSuppressed(suppressed);
+			}
+			throw e;
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.channel.close();
+	}
+
+	/**
+	 * @return the length of the valid frames at the start of the file.
+	 */
+	private static long replay(final Path file, final MemStore store) throws IOException {
+		long valid = 0;
+		int frames = 0;
+		try (InputStream stream = new BufferedInputStream(Files.newInputStream(file));
+				DataInputStream in = new DataInputStream(stream)) {
+			while (true) {
+				final byte[] payload;
+				try {
+					final int length = in.readInt();
+					if (length < 0) {
+						break;
+					}
+					payload = in.readNBytes(length);
+					final long checksum = in.readLong();
+					final CRC32 crc = new CRC32();
+					crc.update(payload);
+					if (payload.length != length || crc.getValue() != checksum) {
+						break;
+					}
+				} catch (final EOFException e) {
+					break;
+				}
+				apply(new DataInputStream(new ByteArrayInputStream(payload)), store);
+				valid += Integer.BYTES + payload.length + Long.BYTES;
+				frames++;
+			}
+		}
+		logger.info(frames + " transactions rejouées depuis le journal " + file + ".");
+		return valid;
+	}
+
+	private static void apply(final DataInputStream in, final MemStore store) throws IOException {
+		while (in.available() > 0) {
+			final byte operation = in.readByte();
+			switch (operation) {
+			case PUT_CATEGORY -> store.put(new CategoryRow(in.readInt(), in.readInt(), readString(in), readString(in)));
+			case PUT_ARTICLE -> store.put(new ArticleRow(in.readInt(), in.readInt(), readString(in), readString(in),
+					readString(in), readString(in), in.readFloat(), readString(in), in.readInt()));
+			case PUT_COMMAND -> store.put(new CommandRow(in.readInt(), in.readInt(), readDate(in), readString(in)));
+			case PUT_STOCK -> store.put(new StockRow(in.readInt(), in.readInt(), readDate(in), in.readInt(),
+					in.readInt(), in.readInt(), InOut.values()[in.readByte()], readString(in)));
+			case REMOVE_CATEGORY -> store.removeCategory(in.readInt());
+			case REMOVE_ARTICLE -> store.removeArticle(in.readInt());
+			case REMOVE_COMMAND -> store.removeCommand(in.readInt());
+			case REMOVE_STOCK -> store.removeStock(in.readInt());
+			case ALLOCATE_ID -> store.allocated(Table.values()[in.readByte()], in.readInt());
+			default -> throw new IOException("Opération inconnue dans le journal : " + operation);
+			}
+		}
+	}
+
+	private static void writeString(final DataOutputStream out, final String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
+
+	private static String readString(final DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	private static void writeDate(final DataOutputStream out, final LocalDate value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeLong(value.toEpochDay());
+		}
+	}
+
+	private static LocalDate readDate(final DataInputStream in) throws IOException {
+		return in.readBoolean() ? LocalDate.ofEpochDay(in.readLong()) : null;
+	}
+}
@@ -0,0 +1,188 @@
+package edu.esiea.inventorymanager.dao.memimp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.esiea.inventorymanager.dao.memimp.MemStore.ArticleRow;
+import edu.esiea.inventorymanager.dao.memimp.MemStore.CategoryRow;
+import edu.esiea.inventorymanager.dao.memimp.MemStore.CommandRow;
+import edu.esiea.inventorymanager.dao.memimp.MemStore.StockRow;
+import edu.esiea.inventorymanager.exception.DaoException;
+import edu.esiea.inventorymanager.model.Article;
+import edu.esiea.inventorymanager.model.Category;
+import edu.esiea.inventorymanager.model.Command;
+import edu.esiea.inventorymanager.model.Stock;
+
+/**
+ * Conversions between the rows of the {@link MemStore} and the entities. Each
+ * read returns new entities, so that the callers never share them with the
+ * store nor with each other ; within a single read, the Stocks of an Article
+ * all reference the same Article instance.
+ */
+final class MemRows {
+
+	private MemRows() {
+	}
+
+	static Category category(final CategoryRow row) {
+		final Category cat = new Category(row.name(), row.description());
+		cat.setId(row.id());
+		cat.setVersion(row.version());
+		return cat;
+	}
+
+	/**
+	 * @param withStocks <code>true</code> to read the Stocks of the Article too,
+	 *                   otherwise they are left <code>null</code>.
+	 */
+	static Article article(final MemStore store, final ArticleRow row, final boolean withStocks) {
+		final Article art = new Article(row.name(), row.ean13(), row.brand(), row.pictureUrl(), row.price(),
+				row.description());
+		art.setId(row.id());
+		art.setVersion(row.version());
+		if (row.categoryId() != 0) {
+			art.setCategory(category(store.category(row.categoryId())));
+		}
+		if (withStocks) {
+			final IntMap<Article> articles = new IntMap<>();
+			articles.put(art.getId(), art);
+			art.setStock(stocks(store, store.stocksOfArticle(art.getId()), articles));
+		}
+		return art;
+	}
+
+	static List<Article> articles(final MemStore store, final SortedIntList ids, final int from, final int to,
+			final boolean withStocks) {
+		final List<Article> result = new ArrayList<>(Math.max(to - from, 0));
+		for (int i = from; i < to; i++) {
+			result.add(article(store, store.article(ids.get(i)), withStocks));
+		}
+		return result;
+	}
+
+	/**
+	 * @param articles the Articles already read, filled with the ones read for
+	 *                 these Stocks.
+	 */
+	static Stock stock(final MemStore store, final StockRow row, final IntMap<Article> articles) {
+		Article art = null;
+		if (row.articleId() != 0) {
+			art = articles.get(row.articleId());
+			if (art == null) {
+				art = article(store, store.article(row.articleId()), false);
+				articles.put(art.getId(), art);
+			}
+		}
+		final Stock sto = new Stock(row.date(), art, row.quantity(), row.transferType(), row.comment());
+		sto.setId(row.id());
+		sto.setVersion(row.version());
+		return sto;
+	}
+
+	static List<Stock> stocks(final MemStore store, final SortedIntList ids, final IntMap<Article> articles) {
+		return stocks(store, ids, 0, ids.size(), articles);
+	}
+
+	static List<Stock> stocks(final MemStore store, final SortedIntList ids, final int from, final int to,
+			final IntMap<Article> articles) {
+		final List<Stock> result = new ArrayList<>(Math.max(to - from, 0));
+		for (int i = from; i < to; i++) {
+			result.add(stock(store, store.stock(ids.get(i)), articles));
+		}
+		return result;
+	}
+
+	/**
+	 * @param withStocks <code>true</code> to read the Stocks of the Command too,
+	 *                   otherwise they are left <code>null</code>.
+	 */
+	static Command command(final MemStore store, final CommandRow row, final boolean withStocks,
+			final IntMap<Article> articles) {
+		final Command com = new Command(row.date(),
+				withStocks ? stocks(store, store.stocksOfCommand(row.id()), articles) : null, row.comment());
+		com.setId(row.id());
+		com.setVersion(row.version());
+		return com;
+	}
+
+	static List<Command> commands(final MemStore store, final SortedIntList ids, final int from, final int to,
+			final boolean withStocks) {
+		final IntMap<Article> articles = new IntMap<>();
+		final List<Command> result = new ArrayList<>(Math.max(to - from, 0));
+		for (int i = from; i < to; i++) {
+			result.add(command(store, store.command(ids.get(i)), withStocks, articles));
+		}
+		return result;
+	}
+
+	/**
+	 * @return the id of the Category of the Article, 0 if it has none.
+	 * @throws DaoException if the Category is not stored.
+	 */
+	static int categoryId(final MemStore store, final Article a) throws DaoException {
+		if (a.getCategory() == null) {
+			return 0;
+		}
+		if (store.category(a.getCategory().getId()) == null) {
+			throw new DaoException("La catégorie " + a.getCategory().getId() + " n'existe pas.");
+		}
+		return a.getCategory().getId();
+	}
+
+	/**
+	 * @return the id of the Article of the Stock, 0 if it has none.
+	 * @throws DaoException if the Article is not stored, or if the Stock has no
+	 *                      transfer type.
+	 */
+	static int articleId(final MemStore store, final Stock sto) throws DaoException {
+		if (sto.getTransferType() == null) {
+			throw new DaoException("Le type de mouvement du stock est obligatoire.");
+		}
+		if (sto.getArticle() == null) {
+			return 0;
+		}
+		if (store.article(sto.getArticle().getId()) == null) {
+			throw new DaoException("L'article " + sto.getArticle().getId() + " n'existe pas.");
+		}
+		return sto.getArticle().getId();
+	}
+
+	/**
+	 * @return the id of the Command of the Stock, 0 if it has none.
+	 * @throws DaoException if the Command is not stored.
+	 */
+	static int commandId(final MemStore store, final Stock sto) throws DaoException {
+		if (sto.getCommand() == null) {
+			return 0;
+		}
+		if (store.command(sto.getCommand().getId()) == null) {
+			throw new DaoException("La commande " + sto.getCommand().getId() + " n'existe pas.");
+		}
+		return sto.getCommand().getId();
+	}
+
+	static CategoryRow row(final Category cat, final int version) {
+		return new CategoryRow(cat.getId(), version, cat.getName(), cat.getDescription());
+	}
+
+	static ArticleRow row(final Article a, final int version, final int categoryId) {
+		return new ArticleRow(a.getId(), version, a.getName(), a.getEAN13(), a.getBrand(), a.getPicture_URL(),
+				a.getPrice(), a.getDescription(), categoryId);
+	}
+
+	static CommandRow row(final Command com, final int version) {
+		return new CommandRow(com.getId(), version, com.getDate(), com.getComment());
+	}
+
+	static StockRow row(final Stock sto, final int version, final int articleId, final int commandId) {
+		return new StockRow(sto.getId(), version, sto.getDate(), articleId, commandId, sto.getQuantity(),
+				sto.getTransferType(), sto.getComment());
+	}
+
+	/**
+	 * @return the index after the last id of a page starting at the given index.
+	 */
+	static int pageEnd(final SortedIntList ids, final int from, final int limit) {
+		return (int) Math.min((long) from + Math.max(limit, 0), ids.size());
+	}
+}
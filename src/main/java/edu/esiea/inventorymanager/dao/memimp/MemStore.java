@@ -0,0 +1,271 @@
+package edu.esiea.inventorymanager.dao.memimp;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
+
+import edu.esiea.inventorymanager.model.InOut;
+
+/**
+ * Tables of the in-memory backend, with their secondary indexes and the
+ * on-hand balances of the Articles. Rows are immutable : a change replaces the
+ * row, and every change goes through the put and remove methods, which keep
+ * the indexes and balances up to date. Not thread-safe, see
+ * {@link DaoMemHelper}.
+ */
+final class MemStore {
+
+	record CategoryRow(int id, int version, String name, String description) {
+	}
+
+	/**
+	 * @param categoryId 0 if the Article has no Category.
+	 */
+	record ArticleRow(int id, int version, String name, String ean13, String brand, String pictureUrl, float price,
+			String description, int categoryId) {
+	}
+
+	record CommandRow(int id, int version, LocalDate date, String comment) {
+	}
+
+	/**
+	 * @param articleId 0 if the Stock has no Article.
+	 * @param commandId 0 if the Stock belongs to no Command.
+	 */
+	record StockRow(int id, int version, LocalDate date, int articleId, int commandId, int quantity,
+			InOut transferType, String comment) {
+
+		int signedQuantity() {
+			return this.transferType == InOut.OUT ? -this.quantity : this.quantity;
+		}
+	}
+
+	/**
+	 * Tables whose ids are allocated by the backend.
+	 */
+	enum Table {
+		CATEGORY, ARTICLE, COMMAND, STOCK
+	}
+
+	/**
+	 * On-hand quantity of an Article, updated in place.
+	 */
+	private static final class Balance {
+		private int quantity;
+	}
+
+	private static final SortedIntList EMPTY = new SortedIntList();
+
+	private final IntMap<CategoryRow> categories = new IntMap<>();
+	private final IntMap<ArticleRow> articles = new IntMap<>();
+	private final IntMap<CommandRow> commands = new IntMap<>();
+	private final IntMap<StockRow> stocks = new IntMap<>();
+	private final IntMap<Balance> balances = new IntMap<>();
+
+	private final SortedIntList categoryIds = new SortedIntList();
+	private final SortedIntList articleIds = new SortedIntList();
+	private final SortedIntList commandIds = new SortedIntList();
+	private final SortedIntList stockIds = new SortedIntList();
+
+	private final IntMap<SortedIntList> articlesByCategory = new IntMap<>();
+	private final IntMap<SortedIntList> stocksByArticle = new IntMap<>();
+	private final IntMap<SortedIntList> stocksByCommand = new IntMap<>();
+	private final Map<InOut, SortedIntList> stocksByTransferType = new EnumMap<>(InOut.class);
+	// highest id allocated per table, kept when its row is removed
+	private final int[] lastIds = new int[Table.values().length];
+
+	MemStore() {
+		for (final InOut transferType : InOut.values()) {
+			this.stocksByTransferType.put(transferType, new SortedIntList());
+		}
+	}
+
+	CategoryRow category(final int id) {
+		return this.categories.get(id);
+	}
+
+	ArticleRow article(final int id) {
+		return this.articles.get(id);
+	}
+
+	CommandRow command(final int id) {
+		return this.commands.get(id);
+	}
+
+	StockRow stock(final int id) {
+		return this.stocks.get(id);
+	}
+
+	/**
+	 * @return the on-hand quantity of the Article, <code>null</code> if it is
+	 *         not stored.
+	 */
+	Integer balance(final int articleId) {
+		final Balance balance = this.balances.get(articleId);
+		return balance == null ? null : balance.quantity;
+	}
+
+	/**
+	 * @return the highest id allocated in the table, 0 if none has been.
+	 */
+	int lastId(final Table table) {
+		return this.lastIds[table.ordinal()];
+	}
+
+	/**
+	 * Records that the id has been allocated in the table : no lower or equal
+	 * id is allocated after it.
+	 */
+	void allocated(final Table table, final int id) {
+		this.lastIds[table.ordinal()] = Math.max(this.lastIds[table.ordinal()], id);
+	}
+
+	SortedIntList categoryIds() {
+		return this.categoryIds;
+	}
+
+	SortedIntList articleIds() {
+		return this.articleIds;
+	}
+
+	SortedIntList commandIds() {
+		return this.commandIds;
+	}
+
+	SortedIntList stockIds() {
+		return this.stockIds;
+	}
+
+	SortedIntList articlesOfCategory(final int categoryId) {
+		return orEmpty(this.articlesByCategory.get(categoryId));
+	}
+
+	SortedIntList stocksOfArticle(final int articleId) {
+		return orEmpty(this.stocksByArticle.get(articleId));
+	}
+
+	SortedIntList stocksOfCommand(final int commandId) {
+		return orEmpty(this.stocksByCommand.get(commandId));
+	}
+
+	SortedIntList stocksOfTransferType(final InOut transferType) {
+		return this.stocksByTransferType.get(transferType);
+	}
+
+	/**
+	 * @return the replaced row, <code>null</code> if there was none.
+	 */
+	CategoryRow put(final CategoryRow row) {
+		final CategoryRow previous = this.categories.put(row.id(), row);
+		this.categoryIds.add(row.id());
+		return previous;
+	}
+
+	CategoryRow removeCategory(final int id) {
+		final CategoryRow previous = this.categories.remove(id);
+		this.categoryIds.remove(id);
+		return previous;
+	}
+
+	ArticleRow put(final ArticleRow row) {
+		final ArticleRow previous = this.articles.put(row.id(), row);
+		if (previous == null) {
+			this.articleIds.add(row.id());
+			this.balances.put(row.id(), new Balance());
+			// movements replayed before their Article are counted now
+			final SortedIntList stockIdsOfArticle = this.stocksOfArticle(row.id());
+			for (int i = 0; i < stockIdsOfArticle.size(); i++) {
+				this.balances.get(row.id()).quantity += this.stocks.get(stockIdsOfArticle.get(i)).signedQuantity();
+			}
+		} else if (previous.categoryId() != row.categoryId()) {
+			unindex(this.articlesByCategory, previous.categoryId(), row.id());
+		}
+		index(this.articlesByCategory, row.categoryId(), row.id());
+		return previous;
+	}
+
+	ArticleRow removeArticle(final int id) {
+		final ArticleRow previous = this.articles.remove(id);
+		if (previous != null) {
+			this.articleIds.remove(id);
+			this.balances.remove(id);
+			unindex(this.articlesByCategory, previous.categoryId(), id);
+		}
+		return previous;
+	}
+
+	CommandRow put(final CommandRow row) {
+		final CommandRow previous = this.commands.put(row.id(), row);
+		this.commandIds.add(row.id());
+		return previous;
+	}
+
+	CommandRow removeCommand(final int id) {
+		final CommandRow previous = this.commands.remove(id);
+		this.commandIds.remove(id);
+		return previous;
+	}
+
+	StockRow put(final StockRow row) {
+		final StockRow previous = this.stocks.put(row.id(), row);
+		if (previous == null) {
+			this.stockIds.add(row.id());
+		} else {
+			this.unindex(previous);
+		}
+		index(this.stocksByArticle, row.articleId(), row.id());
+		index(this.stocksByCommand, row.commandId(), row.id());
+		this.stocksByTransferType.get(row.transferType()).add(row.id());
+		this.addToBalance(row.articleId(), row.signedQuantity());
+		return previous;
+	}
+
+	StockRow removeStock(final int id) {
+		final StockRow previous = this.stocks.remove(id);
+		if (previous != null) {
+			this.stockIds.remove(id);
+			this.unindex(previous);
+		}
+		return previous;
+	}
+
+	private void unindex(final StockRow row) {
+		unindex(this.stocksByArticle, row.articleId(), row.id());
+		unindex(this.stocksByCommand, row.commandId(), row.id());
+		this.stocksByTransferType.get(row.transferType()).remove(row.id());
+		this.addToBalance(row.articleId(), -row.signedQuantity());
+	}
+
+	private void addToBalance(final int articleId, final int delta) {
+		final Balance balance = articleId == 0 ? null : this.balances.get(articleId);
+		if (balance != null) {
+			balance.quantity += delta;
+		}
+	}
+
+	private static void index(final IntMap<SortedIntList> index, final int key, final int id) {
+		if (key == 0) {
+			return;
+		}
+		SortedIntList ids = index.get(key);
+		if (ids == null) {
+			ids = new SortedIntList();
+			index.put(key, ids);
+		}
+		ids.add(id);
+	}
+
+	private static void unindex(final IntMap<SortedIntList> index, final int key, final int id) {
+		final SortedIntList ids = key == 0 ? null : index.get(key);
+		if (ids != null) {
+			ids.remove(id);
+			if (ids.size() == 0) {
+				index.remove(key);
+			}
+		}
+	}
+
+	private static SortedIntList orEmpty(final SortedIntList ids) {
+		return ids == null ? EMPTY : ids;
+	}
+}
@@ -0,0 +1,67 @@
+package edu.esiea.inventorymanager.dao.memimp;
+
+import java.util.Arrays;
+
+/**
+ * Sorted set of ints backed by a primitive array. Ids are allocated in
+ * increasing order, so adding one is an append most of the time ; removing one
+ * shifts the following ones. Not thread-safe.
+ */
+final class SortedIntList {
+
+	private int[] elements = new int[8];
+	private int size;
+
+	int size() {
+		return this.size;
+	}
+
+	int get(final int index) {
+		return this.elements[index];
+	}
+
+	boolean contains(final int value) {
+		return Arrays.binarySearch(this.elements, 0, this.size, value) >= 0;
+	}
+
+	void add(final int value) {
+		int index = this.size;
+		if (this.size > 0 && this.elements[this.size - 1] >= value) {
+			index = Arrays.binarySearch(this.elements, 0, this.size, value);
+			if (index >= 0) {
+				return;
+			}
+			index = -index - 1;
+		}
+		if (this.size == this.elements.length) {
+			this.elements = Arrays.copyOf(this.elements, this.size * 2);
+		}
+		System.arraycopy(this.elements, index, this.elements, index + 1, this.size - index);
+		this.elements[index] = value;
+		this.size++;
+	}
+
+	void remove(final int value) {
+		final int index = Arrays.binarySearch(this.elements, 0, this.size, value);
+		if (index >= 0) {
+			System.arraycopy(this.elements, index + 1, this.elements, index, this.size - index - 1);
+			this.size--;
+		}
+	}
+
+	/**
+	 * @return the index of the first element greater than the given value,
+	 *         {@link #size()} if there is none.
+	 */
+	int indexAfter(final int value) {
+		final int index = Arrays.binarySearch(this.elements, 0, this.size, value);
+		return index >= 0 ? index + 1 : -index - 1;
+	}
+
+	/**
+	 * @return a copy of the elements, in increasing order.
+	 */
+	int[] toArray() {
+		return Arrays.copyOf(this.elements, this.size);
+	}
+}
@@ -0,0 +1,249 @@
+package edu.esiea.inventorymanager.dao.memimp;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import edu.esiea.inventorymanager.dao.interfaces.IStocksDao;
+import edu.esiea.inventorymanager.dao.memimp.MemStore.StockRow;
+import edu.esiea.inventorymanager.exception.DaoException;
+import edu.esiea.inventorymanager.exception.StaleDataException;
+import edu.esiea.inventorymanager.model.Article;
+import edu.esiea.inventorymanager.model.InOut;
+import edu.esiea.inventorymanager.model.Stock;
+
+/**
+ * Stocks DAO of the in-memory backend. The lookups by Article, Command and
+ * transfer type go through the indexes of the store ; the balances of the
+ * Articles follow every change of their movements.
+ */
+public class StocksDaoMem implements IStocksDao {
+
+	/**
+	 * Number of Stocks read per hold of the read lock when walking through them,
+	 * so that writers are not kept waiting by a slow consumer.
+	 */
+	private static final int CURSOR_PAGE_SIZE = 500;
+
+	private final DaoMemHelper mem;
+
+	public StocksDaoMem() throws DaoException {
+		this.mem = DaoMemHelper.getInstance();
+	}
+
+	@Override
+	public Stock createStock(final Stock sto) throws DaoException {
+		return this.mem.write("Impossible de créer le stock.", store -> {
+			this.insert(store, sto);
+			return sto;
+		});
+	}
+
+	@Override
+	public List<Stock> createStocks(final List<Stock> stocks) throws DaoException {
+		return this.mem.write("Impossible de créer les stocks.", store -> {
+			for (final Stock sto : stocks) {
+				this.insert(store, sto);
+			}
+			return stocks;
+		});
+	}
+
+	@Override
+	public List<Stock> getAllStocks() throws DaoException {
+		return this.getStocksPage(0, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public List<Stock> getStocksPage(final int afterId, final int limit) throws DaoException {
+		return this.mem.read(store -> {
+			final SortedIntList ids = store.stockIds();
+			final int from = ids.indexAfter(afterId);
+			return MemRows.stocks(store, ids, from, MemRows.pageEnd(ids, from, limit), new IntMap<>());
+		});
+	}
+
+	@Override
+	public void forEachStock(final Consumer<Stock> consumer) throws DaoException {
+		int afterId = 0;
+		List<Stock> page;
+		do {
+			page = this.getStocksPage(afterId, CURSOR_PAGE_SIZE);
+			page.forEach(consumer);
+			if (!page.isEmpty()) {
+				afterId = page.getLast().getId();
+			}
+		} while (page.size() == CURSOR_PAGE_SIZE);
+	}
+
+	@Override
+	public Stock getStockById(final int id) throws DaoException {
+		return this.mem.read(store -> {
+			final StockRow row = store.stock(id);
+			return row == null ? null : MemRows.stock(store, row, new IntMap<>());
+		});
+	}
+
+	@Override
+	public List<Stock> getStocksByIds(final Collection<Integer> ids) throws DaoException {
+		return this.mem.read(store -> {
+			final SortedIntList sorted = new SortedIntList();
+			for (final Integer id : ids) {
+				if (id != null && store.stock(id) != null) {
+					sorted.add(id);
+				}
+			}
+			return MemRows.stocks(store, sorted, new IntMap<>());
+		});
+	}
+
+	@Override
+	public List<Stock> getStocksByArticleId(final int id) throws DaoException {
+		return this.mem.read(store -> MemRows.stocks(store, store.stocksOfArticle(id), new IntMap<>()));
+	}
+
+	@Override
+	public List<Stock> getStocksByCommandId(final int id) throws DaoException {
+		return this.mem.read(store -> MemRows.stocks(store, store.stocksOfCommand(id), new IntMap<>()));
+	}
+
+	@Override
+	public List<Stock> getStocksPageByCommandId(final int commandId, final int afterId, final int limit)
+			throws DaoException {
+		return this.mem.read(store -> {
+			final SortedIntList ids = store.stocksOfCommand(commandId);
+			final int from = ids.indexAfter(afterId);
+			return MemRows.stocks(store, ids, from, MemRows.pageEnd(ids, from, limit), new IntMap<>());
+		});
+	}
+
+	@Override
+	public List<Stock> getStocksByTransferType(final InOut transferType) throws DaoException {
+		return this.mem.read(store -> MemRows.stocks(store, store.stocksOfTransferType(transferType), new IntMap<>()));
+	}
+
+	/**
+	 * Walks through the Stocks of the Article, or else of the transfer type,
+	 * rather than through all of them.
+	 */
+	@Override
+	public List<Stock> searchStocks(final Integer articleId, final InOut transferType, final LocalDate from,
+			final LocalDate to, final int limit) throws DaoException {
+		return this.mem.read(store -> {
+			final SortedIntList ids = articleId != null ? store.stocksOfArticle(articleId)
+					: transferType != null ? store.stocksOfTransferType(transferType) : store.stockIds();
+			final List<StockRow> found = new ArrayList<>();
+			for (int i = 0; i < ids.size(); i++) {
+				final StockRow row = store.stock(ids.get(i));
+				if ((articleId == null || row.articleId() == articleId)
+						&& (transferType == null || row.transferType() == transferType)
+						&& (from == null || row.date() != null && !row.date().isBefore(from))
+						&& (to == null || row.date() != null && !row.date().isAfter(to))) {
+					found.add(row);
+				}
+			}
+			found.sort(Comparator.comparing(StockRow::date, Comparator.nullsFirst(Comparator.<LocalDate>naturalOrder()))
+					.thenComparingInt(StockRow::id).reversed());
+			final List<Stock> result = new ArrayList<>(Math.min(found.size(), limit));
+			final IntMap<Article> articles = new IntMap<>();
+			for (final StockRow row : found.subList(0, Math.min(found.size(), limit))) {
+				result.add(MemRows.stock(store, row, articles));
+			}
+			return result;
+		});
+	}
+
+	@Override
+	public Map<Integer, Long> sumQuantityByArticle() throws DaoException {
+		return this.mem.read(store -> {
+			final Map<Integer, Long> sums = new HashMap<>();
+			final SortedIntList ids = store.stockIds();
+			for (int i = 0; i < ids.size(); i++) {
+				final StockRow row = store.stock(ids.get(i));
+				if (row.articleId() != 0) {
+					sums.merge(row.articleId(), (long) row.signedQuantity(), Long::sum);
+				}
+			}
+			return sums;
+		});
+	}
+
+	@Override
+	public Map<Integer, Map<InOut, Long>> sumByArticleAndTransferType(final LocalDate from, final LocalDate to)
+			throws DaoException {
+		return this.mem.read(store -> {
+			final Map<Integer, Map<InOut, Long>> sums = new HashMap<>();
+			final SortedIntList ids = store.stockIds();
+			for (int i = 0; i < ids.size(); i++) {
+				final StockRow row = store.stock(ids.get(i));
+				if (row.articleId() != 0 && within(row, from, to)) {
+					sums.computeIfAbsent(row.articleId(), id -> new EnumMap<>(InOut.class))
+							.merge(row.transferType(), (long) row.quantity(), Long::sum);
+				}
+			}
+			return sums;
+		});
+	}
+
+	@Override
+	public SortedMap<LocalDate, Map<InOut, Long>> dailyTotals(final int articleId, final LocalDate from,
+			final LocalDate to) throws DaoException {
+		return this.mem.read(store -> {
+			final SortedMap<LocalDate, Map<InOut, Long>> sums = new TreeMap<>();
+			final SortedIntList ids = store.stocksOfArticle(articleId);
+			for (int i = 0; i < ids.size(); i++) {
+				final StockRow row = store.stock(ids.get(i));
+				if (within(row, from, to)) {
+					sums.computeIfAbsent(row.date(), day -> new EnumMap<>(InOut.class))
+							.merge(row.transferType(), (long) row.quantity(), Long::sum);
+				}
+			}
+			return sums;
+		});
+	}
+
+	@Override
+	public void updateStock(final Stock sto) throws DaoException {
+		this.mem.write("Impossible de modifier le stock.", store -> {
+			final StockRow stored = store.stock(sto.getId());
+			if (stored == null || stored.version() != sto.getVersion()) {
+				throw new StaleDataException("Le stock a été modifié entre-temps.");
+			}
+			this.mem.put(MemRows.row(sto, sto.getVersion() + 1, MemRows.articleId(store, sto), stored.commandId()));
+			sto.setVersion(sto.getVersion() + 1);
+			return null;
+		});
+	}
+
+	@Override
+	public void deleteStock(final Stock sto) throws DaoException {
+		this.mem.write("Impossible de supprimer le stock.", store -> {
+			this.mem.removeStock(sto.getId());
+			return null;
+		});
+	}
+
+	/**
+	 * Same rule as a SQL <code>BETWEEN</code> : both bounds are included, and a
+	 * Stock without a date is never within the range.
+	 */
+	private static boolean within(final StockRow row, final LocalDate from, final LocalDate to) {
+		return row.date() != null && !row.date().isBefore(from) && !row.date().isAfter(to);
+	}
+
+	private void insert(final MemStore store, final Stock sto) throws DaoException {
+		final int articleId = MemRows.articleId(store, sto);
+		final int commandId = MemRows.commandId(store, sto);
+		sto.setId(this.mem.nextStockId());
+		sto.setVersion(1);
+		this.mem.put(MemRows.row(sto, sto.getVersion(), articleId, commandId));
+	}
+}
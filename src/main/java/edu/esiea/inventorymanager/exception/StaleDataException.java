@@ -0,0 +1,20 @@
+package edu.esiea.inventorymanager.exception;
+
+/**
+ * Thrown when an entity could not be written because it has been modified by
+ * someone else since it was read : its version no longer matches the stored
+ * one.
+ */
+public class StaleDataException extends DaoException {
+
+	private static final long serialVersionUID = 1L;
+
+	public StaleDataException(String message, Throwable cause) {
+		super(message, cause);
+	}
+
+	public StaleDataException(String message) {
+		super(message);
+	}
+
+}
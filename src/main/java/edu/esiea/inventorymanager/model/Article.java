@@ -2,6 +2,7 @@ package edu.esiea.inventorymanager.model;
 
 import java.util.List;
 
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
@@ -11,22 +12,49 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
 import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
 import javax.persistence.OneToMany;
+import javax.persistence.Persistence;
 import javax.persistence.Table;
+import javax.persistence.Version;
+
+import org.eclipse.persistence.annotations.BatchFetch;
+import org.eclipse.persistence.annotations.BatchFetchType;
+import org.eclipse.persistence.annotations.Cache;
+import org.eclipse.persistence.annotations.CacheType;
+import org.eclipse.persistence.annotations.Noncacheable;
+
+import jakarta.json.bind.annotation.JsonbProperty;
+import jakarta.json.bind.annotation.JsonbTransient;
+import jakarta.json.bind.annotation.JsonbTypeSerializer;
 
 @Entity
 @Table(name = "Article")
+@Cacheable
+@Cache(type = CacheType.SOFT_WEAK, expiry = 600000)
+@NamedEntityGraph(name = "Article.stocks", attributeNodes = @NamedAttributeNode("stocks"))
 @NamedQueries({ @NamedQuery(name = "Article.findById", query = "SELECT art FROM Article art WHERE art.id = :id"),
+		@NamedQuery(name = "Article.findByIds", query = "SELECT art FROM Article art WHERE art.id IN :ids ORDER BY art.id"),
 		@NamedQuery(name = "Article.findAll", query = "SELECT art FROM Article art"),
+		@NamedQuery(name = "Article.findPage", query = "SELECT art FROM Article art WHERE art.id > :id ORDER BY art.id"),
 		@NamedQuery(name = "Article.findByStockId", query = "SELECT art FROM Article art JOIN art.stocks s WHERE s.id = :id"),
-		@NamedQuery(name = "Article.findAllByCategoryId", query = "SELECT art FROM Article art JOIN art.category cat WHERE cat.id = :id") })
+		@NamedQuery(name = "Article.findAllByCategoryId", query = "SELECT art FROM Article art JOIN art.category cat WHERE cat.id = :id"),
+		@NamedQuery(name = "Article.findPageByCategoryId", query = "SELECT art FROM Article art WHERE art.category.id = :categoryId AND art.id > :id ORDER BY art.id"),
+		@NamedQuery(name = "Article.countByCategoryId", query = "SELECT COUNT(art) FROM Article art WHERE art.category.id = :id"),
+		@NamedQuery(name = "Article.deleteById", query = "DELETE FROM Article art WHERE art.id = :id"),
+		@NamedQuery(name = "Article.findAllSummaries", query = "SELECT NEW edu.esiea.inventorymanager.model.ArticleSummary(art.id, art.name, art.EAN13, art.brand, art.price, cat.name, COALESCE(bal.quantity, 0)) FROM Article art LEFT JOIN art.category cat LEFT JOIN ArticleBalance bal ON bal.articleId = art.id ORDER BY art.id"),
+		@NamedQuery(name = "Article.findSummaryPage", query = "SELECT NEW edu.esiea.inventorymanager.model.ArticleSummary(art.id, art.name, art.EAN13, art.brand, art.price, cat.name, COALESCE(bal.quantity, 0)) FROM Article art LEFT JOIN art.category cat LEFT JOIN ArticleBalance bal ON bal.articleId = art.id WHERE art.id > :id ORDER BY art.id") })
 public class Article {
 	@Id
 	@Column(name = "Id")
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.TABLE, generator = "ArticleIds")
 	private int id;
+	@Version
+	@Column(name = "Version")
+	private int version;
 	@Column(name = "Name", nullable = false, length = 30)
 	private String name;
 	@Column(name = "EAN13", nullable = false, length = 30)
@@ -39,11 +67,17 @@ public class Article {
 	private float price;
 	@Column(name = "Description", nullable = false, length = 30)
 	private String description;
+	// the Categories of all the Articles read by a query are loaded together, in
+	// one IN query, on the first access to one of them
 	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "Category", referencedColumnName = "Id")
+	@BatchFetch(BatchFetchType.IN)
 	private Category category;
-	@OneToMany(fetch = FetchType.EAGER, cascade = CascadeType.ALL, orphanRemoval = true)
-	@JoinColumn(name = "ArticleId", referencedColumnName = "Id")
+	// never held by the shared cache : each persistence context reads its own
+	// Stocks, so a new or removed Stock leaves the cached Article valid
+	@Noncacheable
+	@OneToMany(mappedBy = "article", fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
+	@JsonbTransient
 	private List<Stock> stocks;
 
 	public Article(String name, String eAN13, String brand, String picture_URL, float price, String description) {
@@ -68,6 +102,14 @@ public class Article {
 		this.id = id;
 	}
 
+	public int getVersion() {
+		return version;
+	}
+
+	public void setVersion(int version) {
+		this.version = version;
+	}
+
 	public String getName() {
 		return name;
 	}
@@ -124,6 +166,7 @@ public class Article {
 		this.category = category;
 	}
 
+	@JsonbTransient
 	public List<Stock> getStock() {
 		return stocks;
 	}
@@ -132,4 +175,14 @@ public class Article {
 		this.stocks = stocks;
 	}
 
+	/**
+	 * @return the Stocks if they have been fetched along with this Article,
+	 *         <code>null</code> otherwise so that serializing it never loads them.
+	 */
+	@JsonbProperty("stock")
+	@JsonbTypeSerializer(FetchedStocksSerializer.class)
+	public List<Stock> getFetchedStocks() {
+		return Persistence.getPersistenceUtil().isLoaded(this, "stocks") ? stocks : null;
+	}
+
 }
@@ -0,0 +1,53 @@
+package edu.esiea.inventorymanager.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+
+/**
+ * On-hand quantity of an {@link Article} : sum of its IN {@link Stock}
+ * movements minus its OUT ones. Maintained by the stock DAO in the same
+ * transaction as every movement change, so it never has to be recomputed.
+ */
+@Entity
+@Table(name = "ArticleBalance")
+@NamedQueries({
+		@NamedQuery(name = "ArticleBalance.findByArticleId", query = "SELECT bal FROM ArticleBalance bal WHERE bal.articleId = :id"),
+		@NamedQuery(name = "ArticleBalance.findByArticleIds", query = "SELECT bal FROM ArticleBalance bal WHERE bal.articleId IN :ids"),
+		@NamedQuery(name = "ArticleBalance.addQuantity", query = "UPDATE ArticleBalance bal SET bal.quantity = bal.quantity + :delta WHERE bal.articleId = :id"),
+		@NamedQuery(name = "ArticleBalance.deleteByArticleId", query = "DELETE FROM ArticleBalance bal WHERE bal.articleId = :id") })
+public class ArticleBalance {
+	@Id
+	@Column(name = "ArticleId")
+	private int articleId;
+	@Column(name = "Quantity", nullable = false)
+	private int quantity;
+
+	public ArticleBalance(int articleId, int quantity) {
+		this.articleId = articleId;
+		this.quantity = quantity;
+	}
+
+	public ArticleBalance() {
+	}
+
+	public int getArticleId() {
+		return articleId;
+	}
+
+	public void setArticleId(int articleId) {
+		this.articleId = articleId;
+	}
+
+	public int getQuantity() {
+		return quantity;
+	}
+
+	public void setQuantity(int quantity) {
+		this.quantity = quantity;
+	}
+
+}
@@ -0,0 +1,19 @@
+package edu.esiea.inventorymanager.model;
+
+/**
+ * Read-only row of the Article list : the columns a list view needs, read
+ * straight from the query result without loading any {@link Article} entity.
+ *
+ * @param id           id of the Article
+ * @param name         name of the Article
+ * @param ean13        EAN13 code of the Article
+ * @param brand        brand of the Article
+ * @param price        price of the Article
+ * @param categoryName name of the {@link Category} of the Article,
+ *                     <code>null</code> if it has none
+ * @param onHand       on-hand quantity of the Article, see
+ *                     {@link ArticleBalance}
+ */
+public record ArticleSummary(int id, String name, String ean13, String brand, float price, String categoryName,
+		int onHand) {
+}
@@ -1,5 +1,6 @@
 package edu.esiea.inventorymanager.model;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
@@ -8,16 +9,27 @@ import javax.persistence.Id;
 import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
 import javax.persistence.Table;
+import javax.persistence.Version;
+
+import org.eclipse.persistence.annotations.Cache;
+import org.eclipse.persistence.annotations.CacheType;
 
 @Entity
 @Table(name = "Category")
+@Cacheable
+@Cache(type = CacheType.SOFT_WEAK, expiry = 3600000)
 @NamedQueries({ @NamedQuery(name = "Category.findById", query = "SELECT cat FROM Category cat WHERE cat.id = :id"),
-		@NamedQuery(name = "Category.findAll", query = "SELECT cat FROM Category cat") })
+		@NamedQuery(name = "Category.findByIds", query = "SELECT cat FROM Category cat WHERE cat.id IN :ids ORDER BY cat.id"),
+		@NamedQuery(name = "Category.findAll", query = "SELECT cat FROM Category cat"),
+		@NamedQuery(name = "Category.findPage", query = "SELECT cat FROM Category cat WHERE cat.id > :id ORDER BY cat.id") })
 public class Category {
 	@Id
 	@Column(name = "Id")
 	@GeneratedValue(strategy = GenerationType.IDENTITY)
 	private int id;
+	@Version
+	@Column(name = "Version")
+	private int version;
 	@Column(name = "Name", nullable = false, length = 30)
 	private String name;
 	@Column(name = "Description", nullable = false, length = 30)
@@ -41,6 +53,14 @@ public class Category {
 		this.id = id;
 	}
 
+	public int getVersion() {
+		return version;
+	}
+
+	public void setVersion(int version) {
+		this.version = version;
+	}
+
 	public String getName() {
 		return name;
 	}
@@ -3,6 +3,7 @@ package edu.esiea.inventorymanager.model;
 import java.time.LocalDate;
 import java.util.List;
 
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
@@ -10,26 +11,51 @@ import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
-import javax.persistence.JoinColumn;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
 import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
 import javax.persistence.OneToMany;
+import javax.persistence.Persistence;
 import javax.persistence.Table;
+import javax.persistence.Version;
+
+import org.eclipse.persistence.annotations.Cache;
+import org.eclipse.persistence.annotations.CacheType;
+import org.eclipse.persistence.annotations.Noncacheable;
+
+import jakarta.json.bind.annotation.JsonbProperty;
+import jakarta.json.bind.annotation.JsonbTransient;
+import jakarta.json.bind.annotation.JsonbTypeSerializer;
 
 @Entity
 @Table(name = "Command")
+@Cacheable
+@Cache(type = CacheType.SOFT_WEAK, expiry = 600000)
+@NamedEntityGraph(name = "Command.stocks", attributeNodes = @NamedAttributeNode("stocks"))
 @NamedQueries({ @NamedQuery(name = "Command.findById", query = "SELECT com FROM Command com WHERE com.id = :id"),
 		@NamedQuery(name = "Command.findAll", query = "SELECT com FROM Command com"),
-		@NamedQuery(name = "Command.findByStockId", query = "SELECT com FROM Command com JOIN com.stocks s WHERE s.id = :id") })
+		@NamedQuery(name = "Command.findPage", query = "SELECT com FROM Command com WHERE com.id > :id ORDER BY com.id"),
+		@NamedQuery(name = "Command.findByStockId", query = "SELECT com FROM Command com JOIN com.stocks s WHERE s.id = :id"),
+		@NamedQuery(name = "Command.sumSignedQuantityGroupByArticle", query = "SELECT art.id, SUM(CASE WHEN s.transferType = :in THEN s.quantity ELSE 0 - s.quantity END) FROM Command com JOIN com.stocks s JOIN s.article art WHERE com.id = :id GROUP BY art.id"),
+		@NamedQuery(name = "Command.deleteById", query = "DELETE FROM Command com WHERE com.id = :id"),
+		@NamedQuery(name = "Command.findAllSummaries", query = "SELECT NEW edu.esiea.inventorymanager.model.CommandSummary(com.id, com.date, com.comment, COUNT(sto)) FROM Command com LEFT JOIN com.stocks sto GROUP BY com.id, com.date, com.comment ORDER BY com.id"),
+		@NamedQuery(name = "Command.findSummaryPage", query = "SELECT NEW edu.esiea.inventorymanager.model.CommandSummary(com.id, com.date, com.comment, COUNT(sto)) FROM Command com LEFT JOIN com.stocks sto WHERE com.id > :id GROUP BY com.id, com.date, com.comment ORDER BY com.id") })
 public class Command {
 	@Id
 	@Column(name = "Id")
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.TABLE, generator = "CommandIds")
 	private int id;
-	@Column(name = "Date", nullable = false, length = 30)
+	@Version
+	@Column(name = "Version")
+	private int version;
+	@Column(name = "Date", nullable = false)
 	private LocalDate date;
-	@OneToMany(fetch = FetchType.EAGER, cascade = CascadeType.ALL, orphanRemoval = true)
-	@JoinColumn(name = "Command", referencedColumnName = "Id")
+	// never held by the shared cache : each persistence context reads its own
+	// Stocks, so a new or removed Stock leaves the cached Command valid
+	@Noncacheable
+	@OneToMany(mappedBy = "command", fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
+	@JsonbTransient
 	private List<Stock> stocks;
 	@Column(name = "Comment", nullable = false, length = 30)
 	private String comment;
@@ -53,6 +79,14 @@ public class Command {
 		this.id = id;
 	}
 
+	public int getVersion() {
+		return version;
+	}
+
+	public void setVersion(int version) {
+		this.version = version;
+	}
+
 	public LocalDate getDate() {
 		return date;
 	}
@@ -69,6 +103,16 @@ public class Command {
 		this.stocks = stocks;
 	}
 
+	/**
+	 * @return the Stocks if they have been fetched along with this Command,
+	 *         <code>null</code> otherwise so that serializing it never loads them.
+	 */
+	@JsonbProperty("stocks")
+	@JsonbTypeSerializer(FetchedStocksSerializer.class)
+	public List<Stock> getFetchedStocks() {
+		return Persistence.getPersistenceUtil().isLoaded(this, "stocks") ? stocks : null;
+	}
+
 	public String getComment() {
 		return comment;
 	}
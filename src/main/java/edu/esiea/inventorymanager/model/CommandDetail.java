@@ -0,0 +1,18 @@
+package edu.esiea.inventorymanager.model;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Detail view of a Command : all its {@link Stock} lines, each one with its
+ * {@link Article} and the {@link Category} of the Article. Unlike the Command
+ * entity, the Stocks are serialized in full.
+ *
+ * @param id      id of the Command
+ * @param version version of the Command
+ * @param date    date of the Command
+ * @param comment comment of the Command
+ * @param stocks  Stock lines of the Command, ordered by id
+ */
+public record CommandDetail(int id, int version, LocalDate date, String comment, List<Stock> stocks) {
+}
@@ -0,0 +1,15 @@
+package edu.esiea.inventorymanager.model;
+
+import java.time.LocalDate;
+
+/**
+ * Read-only row of the Command list : the columns a list view needs, read
+ * straight from the query result without loading any {@link Command} entity.
+ *
+ * @param id         id of the Command
+ * @param date       date of the Command
+ * @param comment    comment of the Command
+ * @param stockCount number of {@link Stock} lines of the Command
+ */
+public record CommandSummary(int id, LocalDate date, String comment, long stockCount) {
+}
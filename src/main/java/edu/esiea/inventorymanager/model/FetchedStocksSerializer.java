@@ -0,0 +1,45 @@
+package edu.esiea.inventorymanager.model;
+
+import java.util.List;
+
+import jakarta.json.bind.serializer.JsonbSerializer;
+import jakarta.json.bind.serializer.SerializationContext;
+import jakarta.json.stream.JsonGenerator;
+
+/**
+ * JSON serializer of the fetched {@link Stock} collections. Each Stock only
+ * references its {@link Article} by id so that an Article and its Stocks do not
+ * refer to each other endlessly.
+ */
+public class FetchedStocksSerializer implements JsonbSerializer<List<Stock>> {
+
+	@Override
+	public void serialize(final List<Stock> stocks, final JsonGenerator generator, final SerializationContext ctx) {
+		if (stocks == null) {
+			generator.writeNull();
+			return;
+		}
+		generator.writeStartArray();
+		for (final Stock stock : stocks) {
+			generator.writeStartObject();
+			generator.write("id", stock.getId());
+			if (stock.getDate() != null) {
+				generator.write("date", stock.getDate().toString());
+			}
+			if (stock.getArticle() != null) {
+				generator.writeStartObject("article");
+				generator.write("id", stock.getArticle().getId());
+				generator.writeEnd();
+			}
+			generator.write("quantity", stock.getQuantity());
+			if (stock.getTransferType() != null) {
+				generator.write("transferType", stock.getTransferType().name());
+			}
+			if (stock.getComment() != null) {
+				generator.write("comment", stock.getComment());
+			}
+			generator.writeEnd();
+		}
+		generator.writeEnd();
+	}
+}
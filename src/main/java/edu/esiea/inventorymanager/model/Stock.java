@@ -12,26 +12,58 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedNativeQueries;
+import javax.persistence.NamedNativeQuery;
 import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
 import javax.persistence.Table;
+import javax.persistence.Version;
+
+import org.eclipse.persistence.annotations.BatchFetch;
+import org.eclipse.persistence.annotations.BatchFetchType;
+
+import jakarta.json.bind.annotation.JsonbTransient;
 
 @Entity
 @Table(name = "Stock")
 @NamedQueries({ @NamedQuery(name = "Stock.findById", query = "SELECT sto FROM Stock sto WHERE sto.id = :id"),
 		@NamedQuery(name = "Stock.findAll", query = "SELECT sto FROM Stock sto"),
+		@NamedQuery(name = "Stock.findByIds", query = "SELECT sto FROM Stock sto WHERE sto.id IN :ids ORDER BY sto.id"),
+		@NamedQuery(name = "Stock.findAllOrdered", query = "SELECT sto FROM Stock sto ORDER BY sto.id"),
+		@NamedQuery(name = "Stock.findPage", query = "SELECT sto FROM Stock sto WHERE sto.id > :id ORDER BY sto.id"),
 		@NamedQuery(name = "Stock.findByArticleId", query = "SELECT sto FROM Stock sto JOIN sto.article art WHERE art.id = :id"),
-		@NamedQuery(name = "Stock.findAllbyTransferType", query = "SELECT sto FROM Stock sto WHERE sto.transferType = :transferType") })
+		@NamedQuery(name = "Stock.findByCommandId", query = "SELECT sto FROM Stock sto LEFT JOIN FETCH sto.article WHERE sto.command.id = :id ORDER BY sto.id"),
+		@NamedQuery(name = "Stock.findPageByCommandId", query = "SELECT sto FROM Stock sto LEFT JOIN FETCH sto.article WHERE sto.command.id = :commandId AND sto.id > :id ORDER BY sto.id"),
+		@NamedQuery(name = "Stock.findMovementsByCommandId", query = "SELECT sto.id, sto.quantity, sto.transferType, art.id FROM Stock sto LEFT JOIN sto.article art WHERE sto.command.id = :id"),
+		@NamedQuery(name = "Stock.findMovementById", query = "SELECT sto.quantity, sto.transferType, art.id, com.id FROM Stock sto LEFT JOIN sto.article art LEFT JOIN sto.command com WHERE sto.id = :id"),
+		@NamedQuery(name = "Stock.sumSignedQuantityGroupByArticle", query = "SELECT art.id, SUM(CASE WHEN sto.transferType = :in THEN sto.quantity ELSE 0 - sto.quantity END) FROM Stock sto JOIN sto.article art GROUP BY art.id"),
+		@NamedQuery(name = "Stock.sumQuantityGroupByArticleAndTransferType", query = "SELECT art.id, sto.transferType, SUM(sto.quantity) FROM Stock sto JOIN sto.article art WHERE sto.date BETWEEN :from AND :to GROUP BY art.id, sto.transferType"),
+		@NamedQuery(name = "Stock.sumQuantityByArticleIdGroupByDateAndTransferType", query = "SELECT sto.date, sto.transferType, SUM(sto.quantity) FROM Stock sto WHERE sto.article.id = :id AND sto.date BETWEEN :from AND :to GROUP BY sto.date, sto.transferType"),
+		@NamedQuery(name = "Stock.findAllbyTransferType", query = "SELECT sto FROM Stock sto WHERE sto.transferType = :transferType"),
+		@NamedQuery(name = "Stock.deleteByArticleId", query = "DELETE FROM Stock sto WHERE sto.article.id = :id") })
+@NamedNativeQueries({
+		@NamedNativeQuery(name = "Stock.deleteByCommandId", query = "DELETE FROM Stock WHERE Command = ?1") })
 public class Stock {
 	@Id
 	@Column(name = "Id")
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.TABLE, generator = "StockIds")
 	private int id;
-	@Column(name = "Date", nullable = false, length = 30)
+	@Version
+	@Column(name = "Version")
+	private int version;
+	@Column(name = "Date", nullable = false)
 	private LocalDate date;
+	// same as Article.category : one IN query for the Articles of a result
 	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "Article", referencedColumnName = "Id")
+	@BatchFetch(BatchFetchType.IN)
 	private Article article;
+	// owning side of Command.stocks : a Stock is linked to its Command by its own
+	// INSERT, without loading the Stocks of the Command
+	@ManyToOne(fetch = FetchType.LAZY)
+	@JoinColumn(name = "Command", referencedColumnName = "Id")
+	@JsonbTransient
+	private Command command;
 	@Column(name = "Quantity", nullable = false, length = 30)
 	private int quantity;
 	@Enumerated(EnumType.STRING)
@@ -61,6 +93,14 @@ public class Stock {
 		this.id = id;
 	}
 
+	public int getVersion() {
+		return version;
+	}
+
+	public void setVersion(int version) {
+		this.version = version;
+	}
+
 	public LocalDate getDate() {
 		return date;
 	}
@@ -77,6 +117,15 @@ public class Stock {
 		this.article = article;
 	}
 
+	@JsonbTransient
+	public Command getCommand() {
+		return command;
+	}
+
+	public void setCommand(Command command) {
+		this.command = command;
+	}
+
 	public int getQuantity() {
 		return quantity;
 	}
@@ -1,21 +1,28 @@
 package edu.esiea.inventorymanager.services;
 
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.log4j.Logger;
 
 import edu.esiea.inventorymanager.dao.DaoFactory;
 import edu.esiea.inventorymanager.dao.interfaces.IArticlesDao;
 import edu.esiea.inventorymanager.exception.DaoException;
+import edu.esiea.inventorymanager.exception.StaleDataException;
 import edu.esiea.inventorymanager.model.Article;
+import edu.esiea.inventorymanager.model.ArticleBalance;
+import edu.esiea.inventorymanager.model.ArticleSummary;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.DELETE;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.PATCH;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.GenericEntity;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.MultivaluedMap;
@@ -33,9 +40,13 @@ public class ArticleServices {
 	public static final String PARAM_ART_DESCRIPTION = "ArticleDescription";
 	public static final String PARAM_ART_CATEGORY_ID = "CategoryId";
 	public static final String PARAM_ART_STOCK_IDS = "StockIds";
+	public static final String PARAM_ART_VERSION = "ArticleVersion";
+	public static final String PARAM_IDS = "ids";
 
 	private static final Logger logger = Logger.getLogger(ArticleServices.class);
 
+	private final BatchLoader loader = new BatchLoader();
+
 	@POST
 	@Path("/add")
 	@Consumes("application/x-www-form-urlencoded")
@@ -108,32 +119,164 @@ public class ArticleServices {
 		} catch (NumberFormatException e) {
 			logger.warn("Format invalide pour ID ou prix lors de la mise à jour.");
 			return Response.status(Response.Status.BAD_REQUEST).entity("ID ou prix invalide.").build();
+		} catch (StaleDataException e) {
+			logger.warn("Conflit lors de la mise à jour d'un article : " + e.getMessage());
+			return Response.status(Response.Status.CONFLICT).entity(e.getMessage()).build();
 		} catch (DaoException e) {
 			logger.error("Erreur interne lors de la mise à jour d'un article : " + e.getMessage());
 			return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(e.getMessage()).build();
 		}
 	}
 
+	@PATCH
+	@Consumes("application/x-www-form-urlencoded")
+	@Path("/{id}")
+	@Produces(MediaType.APPLICATION_JSON)
+	public Response patchArticle(@PathParam("id") final int id, final MultivaluedMap<String, String> formParams) {
+		if (PartialUpdate.hasBlankValue(formParams, PARAM_ART_NAME, PARAM_ART_EAN13, PARAM_ART_BRAND,
+				PARAM_ART_PICTURE, PARAM_ART_PRICE, PARAM_ART_DESCRIPTION, PARAM_ART_VERSION)) {
+			logger.warn("Paramètres vides pour la modification partielle d'un article.");
+			return Response.status(Response.Status.BAD_REQUEST)
+					.entity("Un ou plusieurs paramètres fournis sont vides.").build();
+		}
+
+		try {
+			final IArticlesDao dao = DaoFactory.getInstance().getArticlesDao();
+			final Article article = dao.getArticleById(id);
+			if (article == null) {
+				logger.warn("Aucun article trouvé pour la modification avec l'ID : " + id);
+				return Response.status(Response.Status.NOT_FOUND)
+						.entity("Aucun article trouvé avec l'identifiant : " + id).build();
+			}
+			if (PartialUpdate.isStale(formParams, PARAM_ART_VERSION, article.getVersion())) {
+				logger.warn("Version périmée pour la modification de l'article : " + id);
+				return Response.status(Response.Status.CONFLICT).entity("L'article a été modifié entre-temps.")
+						.build();
+			}
+
+			final String price = formParams.getFirst(PARAM_ART_PRICE);
+			if (price != null) {
+				article.setPrice(Float.parseFloat(price));
+			}
+			if (formParams.containsKey(PARAM_ART_NAME)) {
+				article.setName(formParams.getFirst(PARAM_ART_NAME));
+			}
+			if (formParams.containsKey(PARAM_ART_EAN13)) {
+				article.setEAN13(formParams.getFirst(PARAM_ART_EAN13));
+			}
+			if (formParams.containsKey(PARAM_ART_BRAND)) {
+				article.setBrand(formParams.getFirst(PARAM_ART_BRAND));
+			}
+			if (formParams.containsKey(PARAM_ART_PICTURE)) {
+				article.setPicture_URL(formParams.getFirst(PARAM_ART_PICTURE));
+			}
+			if (formParams.containsKey(PARAM_ART_DESCRIPTION)) {
+				article.setDescription(formParams.getFirst(PARAM_ART_DESCRIPTION));
+			}
+
+			dao.updateArticle(article);
+			logger.info("Article modifié avec succès : " + article.getName());
+			return Response.ok().entity(new GenericEntity<>(article) {
+			}).build();
+		} catch (NumberFormatException e) {
+			logger.warn("Format invalide pour le prix ou la version lors de la modification.");
+			return Response.status(Response.Status.BAD_REQUEST).entity("Prix ou version invalide.").build();
+		} catch (StaleDataException e) {
+			logger.warn("Conflit lors de la modification d'un article : " + e.getMessage());
+			return Response.status(Response.Status.CONFLICT).entity(e.getMessage()).build();
+		} catch (DaoException e) {
+			logger.error("Erreur interne lors de la modification d'un article : " + e.getMessage());
+			return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(e.getMessage()).build();
+		}
+	}
+
+	/**
+	 * Returns several articles at once, given as a comma separated list of ids.
+	 * Unknown ids are skipped.
+	 */
+	@GET
+	@Produces(MediaType.APPLICATION_JSON)
+	public Response getArticlesByIds(@QueryParam(PARAM_IDS) final String ids) {
+		if (isNullOrEmpty(ids)) {
+			logger.warn("Paramètre " + PARAM_IDS + " manquant pour la récupération d'articles.");
+			return Response.status(Response.Status.BAD_REQUEST)
+					.entity("Un ou plusieurs paramètres obligatoires sont manquants.").build();
+		}
+		try {
+			final List<Article> articles = this.loader.articles(parseIds(ids));
+			return Response.ok().entity(new GenericEntity<>(articles) {
+			}).build();
+		} catch (NumberFormatException e) {
+			logger.warn("Format invalide pour les ids lors de la récupération d'articles.");
+			return Response.status(Response.Status.BAD_REQUEST).entity("Liste d'ids invalide.").build();
+		} catch (DaoException e) {
+			logger.error("Erreur interne lors de la récupération d'articles : " + e.getMessage());
+			return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(e.getMessage()).build();
+		}
+	}
+
 	@GET
 	@Path("/all")
 	@Produces(MediaType.APPLICATION_JSON)
-	public Response getAllArticles() {
+	public Response getAllArticles(@QueryParam(Pagination.PARAM_AFTER) final String after,
+			@QueryParam(Pagination.PARAM_LIMIT) final String limit,
+			@QueryParam(Expansion.PARAM_EXPAND) final String expand) {
 		try {
-			final List<Article> list = DaoFactory.getInstance().getArticlesDao().getAllArticles();
+			final boolean withStocks = Expansion.includes(expand, Expansion.STOCKS);
+			if (Pagination.isRequested(after, limit)) {
+				final int pageSize = Pagination.parseLimit(limit);
+				final List<Article> page = DaoFactory.getInstance().getArticlesDao()
+						.getArticlesPage(Pagination.parseAfter(after), pageSize, withStocks);
+				return Pagination.withNextCursor(Response.ok(), page, pageSize, Article::getId)
+						.entity(new GenericEntity<>(page) {
+						}).build();
+			}
+			final List<Article> list = DaoFactory.getInstance().getArticlesDao().getAllArticles(withStocks);
 			final GenericEntity<List<Article>> json = new GenericEntity<>(list) {
 			};
 			return Response.ok().entity(json).build();
+		} catch (NumberFormatException e) {
+			logger.warn("Paramètres de pagination invalides : " + e.getMessage());
+			return Response.status(Response.Status.BAD_REQUEST).entity("Paramètres de pagination invalides.").build();
 		} catch (DaoException e) {
 			return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(e.getMessage()).build();
 		}
 	}
 
+	@GET
+	@Path("/summary")
+	@Produces(MediaType.APPLICATION_JSON)
+	public Response getArticleSummaries(@QueryParam(Pagination.PARAM_AFTER) final String after,
+			@QueryParam(Pagination.PARAM_LIMIT) final String limit) {
+		try {
+			if (Pagination.isRequested(after, limit)) {
+				final int pageSize = Pagination.parseLimit(limit);
+				final List<ArticleSummary> page = DaoFactory.getInstance().getArticlesDao()
+						.getArticleSummariesPage(Pagination.parseAfter(after), pageSize);
+				return Pagination.withNextCursor(Response.ok(), page, pageSize, ArticleSummary::id)
+						.entity(new GenericEntity<>(page) {
+						}).build();
+			}
+			final List<ArticleSummary> list = DaoFactory.getInstance().getArticlesDao().getAllArticleSummaries();
+			return Response.ok().entity(new GenericEntity<>(list) {
+			}).build();
+		} catch (NumberFormatException e) {
+			logger.warn("Paramètres de pagination invalides : " + e.getMessage());
+			return Response.status(Response.Status.BAD_REQUEST).entity("Paramètres de pagination invalides.").build();
+		} catch (DaoException e) {
+			logger.error("Erreur interne lors de la récupération du résumé des articles : " + e.getMessage());
+			return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(e.getMessage()).build();
+		}
+	}
+
 	@GET
 	@Path("/{id}")
 	@Produces(MediaType.APPLICATION_JSON)
-	public Response getArticleById(@PathParam("id") final int id) {
+	public Response getArticleById(@PathParam("id") final int id,
+			@QueryParam(Expansion.PARAM_EXPAND) final String expand) {
 		try {
-			Article article = DaoFactory.getInstance().getArticlesDao().getArticleById(id);
+			Article article = DaoFactory.getInstance().getArticlesDao().getArticleById(id,
+					Expansion.includes(expand, Expansion.STOCKS));
 			if (article == null) {
 				logger.warn("Aucun article trouvé avec l'ID : " + id);
 				return Response.status(Response.Status.NOT_FOUND)
@@ -148,21 +291,67 @@ public class ArticleServices {
 		}
 	}
 
+	@GET
+	@Path("/{id}/onhand")
+	@Produces(MediaType.APPLICATION_JSON)
+	public Response getArticleOnHand(@PathParam("id") final int id) {
+		try {
+			IArticlesDao dao = DaoFactory.getInstance().getArticlesDao();
+			ArticleBalance balance = dao.getArticleBalance(id);
+			if (balance == null) {
+				if (dao.getArticleById(id) == null) {
+					logger.warn("Aucun article trouvé avec l'ID : " + id);
+					return Response.status(Response.Status.NOT_FOUND)
+							.entity("Aucun article avec l'id [" + id + "] n'a été trouvé.").build();
+				}
+				balance = new ArticleBalance(id, 0);
+			}
+			return Response.ok().entity(new GenericEntity<>(balance) {
+			}).build();
+		} catch (DaoException e) {
+			logger.error("Erreur interne lors de la récupération du stock d'un article : " + e.getMessage());
+			return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(e.getMessage()).build();
+		}
+	}
+
+	/**
+	 * Returns the on-hand quantities of several articles, given as a comma
+	 * separated list of ids. Unknown ids are skipped.
+	 */
+	@GET
+	@Path("/onhand")
+	@Produces(MediaType.APPLICATION_JSON)
+	public Response getArticlesOnHand(@QueryParam(PARAM_IDS) final String ids) {
+		if (isNullOrEmpty(ids)) {
+			logger.warn("Paramètre " + PARAM_IDS + " manquant pour la récupération des stocks d'articles.");
+			return Response.status(Response.Status.BAD_REQUEST)
+					.entity("Un ou plusieurs paramètres obligatoires sont manquants.").build();
+		}
+		try {
+			final List<ArticleBalance> balances = DaoFactory.getInstance().getArticlesDao()
+					.getArticleBalances(parseIds(ids));
+			return Response.ok().entity(new GenericEntity<>(balances) {
+			}).build();
+		} catch (NumberFormatException e) {
+			logger.warn("Format invalide pour les ids lors de la récupération des stocks d'articles.");
+			return Response.status(Response.Status.BAD_REQUEST).entity("Liste d'ids invalide.").build();
+		} catch (DaoException e) {
+			logger.error("Erreur interne lors de la récupération des stocks d'articles : " + e.getMessage());
+			return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(e.getMessage()).build();
+		}
+	}
+
 	@DELETE
 	@Path("/delete/{id}")
 	@Produces(MediaType.APPLICATION_JSON)
 	public Response deleteArticle(@PathParam("id") final int id) {
 		try {
-			IArticlesDao dao = DaoFactory.getInstance().getArticlesDao();
-			Article article = dao.getArticleById(id);
-			if (article == null) {
+			if (!DaoFactory.getInstance().getArticlesDao().deleteArticleById(id)) {
 				logger.warn("Aucun article trouvé à supprimer avec l'ID : " + id);
 				return Response.status(Response.Status.NOT_FOUND)
 						.entity("Aucun article trouvé avec l'identifiant : " + id).build();
 			}
-
-			dao.deleteArticle(article);
-			logger.info("Article supprimé avec succès : " + article.getName());
+			logger.info("Article supprimé avec succès : " + id);
 			return Response.ok().entity("Article supprimé avec succès.").build();
 		} catch (DaoException e) {
 			logger.error("Erreur interne lors de la suppression d'un article : " + e.getMessage());
@@ -173,4 +362,17 @@ public class ArticleServices {
 	private boolean isNullOrEmpty(String value) {
 		return value == null || value.trim().isEmpty();
 	}
+
+	/**
+	 * @param ids comma separated list of ids
+	 * @return the given ids, without duplicates
+	 * @throws NumberFormatException if one of the ids is not an integer.
+	 */
+	private static Set<Integer> parseIds(final String ids) {
+		final Set<Integer> parsed = new LinkedHashSet<>();
+		for (final String id : ids.split(",")) {
+			parsed.add(Integer.parseInt(id.trim()));
+		}
+		return parsed;
+	}
 }
\ No newline at end of file
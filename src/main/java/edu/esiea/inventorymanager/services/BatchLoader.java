@@ -0,0 +1,151 @@
+package edu.esiea.inventorymanager.services;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
+import edu.esiea.inventorymanager.dao.DaoFactory;
+import edu.esiea.inventorymanager.exception.DaoException;
+import edu.esiea.inventorymanager.model.Article;
+import edu.esiea.inventorymanager.model.Category;
+import edu.esiea.inventorymanager.model.Stock;
+
+/**
+ * Loader of the entities referenced by a deep response, for the duration of a
+ * single request. The ids met while walking through the response are collected
+ * first, then read with one query by ids, whatever the number of references.
+ * An identity map per type makes all the references to a row share the same
+ * instance ; an entity that is already loaded is kept and never read again.
+ * <p>
+ * The Categories are always reached through an Article, which the DAOs read
+ * with its Category in one query per result : the loader only shares them.
+ * <p>
+ * Jersey creates the resources per request : each resource holds its own
+ * loader, which is dropped with it.
+ */
+final class BatchLoader {
+
+	@FunctionalInterface
+	private interface Fetcher<T> {
+		List<T> fetch(Collection<Integer> ids) throws DaoException;
+	}
+
+	/**
+	 * Identity map of one type, with the ids waiting to be read.
+	 */
+	private final class Batch<T> {
+
+		private final Fetcher<T> fetcher;
+		private final ToIntFunction<T> idOf;
+		// an id read without result is kept with a null value, so as not to be
+		// read again
+		private final Map<Integer, T> loaded = new HashMap<>();
+		private final Set<Integer> pending = new LinkedHashSet<>();
+
+		Batch(final Fetcher<T> fetcher, final ToIntFunction<T> idOf) {
+			this.fetcher = fetcher;
+			this.idOf = idOf;
+		}
+
+		void request(final int id) {
+			if (!this.loaded.containsKey(id)) {
+				this.pending.add(id);
+			}
+		}
+
+		/**
+		 * @return the instance of the identity map for the row of the given entity,
+		 *         the entity itself if it is the first one met.
+		 */
+		T share(final T entity) {
+			if (entity == null) {
+				return null;
+			}
+			final int id = this.idOf.applyAsInt(entity);
+			final T known = this.loaded.get(id);
+			if (known != null) {
+				return known;
+			}
+			this.loaded.put(id, entity);
+			this.pending.remove(id);
+			return entity;
+		}
+
+		void dispatch() throws DaoException {
+			if (this.pending.isEmpty()) {
+				return;
+			}
+			for (final T entity : this.fetcher.fetch(this.pending)) {
+				this.loaded.putIfAbsent(this.idOf.applyAsInt(entity), entity);
+			}
+			for (final Integer id : this.pending) {
+				this.loaded.putIfAbsent(id, null);
+			}
+			this.pending.clear();
+		}
+
+		T get(final int id) {
+			return this.loaded.get(id);
+		}
+	}
+
+	private final Batch<Article> articles = new Batch<>(
+			ids -> DaoFactory.getInstance().getArticlesDao().getArticlesByIds(ids), Article::getId);
+	private final Map<Integer, Category> categories = new HashMap<>();
+
+	/**
+	 * Reads the Articles which ids correspond to the given ones, with their
+	 * Category. Articles already met during the request are not read again.
+	 *
+	 * @return the Articles found, in the order of the ids. Unknown ids are
+	 *         skipped.
+	 */
+	List<Article> articles(final Collection<Integer> ids) throws DaoException {
+		for (final Integer id : ids) {
+			this.articles.request(id);
+		}
+		this.articles.dispatch();
+		final List<Article> found = ids.stream().distinct().map(this.articles::get).filter(a -> a != null).toList();
+		this.shareCategories(found);
+		return found;
+	}
+
+	/**
+	 * Makes the Stocks reference the Articles of the identity map, and these
+	 * Articles the Categories of the identity map. Nothing is read : the DAOs
+	 * read the Stocks of a Command joined to their Article and its Category. The
+	 * Entity Manager already shares the instances with the JPA backend, the other
+	 * backends build one per row.
+	 *
+	 * @return the given Stocks.
+	 */
+	List<Stock> stocks(final List<Stock> stocks) {
+		for (final Stock stock : stocks) {
+			final Article article = this.articles.share(stock.getArticle());
+			if (article != stock.getArticle()) {
+				stock.setArticle(article);
+			}
+		}
+		this.shareCategories(stocks.stream().map(Stock::getArticle).filter(a -> a != null).distinct().toList());
+		return stocks;
+	}
+
+	/**
+	 * Makes the given Articles reference the Categories of the identity map.
+	 */
+	private void shareCategories(final List<Article> list) {
+		for (final Article article : list) {
+			final Category category = article.getCategory();
+			if (category != null) {
+				final Category known = this.categories.putIfAbsent(category.getId(), category);
+				if (known != null && known != category) {
+					article.setCategory(known);
+				}
+			}
+		}
+	}
+}
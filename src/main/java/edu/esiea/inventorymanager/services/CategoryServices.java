@@ -5,21 +5,27 @@ import java.util.List;
 import org.apache.log4j.Logger;
 
 import edu.esiea.inventorymanager.dao.DaoFactory;
+import edu.esiea.inventorymanager.dao.interfaces.IArticlesDao;
 import edu.esiea.inventorymanager.dao.interfaces.ICategoriesDao;
 import edu.esiea.inventorymanager.exception.DaoException;
+import edu.esiea.inventorymanager.exception.StaleDataException;
+import edu.esiea.inventorymanager.model.Article;
 import edu.esiea.inventorymanager.model.Category;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.DELETE;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.PATCH;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.GenericEntity;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.MultivaluedMap;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.Response.ResponseBuilder;
 
 @Path("/category")
 public class CategoryServices {
@@ -27,6 +33,9 @@ public class CategoryServices {
 	public static final String PARAM_CAT_ID = "CategoryId";
 	public static final String PARAM_CAT_NAME = "CategoryName";
 	public static final String PARAM_CAT_DESCRIPTION = "CategoryDescription";
+	public static final String PARAM_CAT_VERSION = "CategoryVersion";
+	public static final String PARAM_COUNT = "count";
+	public static final String HEADER_TOTAL_COUNT = "X-Total-Count";
 
 	private static final Logger logger = Logger.getLogger(CategoryServices.class);
 
@@ -96,21 +105,85 @@ public class CategoryServices {
 			logger.warn("Format invalide pour ID lors de la mise à jour.");
 			return Response.status(Response.Status.BAD_REQUEST).entity("L'id fourni n'est pas un nombre entier.")
 					.build();
+		} catch (StaleDataException e) {
+			logger.warn("Conflit lors de la mise à jour d'une catégorie : " + e.getMessage());
+			return Response.status(Response.Status.CONFLICT).entity(e.getMessage()).build();
 		} catch (DaoException e) {
 			logger.error("Erreur interne lors de la mise à jour d'une catégorie : " + e.getMessage());
 			return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(e.getMessage()).build();
 		}
 	}
 
+	@PATCH
+	@Consumes("application/x-www-form-urlencoded")
+	@Path("/{id}")
+	@Produces(MediaType.APPLICATION_JSON)
+	public Response patchCategory(@PathParam("id") final int id, final MultivaluedMap<String, String> formParams) {
+		if (PartialUpdate.hasBlankValue(formParams, PARAM_CAT_NAME, PARAM_CAT_DESCRIPTION, PARAM_CAT_VERSION)) {
+			logger.warn("Paramètres vides pour la modification partielle d'une catégorie.");
+			return Response.status(Response.Status.BAD_REQUEST)
+					.entity("Un ou plusieurs paramètres fournis sont vides.").build();
+		}
+
+		try {
+			final ICategoriesDao dao = DaoFactory.getInstance().getCategoriesDao();
+			final Category category = dao.getCategoryById(id);
+			if (category == null) {
+				logger.warn("Aucune catégorie trouvée pour la modification avec l'ID : " + id);
+				return Response.status(Response.Status.NOT_FOUND)
+						.entity("Aucune catégorie avec l'id [" + id + "] n'a été trouvée.").build();
+			}
+			if (PartialUpdate.isStale(formParams, PARAM_CAT_VERSION, category.getVersion())) {
+				logger.warn("Version périmée pour la modification de la catégorie : " + id);
+				return Response.status(Response.Status.CONFLICT).entity("La catégorie a été modifiée entre-temps.")
+						.build();
+			}
+
+			if (formParams.containsKey(PARAM_CAT_NAME)) {
+				category.setName(formParams.getFirst(PARAM_CAT_NAME));
+			}
+			if (formParams.containsKey(PARAM_CAT_DESCRIPTION)) {
+				category.setDescription(formParams.getFirst(PARAM_CAT_DESCRIPTION));
+			}
+
+			dao.updateCategory(category);
+			logger.info("Catégorie modifiée avec succès : " + category.getName());
+			return Response.ok().entity(new GenericEntity<>(category) {
+			}).build();
+		} catch (NumberFormatException e) {
+			logger.warn("Format invalide pour la version lors de la modification.");
+			return Response.status(Response.Status.BAD_REQUEST).entity("La version fournie n'est pas un nombre entier.")
+					.build();
+		} catch (StaleDataException e) {
+			logger.warn("Conflit lors de la modification d'une catégorie : " + e.getMessage());
+			return Response.status(Response.Status.CONFLICT).entity(e.getMessage()).build();
+		} catch (DaoException e) {
+			logger.error("Erreur interne lors de la modification d'une catégorie : " + e.getMessage());
+			return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(e.getMessage()).build();
+		}
+	}
+
 	@GET
 	@Path("/all")
 	@Produces(MediaType.APPLICATION_JSON)
-	public Response getAllCategories() {
+	public Response getAllCategories(@QueryParam(Pagination.PARAM_AFTER) final String after,
+			@QueryParam(Pagination.PARAM_LIMIT) final String limit) {
 		try {
+			if (Pagination.isRequested(after, limit)) {
+				final int pageSize = Pagination.parseLimit(limit);
+				final List<Category> page = DaoFactory.getInstance().getCategoriesDao()
+						.getCategoriesPage(Pagination.parseAfter(after), pageSize);
+				return Pagination.withNextCursor(Response.ok(), page, pageSize, Category::getId)
+						.entity(new GenericEntity<>(page) {
+						}).build();
+			}
 			List<Category> list = DaoFactory.getInstance().getCategoriesDao().getAllCategories();
 			logger.info("Liste des catégories récupérée avec succès.");
 			return Response.ok().entity(new GenericEntity<>(list) {
 			}).build();
+		} catch (NumberFormatException e) {
+			logger.warn("Paramètres de pagination invalides : " + e.getMessage());
+			return Response.status(Response.Status.BAD_REQUEST).entity("Paramètres de pagination invalides.").build();
 		} catch (DaoException e) {
 			logger.error("Erreur interne lors de la récupération des catégories : " + e.getMessage());
 			return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(e.getMessage()).build();
@@ -137,6 +210,45 @@ public class CategoryServices {
 		}
 	}
 
+	/**
+	 * Lists the Articles of a Category by pages, without their Stocks. With
+	 * <code>count=true</code>, the number of Articles of the Category is sent in
+	 * the {@value #HEADER_TOTAL_COUNT} header.
+	 */
+	@GET
+	@Path("/{id}/articles")
+	@Produces(MediaType.APPLICATION_JSON)
+	public Response getCategoryArticles(@PathParam("id") final int id,
+			@QueryParam(Pagination.PARAM_AFTER) final String after,
+			@QueryParam(Pagination.PARAM_LIMIT) final String limit, @QueryParam(PARAM_COUNT) final String count) {
+		try {
+			final int afterId = Pagination.parseAfter(after);
+			final int pageSize = Pagination.parseLimit(limit);
+			if (DaoFactory.getInstance().getCategoriesDao().getCategoryById(id) == null) {
+				logger.warn("Aucune catégorie trouvée avec l'ID : " + id);
+				return Response.status(Response.Status.NOT_FOUND)
+						.entity("Aucune catégorie avec l'id [" + id + "] n'a été trouvée.").build();
+			}
+
+			final IArticlesDao dao = DaoFactory.getInstance().getArticlesDao();
+			final List<Article> page = dao.getArticlesPageByCategoryId(id, afterId, pageSize);
+			final ResponseBuilder builder = Pagination.withNextCursor(Response.ok(), page, pageSize, Article::getId);
+			if (Boolean.parseBoolean(count)) {
+				builder.header(HEADER_TOTAL_COUNT, dao.countArticlesByCategoryId(id));
+			}
+			logger.info("Articles de la catégorie " + id + " récupérés avec succès : " + page.size()
+					+ " éléments.");
+			return builder.entity(new GenericEntity<>(page) {
+			}).build();
+		} catch (NumberFormatException e) {
+			logger.warn("Paramètres de pagination invalides : " + e.getMessage());
+			return Response.status(Response.Status.BAD_REQUEST).entity("Paramètres de pagination invalides.").build();
+		} catch (DaoException e) {
+			logger.error("Erreur interne lors de la récupération des articles d'une catégorie : " + e.getMessage());
+			return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(e.getMessage()).build();
+		}
+	}
+
 	@DELETE
 	@Path("/delete/{id}")
 	@Produces(MediaType.APPLICATION_JSON)
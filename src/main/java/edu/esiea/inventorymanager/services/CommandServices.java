@@ -1,6 +1,7 @@
 package edu.esiea.inventorymanager.services;
 
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -9,16 +10,21 @@ import org.apache.log4j.Logger;
 import edu.esiea.inventorymanager.dao.DaoFactory;
 import edu.esiea.inventorymanager.dao.interfaces.ICommandsDao;
 import edu.esiea.inventorymanager.exception.DaoException;
+import edu.esiea.inventorymanager.exception.StaleDataException;
 import edu.esiea.inventorymanager.model.Command;
+import edu.esiea.inventorymanager.model.CommandDetail;
+import edu.esiea.inventorymanager.model.CommandSummary;
 import edu.esiea.inventorymanager.model.Stock;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.DELETE;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.PATCH;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.GenericEntity;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.MultivaluedMap;
@@ -30,9 +36,12 @@ public class CommandServices {
 	public static final String PARAM_COM_ID = "CommandId";
 	public static final String PARAM_COM_DATE = "CommandDate";
 	public static final String PARAM_COM_COMMENT = "CommandComment";
+	public static final String PARAM_COM_VERSION = "CommandVersion";
 
 	private static final Logger logger = Logger.getLogger(CommandServices.class);
 
+	private final BatchLoader loader = new BatchLoader();
+
 	private boolean isNullOrEmpty(String value) {
 		return value == null || value.trim().isEmpty();
 	}
@@ -98,14 +107,11 @@ public class CommandServices {
 
 			if (!isNullOrEmpty(formParams.getFirst("StockIds"))) {
 				String[] stockIds = formParams.getFirst("StockIds").split(",");
-				List<Stock> updatedStocks = new ArrayList<>();
+				List<Integer> ids = new ArrayList<>(stockIds.length);
 				for (String stockIdStr : stockIds) {
-					int stockId = Integer.parseInt(stockIdStr);
-					Stock stock = DaoFactory.getInstance().getStocksDao().getStockById(stockId);
-					if (stock != null) {
-						updatedStocks.add(stock);
-					}
+					ids.add(Integer.parseInt(stockIdStr));
 				}
+				List<Stock> updatedStocks = DaoFactory.getInstance().getStocksDao().getStocksByIds(ids);
 				command.setStocks(updatedStocks);
 			}
 
@@ -118,33 +124,128 @@ public class CommandServices {
 			logger.warn("Format invalide pour les paramètres lors de la mise à jour.");
 			return Response.status(Response.Status.BAD_REQUEST).entity("Erreur dans le format des paramètres fournis.")
 					.build();
+		} catch (StaleDataException e) {
+			logger.warn("Conflit lors de la mise à jour d'une commande : " + e.getMessage());
+			return Response.status(Response.Status.CONFLICT).entity(e.getMessage()).build();
 		} catch (Exception e) {
 			logger.error("Erreur interne lors de la mise à jour d'une commande : " + e.getMessage());
 			return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(e.getMessage()).build();
 		}
 	}
 
+	@PATCH
+	@Consumes("application/x-www-form-urlencoded")
+	@Path("/{id}")
+	@Produces(MediaType.APPLICATION_JSON)
+	public Response patchCommand(@PathParam("id") final int id, final MultivaluedMap<String, String> formParams) {
+		if (PartialUpdate.hasBlankValue(formParams, PARAM_COM_DATE, PARAM_COM_COMMENT, PARAM_COM_VERSION)) {
+			logger.warn("Paramètres vides pour la modification partielle d'une commande.");
+			return Response.status(Response.Status.BAD_REQUEST)
+					.entity("Un ou plusieurs paramètres fournis sont vides.").build();
+		}
+
+		try {
+			final ICommandsDao dao = DaoFactory.getInstance().getCommandsDao();
+			final Command command = dao.getCommandById(id);
+			if (command == null) {
+				logger.warn("Aucune commande trouvée avec l'ID : " + id);
+				return Response.status(Response.Status.NOT_FOUND)
+						.entity("Aucune commande avec l'id [" + id + "] n'a été trouvée.").build();
+			}
+			if (PartialUpdate.isStale(formParams, PARAM_COM_VERSION, command.getVersion())) {
+				logger.warn("Version périmée pour la modification de la commande : " + id);
+				return Response.status(Response.Status.CONFLICT).entity("La commande a été modifiée entre-temps.")
+						.build();
+			}
+
+			final String date = formParams.getFirst(PARAM_COM_DATE);
+			if (date != null) {
+				command.setDate(LocalDate.parse(date));
+			}
+			if (formParams.containsKey(PARAM_COM_COMMENT)) {
+				command.setComment(formParams.getFirst(PARAM_COM_COMMENT));
+			}
+
+			dao.updateCommand(command);
+			logger.info("Commande modifiée avec succès : " + command.getId());
+			return Response.ok().entity(new GenericEntity<>(command) {
+			}).build();
+		} catch (NumberFormatException | DateTimeParseException e) {
+			logger.warn("Format invalide pour les paramètres lors de la modification.");
+			return Response.status(Response.Status.BAD_REQUEST).entity("Erreur dans le format des paramètres fournis.")
+					.build();
+		} catch (StaleDataException e) {
+			logger.warn("Conflit lors de la modification d'une commande : " + e.getMessage());
+			return Response.status(Response.Status.CONFLICT).entity(e.getMessage()).build();
+		} catch (DaoException e) {
+			logger.error("Erreur interne lors de la modification d'une commande : " + e.getMessage());
+			return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(e.getMessage()).build();
+		}
+	}
+
 	@GET
 	@Path("/all")
 	@Produces(MediaType.APPLICATION_JSON)
-	public Response getAllCommands() {
+	public Response getAllCommands(@QueryParam(Pagination.PARAM_AFTER) final String after,
+			@QueryParam(Pagination.PARAM_LIMIT) final String limit,
+			@QueryParam(Expansion.PARAM_EXPAND) final String expand) {
 		try {
-			List<Command> list = DaoFactory.getInstance().getCommandsDao().getAllCommands();
+			final boolean withStocks = Expansion.includes(expand, Expansion.STOCKS);
+			if (Pagination.isRequested(after, limit)) {
+				final int pageSize = Pagination.parseLimit(limit);
+				final List<Command> page = DaoFactory.getInstance().getCommandsDao()
+						.getCommandsPage(Pagination.parseAfter(after), pageSize, withStocks);
+				return Pagination.withNextCursor(Response.ok(), page, pageSize, Command::getId)
+						.entity(new GenericEntity<>(page) {
+						}).build();
+			}
+			List<Command> list = DaoFactory.getInstance().getCommandsDao().getAllCommands(withStocks);
 			logger.info("Liste des commandes récupérée avec succès.");
 			return Response.ok().entity(new GenericEntity<>(list) {
 			}).build();
+		} catch (NumberFormatException e) {
+			logger.warn("Paramètres de pagination invalides : " + e.getMessage());
+			return Response.status(Response.Status.BAD_REQUEST).entity("Paramètres de pagination invalides.").build();
 		} catch (DaoException e) {
 			logger.error("Erreur interne lors de la récupération des commandes : " + e.getMessage());
 			return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(e.getMessage()).build();
 		}
 	}
 
+	@GET
+	@Path("/summary")
+	@Produces(MediaType.APPLICATION_JSON)
+	public Response getCommandSummaries(@QueryParam(Pagination.PARAM_AFTER) final String after,
+			@QueryParam(Pagination.PARAM_LIMIT) final String limit) {
+		try {
+			if (Pagination.isRequested(after, limit)) {
+				final int pageSize = Pagination.parseLimit(limit);
+				final List<CommandSummary> page = DaoFactory.getInstance().getCommandsDao()
+						.getCommandSummariesPage(Pagination.parseAfter(after), pageSize);
+				return Pagination.withNextCursor(Response.ok(), page, pageSize, CommandSummary::id)
+						.entity(new GenericEntity<>(page) {
+						}).build();
+			}
+			final List<CommandSummary> list = DaoFactory.getInstance().getCommandsDao().getAllCommandSummaries();
+			return Response.ok().entity(new GenericEntity<>(list) {
+			}).build();
+		} catch (NumberFormatException e) {
+			logger.warn("Paramètres de pagination invalides : " + e.getMessage());
+			return Response.status(Response.Status.BAD_REQUEST).entity("Paramètres de pagination invalides.").build();
+		} catch (DaoException e) {
+			logger.error("Erreur interne lors de la récupération du résumé des commandes : " + e.getMessage());
+			return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(e.getMessage()).build();
+		}
+	}
+
 	@GET
 	@Path("/{id}")
 	@Produces(MediaType.APPLICATION_JSON)
-	public Response getCommandById(@PathParam("id") final int id) {
+	public Response getCommandById(@PathParam("id") final int id,
+			@QueryParam(Expansion.PARAM_EXPAND) final String expand) {
 		try {
-			Command command = DaoFactory.getInstance().getCommandsDao().getCommandById(id);
+			Command command = DaoFactory.getInstance().getCommandsDao().getCommandById(id,
+					Expansion.includes(expand, Expansion.STOCKS));
 			if (command == null) {
 				logger.warn("Aucune commande trouvée avec l'ID : " + id);
 				return Response.status(Response.Status.NOT_FOUND)
@@ -159,21 +260,77 @@ public class CommandServices {
 		}
 	}
 
+	/**
+	 * Returns a Command with all its Stocks, their Articles and the Categories of
+	 * these Articles, read with a fixed number of queries.
+	 */
+	@GET
+	@Path("/{id}/detail")
+	@Produces(MediaType.APPLICATION_JSON)
+	public Response getCommandDetail(@PathParam("id") final int id) {
+		try {
+			final Command command = DaoFactory.getInstance().getCommandsDao().getCommandById(id);
+			if (command == null) {
+				logger.warn("Aucune commande trouvée avec l'ID : " + id);
+				return Response.status(Response.Status.NOT_FOUND)
+						.entity("Aucune commande avec l'id [" + id + "] n'a été trouvée.").build();
+			}
+
+			final List<Stock> stocks = this.loader
+					.stocks(DaoFactory.getInstance().getStocksDao().getStocksByCommandId(id));
+			logger.info("Détail de la commande " + id + " récupéré avec succès : " + stocks.size() + " stocks.");
+			return Response.ok().entity(new CommandDetail(command.getId(), command.getVersion(), command.getDate(),
+					command.getComment(), stocks)).build();
+		} catch (DaoException e) {
+			logger.error("Erreur interne lors de la récupération du détail d'une commande : " + e.getMessage());
+			return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(e.getMessage()).build();
+		}
+	}
+
+	/**
+	 * Lists the Stocks of a Command by pages, each one with its Article.
+	 */
+	@GET
+	@Path("/{id}/stocks")
+	@Produces(MediaType.APPLICATION_JSON)
+	public Response getCommandStocks(@PathParam("id") final int id,
+			@QueryParam(Pagination.PARAM_AFTER) final String after,
+			@QueryParam(Pagination.PARAM_LIMIT) final String limit) {
+		try {
+			final int afterId = Pagination.parseAfter(after);
+			final int pageSize = Pagination.parseLimit(limit);
+			if (DaoFactory.getInstance().getCommandsDao().getCommandById(id) == null) {
+				logger.warn("Aucune commande trouvée avec l'ID : " + id);
+				return Response.status(Response.Status.NOT_FOUND)
+						.entity("Aucune commande avec l'id [" + id + "] n'a été trouvée.").build();
+			}
+
+			final List<Stock> page = this.loader
+					.stocks(DaoFactory.getInstance().getStocksDao().getStocksPageByCommandId(id, afterId, pageSize));
+			logger.info("Stocks de la commande " + id + " récupérés avec succès : " + page.size() + " éléments.");
+			return Pagination.withNextCursor(Response.ok(), page, pageSize, Stock::getId)
+					.entity(new GenericEntity<>(page) {
+					}).build();
+		} catch (NumberFormatException e) {
+			logger.warn("Paramètres de pagination invalides : " + e.getMessage());
+			return Response.status(Response.Status.BAD_REQUEST).entity("Paramètres de pagination invalides.").build();
+		} catch (DaoException e) {
+			logger.error("Erreur interne lors de la récupération des stocks d'une commande : " + e.getMessage());
+			return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(e.getMessage()).build();
+		}
+	}
+
 	@DELETE
 	@Path("/delete/{id}")
 	@Produces(MediaType.APPLICATION_JSON)
 	public Response deleteCommand(@PathParam("id") final int id) {
 		try {
-			ICommandsDao dao = DaoFactory.getInstance().getCommandsDao();
-			Command command = dao.getCommandById(id);
-			if (command == null) {
+			if (!DaoFactory.getInstance().getCommandsDao().deleteCommandById(id)) {
 				logger.warn("Aucune commande trouvée à supprimer avec l'ID : " + id);
 				return Response.status(Response.Status.NOT_FOUND)
 						.entity("Aucune commande avec l'id [" + id + "] n'a été trouvée.").build();
 			}
-
-			dao.deleteCommand(command);
-			logger.info("Commande supprimée avec succès : " + command.getId());
+			logger.info("Commande supprimée avec succès : " + id);
 			return Response.ok().entity("Commande supprimée avec succès.").build();
 		} catch (DaoException e) {
 			logger.error("Erreur interne lors de la suppression d'une commande : " + e.getMessage());
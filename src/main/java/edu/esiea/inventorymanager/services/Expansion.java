@@ -0,0 +1,33 @@
+package edu.esiea.inventorymanager.services;
+
+/**
+ * Fetch plan requested by the caller of a read service : collections are not
+ * loaded nor serialized unless their name is listed in the
+ * {@value #PARAM_EXPAND} query parameter (e.g. <code>?expand=stocks</code>).
+ */
+final class Expansion {
+
+	static final String PARAM_EXPAND = "expand";
+	static final String STOCKS = "stocks";
+
+	private Expansion() {
+	}
+
+	/**
+	 * @param expand    raw value of the {@value #PARAM_EXPAND} query parameter,
+	 *                  a comma separated list of attribute names
+	 * @param attribute the attribute to look for
+	 * @return <code>true</code> if the caller asked for the given attribute.
+	 */
+	static boolean includes(final String expand, final String attribute) {
+		if (expand == null) {
+			return false;
+		}
+		for (final String requested : expand.split(",")) {
+			if (requested.trim().equalsIgnoreCase(attribute)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
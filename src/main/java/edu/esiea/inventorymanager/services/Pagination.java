@@ -0,0 +1,78 @@
+package edu.esiea.inventorymanager.services;
+
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+import jakarta.ws.rs.core.Response.ResponseBuilder;
+
+/**
+ * Keyset (seek) pagination shared by the listing services : a page holds the
+ * entities whose id is strictly greater than the <code>after</code> cursor,
+ * ordered by id. The cursor of the next page is sent back in the
+ * {@value #HEADER_NEXT_CURSOR} header as long as the page is full.
+ */
+final class Pagination {
+
+	static final String PARAM_AFTER = "after";
+	static final String PARAM_LIMIT = "limit";
+	static final String HEADER_NEXT_CURSOR = "X-Next-Cursor";
+	static final int DEFAULT_LIMIT = 100;
+	static final int MAX_LIMIT = 1000;
+
+	private Pagination() {
+	}
+
+	/**
+	 * @return <code>true</code> if the caller asked for a page rather than the
+	 *         whole list.
+	 */
+	static boolean isRequested(final String after, final String limit) {
+		return after != null || limit != null;
+	}
+
+	/**
+	 * @param after raw value of the {@value #PARAM_AFTER} query parameter
+	 * @return the id after which the page starts, 0 for the first page.
+	 * @throws NumberFormatException if the cursor is not a positive integer.
+	 */
+	static int parseAfter(final String after) {
+		if (after == null || after.isBlank()) {
+			return 0;
+		}
+		final int value = Integer.parseInt(after.trim());
+		if (value < 0) {
+			throw new NumberFormatException("Curseur négatif : " + value);
+		}
+		return value;
+	}
+
+	/**
+	 * @param limit raw value of the {@value #PARAM_LIMIT} query parameter
+	 * @return the page size, {@value #DEFAULT_LIMIT} if not given and never more
+	 *         than {@value #MAX_LIMIT}.
+	 * @throws NumberFormatException if the limit is not a strictly positive
+	 *                               integer.
+	 */
+	static int parseLimit(final String limit) {
+		if (limit == null || limit.isBlank()) {
+			return DEFAULT_LIMIT;
+		}
+		final int value = Integer.parseInt(limit.trim());
+		if (value <= 0) {
+			throw new NumberFormatException("Taille de page invalide : " + value);
+		}
+		return Math.min(value, MAX_LIMIT);
+	}
+
+	/**
+	 * Adds the {@value #HEADER_NEXT_CURSOR} header to the response if another page
+	 * may follow the given one.
+	 */
+	static <T> ResponseBuilder withNextCursor(final ResponseBuilder builder, final List<T> page, final int limit,
+			final ToIntFunction<T> idOf) {
+		if (!page.isEmpty() && page.size() >= limit) {
+			builder.header(HEADER_NEXT_CURSOR, idOf.applyAsInt(page.getLast()));
+		}
+		return builder;
+	}
+}
@@ -0,0 +1,42 @@
+package edu.esiea.inventorymanager.services;
+
+import jakarta.ws.rs.core.MultivaluedMap;
+
+/**
+ * Rules shared by the PATCH services : only the parameters supplied are
+ * applied, and the caller may send the version of the entity it has read so
+ * that the update is refused if someone else has changed it in between.
+ */
+final class PartialUpdate {
+
+	private PartialUpdate() {
+	}
+
+	/**
+	 * @return <code>true</code> if one of the given parameters is supplied with
+	 *         a blank value.
+	 */
+	static boolean hasBlankValue(final MultivaluedMap<String, String> formParams, final String... params) {
+		for (final String param : params) {
+			final String value = formParams.getFirst(param);
+			if (value != null && value.isBlank()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param formParams   parameters of the request
+	 * @param versionParam name of the version parameter
+	 * @param version      current version of the entity
+	 * @return <code>true</code> if the caller has sent a version that is not the
+	 *         current one.
+	 * @throws NumberFormatException if the version sent is not an integer.
+	 */
+	static boolean isStale(final MultivaluedMap<String, String> formParams, final String versionParam,
+			final int version) {
+		final String value = formParams.getFirst(versionParam);
+		return value != null && Integer.parseInt(value.trim()) != version;
+	}
+}
@@ -1,28 +1,49 @@
 package edu.esiea.inventorymanager.services;
 
+import java.io.BufferedWriter;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
 
 import org.apache.log4j.Logger;
 
 import edu.esiea.inventorymanager.dao.DaoFactory;
 import edu.esiea.inventorymanager.dao.interfaces.IStocksDao;
 import edu.esiea.inventorymanager.exception.DaoException;
+import edu.esiea.inventorymanager.exception.StaleDataException;
 import edu.esiea.inventorymanager.model.Article;
 import edu.esiea.inventorymanager.model.Command;
 import edu.esiea.inventorymanager.model.InOut;
 import edu.esiea.inventorymanager.model.Stock;
+import jakarta.json.Json;
+import jakarta.json.JsonException;
+import jakarta.json.stream.JsonGenerator;
+import jakarta.json.stream.JsonGeneratorFactory;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.DELETE;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.PATCH;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.GenericEntity;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.MultivaluedMap;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 
 @Path("/stock")
 public class StockServices {
@@ -33,18 +54,36 @@ public class StockServices {
 	public static final String PARAM_STOCK_QUANTITY = "StockQuantity";
 	public static final String PARAM_STOCK_TRANSFER_TYPE = "StockTransferType";
 	public static final String PARAM_STOCK_COMMENT = "StockComment";
+	public static final String PARAM_STOCK_VERSION = "StockVersion";
+	public static final String PARAM_ASYNC = "async";
+	public static final String PARAM_SEARCH_ARTICLE_ID = "articleId";
+	public static final String PARAM_SEARCH_TYPE = "type";
+	public static final String PARAM_FROM = "from";
+	public static final String PARAM_TO = "to";
+
+	public static final String MEDIA_TYPE_NDJSON = "application/x-ndjson";
 
 	private static final Logger logger = Logger.getLogger(StockServices.class);
 
+	private static final JsonGeneratorFactory JSON_FACTORY = Json.createGeneratorFactory(null);
+	private static final int EXPORT_FLUSH_INTERVAL = 1000;
+
 	private boolean isNullOrEmpty(String value) {
 		return value == null || value.trim().isEmpty();
 	}
 
+	/**
+	 * Adds a stock movement to a command. With <code>async=true</code>, the
+	 * movement is only queued to be written in the background with others : the
+	 * response is then 202 with the ticket of the movement, or 503 if too many
+	 * movements are already waiting.
+	 */
 	@POST
 	@Consumes("application/x-www-form-urlencoded")
 	@Path("/add")
 	@Produces(MediaType.APPLICATION_JSON)
-	public Response addStock(final MultivaluedMap<String, String> formParams) {
+	public Response addStock(@QueryParam(PARAM_ASYNC) final String async,
+			final MultivaluedMap<String, String> formParams) {
 		if (isNullOrEmpty(formParams.getFirst(PARAM_STOCK_DATE))
 				|| isNullOrEmpty(formParams.getFirst(PARAM_STOCK_ARTICLE_ID))
 				|| isNullOrEmpty(formParams.getFirst(PARAM_STOCK_QUANTITY))
@@ -65,23 +104,35 @@ public class StockServices {
 			InOut transferType = InOut.valueOf(formParams.getFirst(PARAM_STOCK_TRANSFER_TYPE));
 			String comment = formParams.getFirst(PARAM_STOCK_COMMENT);
 
-			Article article = DaoFactory.getInstance().getArticlesDao().getArticleById(articleId);
+			Article article = DaoFactory.getInstance().getArticlesDao().getArticleReference(articleId);
 			if (article == null) {
 				logger.warn("Article invalide lors de l'ajout d'un stock.");
 				return Response.status(Response.Status.BAD_REQUEST).entity("Article invalide.").build();
 			}
 
-			Command command = DaoFactory.getInstance().getCommandsDao().getCommandById(commandId);
+			Command command = DaoFactory.getInstance().getCommandsDao().getCommandReference(commandId);
 			if (command == null) {
 				logger.warn("Commande invalide lors de l'ajout d'un stock.");
 				return Response.status(Response.Status.BAD_REQUEST).entity("Commande invalide.").build();
 			}
 
-			Stock stock = new Stock(date, article, quantity, transferType, comment);
-			stock = DaoFactory.getInstance().getStocksDao().createStock(stock);
+			if (Boolean.parseBoolean(async)) {
+				long ticket = StockWriteBehind.getInstance().submit(commandId, date, articleId, quantity, transferType,
+						comment);
+				if (ticket < 0) {
+					logger.warn("File d'attente des stocks pleine, stock refusé.");
+					return Response.status(Response.Status.SERVICE_UNAVAILABLE).header("Retry-After", 1)
+							.entity("Trop de stocks en attente d'écriture, réessayez plus tard.").build();
+				}
+				logger.info("Stock mis en file d'attente avec le ticket : " + ticket);
+				return Response.accepted().entity(new GenericEntity<>(ticket) {
+				}).build();
+			}
 
-			command.getStocks().add(stock);
-			DaoFactory.getInstance().getCommandsDao().updateCommand(command);
+			// the stock is linked to the command by its own insert
+			Stock stock = new Stock(date, article, quantity, transferType, comment);
+			stock.setCommand(command);
+			DaoFactory.getInstance().getStocksDao().createStock(stock);
 
 			logger.info("Stock ajouté avec succès : " + stock.getId());
 			logger.info("Commande mise à jour avec le stock : " + command.getId());
@@ -98,6 +149,158 @@ public class StockServices {
 		}
 	}
 
+	/**
+	 * Adds several stock movements of the same command at once. Every stock
+	 * parameter is repeated once per movement, in the same order.
+	 */
+	@POST
+	@Consumes("application/x-www-form-urlencoded")
+	@Path("/batch")
+	@Produces(MediaType.APPLICATION_JSON)
+	public Response addStocks(final MultivaluedMap<String, String> formParams) {
+		final List<String> dates = formParams.get(PARAM_STOCK_DATE);
+		final List<String> articleIds = formParams.get(PARAM_STOCK_ARTICLE_ID);
+		final List<String> quantities = formParams.get(PARAM_STOCK_QUANTITY);
+		final List<String> transferTypes = formParams.get(PARAM_STOCK_TRANSFER_TYPE);
+		final List<String> comments = formParams.get(PARAM_STOCK_COMMENT);
+
+		if (dates == null || dates.isEmpty() || articleIds == null || quantities == null || transferTypes == null
+				|| comments == null || isNullOrEmpty(formParams.getFirst("CommandId"))) {
+			logger.warn("Paramètres manquants lors de l'ajout d'un lot de stocks.");
+			return Response.status(Response.Status.BAD_REQUEST)
+					.entity("Un ou plusieurs paramètres obligatoires sont manquants.").build();
+		}
+
+		final int size = dates.size();
+		if (articleIds.size() != size || quantities.size() != size || transferTypes.size() != size
+				|| comments.size() != size) {
+			logger.warn("Nombre de valeurs incohérent lors de l'ajout d'un lot de stocks.");
+			return Response.status(Response.Status.BAD_REQUEST)
+					.entity("Chaque paramètre doit être fourni une fois par stock.").build();
+		}
+
+		try {
+			int commandId = Integer.parseInt(formParams.getFirst("CommandId"));
+			Command command = DaoFactory.getInstance().getCommandsDao().getCommandReference(commandId);
+			if (command == null) {
+				logger.warn("Commande invalide lors de l'ajout d'un lot de stocks.");
+				return Response.status(Response.Status.BAD_REQUEST).entity("Commande invalide.").build();
+			}
+
+			final Map<Integer, Article> articles = new HashMap<>();
+			final List<Stock> stocks = new ArrayList<>(size);
+			for (int i = 0; i < size; i++) {
+				int articleId = Integer.parseInt(articleIds.get(i));
+				Article article = articles.get(articleId);
+				if (article == null) {
+					article = DaoFactory.getInstance().getArticlesDao().getArticleReference(articleId);
+					if (article == null) {
+						logger.warn("Article invalide lors de l'ajout d'un lot de stocks : " + articleId);
+						return Response.status(Response.Status.BAD_REQUEST).entity("Article invalide : " + articleId)
+								.build();
+					}
+					articles.put(articleId, article);
+				}
+				Stock stock = new Stock(LocalDate.parse(dates.get(i)), article, Integer.parseInt(quantities.get(i)),
+						InOut.valueOf(transferTypes.get(i)), comments.get(i));
+				stock.setCommand(command);
+				stocks.add(stock);
+			}
+
+			DaoFactory.getInstance().getStocksDao().createStocks(stocks);
+
+			final List<Integer> ids = new ArrayList<>(size);
+			for (final Stock stock : stocks) {
+				ids.add(stock.getId());
+			}
+			logger.info("Lot de " + size + " stocks ajouté à la commande : " + command.getId());
+			return Response.status(Response.Status.CREATED).entity(new GenericEntity<>(ids) {
+			}).build();
+		} catch (NumberFormatException | DateTimeParseException e) {
+			logger.warn("Format invalide pour les paramètres lors de l'ajout d'un lot de stocks.");
+			return Response.status(Response.Status.BAD_REQUEST).entity("Erreur dans le format des paramètres fournis.")
+					.build();
+		} catch (IllegalArgumentException e) {
+			logger.warn("Type de transfert invalide lors de l'ajout d'un lot de stocks.");
+			return Response.status(Response.Status.BAD_REQUEST).entity("Type de transfert invalide.").build();
+		} catch (DaoException e) {
+			logger.error("Erreur interne lors de la création d'un lot de stocks : " + e.getMessage());
+			return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(e.getMessage()).build();
+		}
+	}
+
+	@PATCH
+	@Consumes("application/x-www-form-urlencoded")
+	@Path("/{id}")
+	@Produces(MediaType.APPLICATION_JSON)
+	public Response patchStock(@PathParam("id") final int id, final MultivaluedMap<String, String> formParams) {
+		if (PartialUpdate.hasBlankValue(formParams, PARAM_STOCK_DATE, PARAM_STOCK_ARTICLE_ID, PARAM_STOCK_QUANTITY,
+				PARAM_STOCK_TRANSFER_TYPE, PARAM_STOCK_COMMENT, PARAM_STOCK_VERSION)) {
+			logger.warn("Paramètres vides pour la modification partielle d'un stock.");
+			return Response.status(Response.Status.BAD_REQUEST)
+					.entity("Un ou plusieurs paramètres fournis sont vides.").build();
+		}
+
+		try {
+			final IStocksDao dao = DaoFactory.getInstance().getStocksDao();
+			final Stock stock = dao.getStockById(id);
+			if (stock == null) {
+				logger.warn("Aucun stock trouvé avec l'ID : " + id);
+				return Response.status(Response.Status.NOT_FOUND)
+						.entity("Aucun stock avec l'id [" + id + "] n'a été trouvé.").build();
+			}
+			if (PartialUpdate.isStale(formParams, PARAM_STOCK_VERSION, stock.getVersion())) {
+				logger.warn("Version périmée pour la modification du stock : " + id);
+				return Response.status(Response.Status.CONFLICT).entity("Le stock a été modifié entre-temps.")
+						.build();
+			}
+
+			final String articleId = formParams.getFirst(PARAM_STOCK_ARTICLE_ID);
+			if (articleId != null) {
+				final Article article = DaoFactory.getInstance().getArticlesDao()
+						.getArticleById(Integer.parseInt(articleId));
+				if (article == null) {
+					logger.warn("Article invalide lors de la modification d'un stock.");
+					return Response.status(Response.Status.BAD_REQUEST).entity("Article invalide.").build();
+				}
+				stock.setArticle(article);
+			}
+			final String date = formParams.getFirst(PARAM_STOCK_DATE);
+			if (date != null) {
+				stock.setDate(LocalDate.parse(date));
+			}
+			final String quantity = formParams.getFirst(PARAM_STOCK_QUANTITY);
+			if (quantity != null) {
+				stock.setQuantity(Integer.parseInt(quantity));
+			}
+			final String transferType = formParams.getFirst(PARAM_STOCK_TRANSFER_TYPE);
+			if (transferType != null) {
+				stock.setTransferType(InOut.valueOf(transferType));
+			}
+			if (formParams.containsKey(PARAM_STOCK_COMMENT)) {
+				stock.setComment(formParams.getFirst(PARAM_STOCK_COMMENT));
+			}
+
+			dao.updateStock(stock);
+			logger.info("Stock modifié avec succès : " + stock.getId());
+			return Response.ok().entity(new GenericEntity<>(stock) {
+			}).build();
+		} catch (NumberFormatException | DateTimeParseException e) {
+			logger.warn("Format invalide pour les paramètres lors de la modification d'un stock.");
+			return Response.status(Response.Status.BAD_REQUEST).entity("Erreur dans le format des paramètres fournis.")
+					.build();
+		} catch (IllegalArgumentException e) {
+			logger.warn("Type de transfert invalide lors de la modification d'un stock.");
+			return Response.status(Response.Status.BAD_REQUEST).entity("Type de transfert invalide.").build();
+		} catch (StaleDataException e) {
+			logger.warn("Conflit lors de la modification d'un stock : " + e.getMessage());
+			return Response.status(Response.Status.CONFLICT).entity(e.getMessage()).build();
+		} catch (DaoException e) {
+			logger.error("Erreur interne lors de la modification d'un stock : " + e.getMessage());
+			return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(e.getMessage()).build();
+		}
+	}
+
 	@GET
 	@Path("/{id}")
 	@Produces(MediaType.APPLICATION_JSON)
@@ -121,8 +324,19 @@ public class StockServices {
 	@GET
 	@Path("/all")
 	@Produces(MediaType.APPLICATION_JSON)
-	public Response getAllStocks() {
+	public Response getAllStocks(@QueryParam(Pagination.PARAM_AFTER) final String after,
+			@QueryParam(Pagination.PARAM_LIMIT) final String limit) {
 		try {
+			if (Pagination.isRequested(after, limit)) {
+				final int pageSize = Pagination.parseLimit(limit);
+				final List<Stock> page = DaoFactory.getInstance().getStocksDao()
+						.getStocksPage(Pagination.parseAfter(after), pageSize);
+				// an empty page is still a list, the last one
+				return Pagination.withNextCursor(Response.ok(), page, pageSize, Stock::getId)
+						.entity(new GenericEntity<>(page) {
+						}).build();
+			}
+
 			List<Stock> stocks = DaoFactory.getInstance().getStocksDao().getAllStocks();
 
 			if (stocks.isEmpty()) {
@@ -133,12 +347,220 @@ public class StockServices {
 			logger.info("Liste des stocks récupérée avec succès : " + stocks.size() + " éléments.");
 			return Response.ok().entity(new GenericEntity<>(stocks) {
 			}).build();
+		} catch (NumberFormatException e) {
+			logger.warn("Paramètres de pagination invalides : " + e.getMessage());
+			return Response.status(Response.Status.BAD_REQUEST).entity("Paramètres de pagination invalides.").build();
 		} catch (DaoException e) {
 			logger.error("Erreur interne lors de la récupération des stocks : " + e.getMessage());
 			return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(e.getMessage()).build();
 		}
 	}
 
+	/**
+	 * Streams the whole stock ledger as newline-delimited JSON, one movement per
+	 * line, without loading it in memory.
+	 */
+	@GET
+	@Path("/export")
+	@Produces(MEDIA_TYPE_NDJSON)
+	public Response exportStocks() {
+		final IStocksDao dao;
+		try {
+			dao = DaoFactory.getInstance().getStocksDao();
+		} catch (DaoException e) {
+			logger.error("Erreur interne lors de l'export des stocks : " + e.getMessage());
+			return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(e.getMessage()).build();
+		}
+
+		final StreamingOutput stream = output -> {
+			final Writer out = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+			// each line is a JSON document with its own generator, closed without
+			// closing the response
+			final Writer line = new FilterWriter(out) {
+				@Override
+				public void close() {
+				}
+			};
+			try {
+				final int[] count = { 0 };
+				dao.forEachStock(stock -> {
+					try {
+						try (JsonGenerator json = JSON_FACTORY.createGenerator(line)) {
+							writeStockLine(json, stock);
+						}
+						out.write('\n');
+						if (++count[0] % EXPORT_FLUSH_INTERVAL == 0) {
+							out.flush();
+						}
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+				out.flush();
+				logger.info("Export des stocks terminé : " + count[0] + " éléments.");
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			} catch (JsonException e) {
+				throw new IOException(e);
+			} catch (DaoException e) {
+				logger.error("Erreur interne lors de l'export des stocks : " + e.getMessage());
+				throw new IOException(e);
+			}
+		};
+		return Response.ok(stream).build();
+	}
+
+	private static void writeStockLine(final JsonGenerator json, final Stock stock) {
+		json.writeStartObject();
+		json.write("id", stock.getId());
+		writeString(json, "date", stock.getDate() == null ? null : stock.getDate().toString());
+		if (stock.getArticle() == null) {
+			json.writeNull("articleId");
+		} else {
+			json.write("articleId", stock.getArticle().getId());
+		}
+		json.write("quantity", stock.getQuantity());
+		writeString(json, "transferType", stock.getTransferType() == null ? null : stock.getTransferType().name());
+		writeString(json, "comment", stock.getComment());
+		json.writeEnd();
+	}
+
+	private static void writeString(final JsonGenerator json, final String name, final String value) {
+		if (value == null) {
+			json.writeNull(name);
+		} else {
+			json.write(name, value);
+		}
+	}
+
+	/**
+	 * Stock movements matching all the given filters, the most recent first. The
+	 * filters left out are not applied ; at most <code>limit</code> movements are
+	 * returned.
+	 */
+	@GET
+	@Path("/search")
+	@Produces(MediaType.APPLICATION_JSON)
+	public Response searchStocks(@QueryParam(PARAM_SEARCH_ARTICLE_ID) final String articleId,
+			@QueryParam(PARAM_SEARCH_TYPE) final String type, @QueryParam(PARAM_FROM) final String from,
+			@QueryParam(PARAM_TO) final String to, @QueryParam(Pagination.PARAM_LIMIT) final String limit) {
+		try {
+			final List<Stock> stocks = DaoFactory.getInstance().getStocksDao().searchStocks(
+					this.isNullOrEmpty(articleId) ? null : Integer.valueOf(articleId.trim()),
+					this.isNullOrEmpty(type) ? null : InOut.valueOf(type.trim()),
+					this.isNullOrEmpty(from) ? null : LocalDate.parse(from.trim()),
+					this.isNullOrEmpty(to) ? null : LocalDate.parse(to.trim()), Pagination.parseLimit(limit));
+
+			if (stocks.isEmpty()) {
+				logger.warn("Aucun stock ne correspond à la recherche.");
+				return Response.status(Response.Status.NO_CONTENT).entity("Aucun stock trouvé.").build();
+			}
+
+			logger.info("Recherche des stocks effectuée avec succès : " + stocks.size() + " éléments.");
+			return Response.ok().entity(new GenericEntity<>(stocks) {
+			}).build();
+		} catch (NumberFormatException | DateTimeParseException e) {
+			logger.warn("Erreur de format des paramètres de recherche : " + e.getMessage());
+			return Response.status(Response.Status.BAD_REQUEST).entity("Erreur dans le format des paramètres fournis.")
+					.build();
+		} catch (IllegalArgumentException e) {
+			logger.warn("Type de transfert invalide : " + e.getMessage());
+			return Response.status(Response.Status.BAD_REQUEST).entity("Type de transfert invalide.").build();
+		} catch (DaoException e) {
+			logger.error("Erreur interne lors de la recherche des stocks : " + e.getMessage());
+			return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(e.getMessage()).build();
+		}
+	}
+
+	/**
+	 * On-hand quantity of every Article having stock movements, summed by the
+	 * database.
+	 */
+	@GET
+	@Path("/stats/balances")
+	@Produces(MediaType.APPLICATION_JSON)
+	public Response getBalanceStats() {
+		try {
+			final Map<Integer, Long> sums = DaoFactory.getInstance().getStocksDao().sumQuantityByArticle();
+			final Map<String, Long> balances = new LinkedHashMap<>();
+			sums.forEach((articleId, quantity) -> balances.put(articleId.toString(), quantity));
+			logger.info("Stock de " + balances.size() + " articles calculé avec succès.");
+			return Response.ok().entity(balances).build();
+		} catch (DaoException e) {
+			logger.error("Erreur interne lors du calcul du stock des articles : " + e.getMessage());
+			return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(e.getMessage()).build();
+		}
+	}
+
+	/**
+	 * Quantities moved IN and OUT for every Article between two dates, both
+	 * included.
+	 */
+	@GET
+	@Path("/stats/transfers")
+	@Produces(MediaType.APPLICATION_JSON)
+	public Response getTransferStats(@QueryParam(PARAM_FROM) final String from, @QueryParam(PARAM_TO) final String to) {
+		if (this.isNullOrEmpty(from) || this.isNullOrEmpty(to)) {
+			logger.warn("Période manquante pour le calcul des mouvements.");
+			return Response.status(Response.Status.BAD_REQUEST).entity("Les dates de début et de fin sont requises.")
+					.build();
+		}
+		try {
+			final Map<Integer, Map<InOut, Long>> sums = DaoFactory.getInstance().getStocksDao()
+					.sumByArticleAndTransferType(LocalDate.parse(from), LocalDate.parse(to));
+			final Map<String, Map<String, Long>> transfers = new LinkedHashMap<>();
+			sums.forEach((articleId, totals) -> transfers.put(articleId.toString(), byTransferType(totals)));
+			logger.info("Mouvements de " + transfers.size() + " articles calculés avec succès.");
+			return Response.ok().entity(transfers).build();
+		} catch (DateTimeParseException e) {
+			logger.warn("Erreur de format des dates : " + e.getMessage());
+			return Response.status(Response.Status.BAD_REQUEST).entity("Erreur dans le format des paramètres fournis.")
+					.build();
+		} catch (DaoException e) {
+			logger.error("Erreur interne lors du calcul des mouvements des articles : " + e.getMessage());
+			return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(e.getMessage()).build();
+		}
+	}
+
+	/**
+	 * Quantities moved IN and OUT for an Article, day by day, between two dates,
+	 * both included. Days without any movement are left out.
+	 */
+	@GET
+	@Path("/stats/daily/{articleId}")
+	@Produces(MediaType.APPLICATION_JSON)
+	public Response getDailyStats(@PathParam("articleId") final int articleId,
+			@QueryParam(PARAM_FROM) final String from, @QueryParam(PARAM_TO) final String to) {
+		if (this.isNullOrEmpty(from) || this.isNullOrEmpty(to)) {
+			logger.warn("Période manquante pour le calcul des mouvements de l'article ID : " + articleId);
+			return Response.status(Response.Status.BAD_REQUEST).entity("Les dates de début et de fin sont requises.")
+					.build();
+		}
+		try {
+			final SortedMap<LocalDate, Map<InOut, Long>> sums = DaoFactory.getInstance().getStocksDao()
+					.dailyTotals(articleId, LocalDate.parse(from), LocalDate.parse(to));
+			final Map<String, Map<String, Long>> days = new LinkedHashMap<>();
+			sums.forEach((day, totals) -> days.put(day.toString(), byTransferType(totals)));
+			logger.info("Mouvements de l'article " + articleId + " calculés sur " + days.size() + " jours.");
+			return Response.ok().entity(days).build();
+		} catch (DateTimeParseException e) {
+			logger.warn("Erreur de format des dates : " + e.getMessage());
+			return Response.status(Response.Status.BAD_REQUEST).entity("Erreur dans le format des paramètres fournis.")
+					.build();
+		} catch (DaoException e) {
+			logger.error("Erreur interne lors du calcul des mouvements de l'article : " + e.getMessage());
+			return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(e.getMessage()).build();
+		}
+	}
+
+	private static Map<String, Long> byTransferType(final Map<InOut, Long> totals) {
+		final Map<String, Long> byName = new LinkedHashMap<>();
+		for (final InOut transferType : InOut.values()) {
+			byName.put(transferType.name(), totals.getOrDefault(transferType, 0L));
+		}
+		return byName;
+	}
+
 	@GET
 	@Path("/all/{articleId}")
 	@Produces(MediaType.APPLICATION_JSON)
@@ -0,0 +1,260 @@
+package edu.esiea.inventorymanager.services;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+import edu.esiea.inventorymanager.dao.DaoFactory;
+import edu.esiea.inventorymanager.exception.DaoException;
+import edu.esiea.inventorymanager.model.Article;
+import edu.esiea.inventorymanager.model.Command;
+import edu.esiea.inventorymanager.model.InOut;
+import edu.esiea.inventorymanager.model.Stock;
+
+/**
+ * Write-behind queue of the stock movements posted asynchronously. They are
+ * acknowledged with a ticket as soon as they are queued, and a background
+ * writer stores them by groups, with one commit per group. A group is written
+ * once it holds {@link #BATCH_SIZE} movements, or {@link #MAX_DELAY_MS} after
+ * its first movement has been taken from the queue.
+ */
+public final class StockWriteBehind {
+
+	/** Movements waiting to be written beyond which new ones are refused. */
+	static final int QUEUE_CAPACITY = 10000;
+	/** Maximum number of movements written in a single transaction. */
+	static final int BATCH_SIZE = 500;
+	/** Maximum time a movement waits for its group to fill up. */
+	static final long MAX_DELAY_MS = 200;
+	private static final long SHUTDOWN_TIMEOUT_MS = 30000;
+
+	private static final Logger logger = Logger.getLogger(StockWriteBehind.class);
+
+	private static StockWriteBehind instance;
+
+	private final BlockingQueue<PendingStock> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+	private final AtomicLong lastTicket = new AtomicLong();
+	private final Thread writer;
+	private volatile boolean closed;
+	private int pending;
+
+	/**
+	 * A movement accepted but not written yet. The article and the command are
+	 * only kept by id : entities can't be shared with the writer thread.
+	 */
+	private record PendingStock(long ticket, int commandId, LocalDate date, int articleId, int quantity,
+			InOut transferType, String comment) {
+	}
+
+	public static synchronized StockWriteBehind getInstance() {
+		if (instance == null) {
+			instance = new StockWriteBehind();
+		}
+		return instance;
+	}
+
+	/**
+	 * Writes the movements still queued and stops the writer, if it has been
+	 * started. Called when the application is shut down.
+	 */
+	public static void shutdown() {
+		final StockWriteBehind current;
+		synchronized (StockWriteBehind.class) {
+			current = instance;
+			instance = null;
+		}
+		// closed outside of the lock : the writer may need it to retire
+		if (current != null) {
+			current.close();
+		}
+	}
+
+	/**
+	 * Drops this writer if it is still the current one, so that the next call to
+	 * {@link #getInstance()} starts a new one.
+	 */
+	private static synchronized void retire(final StockWriteBehind writer) {
+		if (instance == writer) {
+			instance = null;
+		}
+	}
+
+	private StockWriteBehind() {
+		this.writer = new Thread(this::run, "stock-write-behind");
+		this.writer.setDaemon(true);
+		this.writer.start();
+	}
+
+	/**
+	 * Queues a movement to be written by the background writer.
+	 *
+	 * @return the ticket acknowledging the movement, <code>-1</code> if the queue
+	 *         is full or closed : the movement has not been accepted then.
+	 */
+	long submit(final int commandId, final LocalDate date, final int articleId, final int quantity,
+			final InOut transferType, final String comment) {
+		// checked and queued under the lock taken by close() : once closed, the
+		// writer only stops with an empty queue
+		synchronized (this) {
+			if (this.closed) {
+				return -1;
+			}
+			final long ticket = this.lastTicket.incrementAndGet();
+			if (!this.queue.offer(
+					new PendingStock(ticket, commandId, date, articleId, quantity, transferType, comment))) {
+				return -1;
+			}
+			this.pending++;
+			return ticket;
+		}
+	}
+
+	/**
+	 * Waits until every movement accepted so far has been written.
+	 *
+	 * @return <code>false</code> if some are still pending after the timeout.
+	 */
+	synchronized boolean awaitWritten(final long timeoutMillis) throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + timeoutMillis;
+		while (this.pending > 0) {
+			final long remaining = deadline - System.currentTimeMillis();
+			if (remaining <= 0) {
+				return false;
+			}
+			this.wait(remaining);
+		}
+		return true;
+	}
+
+	private void close() {
+		synchronized (this) {
+			this.closed = true;
+		}
+		try {
+			this.writer.join(SHUTDOWN_TIMEOUT_MS);
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (!this.queue.isEmpty()) {
+			logger.error(this.queue.size() + " stocks en attente n'ont pas pu être écrits avant l'arrêt.");
+		}
+	}
+
+	private synchronized void written(final int count) {
+		this.pending -= count;
+		this.notifyAll();
+	}
+
+	private void run() {
+		final List<PendingStock> batch = new ArrayList<>(BATCH_SIZE);
+		while (!this.closed || !this.queue.isEmpty()) {
+			try {
+				final PendingStock first = this.queue.poll(MAX_DELAY_MS, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					continue;
+				}
+				batch.add(first);
+				final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MAX_DELAY_MS);
+				while (batch.size() < BATCH_SIZE) {
+					this.queue.drainTo(batch, BATCH_SIZE - batch.size());
+					final long remaining = deadline - System.nanoTime();
+					if (batch.size() == BATCH_SIZE || remaining <= 0) {
+						break;
+					}
+					final PendingStock next = this.queue.poll(remaining, TimeUnit.NANOSECONDS);
+					if (next == null) {
+						break;
+					}
+					batch.add(next);
+				}
+			} catch (final InterruptedException e) {
+				// only shutdown() should stop the writer : a new one takes over, this one
+				// writes the movements already accepted before stopping
+				logger.error("Écriture des stocks en arrière-plan interrompue, un nouveau thread prend le relais.");
+				retire(this);
+				synchronized (this) {
+					this.closed = true;
+				}
+			}
+			if (!batch.isEmpty()) {
+				this.write(batch);
+				this.written(batch.size());
+				batch.clear();
+			}
+		}
+	}
+
+	/**
+	 * Writes a group of movements in a single transaction. If it fails, they are
+	 * written one by one so that a single invalid movement does not lose the
+	 * others.
+	 */
+	private void write(final List<PendingStock> batch) {
+		try {
+			DaoFactory.getInstance().inTransaction(daos -> this.store(daos, batch));
+			logger.info("Lot de " + batch.size() + " stocks écrit en arrière-plan.");
+		} catch (final DaoException | RuntimeException e) {
+			logger.warn("Échec de l'écriture d'un lot de " + batch.size() + " stocks, écriture un par un : "
+					+ e.getMessage());
+			this.closeUnitOfWork();
+			for (final PendingStock stock : batch) {
+				try {
+					DaoFactory.getInstance().inTransaction(daos -> this.store(daos, List.of(stock)));
+				} catch (final DaoException | RuntimeException ex) {
+					logger.error(
+							"Le stock du ticket " + stock.ticket() + " n'a pas pu être écrit : " + ex.getMessage());
+					this.closeUnitOfWork();
+				}
+			}
+		} finally {
+			this.closeUnitOfWork();
+		}
+	}
+
+	private Void store(final DaoFactory daos, final List<PendingStock> batch) throws DaoException {
+		final Map<Integer, Article> articles = new HashMap<>();
+		final Map<Integer, Command> commands = new HashMap<>();
+		final List<Stock> stocks = new ArrayList<>(batch.size());
+		for (final PendingStock pending : batch) {
+			Article article = articles.get(pending.articleId());
+			if (article == null) {
+				article = daos.getArticlesDao().getArticleReference(pending.articleId());
+				articles.put(pending.articleId(), article);
+			}
+			Command command = commands.get(pending.commandId());
+			if (command == null) {
+				command = daos.getCommandsDao().getCommandReference(pending.commandId());
+				commands.put(pending.commandId(), command);
+			}
+			if (article == null || command == null) {
+				logger.warn(
+						"Article ou commande introuvable, le stock du ticket " + pending.ticket() + " est ignoré.");
+				continue;
+			}
+			final Stock stock = new Stock(pending.date(), article, pending.quantity(), pending.transferType(),
+					pending.comment());
+			stock.setCommand(command);
+			stocks.add(stock);
+		}
+
+		daos.getStocksDao().createStocks(stocks);
+		return null;
+	}
+
+	private void closeUnitOfWork() {
+		try {
+			DaoFactory.getInstance().closeUnitOfWork();
+		} catch (final DaoException e) {
+			logger.error(
+					"Impossible de fermer l'unité de travail de l'écriture en arrière-plan : " + e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,40 @@
+package edu.esiea.inventorymanager.services.providers;
+
+import org.apache.log4j.Logger;
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+
+import edu.esiea.inventorymanager.dao.DaoFactory;
+import edu.esiea.inventorymanager.exception.DaoException;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * Builds the persistence backend and its DAOs once the application has been
+ * deployed, rather than on the first request that needs them.
+ */
+@Provider
+public class DaoWarmUpListener implements ApplicationEventListener {
+
+	private static final Logger logger = Logger.getLogger(DaoWarmUpListener.class);
+
+	@Override
+	public void onEvent(final ApplicationEvent event) {
+		if (event.getType() == ApplicationEvent.Type.INITIALIZATION_FINISHED) {
+			final long start = System.currentTimeMillis();
+			try {
+				DaoFactory.getInstance().warmUp();
+				logger.info("DAO initialisés en " + (System.currentTimeMillis() - start) + " ms.");
+			} catch (final DaoException | RuntimeException e) {
+				// the DAOs will be built again on the first request that needs them
+				logger.error("Impossible d'initialiser les DAO au démarrage : " + e.getMessage());
+			}
+		}
+	}
+
+	@Override
+	public RequestEventListener onRequest(final RequestEvent requestEvent) {
+		return null;
+	}
+}
@@ -0,0 +1,40 @@
+package edu.esiea.inventorymanager.services.providers;
+
+import org.apache.log4j.Logger;
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+
+import edu.esiea.inventorymanager.dao.DaoFactory;
+import edu.esiea.inventorymanager.exception.DaoException;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * Scopes the persistence context to the HTTP request : the unit of work lazily
+ * opened by the DAOs on the request thread, its Entity Manager with the JPA
+ * backend, is closed once the response has been fully written (including
+ * streamed entities).
+ */
+@Provider
+public class EntityManagerRequestListener implements ApplicationEventListener {
+
+	private static final Logger logger = Logger.getLogger(EntityManagerRequestListener.class);
+
+	@Override
+	public void onEvent(final ApplicationEvent event) {
+	}
+
+	@Override
+	public RequestEventListener onRequest(final RequestEvent requestEvent) {
+		return event -> {
+			if (event.getType() == RequestEvent.Type.FINISHED) {
+				try {
+					DaoFactory.getInstance().closeUnitOfWork();
+				} catch (final DaoException e) {
+					logger.error("Impossible de fermer l'unité de travail de la requête : " + e.getMessage());
+				}
+			}
+		};
+	}
+}
@@ -0,0 +1,29 @@
+package edu.esiea.inventorymanager.services.providers;
+
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+
+import edu.esiea.inventorymanager.services.StockWriteBehind;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * Writes the stock movements still queued by {@link StockWriteBehind} when the
+ * application is shut down, so that acknowledged movements are not lost.
+ */
+@Provider
+public class StockWriteBehindShutdownListener implements ApplicationEventListener {
+
+	@Override
+	public void onEvent(final ApplicationEvent event) {
+		if (event.getType() == ApplicationEvent.Type.DESTROY_FINISHED) {
+			StockWriteBehind.shutdown();
+		}
+	}
+
+	@Override
+	public RequestEventListener onRequest(final RequestEvent requestEvent) {
+		return null;
+	}
+}
@@ -0,0 +1,7 @@
+-- Indexes of the foreign keys and lookups of Stock and Article
+-- The searches on Stock filter by Article or by transfer type, then by date.
+CREATE INDEX IX_Stock_Article_Date ON Stock (Article, Date);
+CREATE INDEX IX_Stock_TransferType_Date ON Stock (TransferType, Date);
+CREATE INDEX IX_Stock_Command ON Stock (Command);
+CREATE INDEX IX_Article_Category ON Article (Category);
+CREATE UNIQUE INDEX UX_Article_EAN13 ON Article (EAN13);
@@ -0,0 +1,9 @@
+-- Balance of the Articles stored before the balances existed
+-- The DAOs only update an existing balance : every Article gets one here,
+-- computed once from its movements. The Articles that already have one are
+-- skipped, so the statement can run again.
+INSERT INTO ArticleBalance (ArticleId, Quantity)
+SELECT art.Id, COALESCE(SUM(CASE WHEN sto.TransferType = 'IN' THEN sto.Quantity ELSE 0 - sto.Quantity END), 0)
+FROM Article art LEFT JOIN Stock sto ON sto.Article = art.Id
+WHERE NOT EXISTS (SELECT 1 FROM ArticleBalance bal WHERE bal.ArticleId = art.Id)
+GROUP BY art.Id;
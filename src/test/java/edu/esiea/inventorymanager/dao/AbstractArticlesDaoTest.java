@@ -0,0 +1,173 @@
+package edu.esiea.inventorymanager.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import edu.esiea.inventorymanager.dao.bddimp.DaoBddHelper;
+import edu.esiea.inventorymanager.dao.interfaces.IArticlesDao;
+import edu.esiea.inventorymanager.exception.DaoException;
+import edu.esiea.inventorymanager.model.Article;
+import edu.esiea.inventorymanager.model.ArticleBalance;
+import edu.esiea.inventorymanager.model.ArticleSummary;
+import edu.esiea.inventorymanager.model.Category;
+
+/**
+ * Tests of an implementation of {@link IArticlesDao} on the test database, run
+ * once per backend by its subclasses. The backends share the database : each
+ * one works on its own EAN13.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public abstract class AbstractArticlesDaoTest {
+
+	private static final String PARAM_NAME_1 = "Smartphone";
+	private static final String PARAM_BRAND_1 = "Samsung";
+	private static final String PARAM_PICTURE_1 = "image.jpg";
+	private static final float PARAM_PRICE_1 = 999.99f;
+	private static final String PARAM_DESCRIPTION_1 = "Un smartphone puissant";
+
+	private final String ean13;
+	protected Article article1;
+	protected Category category;
+	protected IArticlesDao dao;
+
+	protected AbstractArticlesDaoTest(final String ean13) {
+		this.ean13 = ean13;
+	}
+
+	/**
+	 * @return the DAO under test, built once the test database is set.
+	 */
+	protected abstract IArticlesDao createDao() throws DaoException;
+
+	@BeforeAll
+	void setUpBeforeClass() throws Exception {
+		DaoBddHelper.forceTestInstance();
+		category = new Category("Électronique", "Articles tech et accessoires");
+		article1 = new Article(PARAM_NAME_1, ean13, PARAM_BRAND_1, PARAM_PICTURE_1, PARAM_PRICE_1,
+				PARAM_DESCRIPTION_1);
+		DaoFactory.getInstance().getCategoriesDao().createCategory(category);
+		article1.setCategory(category);
+
+		dao = createDao();
+	}
+
+	@AfterAll
+	void tearDownAfterClass() throws Exception {
+		article1 = null;
+		category = null;
+		final EntityManager m = DaoBddHelper.getInstance().getEntityManager();
+		if (m.isOpen()) {
+			m.clear();
+		}
+	}
+
+	@Test
+	@Order(1)
+	void testCreateArticle() {
+		try {
+			article1 = dao.createArticle(article1);
+		} catch (final DaoException e) {
+			fail("Impossible de créer l'article");
+		}
+		assertNotNull(article1, "L'article n'a pas été créé !");
+		assertTrue(article1.getId() > 0, "L'ID de l'article est invalide !");
+
+		assertEquals(PARAM_NAME_1, article1.getName(), "Nom de l'article incorrect.");
+		assertEquals(ean13, article1.getEAN13(), "Code EAN13 incorrect.");
+		assertEquals(PARAM_BRAND_1, article1.getBrand(), "Marque incorrecte.");
+		assertEquals(PARAM_PICTURE_1, article1.getPicture_URL(), "URL de l'image incorrecte.");
+		assertEquals(PARAM_PRICE_1, article1.getPrice(), "Prix incorrect.");
+		assertEquals(PARAM_DESCRIPTION_1, article1.getDescription(), "Description incorrecte.");
+		assertEquals(category.getId(), article1.getCategory().getId(), "La catégorie de l'article ne correspond pas.");
+
+		category = article1.getCategory();
+	}
+
+	@Test
+	@Order(2)
+	void testGetAllArticles() throws DaoException {
+		List<Article> articles = dao.getAllArticles();
+		assertNotNull(articles, "La liste des articles est NULL !");
+		assertTrue(articles.size() > 0, "Aucun article trouvé !");
+		assertTrue(articles.contains(article1), "L'article créé avant n'est pas retourné !");
+	}
+
+	@Test
+	@Order(3)
+	void testGetArticleById() throws DaoException {
+		Article fetchedArticle = dao.getArticleById(article1.getId());
+
+		assertNotNull(fetchedArticle, "L'article récupéré est NULL !");
+		assertEquals(PARAM_NAME_1, fetchedArticle.getName(), "Le nom de l'article est incorrect !");
+		assertEquals(ean13, fetchedArticle.getEAN13(), "Code EAN13 incorrect !");
+		assertEquals(PARAM_BRAND_1, fetchedArticle.getBrand(), "Marque incorrecte !");
+		assertEquals(PARAM_PICTURE_1, fetchedArticle.getPicture_URL(), "URL de l'image incorrecte !");
+		assertEquals(PARAM_PRICE_1, fetchedArticle.getPrice(), "Prix incorrect !");
+		assertEquals(PARAM_DESCRIPTION_1, fetchedArticle.getDescription(), "Description incorrecte !");
+		assertEquals(category.getId(), fetchedArticle.getCategory().getId(), "La catégorie ne correspond pas !");
+
+		Article articleWithStocks = dao.getArticleById(article1.getId(), true);
+		assertNotNull(articleWithStocks.getStock(), "Les mouvements de l'article n'ont pas été lus !");
+		assertTrue(articleWithStocks.getStock().isEmpty(), "Un article sans mouvement ne devrait pas en avoir !");
+	}
+
+	@Test
+	@Order(3)
+	void testGetArticleBalance() throws DaoException {
+		ArticleBalance balance = dao.getArticleBalance(article1.getId());
+		assertNotNull(balance, "Le stock de l'article n'a pas été initialisé !");
+		assertEquals(0, balance.getQuantity(), "Un article sans mouvement devrait avoir un stock nul !");
+
+		List<ArticleBalance> balances = dao.getArticleBalances(List.of(article1.getId(), -1));
+		assertEquals(1, balances.size(), "Seul le stock de l'article existant devrait être retourné !");
+	}
+
+	@Test
+	@Order(3)
+	void testGetArticleSummaries() throws DaoException {
+		List<ArticleSummary> summaries = dao.getAllArticleSummaries();
+		ArticleSummary summary = summaries.stream().filter(s -> s.id() == article1.getId()).findFirst().orElse(null);
+
+		assertNotNull(summary, "L'article créé avant n'est pas résumé !");
+		assertEquals(PARAM_NAME_1, summary.name(), "Le nom de l'article est incorrect !");
+		assertEquals(category.getName(), summary.categoryName(), "La catégorie ne correspond pas !");
+		assertEquals(0, summary.onHand(), "Un article sans mouvement devrait avoir un stock nul !");
+	}
+
+	@Test
+	@Order(4)
+	void testUpdateArticle() throws DaoException {
+		article1.setPrice(799.99f);
+		dao.updateArticle(article1);
+
+		Article updatedArticle = dao.getArticleById(article1.getId());
+
+		assertNotNull(updatedArticle, "L'article mis à jour est NULL !");
+		assertEquals(799.99f, updatedArticle.getPrice(), "Le prix n'a pas été mis à jour !");
+	}
+
+	@Test
+	@Order(5)
+	void testDeleteArticle() throws DaoException {
+		dao.deleteArticle(article1);
+
+		Article deletedArticle = dao.getArticleById(article1.getId());
+		assertNull(deletedArticle, "L'article n'a pas été supprimé !");
+	}
+}
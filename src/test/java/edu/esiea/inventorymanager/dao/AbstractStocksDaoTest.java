@@ -0,0 +1,315 @@
+package edu.esiea.inventorymanager.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManager;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import edu.esiea.inventorymanager.dao.bddimp.ArticlesDaoBdd;
+import edu.esiea.inventorymanager.dao.bddimp.CommandsDaoBdd;
+import edu.esiea.inventorymanager.dao.bddimp.DaoBddHelper;
+import edu.esiea.inventorymanager.dao.interfaces.IArticlesDao;
+import edu.esiea.inventorymanager.dao.interfaces.IStocksDao;
+import edu.esiea.inventorymanager.exception.DaoException;
+import edu.esiea.inventorymanager.model.Article;
+import edu.esiea.inventorymanager.model.Command;
+import edu.esiea.inventorymanager.model.InOut;
+import edu.esiea.inventorymanager.model.Stock;
+
+/**
+ * Tests of an implementation of {@link IStocksDao} on the test database, run
+ * once per backend by its subclasses. The backends share the database : each
+ * one moves the stock of its own Article.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public abstract class AbstractStocksDaoTest {
+
+	protected static final LocalDate PARAM_DATE = LocalDate.of(2025, 5, 27);
+	private static final int PARAM_QUANTITY = 100;
+	private static final String PARAM_COMMENT = "Stock initial";
+	private static final InOut PARAM_TRANSFER_TYPE = InOut.IN;
+
+	private final String ean13;
+	protected Stock stock;
+	protected Article article;
+	protected IStocksDao dao;
+	protected IArticlesDao articlesDao;
+
+	protected AbstractStocksDaoTest(final String ean13) {
+		this.ean13 = ean13;
+	}
+
+	/**
+	 * @return the DAO under test, built once the test database is set.
+	 */
+	protected abstract IStocksDao createDao() throws DaoException;
+
+	/**
+	 * @return the DAO of the Articles of the same backend.
+	 */
+	protected abstract IArticlesDao createArticlesDao() throws DaoException;
+
+	@BeforeAll
+	void setUpBeforeClass() throws Exception {
+		DaoBddHelper.forceTestInstance();
+		articlesDao = createArticlesDao();
+		article = articlesDao.createArticle(
+				new Article("Smartphone", ean13, "Samsung", "image.jpg", 999.99f, "Un smartphone puissant"));
+
+		stock = new Stock(PARAM_DATE, article, PARAM_QUANTITY, PARAM_TRANSFER_TYPE, PARAM_COMMENT);
+
+		dao = createDao();
+	}
+
+	@AfterAll
+	void tearDownAfterClass() throws Exception {
+		stock = null;
+		article = null;
+
+		EntityManager m = DaoBddHelper.getInstance().getEntityManager();
+		if (m.isOpen()) {
+			m.clear();
+		}
+	}
+
+	@Test
+	@Order(1)
+	void testCreateStock() {
+		try {
+			stock = dao.createStock(stock);
+		} catch (final DaoException e) {
+			fail("Impossible de créer le stock");
+		}
+
+		assertNotNull(stock, "Le stock n'a pas été créé !");
+		assertTrue(stock.getId() > 0, "L'ID du stock est invalide !");
+		assertEquals(PARAM_DATE, stock.getDate(), "Date incorrecte.");
+		assertEquals(PARAM_QUANTITY, stock.getQuantity(), "Quantité incorrecte.");
+		assertEquals(PARAM_TRANSFER_TYPE, stock.getTransferType(), "Type de transfert incorrect.");
+		assertEquals(PARAM_COMMENT, stock.getComment(), "Commentaire incorrect.");
+		assertEquals(article.getId(), stock.getArticle().getId(), "L'article du stock ne correspond pas.");
+	}
+
+	@Test
+	@Order(2)
+	void testGetAllStocks() throws DaoException {
+		List<Stock> stocks = dao.getAllStocks();
+		assertNotNull(stocks, "La liste des stocks est NULL !");
+		assertTrue(stocks.size() > 0, "Aucun stock trouvé !");
+		assertTrue(stocks.contains(stock), "Le stock créé avant n'est pas retourné !");
+	}
+
+	@Test
+	@Order(3)
+	void testGetStockById() throws DaoException {
+		Stock fetchedStock = dao.getStockById(stock.getId());
+		assertNotNull(fetchedStock, "Le stock récupéré est NULL !");
+		assertEquals(PARAM_DATE, fetchedStock.getDate(), "La date du stock est incorrecte !");
+		assertEquals(PARAM_QUANTITY, fetchedStock.getQuantity(), "La quantité du stock est incorrecte !");
+		assertEquals(PARAM_TRANSFER_TYPE, fetchedStock.getTransferType(), "Le type de transfert est incorrect !");
+		assertEquals(PARAM_COMMENT, fetchedStock.getComment(), "Le commentaire est incorrect !");
+	}
+
+	@Test
+	@Order(4)
+	void testUpdateStock() throws DaoException {
+		stock.setQuantity(150);
+		dao.updateStock(stock);
+
+		Stock updatedStock = dao.getStockById(stock.getId());
+
+		assertNotNull(updatedStock, "Le stock mis à jour est NULL !");
+		assertEquals(150, updatedStock.getQuantity(), "La quantité n'a pas été mise à jour !");
+		assertEquals(150, balance(), "Le stock de l'article n'a pas suivi la modification du mouvement !");
+		stock = dao.getStockById(stock.getId());
+	}
+
+	@Test
+	@Order(5)
+	void testAggregates() throws DaoException {
+		final Stock out = dao.createStock(new Stock(PARAM_DATE.plusDays(1), article, 30, InOut.OUT, "Sortie"));
+
+		assertEquals(120L, dao.sumQuantityByArticle().get(article.getId()), "Le stock de l'article est incorrect !");
+
+		final Map<InOut, Long> totals = dao.sumByArticleAndTransferType(PARAM_DATE, PARAM_DATE.plusDays(1))
+				.get(article.getId());
+		assertEquals(Map.of(InOut.IN, 150L, InOut.OUT, 30L), totals, "Les mouvements de l'article sont incorrects !");
+		assertNull(dao.sumByArticleAndTransferType(PARAM_DATE.plusDays(1), PARAM_DATE.plusDays(1)).get(article.getId())
+				.get(InOut.IN), "Le mouvement hors période a été compté !");
+
+		final Map<LocalDate, Map<InOut, Long>> days = dao.dailyTotals(article.getId(), PARAM_DATE.minusDays(1),
+				PARAM_DATE.plusDays(1));
+		assertEquals(List.of(PARAM_DATE, PARAM_DATE.plusDays(1)), List.copyOf(days.keySet()),
+				"Les jours des mouvements sont incorrects !");
+		assertEquals(Map.of(InOut.OUT, 30L), days.get(PARAM_DATE.plusDays(1)),
+				"Les sorties du jour sont incorrectes !");
+
+		dao.deleteStock(out);
+	}
+
+	@Test
+	@Order(6)
+	void testSearchStocks() throws DaoException {
+		final Stock out = dao.createStock(new Stock(PARAM_DATE.plusDays(1), article, 30, InOut.OUT, "Sortie"));
+
+		assertEquals(List.of(out.getId(), stock.getId()), ids(dao.searchStocks(article.getId(), null, null, null, 10)),
+				"Les stocks de l'article ne sont pas triés du plus récent au plus ancien !");
+		assertEquals(List.of(out.getId()), ids(dao.searchStocks(article.getId(), null, null, null, 1)),
+				"La limite de la recherche n'est pas respectée !");
+		assertEquals(List.of(out.getId()),
+				ids(dao.searchStocks(article.getId(), InOut.OUT, PARAM_DATE, PARAM_DATE.plusDays(1), 10)),
+				"La recherche combinée ne retourne pas le stock sortant !");
+		assertEquals(List.of(stock.getId()), ids(dao.searchStocks(article.getId(), null, null, PARAM_DATE, 10)),
+				"La borne de fin de la recherche n'est pas respectée !");
+
+		dao.deleteStock(out);
+	}
+
+	@Test
+	@Order(7)
+	void testUpdateStockWithoutBalance() throws DaoException {
+		// the balances are backfilled by a migration : a missing one is an error,
+		// not something to recompute on the fly
+		final DaoBddHelper bdd = DaoBddHelper.getInstance();
+		bdd.beginTransaction();
+		bdd.getEntityManager().createNativeQuery("DELETE FROM ArticleBalance WHERE ArticleId = ?1")
+				.setParameter(1, article.getId()).executeUpdate();
+		bdd.commitTransaction();
+		bdd.getEntityManager().clear();
+
+		stock.setQuantity(120);
+		assertThrows(DaoException.class, () -> dao.updateStock(stock),
+				"Le mouvement d'un article sans stock a été modifié !");
+		bdd.getEntityManager().clear();
+		assertEquals(150, dao.getStockById(stock.getId()).getQuantity(), "Le mouvement refusé a été enregistré !");
+
+		bdd.beginTransaction();
+		bdd.getEntityManager().createNativeQuery("INSERT INTO ArticleBalance (ArticleId, Quantity) VALUES (?1, 150)")
+				.setParameter(1, article.getId()).executeUpdate();
+		bdd.commitTransaction();
+		stock = dao.getStockById(stock.getId());
+		assertEquals(150, balance(), "Le stock de l'article n'a pas été rétabli !");
+	}
+
+	@Test
+	@Order(8)
+	void testDeleteStock() throws DaoException {
+		dao.deleteStock(stock);
+		Stock deletedStock = dao.getStockById(stock.getId());
+		assertNull(deletedStock, "Le stock n'a pas été supprimé !");
+	}
+
+	@Test
+	@Order(9)
+	void testCreateStocks() throws DaoException {
+		final List<Stock> stocks = dao.createStocks(List.of(new Stock(PARAM_DATE, article, 30, InOut.IN, "Lot 1"),
+				new Stock(PARAM_DATE, article, 10, InOut.OUT, "Lot 2"),
+				new Stock(PARAM_DATE, article, 5, InOut.IN, "Lot 3")));
+
+		assertEquals(3, stocks.stream().mapToInt(Stock::getId).filter(id -> id > 0).distinct().count(),
+				"Chaque stock du lot devrait avoir son propre ID !");
+		DaoBddHelper.getInstance().getEntityManager().clear();
+		assertEquals(3, dao.getStocksByArticleId(article.getId()).size(),
+				"Les stocks du lot n'ont pas été créés !");
+		assertEquals(25, balance(), "Le stock de l'article ne tient pas compte du lot !");
+	}
+
+	@Test
+	@Order(10)
+	void testCreateEmptyStocks() throws DaoException {
+		assertTrue(dao.createStocks(List.of()).isEmpty(), "Un lot vide ne devrait créer aucun stock !");
+		assertEquals(25, balance(), "Un lot vide a modifié le stock de l'article !");
+	}
+
+	@Test
+	@Order(11)
+	void testCreateStocksWithInvalidArticle() throws DaoException {
+		final Article unknown = new Article("Inconnu", "0000000000000", "Aucune", "image.jpg", 1f, "Article absent");
+		unknown.setId(Integer.MAX_VALUE);
+
+		assertThrows(DaoException.class, () -> dao.createStocks(List.of(
+				new Stock(PARAM_DATE, article, 7, InOut.IN, "Lot valide"),
+				new Stock(PARAM_DATE, unknown, 3, InOut.IN, "Lot invalide"))),
+				"Un lot référençant un article inconnu a été accepté !");
+		DaoBddHelper.getInstance().getEntityManager().clear();
+		assertEquals(3, dao.getStocksByArticleId(article.getId()).size(),
+				"Une partie du lot refusé a été enregistrée !");
+		assertEquals(25, balance(), "Le lot refusé a modifié le stock de l'article !");
+	}
+
+	@Test
+	@Order(12)
+	void testCreateStockOfCommand() throws DaoException {
+		final CommandsDaoBdd commandsDao = new CommandsDaoBdd();
+		final Command command = commandsDao
+				.createCommand(new Command(PARAM_DATE, new ArrayList<>(), "Commande du stock"));
+		final Stock linked = new Stock(PARAM_DATE, article, 4, InOut.IN, "Stock de la commande");
+		linked.setCommand(commandsDao.getCommandReference(command.getId()));
+		dao.createStock(linked);
+
+		DaoBddHelper.getInstance().getEntityManager().clear();
+		assertEquals(List.of(linked.getId()), ids(dao.getStocksByCommandId(command.getId())),
+				"Le stock n'est pas lié à sa commande !");
+		assertEquals(1, commandsDao.getCommandById(command.getId(), true).getStocks().size(),
+				"La commande ne liste pas le stock créé !");
+
+		// a Stock sent back by a client does not carry its Command
+		final Stock sent = new Stock(PARAM_DATE, article, 6, InOut.IN, "Stock de la commande");
+		sent.setId(linked.getId());
+		sent.setVersion(linked.getVersion());
+		dao.updateStock(sent);
+		DaoBddHelper.getInstance().getEntityManager().clear();
+		assertEquals(List.of(linked.getId()), ids(dao.getStocksByCommandId(command.getId())),
+				"La modification du stock l'a détaché de sa commande !");
+
+		assertTrue(commandsDao.deleteCommandById(command.getId()), "La commande n'a pas été supprimée !");
+		assertEquals(25, balance(), "Le stock de l'article n'a pas été rétabli !");
+	}
+
+	@Test
+	@Order(14)
+	void testCreateStockKeepsCachedArticle() throws DaoException {
+		final DaoBddHelper bdd = DaoBddHelper.getInstance();
+		final Cache cache = bdd.getEntityManager().getEntityManagerFactory().getCache();
+		final ArticlesDaoBdd cachedArticles = new ArticlesDaoBdd();
+		final int count = cachedArticles.getArticleById(article.getId(), true).getStock().size();
+		bdd.getEntityManager().clear();
+
+		dao.createStock(new Stock(PARAM_DATE, article, 1, InOut.IN, "Article en cache"));
+		assertTrue(cache.contains(Article.class, article.getId()), "L'article a été retiré du cache partagé !");
+		bdd.getEntityManager().clear();
+		assertEquals(count + 1, cachedArticles.getArticleById(article.getId(), true).getStock().size(),
+				"L'article lu depuis le cache ne liste pas le nouveau stock !");
+	}
+
+	/**
+	 * @return the stored balance of the Article, read again from the database.
+	 */
+	protected int balance() throws DaoException {
+		DaoBddHelper.getInstance().getEntityManager().clear();
+		return articlesDao.getArticleBalance(article.getId()).getQuantity();
+	}
+
+	protected static List<Integer> ids(final List<Stock> stocks) {
+		return stocks.stream().map(Stock::getId).toList();
+	}
+}
@@ -0,0 +1,70 @@
+package edu.esiea.inventorymanager.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import edu.esiea.inventorymanager.dao.bddimp.DaoBddHelper;
+import edu.esiea.inventorymanager.dao.interfaces.IDaoBackend;
+import edu.esiea.inventorymanager.dao.interfaces.IStocksDao;
+
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class DaoFactoryTest {
+
+	private static final int THREADS = 8;
+
+	@BeforeAll
+	static void setUpBeforeClass() throws Exception {
+		DaoBddHelper.forceTestInstance();
+	}
+
+	@Test
+	@Order(1)
+	void testBackendsRegistered() {
+		List<String> names = ServiceLoader.load(IDaoBackend.class).stream().map(p -> p.get().getName()).toList();
+		assertTrue(names.contains("bdd"), "L'implémentation JPA des DAO n'est pas déclarée !");
+		assertTrue(names.contains("jdbc"), "L'implémentation JDBC des DAO n'est pas déclarée !");
+	}
+
+	@Test
+	@Order(2)
+	void testConcurrentGetters() throws Exception {
+		DaoBddHelper.forceTestInstance();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Future<IStocksDao>> results = new ArrayList<>();
+			for (int i = 0; i < THREADS; i++) {
+				Callable<IStocksDao> getter = () -> {
+					start.await();
+					return DaoFactory.getInstance().getStocksDao();
+				};
+				results.add(executor.submit(getter));
+			}
+			start.countDown();
+			IStocksDao first = results.getFirst().get();
+			for (Future<IStocksDao> result : results) {
+				assertSame(first, result.get(), "Plusieurs DAO ont été créés par des appels concurrents !");
+			}
+		} finally {
+			executor.shutdown();
+		}
+		assertEquals(DaoFactory.getInstance().getStocksDao(), DaoFactory.getInstance().getStocksDao(),
+				"Le DAO devrait être réutilisé d'un appel à l'autre !");
+	}
+}
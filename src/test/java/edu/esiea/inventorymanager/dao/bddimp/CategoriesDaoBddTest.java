@@ -3,11 +3,13 @@ package edu.esiea.inventorymanager.dao.bddimp;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.util.List;
 
+import javax.persistence.Cache;
 import javax.persistence.EntityManager;
 
 import org.junit.jupiter.api.AfterAll;
@@ -20,6 +22,7 @@ import org.junit.jupiter.api.TestMethodOrder;
 import edu.esiea.inventorymanager.dao.DaoFactory;
 import edu.esiea.inventorymanager.dao.interfaces.ICategoriesDao;
 import edu.esiea.inventorymanager.exception.DaoException;
+import edu.esiea.inventorymanager.exception.StaleDataException;
 import edu.esiea.inventorymanager.model.Category;
 
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
@@ -70,6 +73,20 @@ class CategoriesDaoBddTest {
 		assertTrue(categories.contains(category), "La catégorie créée avant n'est pas retournée !");
 	}
 
+	@Test
+	@Order(3)
+	void testGetCategoriesPage() throws DaoException {
+		List<Category> firstPage = dao.getCategoriesPage(0, 1);
+		assertEquals(1, firstPage.size(), "La première page devrait contenir une catégorie !");
+
+		List<Category> pageAfter = dao.getCategoriesPage(category.getId() - 1, 10);
+		assertTrue(pageAfter.contains(category), "La catégorie créée avant n'est pas dans sa page !");
+
+		List<Category> lastPage = dao.getCategoriesPage(category.getId(), 10);
+		assertTrue(lastPage.stream().allMatch(c -> c.getId() > category.getId()),
+				"La page contient des catégories antérieures au curseur !");
+	}
+
 	@Test
 	@Order(2)
 	void testGetCategoryById() throws DaoException {
@@ -92,6 +109,38 @@ class CategoriesDaoBddTest {
 
 	@Test
 	@Order(5)
+	void testGetCategoryByIdFromSharedCache() throws DaoException {
+		DaoBddHelper.getInstance().closeEntityManager();
+		Cache cache = DaoBddHelper.getInstance().getEntityManager().getEntityManagerFactory().getCache();
+		assertTrue(cache.contains(Category.class, category.getId()),
+				"La catégorie n'est pas dans le cache partagé !");
+
+		Category cachedCategory = dao.getCategoryById(category.getId());
+		assertEquals("Informatique", cachedCategory.getName(), "Le cache contient une version périmée !");
+	}
+
+	@Test
+	@Order(6)
+	void testUpdateStaleCategory() throws DaoException {
+		Category staleCategory = dao.getCategoryById(category.getId());
+		DaoBddHelper.getInstance().closeEntityManager();
+
+		Category freshCategory = dao.getCategoryById(category.getId());
+		freshCategory.setDescription("Ordinateurs et périphériques");
+		dao.updateCategory(freshCategory);
+		assertTrue(freshCategory.getVersion() > staleCategory.getVersion(), "La version n'a pas été incrémentée !");
+
+		staleCategory.setDescription(PARAM_DESCRIPTION);
+		assertThrows(StaleDataException.class, () -> dao.updateCategory(staleCategory),
+				"La modification d'une version périmée a été acceptée !");
+
+		category = dao.getCategoryById(category.getId());
+		assertEquals("Ordinateurs et périphériques", category.getDescription(),
+				"La modification périmée a écrasé la précédente !");
+	}
+
+	@Test
+	@Order(7)
 	void testDeleteCategory() throws DaoException {
 		dao.deleteCategory(category);
 		Category deletedCategory = dao.getCategoryById(category.getId());
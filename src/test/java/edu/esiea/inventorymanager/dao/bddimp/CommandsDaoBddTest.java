@@ -1,12 +1,15 @@
 package edu.esiea.inventorymanager.dao.bddimp;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.persistence.EntityManager;
@@ -21,7 +24,11 @@ import org.junit.jupiter.api.TestMethodOrder;
 import edu.esiea.inventorymanager.dao.DaoFactory;
 import edu.esiea.inventorymanager.dao.interfaces.ICommandsDao;
 import edu.esiea.inventorymanager.exception.DaoException;
+import edu.esiea.inventorymanager.model.Article;
 import edu.esiea.inventorymanager.model.Command;
+import edu.esiea.inventorymanager.model.CommandSummary;
+import edu.esiea.inventorymanager.model.InOut;
+import edu.esiea.inventorymanager.model.Stock;
 
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 class CommandsDaoBddTest {
@@ -30,6 +37,8 @@ class CommandsDaoBddTest {
 
 	private static final LocalDate PARAM_DATE = LocalDate.of(2025, 5, 27);
 	private static final String PARAM_COMMENT = "Commande test";
+	// allocation-size of the CommandIds generator in orm.xml
+	private static final int COMMAND_ALLOCATION_SIZE = 100;
 
 	private static ICommandsDao dao;
 
@@ -86,6 +95,27 @@ class CommandsDaoBddTest {
 		assertEquals(PARAM_COMMENT, fetchedCommand.getComment(), "Le commentaire de la commande est incorrect !");
 	}
 
+	@Test
+	@Order(3)
+	void testGetCommandByIdWithStocks() throws DaoException {
+		Command fetchedCommand = dao.getCommandById(command.getId(), true);
+
+		assertNotNull(fetchedCommand, "La commande récupérée est NULL !");
+		assertNotNull(fetchedCommand.getStocks(), "Les mouvements de stock n'ont pas été chargés !");
+		assertTrue(fetchedCommand.getStocks().isEmpty(), "La commande ne devrait avoir aucun mouvement de stock !");
+	}
+
+	@Test
+	@Order(3)
+	void testGetCommandSummaries() throws DaoException {
+		List<CommandSummary> summaries = dao.getCommandSummariesPage(command.getId() - 1, 1);
+
+		assertEquals(1, summaries.size(), "La page devrait contenir une seule commande !");
+		assertEquals(command.getId(), summaries.getFirst().id(), "La commande résumée est incorrecte !");
+		assertEquals(PARAM_COMMENT, summaries.getFirst().comment(), "Le commentaire de la commande est incorrect !");
+		assertEquals(0, summaries.getFirst().stockCount(), "La commande ne devrait avoir aucun mouvement de stock !");
+	}
+
 	@Test
 	@Order(4)
 	void testUpdateCommand() throws DaoException {
@@ -98,6 +128,36 @@ class CommandsDaoBddTest {
 		assertEquals("Commande modifiée", updatedCommand.getComment(), "Le commentaire n'a pas été mis à jour !");
 	}
 
+	@Test
+	@Order(4)
+	void testCreateCommandIdFromAllocatedBlock() throws DaoException {
+		final int reserved = reservedCommandIds();
+		Command nextCommand = dao.createCommand(new Command(PARAM_DATE, null, PARAM_COMMENT));
+		final int reservedAfter = reservedCommandIds();
+
+		// a new block is only reserved once the ids of the current one are used
+		if (command.getId() < reserved) {
+			assertEquals(reserved, reservedAfter, "Un nouveau bloc a été réservé avant la fin du bloc courant !");
+		}
+		assertTrue(
+				nextCommand.getId() > reservedAfter - COMMAND_ALLOCATION_SIZE && nextCommand.getId() <= reservedAfter,
+				"L'ID devrait être pris dans le bloc réservé !");
+		assertTrue(dao.deleteCommandById(nextCommand.getId()), "La commande créée n'a pas pu être supprimée !");
+	}
+
+	@Test
+	@Order(5)
+	void testCreateCommandInFailedUnitOfWork() throws DaoException {
+		final int[] createdId = new int[1];
+		assertThrows(DaoException.class, () -> DaoFactory.getInstance().inTransaction(daos -> {
+			createdId[0] = daos.getCommandsDao().createCommand(new Command(PARAM_DATE, null, PARAM_COMMENT)).getId();
+			throw new DaoException("Échec de la suite de la transaction");
+		}), "L'échec de la transaction n'a pas été remonté !");
+
+		assertTrue(createdId[0] > 0, "La commande n'a pas été créée dans la transaction !");
+		assertNull(dao.getCommandById(createdId[0]), "La commande d'une transaction annulée a été enregistrée !");
+	}
+
 	@Test
 	@Order(5)
 	void testDeleteCommand() throws DaoException {
@@ -105,4 +165,51 @@ class CommandsDaoBddTest {
 		Command deletedCommand = dao.getCommandById(command.getId());
 		assertNull(deletedCommand, "La commande n'a pas été supprimée !");
 	}
-}
\ No newline at end of file
+
+	@Test
+	@Order(6)
+	void testDeleteUnknownCommand() throws DaoException {
+		assertFalse(dao.deleteCommandById(command.getId()),
+				"Une commande déjà supprimée ne peut pas l'être à nouveau !");
+	}
+
+	@Test
+	@Order(7)
+	void testUpdateCommandDroppingStock() throws DaoException {
+		final Article article = DaoFactory.getInstance().getArticlesDao()
+				.createArticle(new Article("Clavier", "1234567890215", "Logitech", "image.jpg", 49.99f, "Un clavier"));
+		final Stock stored = DaoFactory.getInstance().getStocksDao()
+				.createStock(new Stock(PARAM_DATE, article, 10, InOut.IN, "Stock existant"));
+		final Command withStocks = dao.createCommand(new Command(PARAM_DATE,
+				new ArrayList<>(List.of(stored, new Stock(PARAM_DATE, article, 5, InOut.IN, "Stock nouveau"))),
+				PARAM_COMMENT));
+		assertEquals(15, balance(article),
+				"Un stock déjà enregistré a été recompté à la création de la commande !");
+
+		final Command reloaded = dao.getCommandById(withStocks.getId(), true);
+		reloaded.getStocks().removeIf(sto -> sto.getId() == stored.getId());
+		dao.updateCommand(reloaded);
+		assertNull(DaoFactory.getInstance().getStocksDao().getStockById(stored.getId()),
+				"Le stock retiré de la commande n'a pas été supprimé !");
+		assertEquals(5, balance(article), "Le stock retiré de la commande est resté dans le stock de l'article !");
+
+		assertTrue(dao.deleteCommandById(withStocks.getId()), "La commande n'a pas pu être supprimée !");
+		assertEquals(0, balance(article), "Les stocks de la commande supprimée sont restés dans le stock !");
+		DaoFactory.getInstance().getArticlesDao().deleteArticleById(article.getId());
+	}
+
+	private static int balance(final Article article) throws DaoException {
+		// the balances are moved by bulk updates, which the managed entities ignore
+		DaoBddHelper.getInstance().getEntityManager().clear();
+		return DaoFactory.getInstance().getArticlesDao().getArticleBalance(article.getId()).getQuantity();
+	}
+
+	/**
+	 * @return the last Command id reserved in the IdSequence table.
+	 */
+	private static int reservedCommandIds() throws DaoException {
+		return ((Number) DaoBddHelper.getInstance().getEntityManager()
+				.createNativeQuery("SELECT NextValue FROM IdSequence WHERE Name = 'Command'").getSingleResult())
+				.intValue();
+	}
+}
@@ -0,0 +1,154 @@
+package edu.esiea.inventorymanager.dao.bddimp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import org.eclipse.persistence.internal.sessions.AbstractSession;
+import org.eclipse.persistence.jpa.JpaQuery;
+import org.eclipse.persistence.queries.DatabaseQuery;
+import org.eclipse.persistence.sessions.DatabaseRecord;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class SchemaMigrationsTest {
+
+	/**
+	 * Named queries looking up rows by a foreign key or a filtered column : each
+	 * one must go through an index.
+	 */
+	private static final List<String> INDEXED_QUERIES = List.of("Stock.findByArticleId", "Stock.findAllbyTransferType",
+			"Stock.sumQuantityByArticleIdGroupByDateAndTransferType", "Stock.deleteByArticleId",
+			"Stock.deleteByCommandId", "Stock.findByCommandId", "Stock.findPageByCommandId",
+			"Stock.findMovementsByCommandId",
+			"Article.findByStockId", "Article.findAllByCategoryId",
+			"Article.findPageByCategoryId", "Article.countByCategoryId");
+
+	private static DaoBddHelper bdd;
+
+	@BeforeAll
+	static void setUpBeforeClass() throws Exception {
+		bdd = DaoBddHelper.forceTestInstance();
+	}
+
+	@AfterAll
+	static void tearDownAfterClass() throws Exception {
+		bdd.closeEntityManager();
+	}
+
+	@Test
+	@Order(1)
+	void testMigrationsApplied() throws SQLException, IOException {
+		bdd.beginTransaction();
+		try {
+			final Connection connection = bdd.getEntityManager().unwrap(Connection.class);
+			int last = 0;
+			while (SchemaMigrations.class.getResource(String.format(SchemaMigrations.LOCATION, last + 1)) != null) {
+				last++;
+			}
+			assertEquals(last, SchemaMigrations.currentVersion(connection),
+					"Toutes les migrations n'ont pas été appliquées au schéma !");
+			assertEquals(0, SchemaMigrations.migrate(connection), "Une migration déjà appliquée a été rejouée !");
+		} finally {
+			bdd.rollBackTransaction();
+		}
+	}
+
+	@Test
+	@Order(2)
+	void testNamedQueriesUseIndexes() throws SQLException {
+		final EntityManager em = bdd.getEntityManager();
+		final AbstractSession session = em.unwrap(AbstractSession.class);
+		bdd.beginTransaction();
+		try (Statement statement = em.unwrap(Connection.class).createStatement()) {
+			for (final String name : INDEXED_QUERIES) {
+				final DatabaseQuery query = em.createNamedQuery(name).unwrap(JpaQuery.class).getDatabaseQuery();
+				query.prepareCall(session, new DatabaseRecord());
+				final String sql = query.getSQLString();
+				try (ResultSet rs = statement.executeQuery("EXPLAIN PLAN FOR " + sql)) {
+					final StringBuilder plan = new StringBuilder();
+					while (rs.next()) {
+						plan.append(rs.getString(1)).append('\n');
+					}
+					assertFalse(plan.toString().contains("FULL SCAN"),
+							"La requête " + name + " parcourt toute une table : " + sql + "\n" + plan);
+				}
+			}
+		} finally {
+			bdd.rollBackTransaction();
+		}
+	}
+
+	@Test
+	@Order(3)
+	void testIndexAlreadyCreated() throws SQLException {
+		bdd.beginTransaction();
+		try {
+			SchemaMigrations.apply(bdd.getEntityManager().unwrap(Connection.class),
+					"CREATE INDEX IX_Stock_Command ON Stock (Command)");
+		} finally {
+			bdd.rollBackTransaction();
+		}
+	}
+
+	@Test
+	@Order(4)
+	void testUniqueIndexOnDuplicates() throws SQLException {
+		bdd.beginTransaction();
+		final Connection connection = bdd.getEntityManager().unwrap(Connection.class);
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("CREATE TABLE MigrationCheck (Code VARCHAR(13))");
+			try {
+				statement.execute("INSERT INTO MigrationCheck (Code) VALUES ('1234567890123'), ('1234567890123')");
+				final SQLException e = assertThrows(SQLException.class, () -> SchemaMigrations.apply(connection,
+						"CREATE UNIQUE INDEX UX_MigrationCheck_Code ON MigrationCheck (Code)"),
+						"Un index unique a été créé sur des valeurs en double !");
+				assertTrue(e.getMessage().contains("1234567890123"), "Les valeurs en double ne sont pas indiquées.");
+			} finally {
+				statement.execute("DROP TABLE MigrationCheck");
+			}
+		} finally {
+			bdd.rollBackTransaction();
+		}
+	}
+
+	@Test
+	@Order(5)
+	void testBalancesBackfilled() throws SQLException, IOException {
+		bdd.beginTransaction();
+		final Connection connection = bdd.getEntityManager().unwrap(Connection.class);
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("DELETE FROM ArticleBalance");
+			// run twice : the Articles which already have a balance are skipped
+			for (int i = 0; i < 2; i++) {
+				for (final String sql : SchemaMigrations.read(2).statements()) {
+					SchemaMigrations.apply(connection, sql);
+				}
+			}
+			try (ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM Article art "
+					+ "LEFT JOIN ArticleBalance bal ON bal.ArticleId = art.Id WHERE bal.Quantity IS NULL "
+					+ "OR bal.Quantity <> (SELECT COALESCE(SUM(CASE WHEN sto.TransferType = 'IN' THEN sto.Quantity "
+					+ "ELSE 0 - sto.Quantity END), 0) FROM Stock sto WHERE sto.Article = art.Id)")) {
+				rs.next();
+				assertEquals(0, rs.getInt(1), "Le stock de certains articles n'a pas été recalculé !");
+			}
+		} finally {
+			bdd.rollBackTransaction();
+		}
+	}
+}
@@ -0,0 +1,68 @@
+package edu.esiea.inventorymanager.dao.bddimp;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.persistence.EntityManager;
+
+import org.eclipse.persistence.jpa.JpaEntityManager;
+import org.eclipse.persistence.sessions.SessionEvent;
+import org.eclipse.persistence.sessions.SessionEventAdapter;
+import org.eclipse.persistence.sessions.server.ServerSession;
+
+import edu.esiea.inventorymanager.exception.DaoException;
+
+/**
+ * Counts the SQL statements really sent to the test database, whatever the
+ * thread sending them. It starts with an empty shared cache, so that what is
+ * counted does not depend on the tests run before.
+ * <p>
+ * The sessions of the Entity Managers copy the listeners of the server session
+ * when they are opened : the Entity Manager of the current thread is closed on
+ * install and on close, and the other threads must open a new one (one per
+ * HTTP request).
+ */
+public final class StatementCounter extends SessionEventAdapter implements AutoCloseable {
+
+	private final AtomicInteger statements = new AtomicInteger();
+	private final ServerSession server;
+
+	private StatementCounter(final ServerSession server) {
+		this.server = server;
+	}
+
+	/**
+	 * Starts counting the statements sent by the Entity Managers opened from now
+	 * on.
+	 */
+	public static StatementCounter install() throws DaoException {
+		final DaoBddHelper bdd = DaoBddHelper.getInstance();
+		final EntityManager em = bdd.getEntityManager();
+		em.getEntityManagerFactory().getCache().evictAll();
+		final StatementCounter counter = new StatementCounter(em.unwrap(JpaEntityManager.class).getServerSession());
+		bdd.closeEntityManager();
+		counter.server.getEventManager().addListener(counter);
+		return counter;
+	}
+
+	@Override
+	public void preExecuteCall(final SessionEvent event) {
+		this.statements.incrementAndGet();
+	}
+
+	/**
+	 * @return the number of statements sent since the last reset.
+	 */
+	public int count() {
+		return this.statements.get();
+	}
+
+	public void reset() {
+		this.statements.set(0);
+	}
+
+	@Override
+	public void close() throws DaoException {
+		this.server.getEventManager().removeListener(this);
+		DaoBddHelper.getInstance().closeEntityManager();
+	}
+}
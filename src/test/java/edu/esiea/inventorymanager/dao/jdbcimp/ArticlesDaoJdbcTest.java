@@ -0,0 +1,17 @@
+package edu.esiea.inventorymanager.dao.jdbcimp;
+
+import edu.esiea.inventorymanager.dao.AbstractArticlesDaoTest;
+import edu.esiea.inventorymanager.dao.interfaces.IArticlesDao;
+import edu.esiea.inventorymanager.exception.DaoException;
+
+class ArticlesDaoJdbcTest extends AbstractArticlesDaoTest {
+
+	ArticlesDaoJdbcTest() {
+		super("1234567890147");
+	}
+
+	@Override
+	protected IArticlesDao createDao() throws DaoException {
+		return new ArticlesDaoJdbc();
+	}
+}
@@ -0,0 +1,52 @@
+package edu.esiea.inventorymanager.dao.jdbcimp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+
+import edu.esiea.inventorymanager.dao.AbstractStocksDaoTest;
+import edu.esiea.inventorymanager.dao.bddimp.StocksDaoBdd;
+import edu.esiea.inventorymanager.dao.interfaces.IArticlesDao;
+import edu.esiea.inventorymanager.dao.interfaces.IStocksDao;
+import edu.esiea.inventorymanager.exception.DaoException;
+import edu.esiea.inventorymanager.model.InOut;
+import edu.esiea.inventorymanager.model.Stock;
+
+class StocksDaoJdbcTest extends AbstractStocksDaoTest {
+
+	StocksDaoJdbcTest() {
+		super("1234567890154");
+	}
+
+	@Override
+	protected IStocksDao createDao() throws DaoException {
+		return new StocksDaoJdbc();
+	}
+
+	@Override
+	protected IArticlesDao createArticlesDao() throws DaoException {
+		return new ArticlesDaoJdbc();
+	}
+
+	@Test
+	@Order(12)
+	void testSameResultsAsJpa() throws DaoException {
+		final Stock out = dao.createStock(new Stock(PARAM_DATE.plusDays(1), article, 30, InOut.OUT, "Sortie"));
+		final IStocksDao bdd = new StocksDaoBdd();
+
+		assertEquals(dao.sumQuantityByArticle(), bdd.sumQuantityByArticle(),
+				"Les stocks calculés par JDBC et par JPA diffèrent !");
+		assertEquals(dao.sumByArticleAndTransferType(PARAM_DATE, PARAM_DATE.plusDays(1)),
+				bdd.sumByArticleAndTransferType(PARAM_DATE, PARAM_DATE.plusDays(1)),
+				"Les mouvements calculés par JDBC et par JPA diffèrent !");
+		assertEquals(dao.dailyTotals(article.getId(), PARAM_DATE.minusDays(1), PARAM_DATE.plusDays(1)),
+				bdd.dailyTotals(article.getId(), PARAM_DATE.minusDays(1), PARAM_DATE.plusDays(1)),
+				"Les mouvements journaliers calculés par JDBC et par JPA diffèrent !");
+		assertEquals(ids(dao.searchStocks(article.getId(), InOut.OUT, PARAM_DATE, null, 10)),
+				ids(bdd.searchStocks(article.getId(), InOut.OUT, PARAM_DATE, null, 10)),
+				"Les recherches par JDBC et par JPA diffèrent !");
+
+		dao.deleteStock(out);
+	}
+}
@@ -0,0 +1,133 @@
+package edu.esiea.inventorymanager.dao.ledger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.esiea.inventorymanager.model.Article;
+import edu.esiea.inventorymanager.model.InOut;
+import edu.esiea.inventorymanager.model.Stock;
+
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class StockColumnsTest {
+
+	private static final LocalDate PARAM_DATE = LocalDate.of(2025, 1, 1);
+	private static final int MOVEMENTS = 1000;
+
+	@TempDir
+	static Path directory;
+
+	private static StockLedger ledger;
+	private static StockColumns columns;
+
+	@BeforeAll
+	static void setUpBeforeClass() throws Exception {
+		ledger = StockLedger.open(directory, 256);
+		// three Articles, one movement a day, every fourth one OUT
+		for (int i = 0; i < MOVEMENTS; i++) {
+			final Article article = new Article();
+			article.setId(1 + i % 3);
+			final Stock sto = new Stock(PARAM_DATE.plusDays(i), article, 1 + i % 10, i % 4 == 3 ? InOut.OUT : InOut.IN,
+					"Mouvement");
+			sto.setId(i + 1);
+			ledger.append(sto);
+		}
+		columns = StockColumns.load(ledger);
+	}
+
+	@AfterAll
+	static void tearDownAfterClass() throws Exception {
+		ledger.close();
+		ledger = null;
+		columns = null;
+	}
+
+	@Test
+	@Order(1)
+	void testTotals() {
+		long in = 0;
+		long out = 0;
+		for (int i = 0; i < MOVEMENTS; i++) {
+			if (i % 4 == 3) {
+				out += 1 + i % 10;
+			} else {
+				in += 1 + i % 10;
+			}
+		}
+
+		final StockTotals totals = columns.totals();
+		assertEquals(MOVEMENTS, columns.size(), "Tous les mouvements n'ont pas été chargés !");
+		assertEquals(MOVEMENTS, totals.movements(), "Le nombre de mouvements est incorrect !");
+		assertEquals(in, totals.quantityIn(), "La somme des entrées est incorrecte !");
+		assertEquals(out, totals.quantityOut(), "La somme des sorties est incorrecte !");
+	}
+
+	@Test
+	@Order(2)
+	void testTotalsOfDateRange() {
+		// days 10 to 13 : quantities 1 IN, 2 OUT, 3 IN and 4 IN
+		final StockTotals totals = columns.totals(PARAM_DATE.plusDays(10), PARAM_DATE.plusDays(13));
+
+		assertEquals(4, totals.movements(), "Le nombre de mouvements de la période est incorrect !");
+		assertEquals(8, totals.quantityIn(), "La somme des entrées de la période est incorrecte !");
+		assertEquals(2, totals.quantityOut(), "La somme des sorties de la période est incorrecte !");
+	}
+
+	@Test
+	@Order(3)
+	void testTotalsOfArticle() {
+		// days 0 to 11 of Article 1 : days 0, 3, 6 and 9, quantities 1 IN, 4 OUT,
+		// 7 IN, 10 IN
+		final StockTotals totals = columns.totalsOfArticle(1, PARAM_DATE, PARAM_DATE.plusDays(11));
+
+		assertEquals(4, totals.movements(), "Le nombre de mouvements de l'article est incorrect !");
+		assertEquals(14, totals.balance(), "Le stock de l'article sur la période est incorrect !");
+	}
+
+	@Test
+	@Order(4)
+	void testBalances() {
+		final Map<Integer, Long> balances = columns.balances();
+
+		ledger.balances().forEach((id, balance) -> assertEquals(balance.longValue(), balances.get(id),
+				"Le stock de l'article " + id + " ne correspond pas au registre !"));
+		assertEquals(ledger.balances().size(), balances.size(), "Le nombre d'articles est incorrect !");
+	}
+
+	@Test
+	@Order(5)
+	void testBalancesOfAnyArticleId() throws Exception {
+		try (StockLedger other = StockLedger.open(directory.resolve("ids"), 256)) {
+			// the highest and a negative id, an Article back to 0 and a Stock without
+			// Article
+			final int[] articleIds = { Integer.MAX_VALUE, -5, 7, 7, 0 };
+			final InOut[] transferTypes = { InOut.IN, InOut.OUT, InOut.IN, InOut.OUT, InOut.IN };
+			for (int i = 0; i < articleIds.length; i++) {
+				Article article = null;
+				if (articleIds[i] != 0) {
+					article = new Article();
+					article.setId(articleIds[i]);
+				}
+				final Stock sto = new Stock(PARAM_DATE, article, 3, transferTypes[i], "Mouvement");
+				sto.setId(i + 1);
+				other.append(sto);
+			}
+
+			final Map<Integer, Long> balances = StockColumns.load(other).balances();
+			assertEquals(Map.of(Integer.MAX_VALUE, 3L, -5, -3L, 7, 0L), balances,
+					"Les stocks ne correspondent pas au registre !");
+			assertEquals(other.balances().keySet(), balances.keySet(),
+					"Les articles ne correspondent pas à ceux du registre !");
+		}
+	}
+}
@@ -0,0 +1,156 @@
+package edu.esiea.inventorymanager.dao.ledger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.esiea.inventorymanager.dao.memimp.ArticlesDaoMem;
+import edu.esiea.inventorymanager.dao.memimp.DaoMemHelper;
+import edu.esiea.inventorymanager.dao.memimp.StocksDaoMem;
+import edu.esiea.inventorymanager.exception.DaoException;
+import edu.esiea.inventorymanager.model.Article;
+import edu.esiea.inventorymanager.model.InOut;
+import edu.esiea.inventorymanager.model.Stock;
+
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class StockLedgerTest {
+
+	private static final LocalDate PARAM_DATE = LocalDate.of(2025, 5, 27);
+	private static final String PARAM_COMMENT = "Réception";
+
+	@TempDir
+	static Path directory;
+
+	private static StockLedger ledger;
+	private static Article phone;
+	private static Article tablet;
+
+	@BeforeAll
+	static void setUpBeforeClass() throws Exception {
+		phone = new Article();
+		phone.setId(1);
+		tablet = new Article();
+		tablet.setId(2);
+
+		// small segments, so that the records span several files
+		ledger = StockLedger.open(directory, 4);
+	}
+
+	@AfterAll
+	static void tearDownAfterClass() throws Exception {
+		ledger.close();
+		ledger = null;
+	}
+
+	@Test
+	@Order(1)
+	void testAppend() throws DaoException {
+		for (int i = 1; i <= 10; i++) {
+			final Stock sto = new Stock(PARAM_DATE.plusDays(i), i % 2 == 0 ? tablet : phone, 10 * i,
+					i % 3 == 0 ? InOut.OUT : InOut.IN, i == 10 ? null : PARAM_COMMENT);
+			sto.setId(i);
+			assertEquals(i - 1, ledger.append(sto), "Le numéro du mouvement est incorrect !");
+		}
+
+		assertEquals(10, ledger.size(), "Le nombre de mouvements est incorrect !");
+		assertTrue(Files.exists(directory.resolve("stocks-00002.ledger")),
+				"Le troisième segment n'a pas été créé !");
+	}
+
+	@Test
+	@Order(2)
+	void testForEach() {
+		final List<Stock> stocks = new ArrayList<>();
+		final List<String> comments = new ArrayList<>();
+		ledger.forEach(rec -> {
+			stocks.add(rec.toStock());
+			comments.add(rec.getComment());
+		});
+
+		assertEquals(10, stocks.size(), "Tous les mouvements n'ont pas été lus !");
+		final Stock third = stocks.get(2);
+		assertEquals(3, third.getId(), "L'ID du mouvement est incorrect !");
+		assertEquals(PARAM_DATE.plusDays(3), third.getDate(), "La date du mouvement est incorrecte !");
+		assertEquals(30, third.getQuantity(), "La quantité du mouvement est incorrecte !");
+		assertEquals(InOut.OUT, third.getTransferType(), "Le type de transfert est incorrect !");
+		assertEquals(phone.getId(), third.getArticle().getId(), "L'article du mouvement est incorrect !");
+		assertSame(comments.get(0), comments.get(1), "Le commentaire n'est pas partagé par le dictionnaire !");
+		assertNull(comments.get(9), "Un mouvement sans commentaire a été lu avec un commentaire !");
+	}
+
+	@Test
+	@Order(3)
+	void testForEachOfArticle() {
+		final List<Integer> ids = new ArrayList<>();
+		ledger.forEachOfArticle(tablet.getId(), rec -> ids.add(rec.getStockId()));
+
+		assertEquals(List.of(2, 4, 6, 8, 10), ids, "Les mouvements de l'article sont incorrects !");
+	}
+
+	@Test
+	@Order(4)
+	void testBalances() {
+		final Map<Integer, Integer> balances = ledger.balances();
+
+		// phone : 10 - 30 + 50 + 70 - 90, tablet : 20 + 40 - 60 + 80 + 100
+		assertEquals(10, balances.get(phone.getId()), "Le stock rejoué du premier article est incorrect !");
+		assertEquals(180, balances.get(tablet.getId()), "Le stock rejoué du second article est incorrect !");
+	}
+
+	@Test
+	@Order(5)
+	void testReopenAfterCrash() throws IOException, DaoException {
+		ledger.close();
+		// the last index entries are lost, as if the process had stopped between
+		// the writes of the records and of their entries
+		try (FileChannel index = FileChannel.open(directory.resolve("articles.idx"), StandardOpenOption.WRITE)) {
+			index.truncate(index.size() - 30);
+		}
+		ledger = StockLedger.open(directory, 1024);
+
+		assertEquals(10, ledger.size(), "Les mouvements n'ont pas été relus !");
+		final List<Integer> ids = new ArrayList<>();
+		ledger.forEachOfArticle(tablet.getId(), rec -> ids.add(rec.getStockId()));
+		assertEquals(List.of(2, 4, 6, 8, 10), ids, "L'index n'a pas été reconstruit !");
+
+		final Stock next = new Stock(PARAM_DATE, phone, 5, InOut.IN, "Inventaire");
+		next.setId(11);
+		ledger.append(next);
+		assertEquals(15, ledger.balances().get(phone.getId()), "Le segment existant n'a pas été complété !");
+	}
+
+	@Test
+	@Order(6)
+	void testAppendAll() throws IOException, DaoException {
+		DaoMemHelper.forceTestInstance();
+		final Article article = new ArticlesDaoMem()
+				.createArticle(new Article("Smartphone", "1234567890123", "Samsung", "image.jpg", 999.99f, "Un"));
+		final StocksDaoMem stocks = new StocksDaoMem();
+		stocks.createStock(new Stock(PARAM_DATE, article, 7, InOut.IN, PARAM_COMMENT));
+		stocks.createStock(new Stock(PARAM_DATE, article, 2, InOut.OUT, PARAM_COMMENT));
+
+		try (StockLedger exported = StockLedger.open(directory.resolve("export"))) {
+			assertEquals(2, exported.appendAll(stocks), "Tous les stocks n'ont pas été inscrits !");
+			assertEquals(5, exported.balances().get(article.getId()), "Le stock rejoué est incorrect !");
+		}
+	}
+}
@@ -0,0 +1,122 @@
+package edu.esiea.inventorymanager.dao.memimp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import edu.esiea.inventorymanager.dao.interfaces.IArticlesDao;
+import edu.esiea.inventorymanager.exception.DaoException;
+import edu.esiea.inventorymanager.model.Article;
+import edu.esiea.inventorymanager.model.ArticleSummary;
+import edu.esiea.inventorymanager.model.Category;
+import edu.esiea.inventorymanager.model.InOut;
+import edu.esiea.inventorymanager.model.Stock;
+
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class ArticlesDaoMemTest {
+
+	private static Article article;
+	private static Category category;
+
+	private static IArticlesDao dao;
+
+	@BeforeAll
+	static void setUpBeforeClass() throws Exception {
+		DaoMemHelper.forceTestInstance();
+		category = new CategoriesDaoMem().createCategory(new Category("Téléphonie", "Smartphones"));
+		article = new Article("Smartphone", "1234567890123", "Samsung", "image.jpg", 999.99f, "Un smartphone puissant");
+		article.setCategory(category);
+
+		dao = new ArticlesDaoMem();
+	}
+
+	@AfterAll
+	static void tearDownAfterClass() throws Exception {
+		article = null;
+		category = null;
+	}
+
+	@Test
+	@Order(1)
+	void testCreateArticle() throws DaoException {
+		article = dao.createArticle(article);
+
+		assertTrue(article.getId() > 0, "L'ID de l'article est invalide !");
+		assertEquals(0, dao.getArticleBalance(article.getId()).getQuantity(), "Le stock initial doit être nul !");
+	}
+
+	@Test
+	@Order(2)
+	void testGetArticleById() throws DaoException {
+		Article fetched = dao.getArticleById(article.getId());
+
+		assertNotNull(fetched, "L'article récupéré est NULL !");
+		assertEquals(article.getName(), fetched.getName(), "Le nom de l'article est incorrect !");
+		assertEquals(category.getId(), fetched.getCategory().getId(), "La catégorie de l'article est incorrecte !");
+		assertNull(fetched.getStock(), "Les stocks ne doivent pas être lus sans être demandés !");
+		assertEquals(List.of(article.getId()),
+				dao.getAllArticlesByCategoryId(category.getId()).stream().map(Article::getId).toList(),
+				"L'article n'est pas retrouvé par sa catégorie !");
+	}
+
+	@Test
+	@Order(3)
+	void testGetArticleWithStocks() throws DaoException {
+		new StocksDaoMem().createStock(new Stock(LocalDate.of(2025, 5, 27), article, 10, InOut.IN, "Entrée"));
+
+		Article fetched = dao.getArticleById(article.getId(), true);
+		assertEquals(1, fetched.getStock().size(), "Les stocks de l'article n'ont pas été lus !");
+		assertTrue(fetched.getStock().getFirst().getArticle() == fetched,
+				"Les stocks doivent référencer l'article lu avec eux !");
+
+		ArticleSummary summary = dao.getAllArticleSummaries().getFirst();
+		assertEquals(category.getName(), summary.categoryName(), "La catégorie du résumé est incorrecte !");
+		assertEquals(10, summary.onHand(), "Le stock du résumé est incorrect !");
+	}
+
+	@Test
+	@Order(4)
+	void testRollBack() throws DaoException {
+		DaoMemHelper mem = DaoMemHelper.getInstance();
+		mem.beginTransaction();
+		Article rolledBack = dao.createArticle(new Article("Tablette", "1234567890124", "Samsung", "image.jpg",
+				499.99f, "Une tablette"));
+		new StocksDaoMem().createStock(new Stock(LocalDate.of(2025, 5, 27), article, 5, InOut.OUT, "Sortie"));
+		mem.rollBackTransaction();
+
+		assertNull(dao.getArticleById(rolledBack.getId()), "L'article annulé a été conservé !");
+		assertEquals(10, dao.getArticleBalance(article.getId()).getQuantity(),
+				"Le mouvement annulé a été compté dans le stock de l'article !");
+	}
+
+	@Test
+	@Order(5)
+	void testDeleteCategoryInUse() {
+		assertThrows(DaoException.class, () -> new CategoriesDaoMem().deleteCategory(category),
+				"Une catégorie utilisée par un article a été supprimée !");
+	}
+
+	@Test
+	@Order(6)
+	void testDeleteArticle() throws DaoException {
+		assertTrue(dao.deleteArticleById(article.getId()), "L'article n'a pas été supprimé !");
+
+		assertNull(dao.getArticleById(article.getId()), "L'article supprimé est toujours lu !");
+		assertTrue(new StocksDaoMem().getAllStocks().isEmpty(), "Les stocks de l'article n'ont pas été supprimés !");
+		assertNull(dao.getArticleBalance(article.getId()), "Le stock de l'article supprimé est toujours lu !");
+		assertFalse(dao.deleteArticleById(article.getId()), "Un article absent ne peut pas être supprimé !");
+	}
+}
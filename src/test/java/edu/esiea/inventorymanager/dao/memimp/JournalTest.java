@@ -0,0 +1,205 @@
+package edu.esiea.inventorymanager.dao.memimp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import edu.esiea.inventorymanager.dao.memimp.MemStore.CategoryRow;
+import edu.esiea.inventorymanager.exception.DaoException;
+
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class JournalTest {
+
+	private static Path file;
+
+	@BeforeAll
+	static void setUpBeforeClass() throws IOException {
+		file = Files.createTempFile("journal", ".journal");
+	}
+
+	@AfterAll
+	static void tearDownAfterClass() throws IOException {
+		Files.deleteIfExists(file);
+	}
+
+	@Test
+	@Order(1)
+	void testReplayAfterTornAppend() throws IOException {
+		final FailingChannel channel = new FailingChannel(
+				FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE));
+		try (Journal journal = Journal.open(file, channel, false, new MemStore())) {
+			journal.append(frame(new CategoryRow(1, 1, "Avant", null)));
+			channel.failNextWrite = true;
+			assertThrows(IOException.class, () -> journal.append(frame(new CategoryRow(2, 1, "Déchirée", null))),
+					"L'échec de l'écriture n'a pas été remonté !");
+			journal.append(frame(new CategoryRow(3, 1, "Après", null)));
+		}
+
+		final MemStore store = new MemStore();
+		try (Journal journal = Journal.open(file, false, store)) {
+			assertNotNull(store.category(1), "La transaction écrite avant l'échec n'a pas été rejouée !");
+			assertNull(store.category(2), "La transaction déchirée a été rejouée !");
+			assertNotNull(store.category(3), "La transaction écrite après l'échec n'a pas été rejouée !");
+			assertEquals("Après", store.category(3).name(), "La transaction rejouée est incorrecte.");
+		}
+	}
+
+	@Test
+	@Order(2)
+	void testIdNotReusedAfterRestart() throws IOException, DaoException {
+		final Path restarted = Files.createTempFile("journal", ".journal");
+		try {
+			final DaoMemHelper before = DaoMemHelper.replaceInstance(DaoMemHelper.open(restarted, false));
+			final int id = before.write("Création impossible", store -> {
+				final int allocated = before.nextCategoryId();
+				before.put(new CategoryRow(allocated, 1, "Supprimée", null));
+				return allocated;
+			});
+			before.write("Suppression impossible", store -> {
+				before.removeCategory(id);
+				return null;
+			});
+
+			final DaoMemHelper after = DaoMemHelper.replaceInstance(DaoMemHelper.open(restarted, false));
+			assertEquals(id + 1, (int) after.write("Allocation impossible", store -> after.nextCategoryId()),
+					"L'id d'une catégorie supprimée a été réattribué après le redémarrage !");
+		} finally {
+			DaoMemHelper.forceTestInstance();
+			Files.deleteIfExists(restarted);
+		}
+	}
+
+	private static Journal.Frame frame(final CategoryRow row) {
+		final Journal.Frame frame = new Journal.Frame();
+		frame.put(row);
+		return frame;
+	}
+
+	/**
+	 * Channel which can write half of a buffer and then fail, as a full disk
+	 * would.
+	 */
+	private static final class FailingChannel extends FileChannel {
+
+		private final FileChannel delegate;
+		private boolean failNextWrite;
+
+		FailingChannel(final FileChannel delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public int write(final ByteBuffer src) throws IOException {
+			if (!this.failNextWrite) {
+				return this.delegate.write(src);
+			}
+			this.failNextWrite = false;
+			final ByteBuffer half = src.slice(src.position(), src.remaining() / 2);
+			src.position(src.position() + this.delegate.write(half));
+			throw new IOException("Plus de place sur le disque");
+		}
+
+		@Override
+		public int read(final ByteBuffer dst) throws IOException {
+			return this.delegate.read(dst);
+		}
+
+		@Override
+		public long read(final ByteBuffer[] dsts, final int offset, final int length) throws IOException {
+			return this.delegate.read(dsts, offset, length);
+		}
+
+		@Override
+		public long write(final ByteBuffer[] srcs, final int offset, final int length) throws IOException {
+			return this.delegate.write(srcs, offset, length);
+		}
+
+		@Override
+		public long position() throws IOException {
+			return this.delegate.position();
+		}
+
+		@Override
+		public FileChannel position(final long newPosition) throws IOException {
+			this.delegate.position(newPosition);
+			return this;
+		}
+
+		@Override
+		public long size() throws IOException {
+			return this.delegate.size();
+		}
+
+		@Override
+		public FileChannel truncate(final long size) throws IOException {
+			this.delegate.truncate(size);
+			return this;
+		}
+
+		@Override
+		public void force(final boolean metaData) throws IOException {
+			this.delegate.force(metaData);
+		}
+
+		@Override
+		public long transferTo(final long position, final long count, final WritableByteChannel target)
+				throws IOException {
+			return this.delegate.transferTo(position, count, target);
+		}
+
+		@Override
+		public long transferFrom(final ReadableByteChannel src, final long position, final long count)
+				throws IOException {
+			return this.delegate.transferFrom(src, position, count);
+		}
+
+		@Override
+		public int read(final ByteBuffer dst, final long position) throws IOException {
+			return this.delegate.read(dst, position);
+		}
+
+		@Override
+		public int write(final ByteBuffer src, final long position) throws IOException {
+			return this.delegate.write(src, position);
+		}
+
+		@Override
+		public MappedByteBuffer map(final MapMode mode, final long position, final long size) throws IOException {
+			return this.delegate.map(mode, position, size);
+		}
+
+		@Override
+		public FileLock lock(final long position, final long size, final boolean shared) throws IOException {
+			return this.delegate.lock(position, size, shared);
+		}
+
+		@Override
+		public FileLock tryLock(final long position, final long size, final boolean shared) throws IOException {
+			return this.delegate.tryLock(position, size, shared);
+		}
+
+		@Override
+		protected void implCloseChannel() throws IOException {
+			this.delegate.close();
+		}
+	}
+}
@@ -0,0 +1,178 @@
+package edu.esiea.inventorymanager.dao.memimp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import edu.esiea.inventorymanager.dao.interfaces.IStocksDao;
+import edu.esiea.inventorymanager.exception.DaoException;
+import edu.esiea.inventorymanager.exception.StaleDataException;
+import edu.esiea.inventorymanager.model.Article;
+import edu.esiea.inventorymanager.model.Command;
+import edu.esiea.inventorymanager.model.InOut;
+import edu.esiea.inventorymanager.model.Stock;
+
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class StocksDaoMemTest {
+
+	private static Stock stock;
+	private static Article article;
+	private static Command command;
+	private static Path journal;
+
+	private static final LocalDate PARAM_DATE = LocalDate.of(2025, 5, 27);
+	private static final int PARAM_QUANTITY = 100;
+	private static final String PARAM_COMMENT = "Stock initial";
+	private static final InOut PARAM_TRANSFER_TYPE = InOut.IN;
+
+	private static IStocksDao dao;
+
+	@BeforeAll
+	static void setUpBeforeClass() throws Exception {
+		article = new Article("Smartphone", "1234567890123", "Samsung", "image.jpg", 999.99f, "Un smartphone puissant");
+		command = new Command(PARAM_DATE, new ArrayList<>(), "Commande test");
+
+		journal = Files.createTempFile("stocks", ".journal");
+		DaoMemHelper.replaceInstance(DaoMemHelper.open(journal, false));
+		new ArticlesDaoMem().createArticle(article);
+		new CommandsDaoMem().createCommand(command);
+
+		stock = new Stock(PARAM_DATE, article, PARAM_QUANTITY, PARAM_TRANSFER_TYPE, PARAM_COMMENT);
+
+		dao = new StocksDaoMem();
+	}
+
+	@AfterAll
+	static void tearDownAfterClass() throws Exception {
+		stock = null;
+		article = null;
+		command = null;
+
+		DaoMemHelper.forceTestInstance();
+		Files.deleteIfExists(journal);
+	}
+
+	@Test
+	@Order(1)
+	void testCreateStock() {
+		try {
+			stock = dao.createStock(stock);
+		} catch (final DaoException e) {
+			fail("Impossible de créer le stock");
+		}
+
+		assertNotNull(stock, "Le stock n'a pas été créé !");
+		assertTrue(stock.getId() > 0, "L'ID du stock est invalide !");
+		assertEquals(article.getId(), stock.getArticle().getId(), "L'article du stock ne correspond pas.");
+	}
+
+	@Test
+	@Order(2)
+	void testGetStocksByIndexes() throws DaoException {
+		command.getStocks().add(stock);
+		new CommandsDaoMem().updateCommand(command);
+
+		assertEquals(List.of(stock.getId()), ids(dao.getStocksByArticleId(article.getId())),
+				"Le stock n'est pas retrouvé par son article !");
+		assertEquals(List.of(stock.getId()), ids(dao.getStocksByCommandId(command.getId())),
+				"Le stock n'est pas retrouvé par sa commande !");
+		assertEquals(List.of(stock.getId()), ids(dao.getStocksByTransferType(InOut.IN)),
+				"Le stock n'est pas retrouvé par son type de transfert !");
+		assertTrue(dao.getStocksByTransferType(InOut.OUT).isEmpty(), "Aucun stock sortant n'a été créé !");
+	}
+
+	@Test
+	@Order(3)
+	void testUpdateStock() throws DaoException {
+		stock.setQuantity(150);
+		stock.setTransferType(InOut.OUT);
+		dao.updateStock(stock);
+
+		Stock updatedStock = dao.getStockById(stock.getId());
+
+		assertEquals(150, updatedStock.getQuantity(), "La quantité n'a pas été mise à jour !");
+		assertEquals(List.of(stock.getId()), ids(dao.getStocksByTransferType(InOut.OUT)),
+				"L'index des types de transfert n'a pas suivi la modification !");
+		assertEquals(-150, new ArticlesDaoMem().getArticleBalance(article.getId()).getQuantity(),
+				"Le stock de l'article n'a pas suivi la modification du mouvement !");
+		assertEquals(command.getId(), new CommandsDaoMem().getCommandByStockId(stock.getId()).getId(),
+				"La modification du stock l'a détaché de sa commande !");
+	}
+
+	@Test
+	@Order(4)
+	void testUpdateStaleStock() throws DaoException {
+		Stock stale = dao.getStockById(stock.getId());
+		stale.setVersion(stale.getVersion() - 1);
+		stale.setQuantity(1);
+
+		assertThrows(StaleDataException.class, () -> dao.updateStock(stale),
+				"La modification d'un stock périmé a été acceptée !");
+		assertEquals(150, dao.getStockById(stock.getId()).getQuantity(), "Le stock périmé a été écrit !");
+	}
+
+	@Test
+	@Order(5)
+	void testReplayJournal() throws DaoException {
+		DaoMemHelper.replaceInstance(DaoMemHelper.open(journal, false));
+		dao = new StocksDaoMem();
+
+		Stock replayed = dao.getStockById(stock.getId());
+		assertNotNull(replayed, "Le stock n'a pas été rejoué depuis le journal !");
+		assertEquals(150, replayed.getQuantity(), "La quantité rejouée est incorrecte !");
+		assertEquals(stock.getVersion(), replayed.getVersion(), "La version rejouée est incorrecte !");
+		assertEquals(-150, new ArticlesDaoMem().getArticleBalance(article.getId()).getQuantity(),
+				"Le stock de l'article n'a pas été rejoué !");
+		assertEquals(List.of(stock.getId()), ids(dao.getStocksByCommandId(command.getId())),
+				"Le lien du stock à sa commande n'a pas été rejoué !");
+
+		Stock next = dao.createStock(new Stock(PARAM_DATE, article, 1, InOut.IN, PARAM_COMMENT));
+		assertTrue(next.getId() > stock.getId(), "Un ID déjà attribué a été réutilisé après la relecture !");
+	}
+
+	@Test
+	@Order(6)
+	void testAggregates() throws DaoException {
+		assertEquals(Map.of(article.getId(), -149L), dao.sumQuantityByArticle(),
+				"Le stock de l'article est incorrect !");
+		assertEquals(Map.of(article.getId(), Map.of(InOut.IN, 1L, InOut.OUT, 150L)),
+				dao.sumByArticleAndTransferType(PARAM_DATE, PARAM_DATE),
+				"Les mouvements de l'article sont incorrects !");
+		assertTrue(dao.sumByArticleAndTransferType(PARAM_DATE.plusDays(1), PARAM_DATE.plusDays(7)).isEmpty(),
+				"Des mouvements hors période ont été comptés !");
+		assertEquals(Map.of(PARAM_DATE, Map.of(InOut.IN, 1L, InOut.OUT, 150L)),
+				dao.dailyTotals(article.getId(), PARAM_DATE.minusDays(7), PARAM_DATE),
+				"Les mouvements journaliers de l'article sont incorrects !");
+	}
+
+	@Test
+	@Order(7)
+	void testDeleteCommand() throws DaoException {
+		assertTrue(new CommandsDaoMem().deleteCommandById(command.getId()), "La commande n'a pas été supprimée !");
+
+		assertNull(dao.getStockById(stock.getId()), "Les stocks de la commande n'ont pas été supprimés !");
+		assertEquals(1, new ArticlesDaoMem().getArticleBalance(article.getId()).getQuantity(),
+				"Le stock de l'article n'a pas suivi la suppression de la commande !");
+	}
+
+	private static List<Integer> ids(final List<Stock> stocks) {
+		return stocks.stream().map(Stock::getId).toList();
+	}
+}
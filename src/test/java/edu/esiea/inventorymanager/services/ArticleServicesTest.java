@@ -5,6 +5,8 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.util.List;
+
 import javax.persistence.EntityManager;
 
 import org.glassfish.jersey.server.ResourceConfig;
@@ -23,6 +25,7 @@ import edu.esiea.inventorymanager.model.Category;
 import jakarta.ws.rs.client.Entity;
 import jakarta.ws.rs.core.Application;
 import jakarta.ws.rs.core.Form;
+import jakarta.ws.rs.core.GenericType;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 
@@ -30,7 +33,7 @@ import jakarta.ws.rs.core.Response;
 class ArticleServicesTest extends JerseyTest {
 
 	private static final String PARAM_NAME_1 = "ArticleTest1";
-	private static final String PARAM_EAN13_1 = "1234567890123";
+	private static final String PARAM_EAN13_1 = "1234567890161";
 	private static final String PARAM_BRAND_1 = "BrandTest1";
 	private static final String PARAM_PICTURE_1 = "image1.jpg";
 	private static final String PARAM_PRICE_1 = "15.99";
@@ -134,6 +137,25 @@ class ArticleServicesTest extends JerseyTest {
 		assertEquals(Response.Status.NOT_FOUND.getStatusCode(), response.getStatus());
 	}
 
+	@Test
+	@Order(2)
+	void testGetArticlesByIds() {
+		final String ids = article.getId() + ",-1," + article.getId();
+		Response response = target("/article").queryParam(ArticleServices.PARAM_IDS, ids).request()
+				.accept(MediaType.APPLICATION_JSON).get();
+		assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+		List<Article> fetchedArticles = response.readEntity(new GenericType<List<Article>>() {
+		});
+		assertEquals(1, fetchedArticles.size(), "Seul l'article existant devrait être retourné, une seule fois.");
+		assertEquals(article.getName(), fetchedArticles.getFirst().getName());
+
+		response = target("/article").queryParam(ArticleServices.PARAM_IDS, "NotNumeric").request().get();
+		assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+
+		response = target("/article").request().get();
+		assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+	}
+
 	@Test
 	@Order(3)
 	void testUpdateArticle() {
@@ -0,0 +1,68 @@
+package edu.esiea.inventorymanager.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import edu.esiea.inventorymanager.dao.DaoFactory;
+import edu.esiea.inventorymanager.dao.bddimp.DaoBddHelper;
+import edu.esiea.inventorymanager.dao.bddimp.StatementCounter;
+import edu.esiea.inventorymanager.exception.DaoException;
+import edu.esiea.inventorymanager.model.Article;
+import edu.esiea.inventorymanager.model.Category;
+
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class BatchLoaderTest {
+
+	private static Category category;
+	private static Article first;
+	private static Article second;
+
+	@BeforeAll
+	static void setUpBeforeClass() throws DaoException {
+		DaoBddHelper.forceTestInstance();
+		category = DaoFactory.getInstance().getCategoriesDao()
+				.createCategory(new Category("Chargement", "Catégorie du chargeur"));
+		first = new Article("Premier", "1234567890192", "Marque", "image.jpg", 1.5f, "Premier article");
+		first.setCategory(category);
+		first = DaoFactory.getInstance().getArticlesDao().createArticle(first);
+		second = new Article("Second", "1234567890208", "Marque", "image.jpg", 2.5f, "Second article");
+		second.setCategory(category);
+		second = DaoFactory.getInstance().getArticlesDao().createArticle(second);
+	}
+
+	@AfterAll
+	static void tearDownAfterClass() throws DaoException {
+		DaoFactory.getInstance().getArticlesDao().deleteArticleById(first.getId());
+		DaoFactory.getInstance().getArticlesDao().deleteArticleById(second.getId());
+		DaoFactory.getInstance().getCategoriesDao().deleteCategory(category);
+	}
+
+	@Test
+	@Order(1)
+	void testArticlesReadOnce() throws DaoException {
+		try (StatementCounter statements = StatementCounter.install()) {
+			final BatchLoader loader = new BatchLoader();
+			final List<Article> articles = loader.articles(List.of(first.getId(), second.getId(), first.getId(), -1));
+			assertEquals(List.of(first.getId(), second.getId()), articles.stream().map(Article::getId).toList(),
+					"Les articles trouvés ne correspondent pas aux ids demandés.");
+			assertSame(articles.get(0).getCategory(), articles.get(1).getCategory(),
+					"Les articles d'une même catégorie devraient partager son instance.");
+			assertEquals(2, statements.count(),
+					"Les articles puis leurs catégories devraient être lus en une requête.");
+
+			statements.reset();
+			final List<Article> again = loader.articles(List.of(second.getId(), -1));
+			assertSame(articles.get(1), again.getFirst(), "Un article déjà chargé devrait être réutilisé.");
+			assertEquals(0, statements.count(), "Un id déjà lu ne devrait pas être relu.");
+		}
+	}
+}
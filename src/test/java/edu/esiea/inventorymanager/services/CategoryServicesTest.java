@@ -2,9 +2,13 @@ package edu.esiea.inventorymanager.services;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import javax.persistence.EntityManager;
 
 import org.glassfish.jersey.server.ResourceConfig;
@@ -16,12 +20,16 @@ import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestMethodOrder;
 
+import edu.esiea.inventorymanager.dao.DaoFactory;
 import edu.esiea.inventorymanager.dao.bddimp.DaoBddHelper;
+import edu.esiea.inventorymanager.dao.interfaces.IArticlesDao;
 import edu.esiea.inventorymanager.exception.DaoException;
+import edu.esiea.inventorymanager.model.Article;
 import edu.esiea.inventorymanager.model.Category;
 import jakarta.ws.rs.client.Entity;
 import jakarta.ws.rs.core.Application;
 import jakarta.ws.rs.core.Form;
+import jakarta.ws.rs.core.GenericType;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 
@@ -120,6 +128,48 @@ class CategoryServicesTest extends JerseyTest {
 
 	@Test
 	@Order(4)
+	void testGetCategoryArticles() throws DaoException {
+		final IArticlesDao dao = DaoFactory.getInstance().getArticlesDao();
+		final Category stored = DaoFactory.getInstance().getCategoriesDao().getCategoryById(category.getId());
+		final List<Article> articles = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			final Article article = new Article("Article " + i, "987654321000" + i, "Marque", "image.jpg", 9.99f,
+					"Article de la catégorie");
+			article.setCategory(stored);
+			articles.add(dao.createArticle(article));
+		}
+
+		Response response = target("/category/" + category.getId() + "/articles")
+				.queryParam(Pagination.PARAM_LIMIT, 2).queryParam(CategoryServices.PARAM_COUNT, true).request()
+				.accept(MediaType.APPLICATION_JSON).get();
+		assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+		assertEquals("3", response.getHeaderString(CategoryServices.HEADER_TOTAL_COUNT),
+				"Le nombre d'articles de la catégorie est incorrect.");
+		assertEquals(Integer.toString(articles.get(1).getId()),
+				response.getHeaderString(Pagination.HEADER_NEXT_CURSOR),
+				"Le curseur de la page suivante est incorrect.");
+		assertEquals(2, response.readEntity(new GenericType<List<Article>>() {
+		}).size(), "La première page devrait contenir deux articles.");
+
+		response = target("/category/" + category.getId() + "/articles")
+				.queryParam(Pagination.PARAM_AFTER, articles.get(1).getId()).request().get();
+		final List<Article> last = response.readEntity(new GenericType<List<Article>>() {
+		});
+		assertEquals(List.of(articles.get(2).getId()), last.stream().map(Article::getId).toList(),
+				"La dernière page devrait contenir le troisième article.");
+		assertNull(response.getHeaderString(CategoryServices.HEADER_TOTAL_COUNT),
+				"Le nombre d'articles ne devrait être envoyé que s'il est demandé.");
+
+		response = target("/category/-1/articles").request().get();
+		assertEquals(Response.Status.NOT_FOUND.getStatusCode(), response.getStatus());
+
+		for (final Article article : articles) {
+			dao.deleteArticleById(article.getId());
+		}
+	}
+
+	@Test
+	@Order(5)
 	void testDeleteCategory() {
 		Response response = target("/category/delete/" + category.getId()).request().delete();
 		assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
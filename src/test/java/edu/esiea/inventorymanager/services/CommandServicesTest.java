@@ -6,6 +6,8 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.persistence.EntityManager;
 
@@ -18,12 +20,21 @@ import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestMethodOrder;
 
+import edu.esiea.inventorymanager.dao.DaoFactory;
 import edu.esiea.inventorymanager.dao.bddimp.DaoBddHelper;
+import edu.esiea.inventorymanager.dao.bddimp.StatementCounter;
 import edu.esiea.inventorymanager.exception.DaoException;
+import edu.esiea.inventorymanager.model.Article;
+import edu.esiea.inventorymanager.model.Category;
 import edu.esiea.inventorymanager.model.Command;
+import edu.esiea.inventorymanager.model.CommandDetail;
+import edu.esiea.inventorymanager.model.InOut;
+import edu.esiea.inventorymanager.model.Stock;
+import edu.esiea.inventorymanager.services.providers.EntityManagerRequestListener;
 import jakarta.ws.rs.client.Entity;
 import jakarta.ws.rs.core.Application;
 import jakarta.ws.rs.core.Form;
+import jakarta.ws.rs.core.GenericType;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 
@@ -35,10 +46,14 @@ class CommandServicesTest extends JerseyTest {
 
 	private static int httpStatus;
 	private static Command command;
+	private static Article article;
+	private static final List<Article> otherArticles = new ArrayList<>();
+	private static final List<Category> categories = new ArrayList<>();
 
 	@Override
 	protected Application configure() {
-		return new ResourceConfig(CommandServices.class);
+		// each request reads through a new Entity Manager, as once deployed
+		return new ResourceConfig(CommandServices.class, EntityManagerRequestListener.class);
 	}
 
 	@BeforeAll
@@ -122,12 +137,106 @@ class CommandServicesTest extends JerseyTest {
 
 	@Test
 	@Order(4)
-	void testDeleteCommand() {
+	void testGetCommandStocks() throws DaoException {
+		article = DaoFactory.getInstance().getArticlesDao().createArticle(
+				new Article("Article commandé", "1234567890185", "Marque", "image.jpg", 9.99f, "Article de commande"));
+		final Command stored = DaoFactory.getInstance().getCommandsDao().getCommandById(command.getId(), true);
+		final List<Stock> stocks = new ArrayList<>();
+		for (int i = 1; i <= 3; i++) {
+			stocks.add(new Stock(LocalDate.now(), article, i, InOut.IN, "Stock de commande " + i));
+		}
+		DaoFactory.getInstance().getStocksDao().createStocks(stocks);
+		stored.getStocks().addAll(stocks);
+		DaoFactory.getInstance().getCommandsDao().updateCommand(stored);
+
+		Response response = target("/command/" + command.getId() + "/stocks").queryParam(Pagination.PARAM_LIMIT, 2)
+				.request().accept(MediaType.APPLICATION_JSON).get();
+		assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+		assertEquals(Integer.toString(stocks.get(1).getId()), response.getHeaderString(Pagination.HEADER_NEXT_CURSOR),
+				"Le curseur de la page suivante est incorrect.");
+		final List<Stock> first = response.readEntity(new GenericType<List<Stock>>() {
+		});
+		assertEquals(List.of(stocks.get(0).getId(), stocks.get(1).getId()), first.stream().map(Stock::getId).toList(),
+				"La première page devrait contenir les deux premiers stocks de la commande.");
+		assertEquals(article.getId(), first.get(0).getArticle().getId(), "L'article du stock n'a pas été chargé.");
+
+		response = target("/command/" + command.getId() + "/stocks")
+				.queryParam(Pagination.PARAM_AFTER, stocks.get(1).getId()).request().get();
+		assertEquals(List.of(stocks.get(2).getId()), response.readEntity(new GenericType<List<Stock>>() {
+		}).stream().map(Stock::getId).toList(), "La dernière page devrait contenir le troisième stock.");
+
+		response = target("/command/-1/stocks").request().get();
+		assertEquals(Response.Status.NOT_FOUND.getStatusCode(), response.getStatus());
+	}
+
+	@Test
+	@Order(5)
+	void testGetCommandDetail() {
+		Response response = target("/command/" + command.getId() + "/detail").request()
+				.accept(MediaType.APPLICATION_JSON).get();
+		assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+		final CommandDetail detail = response.readEntity(CommandDetail.class);
+		assertEquals(command.getId(), detail.id(), "Le détail ne correspond pas à la commande demandée.");
+		assertEquals(3, detail.stocks().size(), "Le détail devrait contenir les trois stocks de la commande.");
+		for (final Stock stock : detail.stocks()) {
+			assertEquals(article.getId(), stock.getArticle().getId(), "L'article du stock n'a pas été chargé.");
+		}
+
+		response = target("/command/-1/detail").request().get();
+		assertEquals(Response.Status.NOT_FOUND.getStatusCode(), response.getStatus());
+	}
+
+	@Test
+	@Order(6)
+	void testGetCommandDetailStatements() throws DaoException {
+		final Command stored = DaoFactory.getInstance().getCommandsDao().getCommandById(command.getId(), true);
+		final String[] ean13s = { "1234567890253", "1234567890260" };
+		final List<Stock> stocks = new ArrayList<>();
+		for (final String ean13 : ean13s) {
+			final Category category = DaoFactory.getInstance().getCategoriesDao()
+					.createCategory(new Category("Catégorie " + ean13, "Catégorie commandée"));
+			categories.add(category);
+			final Article other = new Article("Article " + ean13, ean13, "Marque", "image.jpg", 4.99f, "Autre article");
+			other.setCategory(category);
+			otherArticles.add(DaoFactory.getInstance().getArticlesDao().createArticle(other));
+			stocks.add(new Stock(LocalDate.now(), other, 1, InOut.IN, "Stock " + ean13));
+		}
+		DaoFactory.getInstance().getStocksDao().createStocks(stocks);
+		stored.getStocks().addAll(stocks);
+		DaoFactory.getInstance().getCommandsDao().updateCommand(stored);
+
+		try (StatementCounter statements = StatementCounter.install()) {
+			final Response response = target("/command/" + command.getId() + "/detail").request()
+					.accept(MediaType.APPLICATION_JSON).get();
+			assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+			final CommandDetail detail = response.readEntity(CommandDetail.class);
+			assertEquals(5, detail.stocks().size(), "Le détail devrait contenir les cinq stocks de la commande.");
+			assertEquals(categories.stream().map(Category::getId).toList(),
+					detail.stocks().stream().filter(s -> s.getArticle().getCategory() != null)
+							.map(s -> s.getArticle().getCategory().getId()).toList(),
+					"La catégorie des articles n'a pas été chargée.");
+			// the Command, then its Stocks joined to their Article and its Category
+			assertEquals(2, statements.count(),
+					"Le détail devrait être lu en deux requêtes, quel que soit son contenu.");
+		}
+	}
+
+	@Test
+	@Order(7)
+	void testDeleteCommand() throws DaoException {
 		Response response = target("/command/delete/" + command.getId()).request().delete();
 		assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
 
 		response = target("/command/" + command.getId()).request().get();
 		assertEquals(Response.Status.NOT_FOUND.getStatusCode(), response.getStatus());
+
+		DaoFactory.getInstance().getArticlesDao().deleteArticleById(article.getId());
+		for (final Article other : otherArticles) {
+			DaoFactory.getInstance().getArticlesDao().deleteArticleById(other.getId());
+		}
+		for (final Category category : categories) {
+			DaoFactory.getInstance().getCategoriesDao().deleteCategory(category);
+		}
 	}
 
 	private void callUpdateService(final String id, final String date, final String comment) {
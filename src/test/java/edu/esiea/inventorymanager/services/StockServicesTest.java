@@ -2,10 +2,14 @@ package edu.esiea.inventorymanager.services;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.io.StringReader;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.persistence.EntityManager;
 
@@ -18,12 +22,20 @@ import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestMethodOrder;
 
+import edu.esiea.inventorymanager.dao.DaoFactory;
 import edu.esiea.inventorymanager.dao.bddimp.DaoBddHelper;
 import edu.esiea.inventorymanager.exception.DaoException;
+import edu.esiea.inventorymanager.model.Article;
+import edu.esiea.inventorymanager.model.Command;
+import edu.esiea.inventorymanager.model.InOut;
 import edu.esiea.inventorymanager.model.Stock;
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
 import jakarta.ws.rs.client.Entity;
 import jakarta.ws.rs.core.Application;
 import jakarta.ws.rs.core.Form;
+import jakarta.ws.rs.core.GenericType;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 
@@ -38,6 +50,8 @@ class StockServicesTest extends JerseyTest {
 
 	private static int httpStatus;
 	private static Stock stock;
+	private static Article batchArticle;
+	private static Command batchCommand;
 
 	@Override
 	protected Application configure() {
@@ -51,6 +65,10 @@ class StockServicesTest extends JerseyTest {
 
 	@AfterAll
 	static void tearDownAfterClass() throws DaoException {
+		if (batchCommand != null) {
+			DaoFactory.getInstance().getCommandsDao().deleteCommandById(batchCommand.getId());
+			DaoFactory.getInstance().getArticlesDao().deleteArticleById(batchArticle.getId());
+		}
 		EntityManager m = DaoBddHelper.getInstance().getEntityManager();
 		if (m.isOpen()) {
 			m.clear();
@@ -146,6 +164,148 @@ class StockServicesTest extends JerseyTest {
 		assertEquals(Response.Status.NOT_FOUND.getStatusCode(), response.getStatus());
 	}
 
+	@Test
+	@Order(5)
+	void testAddStockAsync() throws DaoException, InterruptedException {
+		final Article article = DaoFactory.getInstance().getArticlesDao()
+				.createArticle(new Article("ArticleAsync", "1234567890178", "Marque", "image.jpg", 9.99f, "Article"));
+		final Command command = DaoFactory.getInstance().getCommandsDao()
+				.createCommand(new Command(LocalDate.now(), new ArrayList<>(), "Commande asynchrone"));
+
+		final Form formulaire = new Form();
+		formulaire.param(StockServices.PARAM_STOCK_DATE, PARAM_DATE);
+		formulaire.param(StockServices.PARAM_STOCK_ARTICLE_ID, Integer.toString(article.getId()));
+		formulaire.param(StockServices.PARAM_STOCK_QUANTITY, PARAM_QUANTITY);
+		formulaire.param(StockServices.PARAM_STOCK_TRANSFER_TYPE, PARAM_TRANSFER_TYPE);
+		formulaire.param(StockServices.PARAM_STOCK_COMMENT, PARAM_COMMENT);
+		formulaire.param("CommandId", Integer.toString(command.getId()));
+
+		final Response response = target("/stock/add").queryParam(StockServices.PARAM_ASYNC, "true").request()
+				.accept(MediaType.APPLICATION_JSON).post(Entity.form(formulaire));
+		assertEquals(Response.Status.ACCEPTED.getStatusCode(), response.getStatus(),
+				"Le status devrait être ACCEPTED.");
+		assertTrue(response.readEntity(Long.class) > 0, "Le ticket du stock est incorrect.");
+
+		assertTrue(StockWriteBehind.getInstance().awaitWritten(5000), "Le stock n'a pas été écrit à temps.");
+		DaoBddHelper.getInstance().closeEntityManager();
+		assertEquals(1, DaoFactory.getInstance().getStocksDao().getStocksByArticleId(article.getId()).size(),
+				"Le stock mis en file d'attente n'a pas été enregistré.");
+		assertEquals(1, DaoFactory.getInstance().getCommandsDao().getCommandById(command.getId(), true).getStocks()
+				.size(), "Le stock n'a pas été rattaché à sa commande.");
+	}
+
+	@Test
+	@Order(6)
+	void testGetEmptyStocksPage() {
+		final Response response = target("/stock/all").queryParam(Pagination.PARAM_AFTER, Integer.MAX_VALUE)
+				.request().accept(MediaType.APPLICATION_JSON).get();
+		assertEquals(Response.Status.OK.getStatusCode(), response.getStatus(), "Le status devrait être OK.");
+		assertNull(response.getHeaderString(Pagination.HEADER_NEXT_CURSOR), "Une page vide n'a pas de suivante.");
+		assertEquals(0, response.readEntity(new GenericType<List<Stock>>() {
+		}).size(), "La page devrait être vide.");
+	}
+
+	@Test
+	@Order(7)
+	void testExportStocks() throws DaoException {
+		final Article article = DaoFactory.getInstance().getArticlesDao()
+				.createArticle(new Article("ArticleExport", "1234567890239", "Marque", "image.jpg", 9.99f, "Article"));
+		try {
+			for (final int quantity : new int[] { 3, 5, 8 }) {
+				DaoFactory.getInstance().getStocksDao().createStock(
+						new Stock(LocalDate.now(), article, quantity, InOut.IN, "Ligne \"exportée\"\n" + quantity));
+			}
+
+			final Response response = target("/stock/export").request().accept(StockServices.MEDIA_TYPE_NDJSON).get();
+			assertEquals(Response.Status.OK.getStatusCode(), response.getStatus(), "Le status devrait être OK.");
+			final List<JsonObject> lines = new ArrayList<>();
+			for (final String line : response.readEntity(String.class).split("\n")) {
+				try (JsonReader reader = Json.createReader(new StringReader(line))) {
+					lines.add(reader.readObject());
+				}
+			}
+			final List<JsonObject> exported = lines.stream()
+					.filter(line -> !line.isNull("articleId") && line.getInt("articleId") == article.getId()).toList();
+			assertEquals(List.of(3, 5, 8), exported.stream().map(line -> line.getInt("quantity")).sorted().toList(),
+					"Les lignes exportées ne correspondent pas aux stocks de l'article.");
+			for (final JsonObject line : exported) {
+				assertEquals("Ligne \"exportée\"\n" + line.getInt("quantity"), line.getString("comment"),
+						"Le commentaire exporté est incorrect.");
+				assertEquals(InOut.IN.name(), line.getString("transferType"), "Le type exporté est incorrect.");
+			}
+		} finally {
+			DaoFactory.getInstance().getArticlesDao().deleteArticleById(article.getId());
+		}
+	}
+
+	@Test
+	@Order(8)
+	void testAddStocksBatch() throws DaoException {
+		batchArticle = DaoFactory.getInstance().getArticlesDao()
+				.createArticle(new Article("ArticleLot", "1234567890246", "Marque", "image.jpg", 9.99f, "Article"));
+		batchCommand = DaoFactory.getInstance().getCommandsDao()
+				.createCommand(new Command(LocalDate.now(), new ArrayList<>(), "Commande par lot"));
+		final String articleId = Integer.toString(batchArticle.getId());
+
+		final Response response = callBatchService(articleId, "4", "IN", articleId, "1", "OUT");
+		assertEquals(Response.Status.CREATED.getStatusCode(), response.getStatus(),
+				"Le status devrait être CREATED.");
+		assertEquals(2, response.readEntity(new GenericType<List<Integer>>() {
+		}).size(), "Le lot devrait renvoyer l'ID de chacun de ses stocks.");
+
+		DaoBddHelper.getInstance().closeEntityManager();
+		assertEquals(2, DaoFactory.getInstance().getStocksDao().getStocksByArticleId(batchArticle.getId()).size(),
+				"Les stocks du lot n'ont pas été enregistrés.");
+		assertEquals(2, DaoFactory.getInstance().getCommandsDao().getCommandById(batchCommand.getId(), true)
+				.getStocks().size(), "Les stocks du lot n'ont pas été rattachés à la commande.");
+		assertEquals(3, DaoFactory.getInstance().getArticlesDao().getArticleBalance(batchArticle.getId())
+				.getQuantity(), "Le stock de l'article ne tient pas compte du lot.");
+	}
+
+	@Test
+	@Order(9)
+	void testAddEmptyStocksBatch() {
+		assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), callBatchService().getStatus(),
+				"Un lot vide devrait être refusé.");
+	}
+
+	@Test
+	@Order(10)
+	void testAddStocksBatchWithInvalidArticle() throws DaoException {
+		final String articleId = Integer.toString(batchArticle.getId());
+
+		final Response response = callBatchService(articleId, "6", "IN", Integer.toString(Integer.MAX_VALUE), "2",
+				"IN");
+		assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus(),
+				"Un lot avec un article inconnu devrait être refusé.");
+
+		DaoBddHelper.getInstance().closeEntityManager();
+		assertEquals(2, DaoFactory.getInstance().getStocksDao().getStocksByArticleId(batchArticle.getId()).size(),
+				"Une partie du lot refusé a été enregistrée.");
+		assertEquals(3, DaoFactory.getInstance().getArticlesDao().getArticleBalance(batchArticle.getId())
+				.getQuantity(), "Le lot refusé a modifié le stock de l'article.");
+	}
+
+	/**
+	 * Posts a batch to the command of the batch tests.
+	 *
+	 * @param lines article id, quantity and transfer type of each stock
+	 */
+	private Response callBatchService(final String... lines) {
+		final Form formulaire = new Form();
+		if (batchCommand != null) {
+			formulaire.param("CommandId", Integer.toString(batchCommand.getId()));
+		}
+		for (int i = 0; i < lines.length; i += 3) {
+			formulaire.param(StockServices.PARAM_STOCK_DATE, PARAM_DATE);
+			formulaire.param(StockServices.PARAM_STOCK_ARTICLE_ID, lines[i]);
+			formulaire.param(StockServices.PARAM_STOCK_QUANTITY, lines[i + 1]);
+			formulaire.param(StockServices.PARAM_STOCK_TRANSFER_TYPE, lines[i + 2]);
+			formulaire.param(StockServices.PARAM_STOCK_COMMENT, PARAM_COMMENT);
+		}
+		return target("/stock/batch").request().accept(MediaType.APPLICATION_JSON).post(Entity.form(formulaire));
+	}
+
 	private void callUpdateService(final String id, final String date, final String articleId, final String quantity,
 			final String transferType, final String comment) {
 		final Form formulaire = new Form();
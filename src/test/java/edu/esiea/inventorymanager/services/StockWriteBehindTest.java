@@ -0,0 +1,52 @@
+package edu.esiea.inventorymanager.services;
+
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import edu.esiea.inventorymanager.dao.bddimp.DaoBddHelper;
+import edu.esiea.inventorymanager.exception.DaoException;
+import edu.esiea.inventorymanager.model.InOut;
+
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class StockWriteBehindTest {
+
+	@BeforeAll
+	static void setUpBeforeClass() throws DaoException {
+		DaoBddHelper.forceTestInstance();
+	}
+
+	@AfterAll
+	static void tearDownAfterClass() {
+		StockWriteBehind.shutdown();
+	}
+
+	@Test
+	@Order(1)
+	void testNewWriterAfterInterrupt() throws InterruptedException {
+		final StockWriteBehind interrupted = StockWriteBehind.getInstance();
+		Thread.getAllStackTraces().keySet().stream().filter(t -> "stock-write-behind".equals(t.getName()))
+				.forEach(Thread::interrupt);
+
+		StockWriteBehind current = StockWriteBehind.getInstance();
+		final long deadline = System.currentTimeMillis() + 5000;
+		while (current == interrupted && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+			current = StockWriteBehind.getInstance();
+		}
+		assertNotSame(interrupted, current, "Un nouvel écrivain aurait dû remplacer celui qui a été interrompu.");
+
+		// the ids are unknown : the movement is accepted, then skipped by the writer
+		assertTrue(current.submit(-1, LocalDate.now(), -1, 1, InOut.IN, "Après interruption") > 0,
+				"Le stock devrait être accepté après l'interruption de l'écrivain.");
+		assertTrue(current.awaitWritten(5000), "Le stock accepté n'a pas été traité à temps.");
+	}
+}